@@ -0,0 +1,222 @@
+package com.example.forum.cache;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.QuestionListener;
+import com.example.forum.service.QuestionService;
+import com.example.forum.service.ReplyLog;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Cache of the JSON encoding of {@link Question}s with their replies, so that a question read far more often
+ * than it is replied to is only serialized once per reply.
+ * <p>
+ * Entries are keyed by questionId and tagged with the number of replies they contain, which is the version of
+ * a question (see {@link QuestionService#getVersion(Question)}). A lookup only hits an entry of the question's current
+ * version, and a reply drops the question's entry, so a stale encoding is never returned. The cache is bounded
+ * by the total size of the encodings; when it is exceeded entries are evicted in CLOCK order, giving entries
+ * read since the hand last passed them a second chance. Reads don't lock.
+ */
+@ManagedResource(objectName = "com.example.forum:type=QuestionResponseCache", description = "Serialized question responses")
+public class QuestionResponseCache implements QuestionListener {
+
+    /**
+     * Approximate bytes used by an entry besides its encoding.
+     */
+    static final int ENTRY_OVERHEAD = 64;
+
+    private final ObjectMapper objectMapper;
+
+    private final long maxBytes;
+
+    private final long maxEntryBytes;
+
+    private final ConcurrentHashMap<Long, EncodedQuestion> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong sizeInBytes = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * Clock hand going round entries, guarded by evictionLock.
+     */
+    private Iterator<EncodedQuestion> hand = Collections.emptyIterator();
+
+    /**
+     * @param objectMapper mapper encoding questions, configured like the one writing responses
+     * @param maxBytes total size of the cached entries above which entries are evicted, 0 to disable caching
+     * @param maxEntryBytes size above which an encoding isn't cached
+     */
+    public QuestionResponseCache(ObjectMapper objectMapper, long maxBytes, long maxEntryBytes) {
+        this.objectMapper = objectMapper;
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+    }
+
+    /**
+     * Returns the JSON encoding of question with its replies, from the cache if the cached encoding has every
+     * reply of question.
+     *
+     * @param question question to encode, with a {@link ReplyLog} of replies
+     * @return JSON encoding of question along with its version, at least the version question had when called
+     * @throws JsonProcessingException if question can't be encoded
+     */
+    public EncodedQuestion get(Question question) throws JsonProcessingException {
+        Long questionId = question.getId();
+        List<Reply> replies = question.getReplies();
+        // The snapshot pins the version, replies appended while encoding are left to the next version.
+        List<Reply> snapshot = replies instanceof ReplyLog ? ((ReplyLog) replies).snapshot() : replies;
+        int version = snapshot == null ? 0 : snapshot.size();
+        EncodedQuestion entry = entries.get(questionId);
+        if(entry != null && entry.version == version) {
+            entry.referenced = true;
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        byte[] json = objectMapper.writeValueAsBytes(Question.builder()
+                .id(questionId).author(question.getAuthor()).message(question.getMessage()).replies(snapshot)
+                .build());
+        EncodedQuestion encoded = new EncodedQuestion(questionId, version, json);
+        if(encoded.size() <= maxEntryBytes)
+            put(encoded);
+        return encoded;
+    }
+
+    /**
+     * Drops the entry of the question replied to, its next read encodes it with the new reply.
+     */
+    @Override
+    public void replyAdded(Question question, Reply reply) {
+        EncodedQuestion removed = entries.remove(question.getId());
+        if(removed != null)
+            sizeInBytes.addAndGet(-removed.size());
+    }
+
+    @ManagedAttribute(description = "Lookups answered from the cache")
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @ManagedAttribute(description = "Lookups which encoded the question")
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @ManagedAttribute(description = "Entries evicted to stay within the size limit")
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @ManagedAttribute(description = "Approximate size of the cached entries in bytes")
+    public long getSizeInBytes() {
+        return sizeInBytes.get();
+    }
+
+    @ManagedAttribute(description = "Number of cached entries")
+    public int getEntryCount() {
+        return entries.size();
+    }
+
+    @ManagedAttribute(description = "Size of the cached entries above which entries are evicted")
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Caches entry unless a newer version is cached already, then evicts entries until the cache fits.
+     */
+    private void put(EncodedQuestion entry) {
+        EncodedQuestion[] replaced = new EncodedQuestion[1];
+        EncodedQuestion current = entries.compute(entry.questionId, (questionId, existing) -> {
+            if(existing != null && existing.version >= entry.version)
+                return existing;
+            replaced[0] = existing;
+            return entry;
+        });
+        if(current != entry)
+            return;
+        long size = sizeInBytes.addAndGet(entry.size() - (replaced[0] == null ? 0 : replaced[0].size()));
+        if(size > maxBytes)
+            evict();
+    }
+
+    private void evict() {
+        evictionLock.lock();
+        try {
+            while(sizeInBytes.get() > maxBytes && !entries.isEmpty()) {
+                if(!hand.hasNext()) {
+                    hand = entries.values().iterator();
+                    continue;
+                }
+                EncodedQuestion entry = hand.next();
+                if(entry.referenced) {
+                    entry.referenced = false;
+                } else if(entries.remove(entry.questionId, entry)) {
+                    sizeInBytes.addAndGet(-entry.size());
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * JSON encoding of a question with the replies of one version.
+     */
+    public static final class EncodedQuestion {
+
+        private final Long questionId;
+
+        private final int version;
+
+        private final byte[] json;
+
+        /**
+         * Set on every hit and cleared when the clock hand passes the entry.
+         */
+        private volatile boolean referenced;
+
+        EncodedQuestion(Long questionId, int version, byte[] json) {
+            this.questionId = questionId;
+            this.version = version;
+            this.json = json;
+        }
+
+        /**
+         * @return version of the encoded question, its number of replies
+         */
+        public int getVersion() {
+            return version;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        long size() {
+            return json.length + ENTRY_OVERHEAD;
+        }
+
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.example.forum.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.forum.cache.QuestionResponseCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Configuration of the caches in front of the datastore.
+ */
+@Configuration
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+public class CacheConfig {
+
+    /**
+     * Bean definition for the {@link QuestionResponseCache}, encoding with the same {@link ObjectMapper} as the
+     * other responses. Being a listener of the service, it is dropped from when a question is replied to.
+     */
+    @Bean
+    public QuestionResponseCache questionResponseCache(ObjectMapper objectMapper, ResponseCacheProperties properties) {
+        return new QuestionResponseCache(objectMapper, properties.getMaxSize().toBytes(), properties.getMaxEntrySize().toBytes());
+    }
+
+}
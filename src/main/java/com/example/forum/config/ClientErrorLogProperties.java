@@ -0,0 +1,28 @@
+package com.example.forum.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.example.forum.exception.ClientErrorLog;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of the {@link ClientErrorLog} bound from forum.client-error-log.* properties.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "forum.client-error-log")
+public class ClientErrorLogProperties {
+
+    /**
+     * Maximum number of client errors logged per second, 0 to log none. Every error is counted regardless.
+     */
+    private int maxPerSecond = 10;
+
+    /**
+     * One in sampleOneIn client errors is considered for logging, 1 to consider every error.
+     */
+    private int sampleOneIn = 1;
+
+}
@@ -0,0 +1,25 @@
+package com.example.forum.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.forum.feed.FeedBus;
+
+/**
+ * Configuration of the live feed of new questions and replies.
+ */
+@Configuration
+@EnableConfigurationProperties(FeedProperties.class)
+public class FeedConfig {
+
+    /**
+     * Bean definition for the {@link FeedBus}. Being a listener of the service, it receives every saved question and reply.
+     */
+    @Bean(destroyMethod = "close")
+    public FeedBus feedBus(FeedProperties properties) {
+        return new FeedBus(properties.getBufferSize(), properties.getDeliveryThreads(), properties.getSlowConsumerPolicy(),
+                properties.getMaxPendingEvents(), properties.getHeartbeatInterval(), properties.getSendTimeout());
+    }
+
+}
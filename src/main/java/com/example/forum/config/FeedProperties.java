@@ -0,0 +1,56 @@
+package com.example.forum.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.example.forum.feed.FeedBus;
+import com.example.forum.feed.SlowConsumerPolicy;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of the {@link FeedBus} and its SSE streams bound from forum.feed.* properties.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "forum.feed")
+public class FeedProperties {
+
+    /**
+     * Events buffered per subscriber before the slow consumer policy applies.
+     */
+    private int bufferSize = 256;
+
+    /**
+     * What to do with a subscriber whose buffer is full.
+     */
+    private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.DISCONNECT;
+
+    /**
+     * Threads sending events to subscribers.
+     */
+    private int deliveryThreads = 4;
+
+    /**
+     * Events waiting to be dispatched above which new events are dropped.
+     */
+    private int maxPendingEvents = 65536;
+
+    /**
+     * Interval between heartbeats keeping idle streams open.
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    /**
+     * Time after which a subscriber not reading the event being sent to it is disconnected, 0 for no limit.
+     */
+    private Duration sendTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Time after which a stream is ended, the client reconnecting.
+     */
+    private Duration timeout = Duration.ofMinutes(30);
+
+}
@@ -0,0 +1,28 @@
+package com.example.forum.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.forum.exception.ClientErrorLog;
+import com.example.forum.exception.ExceptionAdvice;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Configuration of the logs written besides the ones of the logging configuration.
+ */
+@Configuration
+@EnableConfigurationProperties(ClientErrorLogProperties.class)
+public class LoggingConfig {
+
+    /**
+     * Bean definition for the {@link ClientErrorLog} of the {@link ExceptionAdvice}, sampled and rate limited
+     * by forum.client-error-log.*.
+     */
+    @Bean
+    public ClientErrorLog clientErrorLog(ClientErrorLogProperties properties, MeterRegistry meterRegistry) {
+        return new ClientErrorLog(properties.getMaxPerSecond(), properties.getSampleOneIn(), meterRegistry);
+    }
+
+}
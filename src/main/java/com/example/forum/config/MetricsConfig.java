@@ -0,0 +1,40 @@
+package com.example.forum.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.forum.metrics.CacheMetrics;
+import com.example.forum.metrics.ForumMetrics;
+import com.example.forum.service.CachingQuestionStore;
+import com.example.forum.service.QuestionService;
+import com.example.forum.service.QuestionStore;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Configuration of the metrics of the forum, besides the forum.service timers of {@link QuestionService},
+ * the forum.errors counters of the exception advice and the http.server.requests timers of every endpoint
+ * which Spring Boot records. All of them are served by Actuator on management.server.port.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Bean definition for the {@link ForumMetrics}, counting the questions and replies it is told about as a
+     * listener of the service.
+     */
+    @Bean
+    public ForumMetrics forumMetrics() {
+        return new ForumMetrics();
+    }
+
+    /**
+     * Bean definition for the {@link CacheMetrics} of the datastore when it is a {@link CachingQuestionStore},
+     * binding nothing otherwise.
+     */
+    @Bean
+    public MeterBinder cacheMetrics(QuestionStore questionStore) {
+        return questionStore instanceof CachingQuestionStore ? new CacheMetrics((CachingQuestionStore) questionStore) : registry -> { };
+    }
+
+}
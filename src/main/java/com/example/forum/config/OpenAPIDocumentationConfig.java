@@ -1,79 +1,46 @@
 package com.example.forum.config;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springdoc.core.models.GroupedOpenApi;
 import org.springframework.boot.autoconfigure.web.servlet.error.BasicErrorController;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.util.UriComponentsBuilder;
 
-import springfox.documentation.builders.ApiInfoBuilder;
-import springfox.documentation.builders.RequestHandlerSelectors;
-import springfox.documentation.service.ApiInfo;
-import springfox.documentation.service.Contact;
-import springfox.documentation.spi.DocumentationType;
-import springfox.documentation.spring.web.paths.Paths;
-import springfox.documentation.spring.web.paths.RelativePathProvider;
-import springfox.documentation.spring.web.plugins.Docket;
-import springfox.documentation.swagger2.annotations.EnableSwagger2;
-
-import javax.servlet.ServletContext;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.info.Contact;
+import io.swagger.v3.oas.models.info.Info;
+import io.swagger.v3.oas.models.info.License;
 
 /**
- * {@link Docket} configuration for showing swagger UI. 
+ * Springdoc configuration for showing swagger UI.
  */
 @Configuration
-@EnableSwagger2
 public class OpenAPIDocumentationConfig {
 
     /**
      * Adding static information that will be displayed on Swagger UI.
      */
-    ApiInfo apiInfo() {
-        return new ApiInfoBuilder()
+    @Bean
+    public OpenAPI forumOpenAPI() {
+        return new OpenAPI().info(new Info()
             .title("Forum API")
             .description("This is a sample forum server")
-            .license("Apache 2.0")
-            .licenseUrl("http://www.apache.org/licenses/LICENSE-2.0.html")
-            .termsOfServiceUrl("")
+            .license(new License().name("Apache 2.0").url("http://www.apache.org/licenses/LICENSE-2.0.html"))
+            .termsOfService("")
             .version("1.0.0")
-            .contact(new Contact("","", "jaswalkiranavtar@gmail.com"))
-            .build();
+            .contact(new Contact().email("jaswalkiranavtar@gmail.com")));
     }
 
     /**
-     * Bean definition for {@link Docket} which is the primary interface into the Springfox framework.
-     * 
-     * Setting package to scan for controller so that it doesn't show {@link BasicErrorController} on Swagger UI. 
+     * Bean definition for the documented {@link GroupedOpenApi}.
+     *
+     * Setting package to scan for controller so that it doesn't show {@link BasicErrorController} on Swagger UI.
      */
     @Bean
-    public Docket customImplementation(ServletContext servletContext, @Value("${openapi.forum.base-path:/v2}") String basePath) {
-        return new Docket(DocumentationType.SWAGGER_2)
-            .select()
-            .apis(RequestHandlerSelectors.basePackage("com.example.forum.controller"))
-            .build()
-            .pathProvider(new BasePathAwareRelativePathProvider(servletContext, basePath))
-            .apiInfo(apiInfo());
-    }
-
-    class BasePathAwareRelativePathProvider extends RelativePathProvider {
-        private String basePath;
-
-        public BasePathAwareRelativePathProvider(ServletContext servletContext, String basePath) {
-            super(servletContext);
-            this.basePath = basePath;
-        }
-
-        @Override
-        protected String applicationPath() {
-            return  Paths.removeAdjacentForwardSlashes(UriComponentsBuilder.fromPath(super.applicationPath()).path(basePath).build().toString());
-        }
-
-        @Override
-        public String getOperationPath(String operationPath) {
-            UriComponentsBuilder uriComponentsBuilder = UriComponentsBuilder.fromPath("/");
-            return Paths.removeAdjacentForwardSlashes(
-                    uriComponentsBuilder.path(operationPath.replaceFirst("^" + basePath, "")).build().toString());
-        }
+    public GroupedOpenApi forumApi() {
+        return GroupedOpenApi.builder()
+            .group("forum")
+            .packagesToScan("com.example.forum.controller")
+            .build();
     }
 
 }
@@ -0,0 +1,53 @@
+package com.example.forum.config;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.forum.persistence.SnapshotStore;
+import com.example.forum.persistence.WriteAheadLog;
+import com.example.forum.service.QuestionService;
+import com.example.forum.service.Snapshotter;
+
+/**
+ * Configuration of the durable storage backing the in-memory datastore of {@link QuestionService}.
+ */
+@Configuration
+@EnableConfigurationProperties({WriteAheadLogProperties.class, SnapshotProperties.class})
+public class PersistenceConfig {
+
+    /**
+     * Bean definition for the {@link WriteAheadLog}, created only when forum.wal.enabled is true.
+     * {@link QuestionService} replays it on startup.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "forum.wal", name = "enabled", havingValue = "true")
+    public WriteAheadLog writeAheadLog(WriteAheadLogProperties properties) throws IOException {
+        return WriteAheadLog.open(Paths.get(properties.getDirectory()), properties.getDurability(),
+                properties.getSegmentSize().toBytes(), properties.getFlushInterval());
+    }
+
+    /**
+     * Bean definition for the {@link SnapshotStore}, created only when forum.snapshot.enabled is true.
+     * {@link QuestionService} loads the newest snapshot on startup before replaying the log.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "forum.snapshot", name = "enabled", havingValue = "true")
+    public SnapshotStore snapshotStore(SnapshotProperties properties) throws IOException {
+        return SnapshotStore.open(Paths.get(properties.getDirectory()), properties.getRetain());
+    }
+
+    /**
+     * Bean definition for the {@link Snapshotter} writing snapshots every forum.snapshot.interval.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(prefix = "forum.snapshot", name = "enabled", havingValue = "true")
+    public Snapshotter snapshotter(QuestionService questionService, SnapshotProperties properties) {
+        return new Snapshotter(questionService, properties.getInterval());
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.example.forum.config;
+
+import jakarta.validation.Validator;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+
+import com.example.forum.cache.QuestionResponseCache;
+import com.example.forum.controller.ReactiveQuestionHandler;
+import com.example.forum.exception.ExceptionAdvice;
+import com.example.forum.service.QuestionService;
+import com.example.forum.service.QuestionStoreType;
+import com.example.forum.service.ReactiveQuestionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Configuration of the reactive API, created only when forum.reactive.enabled is true. It is served by its
+ * own Netty server on forum.reactive.port, since a Spring Boot application runs either a servlet or a
+ * reactive web server, and shares the {@link QuestionService} of the servlet API.
+ */
+@Configuration
+@EnableConfigurationProperties(ReactiveProperties.class)
+@ConditionalOnProperty(prefix = "forum.reactive", name = "enabled", havingValue = "true")
+public class ReactiveConfig {
+
+    /**
+     * Bean definition for the {@link ReactiveQuestionService}. Writes always run on the bounded elastic
+     * scheduler, reads only with the JPA store which blocks on the database.
+     */
+    @Bean
+    public ReactiveQuestionService reactiveQuestionService(QuestionService questionService, StoreProperties storeProperties) {
+        Scheduler blocking = Schedulers.boundedElastic();
+        return new ReactiveQuestionService(questionService, blocking,
+                storeProperties.getType() == QuestionStoreType.JPA ? blocking : Schedulers.immediate());
+    }
+
+    @Bean
+    public ReactiveQuestionHandler reactiveQuestionHandler(ReactiveQuestionService reactiveQuestionService, QuestionResponseCache questionResponseCache,
+            Validator validator, ExceptionAdvice exceptionAdvice) {
+        return new ReactiveQuestionHandler(reactiveQuestionService, questionResponseCache, validator, exceptionAdvice);
+    }
+
+    /**
+     * Bean definition for the Netty {@link WebServer} of the reactive API, encoding JSON with the
+     * {@link ObjectMapper} of the servlet API.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public WebServer reactiveWebServer(ReactiveQuestionHandler reactiveQuestionHandler, ObjectMapper objectMapper, ReactiveProperties properties) {
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        return new NettyReactiveWebServerFactory(properties.getPort())
+                .getWebServer(RouterFunctions.toHttpHandler(reactiveQuestionHandler.routes(), strategies));
+    }
+
+}
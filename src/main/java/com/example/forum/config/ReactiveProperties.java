@@ -0,0 +1,28 @@
+package com.example.forum.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.example.forum.controller.ReactiveQuestionHandler;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of the reactive API of {@link ReactiveQuestionHandler} bound from forum.reactive.* properties.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "forum.reactive")
+public class ReactiveProperties {
+
+    /**
+     * Whether the reactive API is served besides the servlet API.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Port of the Netty server of the reactive API.
+     */
+    private int port = 5003;
+
+}
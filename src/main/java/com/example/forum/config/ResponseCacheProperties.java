@@ -0,0 +1,29 @@
+package com.example.forum.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import com.example.forum.cache.QuestionResponseCache;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of the {@link QuestionResponseCache} bound from forum.response-cache.* properties.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "forum.response-cache")
+public class ResponseCacheProperties {
+
+    /**
+     * Total size of the cached responses above which the least recently read ones are evicted. 0 disables the cache.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Size above which a response isn't cached.
+     */
+    private DataSize maxEntrySize = DataSize.ofMegabytes(4);
+
+}
@@ -0,0 +1,25 @@
+package com.example.forum.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.forum.search.SearchIndex;
+
+/**
+ * Configuration of the full-text search over questions and replies.
+ */
+@Configuration
+@EnableConfigurationProperties(SearchProperties.class)
+public class SearchConfig {
+
+    /**
+     * Bean definition for the {@link SearchIndex}. Being a listener of the service, it indexes every saved and
+     * recovered question and reply.
+     */
+    @Bean
+    public SearchIndex searchIndex(SearchProperties properties) {
+        return new SearchIndex(properties.getMaxQueryPostings());
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.example.forum.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.example.forum.search.SearchIndex;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of the {@link SearchIndex} bound from forum.search.* properties.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "forum.search")
+public class SearchProperties {
+
+    /**
+     * Most postings a query decodes before returning the best threads of the newest documents only.
+     */
+    private int maxQueryPostings = 65536;
+
+}
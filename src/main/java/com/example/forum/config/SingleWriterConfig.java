@@ -0,0 +1,29 @@
+package com.example.forum.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.forum.service.QuestionService;
+import com.example.forum.service.WriteRing;
+
+/**
+ * Configuration of the single writer of {@link QuestionService}, created only when forum.single-writer.enabled
+ * is true.
+ */
+@Configuration
+@EnableConfigurationProperties(SingleWriterProperties.class)
+@ConditionalOnProperty(prefix = "forum.single-writer", name = "enabled", havingValue = "true")
+public class SingleWriterConfig {
+
+    /**
+     * Bean definition for the {@link WriteRing} of the writer, started once {@link QuestionService} has
+     * recovered its datastore and stopped on shutdown, after the pending writes are applied.
+     */
+    @Bean(destroyMethod = "stop")
+    public WriteRing<?> writeRing(QuestionService questionService, SingleWriterProperties properties) {
+        return questionService.startSingleWriter(properties.getCapacity(), properties.getMaxBatch());
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.example.forum.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.example.forum.service.QuestionService;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of the single writer of {@link QuestionService} bound from forum.single-writer.* properties.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "forum.single-writer")
+public class SingleWriterProperties {
+
+    /**
+     * Whether writes are applied by a single writer thread rather than by the request threads.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Number of writes waiting for the writer before request threads wait for a free slot, a power of 2.
+     */
+    private int capacity = 4096;
+
+    /**
+     * Maximum number of writes applied, and logged, at once.
+     */
+    private int maxBatch = 256;
+
+}
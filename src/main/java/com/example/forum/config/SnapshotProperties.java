@@ -0,0 +1,41 @@
+package com.example.forum.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.example.forum.persistence.SnapshotStore;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of the {@link SnapshotStore} bound from forum.snapshot.* properties.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "forum.snapshot")
+public class SnapshotProperties {
+
+    /**
+     * Whether snapshots are taken periodically and loaded on startup. Requires the write-ahead log.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Directory holding the snapshot files, relative to the working directory unless absolute.
+     */
+    private String directory = Path.of("data", "snapshots").toString();
+
+    /**
+     * Interval between two snapshots.
+     */
+    private Duration interval = Duration.ofMinutes(10);
+
+    /**
+     * Number of newest snapshots kept, along with the write-ahead log segments needed to replay from the oldest of them.
+     */
+    private int retain = 2;
+
+}
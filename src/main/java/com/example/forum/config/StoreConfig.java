@@ -0,0 +1,78 @@
+package com.example.forum.config;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.forum.service.ArrayQuestionStore;
+import com.example.forum.service.AuthorDictionary;
+import com.example.forum.service.CachingQuestionStore;
+import com.example.forum.service.JpaQuestionStore;
+import com.example.forum.service.OffHeapQuestionStore;
+import com.example.forum.service.PersistentQuestionStore;
+import com.example.forum.service.PostEncoder;
+import com.example.forum.service.QuestionService;
+import com.example.forum.service.QuestionStore;
+import com.example.forum.service.ShardedQuestionStore;
+import com.example.forum.service.SkipListQuestionStore;
+
+/**
+ * Configuration of the in-memory datastore of {@link QuestionService}.
+ */
+@Configuration
+@EnableConfigurationProperties(StoreProperties.class)
+public class StoreConfig {
+
+    /**
+     * Bean definition for the {@link AuthorDictionary} shared by the datastore and the saved posts.
+     */
+    @Bean
+    public AuthorDictionary authorDictionary() {
+        return new AuthorDictionary();
+    }
+
+    /**
+     * Bean definition for the {@link PostEncoder} building the saved questions and replies, keeping their
+     * messages as UTF-8 bytes when forum.store.compact-messages is true.
+     */
+    @Bean
+    public PostEncoder postEncoder(AuthorDictionary authorDictionary, StoreProperties properties) {
+        return new PostEncoder(authorDictionary, properties.isCompactMessages());
+    }
+
+    /**
+     * Bean definition for the {@link QuestionStore} of forum.store.type. It is filled by
+     * {@link QuestionService} on startup from the snapshot and the write-ahead log, except for the JPA store
+     * which saves to the database of spring.datasource.*. The JPA store is wrapped in a
+     * {@link CachingQuestionStore} of forum.store.cache-size questions, unless it is 0. The SHARDED store has
+     * forum.store.shards shards.
+     */
+    @Bean
+    public QuestionStore questionStore(AuthorDictionary authorDictionary, StoreProperties properties,
+            ObjectProvider<EntityManagerFactory> entityManagerFactory) throws IOException {
+        switch(properties.getType()) {
+        case JPA:
+            JpaQuestionStore jpaStore = new JpaQuestionStore(entityManagerFactory.getObject());
+            return properties.getCacheSize() > 0 ? new CachingQuestionStore(jpaStore, properties.getCacheSize()) : jpaStore;
+        case SKIP_LIST:
+            return new SkipListQuestionStore();
+        case SHARDED:
+            return new ShardedQuestionStore(properties.getShards(), properties.getMaxIdSkew());
+        case PERSISTENT:
+            return new PersistentQuestionStore();
+        case OFF_HEAP:
+            String directory = properties.getDirectory();
+            return new OffHeapQuestionStore(Math.toIntExact(properties.getSlabSize().toBytes()),
+                    directory == null || directory.isEmpty() ? null : Paths.get(directory), authorDictionary);
+        default:
+            return new ArrayQuestionStore();
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.example.forum.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import com.example.forum.service.QuestionStore;
+import com.example.forum.service.QuestionStoreType;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of the {@link QuestionStore} bound from forum.store.* properties.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "forum.store")
+public class StoreProperties {
+
+    /**
+     * Implementation keeping the questions in memory.
+     */
+    private QuestionStoreType type = QuestionStoreType.ARRAY;
+
+    /**
+     * Number of shards of the SHARDED store, each with its own map and id counters.
+     */
+    private int shards = 16;
+
+    /**
+     * Most a question or reply id of the SHARDED store may be below one handed out before, which a client paging
+     * by id reads again to miss nothing.
+     */
+    private long maxIdSkew = 1024;
+
+    /**
+     * Whether the messages of questions and replies are kept on the heap as UTF-8 bytes rather than strings,
+     * saving heap at the cost of decoding them on every read.
+     */
+    private boolean compactMessages = false;
+
+    /**
+     * Size of the buffers the OFF_HEAP store allocates at once.
+     */
+    private DataSize slabSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Directory of the memory mapped files of the OFF_HEAP store, direct buffers are allocated if empty.
+     */
+    private String directory = "";
+
+    /**
+     * Number of questions the JPA store keeps in memory after reading them from the database, 0 to read every
+     * question from the database.
+     */
+    private int cacheSize = 10000;
+
+}
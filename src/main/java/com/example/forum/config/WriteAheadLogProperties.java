@@ -0,0 +1,48 @@
+package com.example.forum.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import com.example.forum.persistence.DurabilityMode;
+import com.example.forum.persistence.WriteAheadLog;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of the {@link WriteAheadLog} bound from forum.wal.* properties.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "forum.wal")
+public class WriteAheadLogProperties {
+
+    /**
+     * Whether questions and replies are logged and recovered on startup.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Directory holding the log segment files, relative to the working directory unless absolute.
+     */
+    private String directory = Path.of("data", "wal").toString();
+
+    /**
+     * When appended records are forced to disk.
+     */
+    private DurabilityMode durability = DurabilityMode.BATCHED;
+
+    /**
+     * Size after which a new segment file is started.
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Interval between background flushes in ASYNC durability mode.
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+}
@@ -0,0 +1,132 @@
+package com.example.forum.controller;
+
+import static com.example.forum.controller.QuestionController.DEFAULT_PAGE_LIMIT;
+import static com.example.forum.controller.QuestionController.MAX_PAGE_LIMIT;
+import static com.example.forum.controller.QuestionController.NEXT_CURSOR_HEADER;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.forum.model.CursorPage;
+import com.example.forum.model.Error;
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.AuthorIndex;
+import com.example.forum.service.QuestionService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.headers.Header;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+/**
+ * Listings of the questions and replies of an author, read from the {@link AuthorIndex}.
+ */
+@Validated
+@RestController
+@RequestMapping("/v2")
+public class AuthorController {
+
+    QuestionService questionService;
+
+    AuthorIndex authorIndex;
+
+    public AuthorController(final QuestionService questionService, final AuthorIndex authorIndex) {
+        this.questionService = questionService;
+        this.authorIndex = authorIndex;
+    }
+
+    /**
+     * GET /authors/{author}/questions : Get a page of the questions of an author ordered by id
+     * Only the requested page is read, so the cost depends on the size of the page and not on the number of
+     * questions of the author or of the forum.
+     *
+     * @param author author of the questions, matched exactly (required)
+     * @param limit maximum number of questions in the page (optional, default to 100)
+     * @param after id of the last question already seen, the page starts after it (optional)
+     * @param cursor opaque cursor from the X-Next-Cursor header of the previous page, takes precedence over after (optional)
+     * @return successful operation (status code 200)
+     *         or Bad Request (status code 400)
+     *         or No Content (status code 204)
+     */
+    @Operation(summary = "Get a page of the questions of an author ordered by id", operationId = "getQuestionsByAuthor", description = "Questions are returned with their replies.", tags = {"question"})
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = Question.class))), headers = {
+            @Header(name = NEXT_CURSOR_HEADER, description = "Opaque cursor of the next page, missing on the last page", schema = @Schema(implementation = String.class)),
+            @Header(name = HttpHeaders.LINK, description = "Link to the next page with rel=\"next\", missing on the last page", schema = @Schema(implementation = String.class))}),
+        @ApiResponse(responseCode = "400", description = "Bad Request", content = @Content(schema = @Schema(implementation = Error.class))),
+        @ApiResponse(responseCode = "204", description = "No Content")})
+    @GetMapping(value = "/authors/{author}/questions", produces = {"application/json"})
+    public ResponseEntity<List<Question>> getQuestionsByAuthor(
+            @Parameter(description = "Author of the questions", required = true) @PathVariable("author") String author,
+            @Parameter(description = "Maximum number of questions in the page") @Min(1) @Max(MAX_PAGE_LIMIT) @RequestParam(value = "limit", defaultValue = DEFAULT_PAGE_LIMIT) int limit,
+            @Parameter(description = "Id of the last question already seen, the page starts after it") @RequestParam(value = "after", required = false) Long after,
+            @Parameter(description = "Opaque cursor from the X-Next-Cursor header of the previous page") @RequestParam(value = "cursor", required = false) String cursor) {
+
+        Long afterId = cursor != null ? Long.valueOf(CursorCodec.decode(cursor)) : after;
+        CursorPage<Long> ids = authorIndex.getQuestionIds(author, afterId, limit);
+        List<Question> questions = new ArrayList<>(ids.getItems().size());
+        for(Long id : ids.getItems())
+            questions.add(questionService.getQuestionById(id));
+        return pageResponse(new CursorPage<>(questions, ids.getNextAfter()), limit);
+
+    }
+
+    /**
+     * GET /authors/{author}/replies : Get a page of the replies of an author ordered by id
+     * Replies to every question are listed, each with the questionId it answers. Only the requested page is
+     * read, so the cost depends on the size of the page and not on the number of replies of the author or of
+     * the forum.
+     *
+     * @param author author of the replies, matched exactly (required)
+     * @param limit maximum number of replies in the page (optional, default to 100)
+     * @param after id of the last reply already seen, the page starts after it (optional)
+     * @param cursor opaque cursor from the X-Next-Cursor header of the previous page, takes precedence over after (optional)
+     * @return successful operation (status code 200)
+     *         or Bad Request (status code 400)
+     *         or No Content (status code 204)
+     */
+    @Operation(summary = "Get a page of the replies of an author ordered by id", operationId = "getRepliesByAuthor", description = "Replies to every question, each with the questionId it answers.", tags = {"question"})
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = Reply.class))), headers = {
+            @Header(name = NEXT_CURSOR_HEADER, description = "Opaque cursor of the next page, missing on the last page", schema = @Schema(implementation = String.class)),
+            @Header(name = HttpHeaders.LINK, description = "Link to the next page with rel=\"next\", missing on the last page", schema = @Schema(implementation = String.class))}),
+        @ApiResponse(responseCode = "400", description = "Bad Request", content = @Content(schema = @Schema(implementation = Error.class))),
+        @ApiResponse(responseCode = "204", description = "No Content")})
+    @GetMapping(value = "/authors/{author}/replies", produces = {"application/json"})
+    public ResponseEntity<List<Reply>> getRepliesByAuthor(
+            @Parameter(description = "Author of the replies", required = true) @PathVariable("author") String author,
+            @Parameter(description = "Maximum number of replies in the page") @Min(1) @Max(MAX_PAGE_LIMIT) @RequestParam(value = "limit", defaultValue = DEFAULT_PAGE_LIMIT) int limit,
+            @Parameter(description = "Id of the last reply already seen, the page starts after it") @RequestParam(value = "after", required = false) Long after,
+            @Parameter(description = "Opaque cursor from the X-Next-Cursor header of the previous page") @RequestParam(value = "cursor", required = false) String cursor) {
+
+        Long afterId = cursor != null ? Long.valueOf(CursorCodec.decode(cursor)) : after;
+        return pageResponse(authorIndex.getReplies(author, afterId, limit), limit);
+
+    }
+
+    private static <T> ResponseEntity<List<T>> pageResponse(CursorPage<T> page, int limit) {
+        HttpStatus status = HttpStatus.OK;
+        if(page.getItems().isEmpty())
+            status = HttpStatus.NO_CONTENT;
+        return new ResponseEntity<>(page.getItems(), QuestionController.nextPageHeaders(page, limit, "after"), status);
+    }
+
+}
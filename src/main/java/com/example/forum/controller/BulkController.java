@@ -0,0 +1,216 @@
+package com.example.forum.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Validator;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.forum.model.CursorPage;
+import com.example.forum.model.Error;
+import com.example.forum.model.ImportSummary;
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.QuestionService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+/**
+ * Bulk export and import of the whole forum as newline delimited JSON, one question with its replies per line.
+ * Both directions stream: export serializes one question at a time straight to the response and import
+ * saves the questions read from the request in batches of bounded size, so neither holds more than a batch
+ * in memory whatever the size of the forum or of the file. Reading the request only as fast as batches are
+ * saved pushes back on the client through TCP flow control.
+ */
+@RestController
+@RequestMapping("/v2")
+public class BulkController {
+
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    /**
+     * Questions read from the datastore at a time while exporting.
+     */
+    static final int EXPORT_PAGE_SIZE = 1000;
+
+    /**
+     * Questions and replies buffered before being saved while importing.
+     */
+    static final int IMPORT_BATCH_SIZE = 1000;
+
+    /**
+     * Rejected lines whose errors are reported, the others are only counted.
+     */
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    QuestionService questionService;
+
+    ObjectMapper objectMapper;
+
+    Validator validator;
+
+    public BulkController(final QuestionService questionService, final ObjectMapper objectMapper, final Validator validator) {
+        this.questionService = questionService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    /**
+     * GET /questions:export : Export every question with its replies
+     * Questions are written in id order as they are read, questions saved during the export are included if
+     * their id is greater than the last one written.
+     *
+     * @param response response the questions are written to
+     * @throws IOException if the response can't be written
+     */
+    @Operation(summary = "Export every question with its replies", operationId = "exportQuestions", description = "Newline delimited JSON, one question with its replies per line in id order.", tags = {"question"})
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "every question", content = @Content(array = @ArraySchema(schema = @Schema(implementation = Question.class))))})
+    @GetMapping(value = "/questions:export", produces = {APPLICATION_NDJSON_VALUE})
+    public void exportQuestions(HttpServletResponse response) throws IOException {
+
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writerFor(Question.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null);
+        Long afterId = null;
+        CursorPage<Question> page;
+        do {
+            page = questionService.getQuestions(afterId, EXPORT_PAGE_SIZE);
+            for(Question question : page.getItems()) {
+                writer.writeValue(generator, question);
+                generator.writeRaw('\n');
+            }
+            afterId = page.getNextAfter();
+        } while(page.hasNext());
+        generator.close();
+
+    }
+
+    /**
+     * POST /questions:import : Import questions with their replies
+     * Every line is saved as a new question with new ids, followed by its replies in order. Invalid lines are
+     * skipped and reported, a line which isn't JSON stops the import.
+     *
+     * @param body newline delimited JSON questions, each with its replies (required)
+     * @return what was imported (status code 200)
+     *         or Bad Request if a line isn't JSON, the lines before it being imported (status code 400)
+     * @throws IOException if the request can't be read
+     */
+    @Operation(summary = "Import questions with their replies", operationId = "importQuestions", description = "Newline delimited JSON, one question with its replies per line. Every question and reply gets a new id. Invalid lines are skipped and reported, a line which isn't JSON stops the import.", tags = {"question"})
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "what was imported", content = @Content(schema = @Schema(implementation = ImportSummary.class))),
+        @ApiResponse(responseCode = "400", description = "a line isn't JSON, the lines before it are imported", content = @Content(schema = @Schema(implementation = ImportSummary.class)))})
+    @PostMapping(value = "/questions:import", produces = {"application/json"}, consumes = {APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ImportSummary> importQuestions(@Parameter(description = "Newline delimited JSON questions, each with its replies", required = true) InputStream body) throws IOException {
+
+        Importer importer = new Importer();
+        HttpStatus status = HttpStatus.OK;
+        try (MappingIterator<Question> lines = objectMapper.readerFor(Question.class).readValues(body)) {
+            while(lines.hasNextValue()) {
+                int line = lines.getCurrentLocation().getLineNr();
+                importer.add(lines.nextValue(), line);
+            }
+        } catch (JsonProcessingException e) {
+            int line = e.getLocation() == null ? -1 : e.getLocation().getLineNr();
+            importer.reject(line, Collections.singletonList(Error.builder().objectName("Request Body").message(e.getOriginalMessage()).build()));
+            status = HttpStatus.BAD_REQUEST;
+        }
+        importer.save();
+        return new ResponseEntity<>(importer.summary(), status);
+
+    }
+
+    /**
+     * Buffers valid questions until IMPORT_BATCH_SIZE questions and replies are waiting, then saves them
+     * with one batch of questions and one batch of replies per question.
+     */
+    private class Importer {
+
+        private final List<Question> pending = new ArrayList<>();
+
+        private int pendingItems;
+
+        private long questions;
+
+        private long replies;
+
+        private long rejected;
+
+        private final List<Error> errors = new ArrayList<>();
+
+        void add(Question question, int line) {
+            if(question == null) {
+                reject(line, Collections.singletonList(Error.builder().message("Question should not be null").build()));
+                return;
+            }
+            List<Error> lineErrors = validator.validate(question).stream()
+                    .map(violation -> QuestionController.toError(violation, "question"))
+                    .collect(Collectors.toList());
+            if(!lineErrors.isEmpty()) {
+                reject(line, lineErrors);
+                return;
+            }
+            pending.add(question);
+            pendingItems += 1 + (question.getReplies() == null ? 0 : question.getReplies().size());
+            if(pendingItems >= IMPORT_BATCH_SIZE)
+                save();
+        }
+
+        void reject(int line, List<Error> lineErrors) {
+            rejected++;
+            for(Error error : lineErrors) {
+                if(errors.size() >= MAX_REPORTED_ERRORS)
+                    return;
+                errors.add(Error.builder()
+                        .fieldName(error.getFieldName()).objectName("line " + line).rejectedValue(error.getRejectedValue()).message(error.getMessage())
+                        .build());
+            }
+        }
+
+        void save() {
+            if(pending.isEmpty())
+                return;
+            List<Question> saved = questionService.addQuestions(pending);
+            questions += saved.size();
+            for(int i = 0; i < saved.size(); i++) {
+                List<Reply> questionReplies = pending.get(i).getReplies();
+                if(questionReplies != null && !questionReplies.isEmpty())
+                    replies += questionService.addReplies(saved.get(i).getId(), questionReplies).size();
+            }
+            pending.clear();
+            pendingItems = 0;
+        }
+
+        ImportSummary summary() {
+            return ImportSummary.builder().questions(questions).replies(replies).rejected(rejected).errors(errors).build();
+        }
+
+    }
+
+}
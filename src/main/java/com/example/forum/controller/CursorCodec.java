@@ -0,0 +1,42 @@
+package com.example.forum.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.example.forum.exception.InvalidCursorException;
+
+/**
+ * Encodes the keyset position of a page into an opaque cursor handed out to clients and back.
+ */
+final class CursorCodec {
+
+    private static final String PREFIX = "v1:";
+
+    private CursorCodec() {
+    }
+
+    /**
+     * @param after key of the last item returned to the client
+     * @return url safe opaque cursor
+     */
+    static String encode(long after) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((PREFIX + after).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor cursor previously returned by {@link #encode(long)}
+     * @return key of the last item returned to the client
+     * @throws InvalidCursorException if the cursor is malformed
+     */
+    static long decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if(!decoded.startsWith(PREFIX))
+                throw new InvalidCursorException(cursor);
+            return Long.parseLong(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+}
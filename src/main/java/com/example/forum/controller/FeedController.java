@@ -0,0 +1,99 @@
+package com.example.forum.controller;
+
+import java.time.Duration;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.forum.config.FeedProperties;
+import com.example.forum.feed.FeedBus;
+import com.example.forum.model.Error;
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.QuestionService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+/**
+ * Server-Sent Events streams of new questions and replies, pushed from the {@link FeedBus} instead of being polled.
+ */
+@RestController
+@RequestMapping("/v2")
+public class FeedController {
+
+    QuestionService questionService;
+
+    FeedBus feedBus;
+
+    Duration timeout;
+
+    public FeedController(final QuestionService questionService, final FeedBus feedBus, final FeedProperties feedProperties) {
+        this.questionService = questionService;
+        this.feedBus = feedBus;
+        this.timeout = feedProperties.getTimeout();
+    }
+
+    /**
+     * GET /questions/feed : Stream of new questions
+     * Sends a "question" event with the JSON of every question created after connecting.
+     *
+     * @return stream of new questions (status code 200)
+     */
+    @Operation(summary = "Stream of new questions", operationId = "getQuestionFeed", description = "Server-Sent Events stream with a \"question\" event per new question, its id being the questionId. The stream ends when the client is too slow to keep up, reconnect and page through GET /questions to catch up.", tags = {"question"})
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "stream of new questions", content = @Content(schema = @Schema(implementation = Question.class)))})
+    @GetMapping(value = "/questions/feed", produces = {MediaType.TEXT_EVENT_STREAM_VALUE})
+    public SseEmitter getQuestionFeed() {
+
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        register(emitter, feedBus.subscribeToQuestions(new SseEmitterSink(emitter)));
+        return emitter;
+
+    }
+
+    /**
+     * GET /questions/{questionId}/feed : Stream of new replies to a question
+     * Sends a "reply" event with the JSON of every reply to the question posted after connecting.
+     *
+     * @param questionId ID of question whose replies are streamed (required)
+     * @return stream of new replies (status code 200)
+     *         or Bad Request (status code 400)
+     *         or Not Found (status code 404)
+     */
+    @Operation(summary = "Stream of new replies to a question", operationId = "getReplyFeed", description = "Server-Sent Events stream with a \"reply\" event per new reply to the question, its id being the replyId. The stream ends when the client is too slow to keep up, reconnect and read GET /questions/{questionId}/replies after the last id received to catch up.", tags = {"question"})
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "stream of new replies", content = @Content(schema = @Schema(implementation = Reply.class))),
+        @ApiResponse(responseCode = "400", description = "Bad Request", content = @Content(schema = @Schema(implementation = Error.class))),
+        @ApiResponse(responseCode = "404", description = "Not Found")})
+    @GetMapping(value = "/questions/{questionId}/feed", produces = {MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<SseEmitter> getReplyFeed(@Parameter(description = "ID of question whose replies are streamed", required = true) @PathVariable("questionId") Long questionId) {
+
+        if(questionService.getQuestionById(questionId) == null)
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        register(emitter, feedBus.subscribeToReplies(questionId, new SseEmitterSink(emitter)));
+        return new ResponseEntity<>(emitter, HttpStatus.OK);
+
+    }
+
+    /**
+     * Cancels subscription once the stream ends, whichever side ends it.
+     */
+    private static void register(SseEmitter emitter, FeedBus.Subscription subscription) {
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(error -> subscription.cancel());
+    }
+
+}
@@ -1,10 +1,19 @@
 package com.example.forum.controller;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
-import javax.validation.Valid;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,27 +21,56 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.example.forum.cache.QuestionResponseCache;
+import com.example.forum.exception.InvalidBatchSizeException;
+import com.example.forum.model.BatchItemResult;
+import com.example.forum.model.CursorPage;
 import com.example.forum.model.Error;
 import com.example.forum.model.Question;
 import com.example.forum.model.Reply;
 import com.example.forum.service.QuestionService;
+import com.fasterxml.jackson.core.JsonProcessingException;
 
-import io.swagger.annotations.ApiOperation;
-import io.swagger.annotations.ApiParam;
-import io.swagger.annotations.ApiResponse;
-import io.swagger.annotations.ApiResponses;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.headers.Header;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
 @Validated
 @RestController
 @RequestMapping("/v2")
 public class QuestionController {
 
+    /**
+     * Response header carrying the opaque cursor of the next page.
+     */
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    static final String DEFAULT_PAGE_LIMIT = "100";
+
+    static final int MAX_PAGE_LIMIT = 1000;
+
+    static final int MAX_BATCH_SIZE = 1000;
+
     QuestionService questionService;
 
-    public QuestionController(final QuestionService questionService) {
+    QuestionResponseCache questionResponseCache;
+
+    Validator validator;
+
+    public QuestionController(final QuestionService questionService, final QuestionResponseCache questionResponseCache, final Validator validator) {
         this.questionService = questionService;
+        this.questionResponseCache = questionResponseCache;
+        this.validator = validator;
     }
 
     /**
@@ -42,59 +80,156 @@ public class QuestionController {
      * @return question created (status code 201)
      *         or Bad Request (status code 400)
      */
-    @ApiOperation(value = "Create a new question", nickname = "addQuestion", notes = "", response = Question.class, tags = {"question"})
+    @Operation(summary = "Create a new question", operationId = "addQuestion", tags = {"question"})
     @ApiResponses(value = { 
-        @ApiResponse(code = 201, message = "question created", response = Question.class),
-        @ApiResponse(code = 400, message = "Bad Request", response = Error.class)})
+        @ApiResponse(responseCode = "201", description = "question created", content = @Content(schema = @Schema(implementation = Question.class))),
+        @ApiResponse(responseCode = "400", description = "Bad Request", content = @Content(schema = @Schema(implementation = Error.class)))})
     @PostMapping(value = "/questions", produces = {"application/json"}, consumes = {"application/json"})
-    public ResponseEntity<Question> addQuestion(@ApiParam(value = "Question to be asked in the forum", required = true) @Valid @RequestBody Question body) {
+    public ResponseEntity<Question> addQuestion(@Parameter(description = "Question to be asked in the forum", required = true) @Valid @RequestBody Question body) {
 
         return new ResponseEntity<>(questionService.addQuestion(body), HttpStatus.CREATED);
     }
 
     /**
-     * GET /questions : Get a list of questions
+     * POST /questions:batch : Create several questions at once
+     * Valid questions are saved together, with a single fsync of the write-ahead log, while invalid ones are
+     * reported without failing the others.
      *
+     * @param body Questions to be asked in the forum, at most 1000 (required)
+     * @return outcome of every question in request order (status code 200)
+     *         or Bad Request if the batch is empty or too large (status code 400)
+     */
+    @Operation(summary = "Create several questions at once", operationId = "addQuestions", description = "Each item of the response holds the outcome of the question at the same position: status 201 and the saved question, or status 400 and the errors.", tags = {"question"})
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "outcome of every question", content = @Content(array = @ArraySchema(schema = @Schema(implementation = BatchItemResult.class)))),
+        @ApiResponse(responseCode = "400", description = "Bad Request", content = @Content(schema = @Schema(implementation = Error.class)))})
+    @PostMapping(value = "/questions:batch", produces = {"application/json"}, consumes = {"application/json"})
+    public ResponseEntity<List<BatchItemResult<Question>>> addQuestions(
+            @Parameter(description = "Questions to be asked in the forum", required = true) @RequestBody List<Question> body) {
+
+        List<List<Error>> errors = validateAll(body, "question");
+        List<Question> saved = questionService.addQuestions(accepted(body, errors));
+        return ResponseEntity.ok(results(errors, saved));
+
+    }
+
+    /**
+     * GET /questions : Get a page of questions ordered by id
+     *
+     * @param limit maximum number of questions in the page (optional, default to 100)
+     * @param after id of the last question already seen, the page starts after it (optional)
+     * @param cursor opaque cursor from the X-Next-Cursor header of the previous page, takes precedence over after (optional)
+     * @param webRequest request whose If-None-Match header is checked against the version of the datastore
      * @return successful operation (status code 200)
+     *         or Bad Request (status code 400)
      *         or No Content (status code 204)
+     *         or Not Modified if nothing was saved since the ETag in If-None-Match (status code 304)
      */
-    @ApiOperation(value = "Get a list of questions", nickname = "getAllQuestions", notes = "", response = Question.class, responseContainer = "List", tags = {"question"})
+    @Operation(summary = "Get a page of questions ordered by id", operationId = "getAllQuestions", tags = {"question"})
     @ApiResponses(value = { 
-        @ApiResponse(code = 200, message = "successful operation", response = Question.class, responseContainer = "List"),
-        @ApiResponse(code = 400, message = "Bad Request", response = Error.class),
-        @ApiResponse(code = 204, message = "No Content")})
+        @ApiResponse(responseCode = "200", description = "successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = Question.class))), headers = {
+            @Header(name = NEXT_CURSOR_HEADER, description = "Opaque cursor of the next page, missing on the last page", schema = @Schema(implementation = String.class)),
+            @Header(name = HttpHeaders.LINK, description = "Link to the next page with rel=\"next\", missing on the last page", schema = @Schema(implementation = String.class)),
+            @Header(name = HttpHeaders.ETAG, description = "Version of the datastore, send it in If-None-Match to get 304 while nothing is saved", schema = @Schema(implementation = String.class))}),
+        @ApiResponse(responseCode = "400", description = "Bad Request", content = @Content(schema = @Schema(implementation = Error.class))),
+        @ApiResponse(responseCode = "204", description = "No Content"),
+        @ApiResponse(responseCode = "304", description = "Not Modified")})
     @GetMapping(value = "/questions", produces = {"application/json"})
-    public ResponseEntity<List<Question>> getAllQuestions() {
+    public ResponseEntity<List<Question>> getAllQuestions(
+            @Parameter(description = "Maximum number of questions in the page") @Min(1) @Max(MAX_PAGE_LIMIT) @RequestParam(value = "limit", defaultValue = DEFAULT_PAGE_LIMIT) int limit,
+            @Parameter(description = "Id of the last question already seen, the page starts after it") @RequestParam(value = "after", required = false) Long after,
+            @Parameter(description = "Opaque cursor from the X-Next-Cursor header of the previous page") @RequestParam(value = "cursor", required = false) String cursor,
+            WebRequest webRequest) {
 
-        List<Question> allQuestions = questionService.getAllQuestions();
+        // Read before the page, so the page is at least as new as the ETag.
+        if(webRequest.checkNotModified(etag(questionService.getStoreVersion())))
+            return null;
+        Long afterId = cursor != null ? Long.valueOf(CursorCodec.decode(cursor)) : after;
+        CursorPage<Question> page = questionService.getQuestions(afterId, limit);
         HttpStatus status = HttpStatus.OK;
-        if(allQuestions.isEmpty())
+        if(page.getItems().isEmpty())
             status = HttpStatus.NO_CONTENT;
-        return new ResponseEntity<>(allQuestions, status);
+        return new ResponseEntity<>(page.getItems(), nextPageHeaders(page, limit, "after"), status);
 
     }
 
     /**
      * GET /questions/{questionId} : Find thread by ID
-     * Returns the question along with all its replies
+     * Returns the question along with all its replies. The JSON body comes from {@link QuestionResponseCache}
+     * and is written as is.
      *
      * @param questionId ID of questionId to return (required)
+     * @param webRequest request whose If-None-Match header is checked against the version of the question
      * @return question created (status code 200)
      *         or Not Found (status code 404)
+     *         or Not Modified if the question wasn't replied to since the ETag in If-None-Match (status code 304)
      */
-    @ApiOperation(value = "Find thread by ID", nickname = "getQuestionById", notes = "Returns the question along with all its replies", response = Question.class, tags = {"question"})
+    @Operation(summary = "Find thread by ID", operationId = "getQuestionById", description = "Returns the question along with all its replies", tags = {"question"})
     @ApiResponses(value = { 
-        @ApiResponse(code = 200, message = "question created", response = Question.class),
-        @ApiResponse(code = 400, message = "Bad Request", response = Error.class),
-        @ApiResponse(code = 404, message = "Not Found")})
+        @ApiResponse(responseCode = "200", description = "question created", content = @Content(schema = @Schema(implementation = Question.class)), headers = {
+            @Header(name = HttpHeaders.ETAG, description = "Version of the question, send it in If-None-Match to get 304 while it isn't replied to", schema = @Schema(implementation = String.class))}),
+        @ApiResponse(responseCode = "304", description = "Not Modified"),
+        @ApiResponse(responseCode = "400", description = "Bad Request", content = @Content(schema = @Schema(implementation = Error.class))),
+        @ApiResponse(responseCode = "404", description = "Not Found")})
     @GetMapping(value = "/questions/{questionId}", produces = {"application/json"})
-    public ResponseEntity<Question> getQuestionById(@ApiParam(value = "ID of questionId to return", required = true) @PathVariable("questionId") Long questionId) {
+    public ResponseEntity<byte[]> getQuestionById(@Parameter(description = "ID of questionId to return", required = true) @PathVariable("questionId") Long questionId,
+            WebRequest webRequest) throws JsonProcessingException {
 
         Question question = questionService.getQuestionById(questionId);
-        HttpStatus status = HttpStatus.OK;
         if(question == null)
-            status = HttpStatus.NOT_FOUND;
-        return new ResponseEntity<>(question, status);
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        if(webRequest.checkNotModified(etag(questionService.getVersion(question))))
+            return null;
+        // Replies may have been added since the check, the ETag is the version actually encoded.
+        QuestionResponseCache.EncodedQuestion encoded = questionResponseCache.get(question);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).eTag(etag(encoded.getVersion())).body(encoded.getJson());
+
+    }
+
+    /**
+     * GET /questions/{questionId}/replies : Get the replies to a question following a reply
+     * Lets clients polling a thread fetch only the new replies. The X-Next-Cursor header is sent even on the
+     * last page, polling with it returns the replies posted since.
+     *
+     * @param questionId ID of question whose replies are returned (required)
+     * @param limit maximum number of replies in the page (optional, default to 100)
+     * @param afterReplyId id of the last reply already seen, the page starts after it (optional)
+     * @param cursor opaque cursor from the X-Next-Cursor header of the previous page, takes precedence over afterReplyId (optional)
+     * @return successful operation (status code 200)
+     *         or Bad Request (status code 400)
+     *         or No Content if there is no reply following afterReplyId (status code 204)
+     *         or Not Found (status code 404)
+     */
+    @Operation(summary = "Get the replies to a question following a reply", operationId = "getReplies", description = "Replies are ordered by id. Poll with the X-Next-Cursor header to get only the replies posted since the previous page.", tags = {"question"})
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "successful operation", content = @Content(array = @ArraySchema(schema = @Schema(implementation = Reply.class))), headers = {
+            @Header(name = NEXT_CURSOR_HEADER, description = "Opaque cursor following the last reply returned, also sent on the last page to poll for new replies", schema = @Schema(implementation = String.class)),
+            @Header(name = HttpHeaders.LINK, description = "Link to the next page with rel=\"next\", missing on the last page", schema = @Schema(implementation = String.class))}),
+        @ApiResponse(responseCode = "204", description = "No Content", headers = {
+            @Header(name = NEXT_CURSOR_HEADER, description = "Opaque cursor to poll for new replies with", schema = @Schema(implementation = String.class))}),
+        @ApiResponse(responseCode = "400", description = "Bad Request", content = @Content(schema = @Schema(implementation = Error.class))),
+        @ApiResponse(responseCode = "404", description = "Not Found")})
+    @GetMapping(value = "/questions/{questionId}/replies", produces = {"application/json"})
+    public ResponseEntity<List<Reply>> getReplies(
+            @Parameter(description = "ID of question whose replies are returned", required = true) @PathVariable("questionId") Long questionId,
+            @Parameter(description = "Maximum number of replies in the page") @Min(1) @Max(MAX_PAGE_LIMIT) @RequestParam(value = "limit", defaultValue = DEFAULT_PAGE_LIMIT) int limit,
+            @Parameter(description = "Id of the last reply already seen, the page starts after it") @RequestParam(value = "afterReplyId", required = false) Long afterReplyId,
+            @Parameter(description = "Opaque cursor from the X-Next-Cursor header of the previous page") @RequestParam(value = "cursor", required = false) String cursor) {
+
+        long afterId = cursor != null ? CursorCodec.decode(cursor) : afterReplyId != null ? afterReplyId : 0;
+        CursorPage<Reply> page = questionService.getReplies(questionId, afterId, limit);
+        if(page == null)
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        HttpHeaders headers = nextPageHeaders(page, limit, "afterReplyId");
+        if(!page.hasNext()) {
+            List<Reply> replies = page.getItems();
+            long pollAfter = replies.isEmpty() ? afterId : replies.get(replies.size() - 1).getId();
+            headers.set(NEXT_CURSOR_HEADER, CursorCodec.encode(pollAfter));
+        }
+        HttpStatus status = HttpStatus.OK;
+        if(page.getItems().isEmpty())
+            status = HttpStatus.NO_CONTENT;
+        return new ResponseEntity<>(page.getItems(), headers, status);
 
     }
 
@@ -107,14 +242,14 @@ public class QuestionController {
      *         or Bad Request (status code 400)
      *         or Not Found (status code 404)
      */
-    @ApiOperation(value = "Post a reply to a message", nickname = "replyToQuestion", notes = "", response = Reply.class, tags = {"question"})
+    @Operation(summary = "Post a reply to a message", operationId = "replyToQuestion", tags = {"question"})
     @ApiResponses(value = { 
-        @ApiResponse(code = 201, message = "Created", response = Reply.class),
-        @ApiResponse(code = 400, message = "Bad Request", response = Error.class),
-        @ApiResponse(code = 404, message = "Not Found") })
+        @ApiResponse(responseCode = "201", description = "Created", content = @Content(schema = @Schema(implementation = Reply.class))),
+        @ApiResponse(responseCode = "400", description = "Bad Request", content = @Content(schema = @Schema(implementation = Error.class))),
+        @ApiResponse(responseCode = "404", description = "Not Found") })
     @PostMapping(value = "/questions/{questionId}/reply", produces = {"application/json"}, consumes = {"application/json"})
-    public ResponseEntity<Reply> replyToQuestion(@ApiParam(value = "ID of question to which this reply is answered", required=true) @PathVariable("questionId") Long questionId,
-            @ApiParam(value = "Reply to the question", required = true) @Valid @RequestBody Reply body) {
+    public ResponseEntity<Reply> replyToQuestion(@Parameter(description = "ID of question to which this reply is answered", required = true) @PathVariable("questionId") Long questionId,
+            @Parameter(description = "Reply to the question", required = true) @Valid @RequestBody Reply body) {
 
         Reply savedReply = questionService.replyToQuestion(questionId, body);
         HttpStatus status = HttpStatus.CREATED;
@@ -124,4 +259,119 @@ public class QuestionController {
 
     }
 
+    /**
+     * POST /questions/{questionId}/replies:batch : Post several replies to a message at once
+     * Valid replies are saved together and get consecutive ids, with a single fsync of the write-ahead log,
+     * while invalid ones are reported without failing the others.
+     *
+     * @param questionId ID of question to which these replies are answered (required)
+     * @param body Replies to the question, at most 1000 (required)
+     * @return outcome of every reply in request order (status code 200)
+     *         or Bad Request if the batch is empty or too large (status code 400)
+     *         or Not Found (status code 404)
+     */
+    @Operation(summary = "Post several replies to a message at once", operationId = "replyToQuestionInBatch", description = "Each item of the response holds the outcome of the reply at the same position: status 201 and the saved reply, or status 400 and the errors.", tags = {"question"})
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "outcome of every reply", content = @Content(array = @ArraySchema(schema = @Schema(implementation = BatchItemResult.class)))),
+        @ApiResponse(responseCode = "400", description = "Bad Request", content = @Content(schema = @Schema(implementation = Error.class))),
+        @ApiResponse(responseCode = "404", description = "Not Found")})
+    @PostMapping(value = "/questions/{questionId}/replies:batch", produces = {"application/json"}, consumes = {"application/json"})
+    public ResponseEntity<List<BatchItemResult<Reply>>> replyToQuestionInBatch(
+            @Parameter(description = "ID of question to which these replies are answered", required = true) @PathVariable("questionId") Long questionId,
+            @Parameter(description = "Replies to the question", required = true) @RequestBody List<Reply> body) {
+
+        List<List<Error>> errors = validateAll(body, "reply");
+        List<Reply> saved = questionService.addReplies(questionId, accepted(body, errors));
+        if(saved == null)
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        return ResponseEntity.ok(results(errors, saved));
+
+    }
+
+    /**
+     * Validates every item of a batch.
+     *
+     * @return the errors of every item in order, empty for valid items
+     * @throws InvalidBatchSizeException if the batch is empty or too large
+     */
+    private <T> List<List<Error>> validateAll(List<T> items, String objectName) {
+        if(items.isEmpty() || items.size() > MAX_BATCH_SIZE)
+            throw new InvalidBatchSizeException(items.size(), MAX_BATCH_SIZE);
+        List<List<Error>> errors = new ArrayList<>(items.size());
+        for(T item : items) {
+            if(item == null) {
+                errors.add(Collections.singletonList(Error.builder()
+                        .objectName(objectName).message("Item should not be null").build()));
+                continue;
+            }
+            errors.add(validator.validate(item).stream()
+                    .map(violation -> toError(violation, objectName))
+                    .collect(Collectors.toList()));
+        }
+        return errors;
+    }
+
+    static Error toError(ConstraintViolation<?> violation, String objectName) {
+        return Error.builder()
+                .fieldName(violation.getPropertyPath().toString())
+                .objectName(objectName)
+                .rejectedValue(violation.getInvalidValue() != null ? violation.getInvalidValue().toString() : null)
+                .message(violation.getMessage())
+                .build();
+    }
+
+    /**
+     * @return the items without errors, in order
+     */
+    private static <T> List<T> accepted(List<T> items, List<List<Error>> errors) {
+        List<T> accepted = new ArrayList<>(items.size());
+        for(int i = 0; i < items.size(); i++)
+            if(errors.get(i).isEmpty())
+                accepted.add(items.get(i));
+        return accepted;
+    }
+
+    /**
+     * Merges the saved items back with the errors of the rejected ones, in request order.
+     */
+    private static <T> List<BatchItemResult<T>> results(List<List<Error>> errors, List<T> saved) {
+        List<BatchItemResult<T>> results = new ArrayList<>(errors.size());
+        int next = 0;
+        for(List<Error> itemErrors : errors) {
+            if(itemErrors.isEmpty())
+                results.add(BatchItemResult.<T>builder().status(HttpStatus.CREATED.value()).item(saved.get(next++)).build());
+            else
+                results.add(BatchItemResult.<T>builder().status(HttpStatus.BAD_REQUEST.value()).errors(itemErrors).build());
+        }
+        return results;
+    }
+
+    /**
+     * Formats version as a strong ETag.
+     */
+    private static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Builds the X-Next-Cursor and Link headers pointing to the page following the given one, the Link
+     * replacing afterParam with the cursor.
+     */
+    static HttpHeaders nextPageHeaders(CursorPage<?> page, int limit, String afterParam) {
+        HttpHeaders headers = new HttpHeaders();
+        if(page.hasNext()) {
+            String nextCursor = CursorCodec.encode(page.getNextAfter());
+            // The request URI is already encoded and the cursor is url safe, so nothing is encoded again.
+            String nextLink = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam(afterParam)
+                    .replaceQueryParam("cursor", nextCursor)
+                    .replaceQueryParam("limit", limit)
+                    .build(true)
+                    .toUriString();
+            headers.set(NEXT_CURSOR_HEADER, nextCursor);
+            headers.set(HttpHeaders.LINK, "<" + nextLink + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+
 }
@@ -0,0 +1,276 @@
+package com.example.forum.controller;
+
+import static com.example.forum.controller.QuestionController.DEFAULT_PAGE_LIMIT;
+import static com.example.forum.controller.QuestionController.MAX_PAGE_LIMIT;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindException;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+import org.springframework.web.method.annotation.ExceptionHandlerMethodResolver;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+
+import com.example.forum.cache.QuestionResponseCache;
+import com.example.forum.exception.ExceptionAdvice;
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.ReactiveQuestionService;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of the four /v2/questions operations of {@link QuestionController}, as WebFlux
+ * functional endpoints served by Netty on their own port. No request holds a thread while it waits: reads
+ * and writes go through {@link ReactiveQuestionService}, and the collection endpoint streams its page as a
+ * JSON array, reading questions as the client consumes them instead of building the page in memory.
+ * <p>
+ * Requests are validated like those of the servlet API and every error is answered by the handler method of
+ * {@link ExceptionAdvice} for the exception, so error bodies, statuses, counters and logs are the same. The
+ * streamed page has no X-Next-Cursor and Link headers since its last question isn't known when they are
+ * sent, the next page is requested with after set to the id of the last question received.
+ */
+public class ReactiveQuestionHandler {
+
+    private static final List<MediaType> JSON = Collections.singletonList(MediaType.APPLICATION_JSON);
+
+    private final ReactiveQuestionService questionService;
+
+    private final QuestionResponseCache questionResponseCache;
+
+    private final Validator validator;
+
+    private final SpringValidatorAdapter bodyValidator;
+
+    private final ExceptionAdvice exceptionAdvice;
+
+    private final ExceptionHandlerMethodResolver exceptionHandlers = new ExceptionHandlerMethodResolver(ExceptionAdvice.class);
+
+    public ReactiveQuestionHandler(ReactiveQuestionService questionService, QuestionResponseCache questionResponseCache, Validator validator,
+            ExceptionAdvice exceptionAdvice) {
+        this.questionService = questionService;
+        this.questionResponseCache = questionResponseCache;
+        this.validator = validator;
+        this.bodyValidator = new SpringValidatorAdapter(validator);
+        this.exceptionAdvice = exceptionAdvice;
+    }
+
+    /**
+     * @return routes of the reactive API, under /v2 like the servlet API
+     */
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .path("/v2", builder -> builder
+                        .POST("/questions", this::addQuestion)
+                        .GET("/questions", this::getAllQuestions)
+                        .GET("/questions/{questionId}", this::getQuestionById)
+                        .POST("/questions/{questionId}/reply", this::replyToQuestion)
+                        .route(RequestPredicates.path("/questions"), request -> methodNotAllowed(request, "GET", "POST"))
+                        .route(RequestPredicates.path("/questions/{questionId}"), request -> methodNotAllowed(request, "GET"))
+                        .route(RequestPredicates.path("/questions/{questionId}/reply"), request -> methodNotAllowed(request, "POST")))
+                .filter((request, next) -> {
+                    Mono<ServerResponse> response;
+                    try {
+                        checkMediaTypes(request);
+                        response = next.handle(request);
+                    } catch (Exception e) {
+                        return error(e);
+                    }
+                    return response.onErrorResume(Exception.class, this::error);
+                })
+                .build();
+    }
+
+    /**
+     * POST /questions : Create a new question
+     *
+     * @return question created (status code 201)
+     *         or Bad Request (status code 400)
+     */
+    Mono<ServerResponse> addQuestion(ServerRequest request) {
+        return body(request, Question.class, "question")
+                .flatMap(questionService::addQuestion)
+                .flatMap(question -> ServerResponse.status(HttpStatus.CREATED).contentType(MediaType.APPLICATION_JSON).bodyValue(question));
+    }
+
+    /**
+     * GET /questions : Stream a page of questions ordered by id
+     *
+     * @return successful operation (status code 200)
+     *         or Bad Request (status code 400)
+     *         or No Content (status code 204)
+     *         or Not Modified if nothing was saved since the ETag in If-None-Match (status code 304)
+     */
+    Mono<ServerResponse> getAllQuestions(ServerRequest request) {
+        int limit = intParam(request, "limit", Integer.parseInt(DEFAULT_PAGE_LIMIT));
+        Set<ConstraintViolation<PageRequest>> violations = validator.validateValue(PageRequest.class, "limit", limit);
+        if(!violations.isEmpty())
+            throw new ConstraintViolationException(violations);
+        String cursor = request.queryParam("cursor").orElse(null);
+        Long afterId = cursor != null ? Long.valueOf(CursorCodec.decode(cursor)) : longParam(request, "after");
+        // Read before the page, so the page is at least as new as the ETag.
+        String etag = etag(questionService.getStoreVersion());
+        return request.checkNotModified(etag).switchIfEmpty(Mono.defer(() -> questionService.hasQuestionsAfter(afterId)
+                .flatMap(hasQuestions -> hasQuestions
+                        ? ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).eTag(etag)
+                                .body(questionService.getQuestions(afterId, limit), Question.class)
+                        : ServerResponse.noContent().eTag(etag).build())));
+    }
+
+    /**
+     * GET /questions/{questionId} : Find thread by ID
+     * The JSON body comes from {@link QuestionResponseCache} and is written as is.
+     *
+     * @return question (status code 200)
+     *         or Not Found (status code 404)
+     *         or Not Modified if the question wasn't replied to since the ETag in If-None-Match (status code 304)
+     */
+    Mono<ServerResponse> getQuestionById(ServerRequest request) {
+        long questionId = questionId(request);
+        return questionService.getQuestionById(questionId)
+                .flatMap(question -> request.checkNotModified(etag(questionService.getVersion(question)))
+                        .switchIfEmpty(Mono.defer(() -> {
+                            QuestionResponseCache.EncodedQuestion encoded;
+                            try {
+                                encoded = questionResponseCache.get(question);
+                            } catch (Exception e) {
+                                return Mono.error(e);
+                            }
+                            // Replies may have been added since the check, the ETag is the version actually encoded.
+                            return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).eTag(etag(encoded.getVersion()))
+                                    .bodyValue(encoded.getJson());
+                        })))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build()));
+    }
+
+    /**
+     * POST /questions/{questionId}/reply : Post a reply to a message
+     *
+     * @return reply added to question (status code 201)
+     *         or Bad Request (status code 400)
+     *         or Not Found (status code 404)
+     */
+    Mono<ServerResponse> replyToQuestion(ServerRequest request) {
+        long questionId = questionId(request);
+        return body(request, Reply.class, "reply")
+                .flatMap(reply -> questionService.replyToQuestion(questionId, reply)
+                        .flatMap(savedReply -> ServerResponse.status(HttpStatus.CREATED).contentType(MediaType.APPLICATION_JSON).bodyValue(savedReply))
+                        .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build())));
+    }
+
+    /**
+     * Reads and validates the body like @Valid @RequestBody, failing with a {@link BindException} of the
+     * field errors under objectName.
+     */
+    private <T> Mono<T> body(ServerRequest request, Class<T> type, String objectName) {
+        return request.bodyToMono(type)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("Required request body is missing")))
+                .handle((body, sink) -> {
+                    BeanPropertyBindingResult errors = new BeanPropertyBindingResult(body, objectName);
+                    bodyValidator.validate(body, errors);
+                    if(errors.hasErrors())
+                        sink.error(new BindException(errors));
+                    else
+                        sink.next(body);
+                });
+    }
+
+    /**
+     * Fails like the servlet API on a Content-Type or Accept header other than JSON.
+     */
+    private static void checkMediaTypes(ServerRequest request) throws Exception {
+        List<MediaType> accepted = request.headers().accept();
+        if(!accepted.isEmpty() && accepted.stream().noneMatch(MediaType.APPLICATION_JSON::isCompatibleWith))
+            throw new HttpMediaTypeNotAcceptableException(JSON);
+        if(request.method().name().equals("POST")) {
+            MediaType contentType = request.headers().contentType().orElse(null);
+            if(contentType == null || !MediaType.APPLICATION_JSON.isCompatibleWith(contentType))
+                throw new HttpMediaTypeNotSupportedException(contentType, JSON, request.method());
+        }
+    }
+
+    private static Mono<ServerResponse> methodNotAllowed(ServerRequest request, String... supportedMethods) {
+        return Mono.error(new HttpRequestMethodNotSupportedException(request.method().name(), Arrays.asList(supportedMethods)));
+    }
+
+    /**
+     * Answers error with the response of its handler method in {@link ExceptionAdvice}.
+     */
+    private Mono<ServerResponse> error(Exception error) {
+        Method handler = exceptionHandlers.resolveMethodByThrowable(error);
+        if(handler == null)
+            return Mono.error(error);
+        ResponseEntity<?> response = (ResponseEntity<?>) ReflectionUtils.invokeMethod(handler, exceptionAdvice, error);
+        ServerResponse.BodyBuilder builder = ServerResponse.status(response.getStatusCode()).headers(headers -> headers.addAll(response.getHeaders()));
+        return response.getBody() == null ? builder.build() : builder.contentType(MediaType.APPLICATION_JSON).bodyValue(response.getBody());
+    }
+
+    private static long questionId(ServerRequest request) {
+        String value = request.pathVariable("questionId");
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new MethodArgumentTypeMismatchException(value, Long.class, "questionId", null, e);
+        }
+    }
+
+    private static Long longParam(ServerRequest request, String name) {
+        String value = request.queryParam(name).orElse(null);
+        try {
+            return value == null ? null : Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new MethodArgumentTypeMismatchException(value, Long.class, name, null, e);
+        }
+    }
+
+    private static int intParam(ServerRequest request, String name, int defaultValue) {
+        String value = request.queryParam(name).orElse(null);
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new MethodArgumentTypeMismatchException(value, int.class, name, null, e);
+        }
+    }
+
+    /**
+     * Formats version as a strong ETag.
+     */
+    private static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Constraints of the limit parameter, those of {@link QuestionController#getAllQuestions}.
+     */
+    private static final class PageRequest {
+
+        @Min(1)
+        @Max(MAX_PAGE_LIMIT)
+        private int limit;
+
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.example.forum.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.forum.model.Error;
+import com.example.forum.model.Question;
+import com.example.forum.model.SearchHit;
+import com.example.forum.search.SearchIndex;
+import com.example.forum.search.SearchResult;
+import com.example.forum.search.SearchResults;
+import com.example.forum.service.QuestionService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.headers.Header;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+/**
+ * Full-text search of threads through the {@link SearchIndex}.
+ */
+@Validated
+@RestController
+@RequestMapping("/v2")
+public class SearchController {
+
+    static final String DEFAULT_SEARCH_LIMIT = "10";
+
+    static final int MAX_SEARCH_LIMIT = 100;
+
+    static final String TRUNCATED_HEADER = "X-Search-Truncated";
+
+    QuestionService questionService;
+
+    SearchIndex searchIndex;
+
+    public SearchController(final QuestionService questionService, final SearchIndex searchIndex) {
+        this.questionService = questionService;
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * GET /questions/search : Find threads by content
+     * Matches the words of q against the author and message of questions and the message of replies, case
+     * insensitively, and ranks threads by the BM25 score of their best matching question or reply.
+     *
+     * @param q words to look for, in any order (required)
+     * @param limit maximum number of threads returned (optional, default to 10)
+     * @return matching threads by decreasing score, with X-Search-Truncated if only the newest ones were
+     *         searched (status code 200)
+     *         or Bad Request (status code 400)
+     *         or No Content if no thread matches (status code 204)
+     */
+    @Operation(summary = "Find threads by content", operationId = "searchQuestions", description = "Matches the words of q against the author and message of questions and the message of replies, and ranks threads by the BM25 score of their best matching question or reply.", tags = {"question"})
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "matching threads by decreasing score", content = @Content(array = @ArraySchema(schema = @Schema(implementation = SearchHit.class))), headers = {
+            @Header(name = TRUNCATED_HEADER, description = "true if the query spent its budget before the oldest threads, so that only the newest were searched, missing when the results are exact", schema = @Schema(implementation = Boolean.class))}),
+        @ApiResponse(responseCode = "400", description = "Bad Request", content = @Content(schema = @Schema(implementation = Error.class))),
+        @ApiResponse(responseCode = "204", description = "No Content")})
+    @GetMapping(value = "/questions/search", produces = {"application/json"})
+    public ResponseEntity<List<SearchHit>> searchQuestions(
+            @Parameter(description = "Words to look for, in any order", required = true) @NotBlank @RequestParam(value = "q") String q,
+            @Parameter(description = "Maximum number of threads returned") @Min(1) @Max(MAX_SEARCH_LIMIT) @RequestParam(value = "limit", defaultValue = DEFAULT_SEARCH_LIMIT) int limit) {
+
+        SearchResults results = searchIndex.search(q, limit);
+        List<SearchHit> hits = new ArrayList<>(results.getResults().size());
+        for(SearchResult result : results.getResults()) {
+            Question question = questionService.getQuestionById(result.getQuestionId());
+            hits.add(SearchHit.builder()
+                    .questionId(result.getQuestionId()).score(result.getScore()).author(question.getAuthor()).message(question.getMessage())
+                    .build());
+        }
+        HttpHeaders headers = new HttpHeaders();
+        if(results.isTruncated())
+            headers.set(TRUNCATED_HEADER, "true");
+        HttpStatus status = HttpStatus.OK;
+        if(hits.isEmpty())
+            status = HttpStatus.NO_CONTENT;
+        return new ResponseEntity<>(hits, headers, status);
+
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.example.forum.controller;
+
+import java.io.IOException;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.forum.feed.FeedEvent;
+import com.example.forum.feed.FeedSink;
+
+/**
+ * {@link FeedSink} writing events to an SSE stream: the event name is its type, the id is the id of the question
+ * or reply and the data is its JSON. Heartbeats are sent as comments.
+ */
+final class SseEmitterSink implements FeedSink {
+
+    private final SseEmitter emitter;
+
+    SseEmitterSink(SseEmitter emitter) {
+        this.emitter = emitter;
+    }
+
+    @Override
+    public void send(FeedEvent event) throws IOException {
+        if(event.getType() == FeedEvent.Type.HEARTBEAT) {
+            emitter.send(SseEmitter.event().comment(event.getType().getEventName()));
+            return;
+        }
+        emitter.send(SseEmitter.event()
+                .id(Long.toString(event.getId()))
+                .name(event.getType().getEventName())
+                .data(event.getData(), MediaType.APPLICATION_JSON));
+    }
+
+    @Override
+    public void complete() {
+        emitter.complete();
+    }
+
+}
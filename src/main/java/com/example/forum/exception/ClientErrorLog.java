@@ -0,0 +1,130 @@
+package com.example.forum.exception;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Log of the client errors answered by {@link ExceptionAdvice}, written as one line of key=value pairs without
+ * stack trace, since the stack of a client mistake tells nothing and costs far more to write than the event.
+ * <p>
+ * A misbehaving client can send thousands of bad requests per second, so errors are sampled, one in
+ * sampleOneIn being considered, then at most maxPerSecond of those are logged per second. The next logged
+ * event tells how many were skipped since the previous one, and the forum.errors.log.skipped counter counts
+ * them, while the forum.errors counters still count every error. Skipped errors cost a random number and
+ * an atomic add.
+ * <p>
+ * Events go to the forum.client-errors logger, which the logging configuration hands to an async appender
+ * so that writing never holds up a request.
+ */
+public class ClientErrorLog {
+
+    static final String LOGGER_NAME = "forum.client-errors";
+
+    private static final int MAX_MESSAGE_LENGTH = 200;
+
+    private final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private final int maxPerSecond;
+
+    private final int sampleOneIn;
+
+    private final Counter skippedCounter;
+
+    /**
+     * Second of System.nanoTime of the current window and number of events logged in it.
+     */
+    private final AtomicLong windowSecond = new AtomicLong(Long.MIN_VALUE);
+
+    private final AtomicInteger loggedInWindow = new AtomicInteger();
+
+    private final AtomicLong skippedSinceLogged = new AtomicLong();
+
+    /**
+     * @param maxPerSecond maximum number of events logged per second, 0 to log none
+     * @param sampleOneIn one in sampleOneIn errors is considered for logging, 1 to consider every error
+     * @param meterRegistry registry of the forum.errors.log.skipped counter
+     */
+    public ClientErrorLog(int maxPerSecond, int sampleOneIn, MeterRegistry meterRegistry) {
+        if(maxPerSecond < 0 || sampleOneIn < 1)
+            throw new IllegalArgumentException("Invalid client error log rate: " + maxPerSecond + " per second, one in " + sampleOneIn);
+        this.maxPerSecond = maxPerSecond;
+        this.sampleOneIn = sampleOneIn;
+        this.skippedCounter = Counter.builder("forum.errors.log.skipped")
+                .description("Client errors not logged because of sampling or rate limiting").register(meterRegistry);
+    }
+
+    /**
+     * Logs the client error answered with status, unless it is sampled out or the rate limit is reached.
+     *
+     * @param exception exception turned into the error response
+     * @param status status of the error response
+     */
+    public void log(Exception exception, HttpStatus status) {
+        if(!logger.isWarnEnabled())
+            return;
+        if((sampleOneIn > 1 && ThreadLocalRandom.current().nextInt(sampleOneIn) != 0) || !tryAcquire()) {
+            skippedSinceLogged.incrementAndGet();
+            skippedCounter.increment();
+            return;
+        }
+        String method = null;
+        String uri = null;
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if(attributes instanceof ServletRequestAttributes) {
+            HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+            method = request.getMethod();
+            uri = request.getRequestURI();
+        }
+        logger.warn("event=client_error status={} exception={} method={} uri={} skipped={} message=\"{}\"",
+                status.value(), exception.getClass().getSimpleName(), method, uri, skippedSinceLogged.getAndSet(0),
+                escape(exception.getMessage()));
+    }
+
+    /**
+     * @return true if the event may be logged in the window of the current second
+     */
+    private boolean tryAcquire() {
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        long window = windowSecond.get();
+        if(second != window && windowSecond.compareAndSet(window, second))
+            loggedInWindow.set(0);
+        return loggedInWindow.incrementAndGet() <= maxPerSecond;
+    }
+
+    /**
+     * Keeps the message on one line and the quotes around it unambiguous, cut to MAX_MESSAGE_LENGTH chars.
+     */
+    private static String escape(String message) {
+        if(message == null)
+            return "";
+        int length = Math.min(message.length(), MAX_MESSAGE_LENGTH);
+        StringBuilder escaped = new StringBuilder(length + 8);
+        for(int i = 0; i < length; i++) {
+            char c = message.charAt(i);
+            if(c == '"' || c == '\\')
+                escaped.append('\\').append(c);
+            else if(c == '\n' || c == '\r' || c == '\t')
+                escaped.append(' ');
+            else
+                escaped.append(c);
+        }
+        if(length < message.length())
+            escaped.append("...");
+        return escaped.toString();
+    }
+
+}
@@ -4,12 +4,19 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Path;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
@@ -19,35 +26,65 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.server.ServerWebInputException;
+import org.springframework.web.servlet.NoHandlerFoundException;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
 
 import com.example.forum.model.Error;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
 /**
  * A {@link ControllerAdvice} which globally handles {@link NotifyingException}
  * instances thrown from any controller and returns the correct response body
  * as the serialized form of json  and the correct HTTP status code.
+ * Server errors are logged with their stack trace, client errors by a {@link ClientErrorLog}.
  */
 @ControllerAdvice
 public class ExceptionAdvice {
 
     Logger logger = LoggerFactory.getLogger(ExceptionAdvice.class);
 
+    MeterRegistry meterRegistry;
+
+    ClientErrorLog clientErrorLog;
+
+    /**
+     * Creates an advice whose error counts aren't recorded, logging up to 10 client errors per second.
+     */
+    public ExceptionAdvice() {
+        this(new CompositeMeterRegistry(), null);
+    }
+
     /**
-     * Handles {@link MethodArgumentNotValidException} instances thrown by spring framework.
+     * @param meterRegistry registry of the forum.errors counters, tagged with the simple name of the handled
+     *            exception and the status of the response
+     * @param clientErrorLog log of the errors answered with a 4xx status, or null to log up to 10 per second
+     */
+    @Autowired
+    public ExceptionAdvice(MeterRegistry meterRegistry, @Nullable ClientErrorLog clientErrorLog) {
+        this.meterRegistry = meterRegistry;
+        this.clientErrorLog = clientErrorLog == null ? new ClientErrorLog(10, 1, meterRegistry) : clientErrorLog;
+    }
+
+    /**
+     * Handles {@link MethodArgumentNotValidException} instances thrown by spring framework, and the
+     * {@link BindException} of request bodies validated by the reactive API.
      *
-     * @param exception The {@link MethodArgumentNotValidException} to handle
+     * @param exception The {@link BindException} to handle
      *
      * @return A {@link ResponseEntity} with the validation error and field and {@link HttpStatus} code 400
      */
     @ResponseBody
-    @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<List<Error>> handle(final MethodArgumentNotValidException exception) {
-        logger.error(exception.getMessage(), exception);
+    @ExceptionHandler(BindException.class)
+    public ResponseEntity<List<Error>> handle(final BindException exception) {
         List<Error> errors = exception.getBindingResult().getAllErrors().stream()
             .map(FieldError.class::cast)
             .map(this::convertFieldErrorToErrorObject)
             .collect(Collectors.toList());
-        return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
+        return response(exception, errors, HttpStatus.BAD_REQUEST);
     }
 
     /**
@@ -60,11 +97,59 @@ public class ExceptionAdvice {
     @ResponseBody
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ResponseEntity<List<Error>> handle(final MethodArgumentTypeMismatchException exception) {
-        logger.error(exception.getMessage(), exception);
         Error error = Error.builder()
                 .fieldName(exception.getName()).objectName("").rejectedValue(exception.getValue().toString()).message(exception.getMessage())
                 .build();
-        return new ResponseEntity<>(Arrays.asList(error), HttpStatus.BAD_REQUEST);
+        return response(exception, Arrays.asList(error), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles {@link ConstraintViolationException} instances thrown by method validation of request parameters.
+     *
+     * @param exception The {@link ConstraintViolationException} to handle
+     *
+     * @return A {@link ResponseEntity} with the validation error and parameter and {@link HttpStatus} code 400
+     */
+    @ResponseBody
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<List<Error>> handle(final ConstraintViolationException exception) {
+        List<Error> errors = exception.getConstraintViolations().stream()
+            .map(this::convertConstraintViolationToErrorObject)
+            .collect(Collectors.toList());
+        return response(exception, errors, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles {@link InvalidCursorException} instances thrown when a pagination cursor can't be decoded.
+     *
+     * @param exception The {@link InvalidCursorException} to handle
+     *
+     * @return A {@link ResponseEntity} with the validation error and field and {@link HttpStatus} code 400
+     */
+    @ResponseBody
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<List<Error>> handle(final InvalidCursorException exception) {
+        Error error = Error.builder()
+                .fieldName("cursor").objectName("").rejectedValue(exception.getCursor()).message(exception.getMessage())
+                .build();
+        return response(exception, Arrays.asList(error), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles {@link InvalidBatchSizeException} instances thrown when a batch request is empty or too large.
+     *
+     * @param exception The {@link InvalidBatchSizeException} to handle
+     *
+     * @return A {@link ResponseEntity} with the validation error and field and {@link HttpStatus} code 400
+     */
+    @ResponseBody
+    @ExceptionHandler(InvalidBatchSizeException.class)
+    public ResponseEntity<List<Error>> handle(final InvalidBatchSizeException exception) {
+        Error error = Error.builder()
+                .fieldName("body").objectName("Request Body").rejectedValue(String.valueOf(exception.getSize()))
+                .expectedValue("1 to " + exception.getMaxSize()).message(exception.getMessage())
+                .build();
+        return response(exception, Arrays.asList(error), HttpStatus.BAD_REQUEST);
     }
 
     /**
@@ -77,13 +162,12 @@ public class ExceptionAdvice {
     @ResponseBody
     @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
     public ResponseEntity<List<Error>> handle(final HttpRequestMethodNotSupportedException exception) {
-        logger.error(exception.getMessage(), exception);
         Error error = Error.builder()
                 .fieldName("Http request method").objectName("").message(exception.getMessage())
                 .expectedValue(Arrays.stream(exception.getSupportedMethods()).reduce("", (a, b) -> a + b + " "))
                 .rejectedValue(exception.getMethod())
                 .build();
-        return new ResponseEntity<>(Arrays.asList(error), HttpStatus.METHOD_NOT_ALLOWED);
+        return response(exception, Arrays.asList(error), HttpStatus.METHOD_NOT_ALLOWED);
     }
 
     /**
@@ -96,14 +180,13 @@ public class ExceptionAdvice {
     @ResponseBody
     @ExceptionHandler(HttpMediaTypeNotAcceptableException.class)
     public ResponseEntity<List<Error>> handle(final HttpMediaTypeNotAcceptableException exception) {
-        logger.error(exception.getMessage(), exception);
         String mediaTypes = exception.getSupportedMediaTypes().stream().map(MediaType::toString).reduce("", (a, b) -> a + b + " ");
         Error error = Error.builder()
                 .message(exception.getMessage())
                 .objectName("Accept Header")
                 .expectedValue(mediaTypes)
                 .build();
-        return new ResponseEntity<>(Arrays.asList(error), HttpStatus.NOT_ACCEPTABLE);
+        return response(exception, Arrays.asList(error), HttpStatus.NOT_ACCEPTABLE);
     }
 
     /**
@@ -116,7 +199,6 @@ public class ExceptionAdvice {
     @ResponseBody
     @ExceptionHandler(HttpMediaTypeNotSupportedException.class)
     public ResponseEntity<List<Error>> handle(final HttpMediaTypeNotSupportedException exception) {
-        logger.error(exception.getMessage(), exception);
         String mediaTypes = exception.getSupportedMediaTypes().stream().map(MediaType::toString).reduce("", (a, b) -> a + b + " ");
         Error error = Error.builder()
                 .message(exception.getMessage())
@@ -124,7 +206,7 @@ public class ExceptionAdvice {
                 .expectedValue(mediaTypes)
                 .rejectedValue(exception.getContentType() == null ? null : exception.getContentType().toString())
                 .build();
-        return new ResponseEntity<>(Arrays.asList(error), HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+        return response(exception, Arrays.asList(error), HttpStatus.UNSUPPORTED_MEDIA_TYPE);
     }
 
     /**
@@ -137,12 +219,42 @@ public class ExceptionAdvice {
     @ResponseBody
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<List<Error>> handle(final HttpMessageNotReadableException exception) {
-        logger.error(exception.getMessage(), exception);
         Error error = Error.builder()
                 .objectName("Request Body")
                 .message(exception.getMessage())
                 .build();
-        return new ResponseEntity<>(Arrays.asList(error), HttpStatus.BAD_REQUEST);
+        return response(exception, Arrays.asList(error), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles {@link ServerWebInputException} instances thrown by the reactive API for request bodies which
+     * can't be read, the counterpart of {@link HttpMessageNotReadableException}.
+     *
+     * @param exception The {@link ServerWebInputException} to handle
+     *
+     * @return A {@link ResponseEntity} with the validation error and field and {@link HttpStatus} code 400
+     */
+    @ResponseBody
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<List<Error>> handle(final ServerWebInputException exception) {
+        Error error = Error.builder()
+                .objectName("Request Body")
+                .message(exception.getCause() != null ? exception.getCause().getMessage() : exception.getReason())
+                .build();
+        return response(exception, Arrays.asList(error), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles {@link NoHandlerFoundException} and {@link NoResourceFoundException} instances thrown by spring
+     * framework for paths mapped to no endpoint, which would otherwise be answered by the default handler.
+     *
+     * @param exception The {@link NoHandlerFoundException} or {@link NoResourceFoundException} to handle
+     *
+     * @return A {@link ResponseEntity} without body and {@link HttpStatus} code 404
+     */
+    @ExceptionHandler({NoHandlerFoundException.class, NoResourceFoundException.class})
+    public ResponseEntity<Void> handleNotFound(final Exception exception) {
+        return response(exception, null, HttpStatus.NOT_FOUND);
     }
 
     /**
@@ -155,9 +267,23 @@ public class ExceptionAdvice {
      */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<List<Error>> handle(final Exception exception) {
-        logger.error(exception.getMessage(), exception);
         Error error = Error.builder().message(exception.getMessage()).build();
-        return new ResponseEntity<>(Arrays.asList(error), HttpStatus.INTERNAL_SERVER_ERROR);
+        return response(exception, Arrays.asList(error), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    /**
+     * Counts the error and logs it, with its stack trace for server errors and as a sampled one line event of
+     * the {@link ClientErrorLog} for client errors.
+     */
+    private <T> ResponseEntity<T> response(Exception exception, T body, HttpStatus status) {
+        if(status.is5xxServerError())
+            logger.error(exception.getMessage(), exception);
+        else
+            clientErrorLog.log(exception, status);
+        Counter.builder("forum.errors").description("Exceptions turned into error responses")
+                .tag("exception", exception.getClass().getSimpleName()).tag("status", String.valueOf(status.value()))
+                .register(meterRegistry).increment();
+        return new ResponseEntity<>(body, status);
     }
 
     private Error convertFieldErrorToErrorObject(FieldError fieldError) {
@@ -168,4 +294,15 @@ public class ExceptionAdvice {
                 .rejectedValue(fieldError.getRejectedValue() != null ? fieldError.getRejectedValue().toString() : null).build();
     }
 
+    private Error convertConstraintViolationToErrorObject(ConstraintViolation<?> violation) {
+        String parameterName = null;
+        for(Path.Node node : violation.getPropertyPath())
+            parameterName = node.getName();
+        return Error.builder()
+                .fieldName(parameterName)
+                .message(violation.getMessage())
+                .objectName("")
+                .rejectedValue(violation.getInvalidValue() != null ? violation.getInvalidValue().toString() : null).build();
+    }
+
 }
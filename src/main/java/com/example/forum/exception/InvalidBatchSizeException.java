@@ -0,0 +1,28 @@
+package com.example.forum.exception;
+
+/**
+ * Thrown when a batch request holds no item or more items than allowed.
+ */
+public class InvalidBatchSizeException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int size;
+
+    private final int maxSize;
+
+    public InvalidBatchSizeException(int size, int maxSize) {
+        super("Batch size must be between 1 and " + maxSize);
+        this.size = size;
+        this.maxSize = maxSize;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.example.forum.exception;
+
+/**
+ * Thrown when a pagination cursor sent by a client can't be decoded.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String cursor;
+
+    public InvalidCursorException(String cursor) {
+        super("Invalid pagination cursor");
+        this.cursor = cursor;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+}
@@ -0,0 +1,485 @@
+package com.example.forum.feed;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.QuestionListener;
+import com.example.forum.service.QuestionService;
+
+/**
+ * Fan-out of new questions and replies saved by {@link QuestionService} to live subscribers: subscribers of
+ * the question topic get every new question, subscribers of a question's topic get every new reply to it.
+ * <p>
+ * Writers never wait on subscribers. A write only offers its event to a bounded queue, dropping it if the queue
+ * is full, and does nothing at all while there are no subscribers. A single dispatcher thread copies each event
+ * to the bounded buffer of every subscriber of its topic, so every subscriber sees the events of a topic in
+ * the same order. A small fixed pool then sends buffered events to each subscriber's {@link FeedSink}, a
+ * subscriber being drained by at most one thread at a time and for at most DRAIN_BATCH events before the others
+ * get their turn. A subscriber whose buffer is full is handled by the {@link SlowConsumerPolicy}.
+ * <p>
+ * Sending blocks while the subscriber doesn't read, holding a delivery thread. A send taking longer than the
+ * send timeout disconnects its subscriber, and the pool gets an extra thread for as long as the send stays
+ * blocked, so that stuck subscribers hold up the others for at most the send timeout. The sink is completed
+ * once the send returns, when the connection gives up.
+ */
+@ManagedResource(objectName = "com.example.forum:type=FeedBus", description = "Live feed of new questions and replies")
+public class FeedBus implements QuestionListener, Closeable {
+
+    /**
+     * Most events sent to a subscriber before yielding the delivery thread to other subscribers.
+     */
+    static final int DRAIN_BATCH = 64;
+
+    /**
+     * Start of the send of a subscriber which isn't sending.
+     */
+    private static final long IDLE = Long.MIN_VALUE;
+
+    /**
+     * Start of the send of a subscriber disconnected for exceeding the send timeout.
+     */
+    private static final long TIMED_OUT = Long.MAX_VALUE;
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedBus.class);
+
+    private final int bufferSize;
+
+    private final SlowConsumerPolicy slowConsumerPolicy;
+
+    private final BlockingQueue<FeedEvent> pending;
+
+    private final Set<Subscription> questionSubscribers = ConcurrentHashMap.newKeySet();
+
+    private final ConcurrentHashMap<Long, Set<Subscription>> replySubscribers = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(daemonThreads("feed-dispatcher"));
+
+    private final ThreadPoolExecutor delivery;
+
+    /**
+     * Held while resizing delivery.
+     */
+    private final Object deliveryResizeLock = new Object();
+
+    /**
+     * Longest a send may take before its subscriber is disconnected, 0 for no limit.
+     */
+    private final long sendTimeoutNanos;
+
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(daemonThreads("feed-heartbeat"));
+
+    private final LongAdder published = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder delivered = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder disconnected = new LongAdder();
+
+    private final LongAdder timedOut = new LongAdder();
+
+    private volatile boolean closed;
+
+    /**
+     * @param bufferSize events buffered per subscriber before the slow consumer policy applies
+     * @param deliveryThreads threads sending events to subscribers
+     * @param slowConsumerPolicy what to do when a subscriber's buffer is full
+     * @param maxPendingEvents events waiting for the dispatcher above which new events are dropped
+     * @param heartbeatInterval interval between heartbeats sent to every subscriber, zero to send none
+     * @param sendTimeout longest a send may take before its subscriber is disconnected, zero for no limit
+     */
+    public FeedBus(int bufferSize, int deliveryThreads, SlowConsumerPolicy slowConsumerPolicy, int maxPendingEvents, Duration heartbeatInterval,
+            Duration sendTimeout) {
+        if(bufferSize < 1 || deliveryThreads < 1 || maxPendingEvents < 1)
+            throw new IllegalArgumentException("Buffer size, delivery threads and pending events must be positive");
+        this.bufferSize = bufferSize;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+        this.pending = new LinkedBlockingQueue<>(maxPendingEvents);
+        this.delivery = new ThreadPoolExecutor(deliveryThreads, deliveryThreads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                daemonThreads("feed-delivery"));
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        dispatcher.execute(this::dispatch);
+        if(!heartbeatInterval.isZero())
+            heartbeats.scheduleAtFixedRate(() -> publish(FeedEvent.HEARTBEAT),
+                    heartbeatInterval.toMillis(), heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+        if(!sendTimeout.isZero()) {
+            // Checked twice per timeout, so a stuck send is found at most one and a half timeouts after it started.
+            long checkInterval = Math.max(1, sendTimeout.toMillis() / 2);
+            heartbeats.scheduleAtFixedRate(this::checkSends, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Subscribes sink to every new question.
+     *
+     * @param sink connection of the subscriber
+     * @return the subscription, to cancel when the subscriber disconnects
+     */
+    public Subscription subscribeToQuestions(FeedSink sink) {
+        Subscription subscription = new Subscription(null, sink);
+        questionSubscribers.add(subscription);
+        subscriberCount.incrementAndGet();
+        return subscription;
+    }
+
+    /**
+     * Subscribes sink to every new reply to a question.
+     *
+     * @param questionId id of the question whose replies are sent
+     * @param sink connection of the subscriber
+     * @return the subscription, to cancel when the subscriber disconnects
+     */
+    public Subscription subscribeToReplies(long questionId, FeedSink sink) {
+        Subscription subscription = new Subscription(questionId, sink);
+        replySubscribers.compute(questionId, (id, subscribers) -> {
+            Set<Subscription> topic = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+            topic.add(subscription);
+            return topic;
+        });
+        subscriberCount.incrementAndGet();
+        return subscription;
+    }
+
+    @Override
+    public void questionAdded(Question question) {
+        if(subscriberCount.get() > 0)
+            publish(FeedEvent.question(question));
+    }
+
+    @Override
+    public void replyAdded(Question question, Reply reply) {
+        if(subscriberCount.get() > 0 && replySubscribers.containsKey(question.getId()))
+            publish(FeedEvent.reply(reply));
+    }
+
+    /**
+     * Cancels every subscription and stops the threads of the bus. Sinks aren't completed, the connections
+     * behind them being closed by the server shutting down.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        heartbeats.shutdownNow();
+        dispatcher.shutdownNow();
+        delivery.shutdownNow();
+        for(Subscription subscription : questionSubscribers)
+            subscription.cancel();
+        for(Set<Subscription> subscribers : replySubscribers.values())
+            for(Subscription subscription : subscribers)
+                subscription.cancel();
+    }
+
+    @ManagedAttribute(description = "Current number of subscribers")
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @ManagedAttribute(description = "Events accepted for dispatch")
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    @ManagedAttribute(description = "Events dropped because the dispatcher fell behind")
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @ManagedAttribute(description = "Events sent to subscribers")
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    @ManagedAttribute(description = "Events dropped for subscribers whose buffer was full")
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @ManagedAttribute(description = "Subscribers disconnected for being too slow or gone")
+    public long getDisconnectedCount() {
+        return disconnected.sum();
+    }
+
+    @ManagedAttribute(description = "Subscribers disconnected for a send exceeding the send timeout")
+    public long getTimedOutCount() {
+        return timedOut.sum();
+    }
+
+    @ManagedAttribute(description = "Threads of the delivery pool, including those stuck in a send which timed out")
+    public int getDeliveryThreads() {
+        return delivery.getCorePoolSize();
+    }
+
+    private void publish(FeedEvent event) {
+        if(pending.offer(event))
+            published.increment();
+        else
+            rejected.increment();
+    }
+
+    private void dispatch() {
+        try {
+            while(!closed) {
+                FeedEvent event = pending.take();
+                switch(event.getType()) {
+                    case QUESTION:
+                        offerAll(questionSubscribers, event);
+                        break;
+                    case REPLY:
+                        Set<Subscription> subscribers = replySubscribers.get(event.getQuestionId());
+                        if(subscribers != null)
+                            offerAll(subscribers, event);
+                        break;
+                    default:
+                        offerAll(questionSubscribers, event);
+                        for(Set<Subscription> topic : replySubscribers.values())
+                            offerAll(topic, event);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Disconnects the subscribers whose send exceeds the send timeout.
+     */
+    private void checkSends() {
+        long now = System.nanoTime();
+        for(Subscription subscription : questionSubscribers)
+            subscription.checkSend(now);
+        for(Set<Subscription> subscribers : replySubscribers.values())
+            for(Subscription subscription : subscribers)
+                subscription.checkSend(now);
+    }
+
+    /**
+     * Adds delta threads to the delivery pool, or removes them once they are idle.
+     */
+    private void resizeDelivery(int delta) {
+        synchronized(deliveryResizeLock) {
+            int threads = delivery.getCorePoolSize() + delta;
+            // The maximum can't go below the core size, so it is raised first and lowered last.
+            if(delta > 0) {
+                delivery.setMaximumPoolSize(threads);
+                delivery.setCorePoolSize(threads);
+            } else {
+                delivery.setCorePoolSize(threads);
+                delivery.setMaximumPoolSize(threads);
+            }
+        }
+    }
+
+    private static void offerAll(Set<Subscription> subscribers, FeedEvent event) {
+        for(Subscription subscription : subscribers)
+            subscription.offer(event);
+    }
+
+    private void remove(Subscription subscription) {
+        boolean removed;
+        if(subscription.questionId == null) {
+            removed = questionSubscribers.remove(subscription);
+        } else {
+            AtomicBoolean removedFromTopic = new AtomicBoolean();
+            replySubscribers.computeIfPresent(subscription.questionId, (id, subscribers) -> {
+                removedFromTopic.set(subscribers.remove(subscription));
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+            removed = removedFromTopic.get();
+        }
+        if(removed)
+            subscriberCount.decrementAndGet();
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Subscription of one {@link FeedSink} to a topic, with its own bounded buffer of events to send.
+     */
+    public final class Subscription {
+
+        /**
+         * Question whose replies are subscribed to, null for the question topic.
+         */
+        private final Long questionId;
+
+        private final FeedSink sink;
+
+        private final BlockingQueue<FeedEvent> buffer = new ArrayBlockingQueue<>(bufferSize);
+
+        /**
+         * Whether a delivery thread is draining or about to drain the buffer.
+         */
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        /**
+         * System.nanoTime() when the current send started, IDLE between sends, TIMED_OUT once the send timed out.
+         */
+        private final AtomicLong sendStart = new AtomicLong(IDLE);
+
+        private Subscription(Long questionId, FeedSink sink) {
+            this.questionId = questionId;
+            this.sink = sink;
+        }
+
+        /**
+         * Unsubscribes once the subscriber is gone, without completing its sink.
+         */
+        public void cancel() {
+            if(closed.compareAndSet(false, true))
+                remove(this);
+        }
+
+        public boolean isClosed() {
+            return closed.get();
+        }
+
+        /**
+         * Buffers event, called by the dispatcher only.
+         */
+        private void offer(FeedEvent event) {
+            if(closed.get())
+                return;
+            if(!buffer.offer(event)) {
+                if(event.getType() == FeedEvent.Type.HEARTBEAT)
+                    return;
+                if(slowConsumerPolicy == SlowConsumerPolicy.DISCONNECT) {
+                    logger.debug("Disconnecting subscriber of {} with {} buffered events", topic(), bufferSize);
+                    close();
+                } else {
+                    dropped.increment();
+                }
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if(draining.compareAndSet(false, true)) {
+                try {
+                    delivery.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                FeedEvent event;
+                for(int sent = 0; sent < DRAIN_BATCH && !closed.get() && (event = buffer.poll()) != null; sent++) {
+                    long start = System.nanoTime();
+                    sendStart.set(start);
+                    try {
+                        sink.send(event);
+                    } finally {
+                        if(!sendStart.compareAndSet(start, IDLE))
+                            timedOutSendReturned();
+                    }
+                    delivered.increment();
+                }
+            } catch (Exception e) {
+                logger.debug("Disconnecting subscriber of {} which failed to receive an event", topic(), e);
+                close();
+            } finally {
+                draining.set(false);
+            }
+            // Events buffered after the last poll but before draining was reset have no drain scheduled.
+            if(!buffer.isEmpty() && !closed.get())
+                scheduleDrain();
+        }
+
+        /**
+         * Disconnects the subscriber if its send started before now minus the send timeout, called by the
+         * heartbeat thread only. Its delivery thread is replaced, since it stays stuck in the send.
+         */
+        private void checkSend(long now) {
+            long start = sendStart.get();
+            if(start == IDLE || start == TIMED_OUT || now - start <= sendTimeoutNanos)
+                return;
+            if(sendStart.compareAndSet(start, TIMED_OUT)) {
+                logger.debug("Disconnecting subscriber of {} whose send is stuck for {} ms", topic(), (now - start) / 1_000_000);
+                timedOut.increment();
+                resizeDelivery(1);
+                // The sink is completed by the delivery thread once the send returns, completing it meanwhile
+                // could wait for the send.
+                disconnect();
+            }
+        }
+
+        /**
+         * Completes the sink of a subscriber disconnected while sending, and takes back the thread added in the
+         * place of the one which was stuck.
+         */
+        private void timedOutSendReturned() {
+            completeSink();
+            resizeDelivery(-1);
+        }
+
+        private void close() {
+            if(disconnect())
+                completeSink();
+        }
+
+        /**
+         * @return true if the subscription was closed by this call
+         */
+        private boolean disconnect() {
+            if(!closed.compareAndSet(false, true))
+                return false;
+            remove(this);
+            disconnected.increment();
+            buffer.clear();
+            return true;
+        }
+
+        private void completeSink() {
+            try {
+                sink.complete();
+            } catch (RuntimeException e) {
+                logger.debug("Failed to complete sink of {}", topic(), e);
+            }
+        }
+
+        private String topic() {
+            return questionId == null ? "questions" : "replies to question " + questionId;
+        }
+
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.example.forum.feed;
+
+import java.util.Collections;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+
+/**
+ * Event published on the {@link FeedBus}: a new question, a new reply or a heartbeat keeping idle connections open.
+ */
+public final class FeedEvent {
+
+    public enum Type {
+
+        QUESTION("question"),
+
+        REPLY("reply"),
+
+        HEARTBEAT("heartbeat");
+
+        private final String eventName;
+
+        Type(String eventName) {
+            this.eventName = eventName;
+        }
+
+        /**
+         * @return name of the event in the SSE stream
+         */
+        public String getEventName() {
+            return eventName;
+        }
+
+    }
+
+    static final FeedEvent HEARTBEAT = new FeedEvent(Type.HEARTBEAT, 0, 0, null);
+
+    private final Type type;
+
+    private final long questionId;
+
+    private final long id;
+
+    private final Object data;
+
+    private FeedEvent(Type type, long questionId, long id, Object data) {
+        this.type = type;
+        this.questionId = questionId;
+        this.id = id;
+        this.data = data;
+    }
+
+    /**
+     * @param question new question, sent without its replies which have their own events
+     * @return event of the new question
+     */
+    static FeedEvent question(Question question) {
+        return new FeedEvent(Type.QUESTION, question.getId(), question.getId(), Question.builder()
+                .id(question.getId()).author(question.getAuthor()).message(question.getMessage()).replies(Collections.emptyList())
+                .build());
+    }
+
+    static FeedEvent reply(Reply reply) {
+        return new FeedEvent(Type.REPLY, reply.getQuestionId(), reply.getId(), reply);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getQuestionId() {
+        return questionId;
+    }
+
+    /**
+     * @return id of the question or reply of the event
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return the {@link Question} or {@link Reply} of the event, null for heartbeats
+     */
+    public Object getData() {
+        return data;
+    }
+
+}
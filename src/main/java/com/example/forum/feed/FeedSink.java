@@ -0,0 +1,24 @@
+package com.example.forum.feed;
+
+import java.io.IOException;
+
+/**
+ * Connection a subscriber of the {@link FeedBus} receives its events through, typically an SSE stream.
+ * Only ever called by one thread at a time.
+ */
+public interface FeedSink {
+
+    /**
+     * Sends event to the subscriber, may block while the subscriber is slow to read.
+     *
+     * @param event event to send
+     * @throws IOException if the subscriber is gone, which cancels its subscription
+     */
+    void send(FeedEvent event) throws IOException;
+
+    /**
+     * Ends the connection after the subscription was closed by the bus.
+     */
+    void complete();
+
+}
@@ -0,0 +1,18 @@
+package com.example.forum.feed;
+
+/**
+ * What {@link FeedBus} does with an event for a subscriber whose buffer is full.
+ */
+public enum SlowConsumerPolicy {
+
+    /**
+     * The event is dropped for that subscriber, which stays subscribed and misses it.
+     */
+    DROP,
+
+    /**
+     * The subscriber is disconnected, so that it reconnects and catches up by reading the missed replies.
+     */
+    DISCONNECT
+
+}
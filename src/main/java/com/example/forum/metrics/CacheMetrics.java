@@ -0,0 +1,48 @@
+package com.example.forum.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import com.example.forum.service.CachingQuestionStore;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Meters of the {@link CachingQuestionStore} in front of the JPA store, read from the counters it keeps for
+ * JMX:
+ * <ul>
+ * <li>forum.cache.gets, the reads of a question, tagged result=hit or result=miss.</li>
+ * <li>forum.cache.hit.ratio, the share of the reads answered from the cache.</li>
+ * <li>forum.cache.loads, a timer of the questions read from the store.</li>
+ * <li>forum.cache.evictions, the questions evicted to stay within the size limit.</li>
+ * <li>forum.cache.size, the number of cached questions.</li>
+ * </ul>
+ */
+public class CacheMetrics implements MeterBinder {
+
+    private final CachingQuestionStore cache;
+
+    public CacheMetrics(CachingQuestionStore cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("forum.cache.gets", cache, CachingQuestionStore::getHitCount).tag("result", "hit")
+                .description("Reads answered from the cache").register(registry);
+        FunctionCounter.builder("forum.cache.gets", cache, CachingQuestionStore::getMissCount).tag("result", "miss")
+                .description("Reads which loaded the question or waited for its load").register(registry);
+        Gauge.builder("forum.cache.hit.ratio", cache, CachingQuestionStore::getHitRatio)
+                .description("Share of the reads answered from the cache").register(registry);
+        FunctionTimer.builder("forum.cache.loads", cache, CachingQuestionStore::getLoadCount, CachingQuestionStore::getLoadNanos, TimeUnit.NANOSECONDS)
+                .description("Questions read from the store").register(registry);
+        FunctionCounter.builder("forum.cache.evictions", cache, CachingQuestionStore::getEvictionCount)
+                .description("Questions evicted to stay within the size limit").register(registry);
+        Gauge.builder("forum.cache.size", cache, CachingQuestionStore::getEntryCount)
+                .description("Number of cached questions").register(registry);
+    }
+
+}
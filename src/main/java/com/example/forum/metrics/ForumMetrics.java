@@ -0,0 +1,52 @@
+package com.example.forum.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.QuestionListener;
+import com.example.forum.service.QuestionService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Gauges of the content of the forum, counted from the questions and replies saved and recovered by
+ * {@link QuestionService}, so that reading them never reads the datastore:
+ * <ul>
+ * <li>forum.questions, the number of questions.</li>
+ * <li>forum.replies, the number of replies.</li>
+ * <li>forum.thread.replies.max, the number of replies of the largest thread.</li>
+ * </ul>
+ * Counting costs an uncontended add per saved question or reply.
+ */
+public class ForumMetrics implements QuestionListener, MeterBinder {
+
+    private final LongAdder questions = new LongAdder();
+
+    private final LongAdder replies = new LongAdder();
+
+    private final LongAccumulator largestThread = new LongAccumulator(Math::max, 0);
+
+    @Override
+    public void questionAdded(Question question) {
+        questions.increment();
+    }
+
+    @Override
+    public void replyAdded(Question question, Reply reply) {
+        replies.increment();
+        largestThread.accumulate(question.getReplies().size());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("forum.questions", questions, LongAdder::sum).description("Number of questions").register(registry);
+        Gauge.builder("forum.replies", replies, LongAdder::sum).description("Number of replies").register(registry);
+        Gauge.builder("forum.thread.replies.max", largestThread, LongAccumulator::get)
+                .description("Number of replies of the largest thread").register(registry);
+    }
+
+}
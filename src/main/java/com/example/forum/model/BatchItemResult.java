@@ -0,0 +1,38 @@
+package com.example.forum.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item of a batch request, at the same position in the response as the item in the request.
+ *
+ * @param <T> type of the saved item
+ */
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult<T> {
+
+    @Schema(requiredMode = Schema.RequiredMode.REQUIRED, description = "HTTP status the item would have got on its own, 201 if it was saved")
+    @JsonProperty("status")
+    private int status;
+
+    @Schema(description = "Saved item populated with its id, missing if the item was rejected")
+    @JsonProperty("item")
+    private T item;
+
+    @Schema(description = "Errors describing why the item was rejected, missing if it was saved")
+    @JsonProperty("errors")
+    private List<Error> errors;
+
+}
@@ -0,0 +1,31 @@
+package com.example.forum.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One page of a keyset paginated listing along with the key to continue from.
+ *
+ * @param <T> type of the items in the page
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    /**
+     * Items of this page in ascending key order.
+     */
+    private final List<T> items;
+
+    /**
+     * Key of the last item of this page if more items follow it, null if this is the last page.
+     */
+    private final Long nextAfter;
+
+    public boolean hasNext() {
+        return nextAfter != null;
+    }
+
+}
@@ -1,10 +1,10 @@
 package com.example.forum.model;
 
-import javax.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotBlank;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import io.swagger.annotations.ApiModelProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -19,23 +19,23 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class Error {
 
-    @ApiModelProperty(value = "")
+    @Schema(description = "")
     @JsonProperty("fieldName")
     String fieldName;
 
-    @ApiModelProperty(value = "")
+    @Schema(description = "")
     @JsonProperty("objectName")
     String objectName;
 
-    @ApiModelProperty(value = "")
+    @Schema(description = "")
     @JsonProperty("rejectedValue")
     String rejectedValue;
 
-    @ApiModelProperty(value = "")
+    @Schema(description = "")
     @JsonProperty("expectedValue")
     String expectedValue;
 
-    @ApiModelProperty(required = true, value = "")
+    @Schema(requiredMode = Schema.RequiredMode.REQUIRED, description = "")
     @NotBlank(message = "Message should not be blank")
     @JsonProperty("message")
     String message;
@@ -0,0 +1,38 @@
+package com.example.forum.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a bulk import.
+ */
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportSummary {
+
+    @Schema(description = "Number of questions saved")
+    @JsonProperty("questions")
+    private long questions;
+
+    @Schema(description = "Number of replies saved")
+    @JsonProperty("replies")
+    private long replies;
+
+    @Schema(description = "Number of lines rejected")
+    @JsonProperty("rejected")
+    private long rejected;
+
+    @Schema(description = "Errors of the first rejected lines, the objectName giving the line number")
+    @JsonProperty("errors")
+    private List<Error> errors;
+
+}
@@ -1,15 +1,15 @@
 package com.example.forum.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import io.swagger.annotations.ApiModelProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
-import javax.validation.Valid;
-import javax.validation.constraints.*;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
 
 /**
  * Question pojo.
@@ -21,21 +21,21 @@ import javax.validation.constraints.*;
 @AllArgsConstructor
 public class Question  {
 
-    @ApiModelProperty(value = "")
+    @Schema(description = "")
     @JsonProperty("id")
     private Long id;
 
-    @ApiModelProperty(required = true, value = "")
+    @Schema(requiredMode = Schema.RequiredMode.REQUIRED, description = "")
     @NotBlank(message = "Author should not be blank")
     @JsonProperty("author")
     private String author;
 
-    @ApiModelProperty(required = true, value = "")
+    @Schema(requiredMode = Schema.RequiredMode.REQUIRED, description = "")
     @NotBlank(message = "Message should not be blank")
     @JsonProperty("message")
     private String message;
 
-    @ApiModelProperty(value = "")
+    @Schema(description = "")
     @JsonProperty("replies")
     @Valid
     private List<Reply> replies = null;
@@ -1,9 +1,9 @@
 package com.example.forum.model;
 
-import javax.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotBlank;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import io.swagger.annotations.ApiModelProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -19,21 +19,21 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class Reply {
 
-    @ApiModelProperty(value = "")
+    @Schema(description = "")
     @JsonProperty("id")
     private Long id;
 
-    @ApiModelProperty(required = true, value = "")
+    @Schema(requiredMode = Schema.RequiredMode.REQUIRED, description = "")
     @NotBlank(message = "Author should not be blank")
     @JsonProperty("author")
     private String author;
 
-    @ApiModelProperty(required = true, value = "")
+    @Schema(requiredMode = Schema.RequiredMode.REQUIRED, description = "")
     @NotBlank(message = "Message should not be blank")
     @JsonProperty("message")
     private String message;
 
-    @ApiModelProperty(value = "")
+    @Schema(description = "")
     @JsonProperty("questionId")
     private Long questionId;
 
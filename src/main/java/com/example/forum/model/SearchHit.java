@@ -0,0 +1,36 @@
+package com.example.forum.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Thread matching a search, without its replies.
+ */
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHit {
+
+    @Schema(description = "")
+    @JsonProperty("questionId")
+    private Long questionId;
+
+    @Schema(description = "Relevance of the thread, higher is better")
+    @JsonProperty("score")
+    private float score;
+
+    @Schema(description = "")
+    @JsonProperty("author")
+    private String author;
+
+    @Schema(description = "")
+    @JsonProperty("message")
+    private String message;
+
+}
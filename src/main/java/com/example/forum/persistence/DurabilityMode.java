@@ -0,0 +1,25 @@
+package com.example.forum.persistence;
+
+/**
+ * When records appended to the {@link WriteAheadLog} are forced to disk relative to the write returning.
+ */
+public enum DurabilityMode {
+
+    /**
+     * Every record is written and fsynced on its own before the write returns. Safest and slowest.
+     */
+    PER_WRITE,
+
+    /**
+     * Writes wait until their record is fsynced, but records of concurrent writes are written and fsynced
+     * together by whichever writer gets to flush first (group commit).
+     */
+    BATCHED,
+
+    /**
+     * Writes return as soon as their record is buffered, a background thread fsyncs periodically.
+     * A crash can lose the writes of the last flush interval.
+     */
+    ASYNC
+
+}
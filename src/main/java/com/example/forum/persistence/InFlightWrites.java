@@ -0,0 +1,71 @@
+package com.example.forum.persistence;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tracks writes which have been appended to the {@link WriteAheadLog} but may not be applied to the in-memory
+ * datastore yet, so that a snapshot can tell when every record up to a given lsn is visible in memory.
+ * <p>
+ * Writers call {@link #enter()} before appending to the log and {@link #exit(int)} once the write is applied.
+ * {@link #awaitPriorWrites()} waits only for writers which entered before it was called, so writers are never
+ * blocked. Counters are striped by thread and padded to separate cache lines so that writers on different
+ * threads don't contend; a thread always uses the same stripe, which keeps each stripe's count exact.
+ */
+public class InFlightWrites {
+
+    private static final int STRIPES = 64;
+
+    /**
+     * Longs per stripe, spreading stripes over distinct cache lines.
+     */
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray[] active = {
+        new AtomicLongArray(STRIPES * PADDING), new AtomicLongArray(STRIPES * PADDING)
+    };
+
+    private volatile int epoch;
+
+    /**
+     * Marks the start of a write.
+     *
+     * @return token to pass to {@link #exit(int)}
+     */
+    public int enter() {
+        int current = epoch;
+        active[current].incrementAndGet(stripe());
+        return current;
+    }
+
+    /**
+     * Marks the end of a write started with {@link #enter()}.
+     *
+     * @param token token returned by {@link #enter()}
+     */
+    public void exit(int token) {
+        active[token].decrementAndGet(stripe());
+    }
+
+    /**
+     * Waits until every write which entered before this call has exited. Must not be called concurrently
+     * with itself.
+     */
+    public void awaitPriorWrites() {
+        int previous = epoch;
+        epoch = previous ^ 1;
+        AtomicLongArray counters = active[previous];
+        while(true) {
+            long sum = 0;
+            for(int stripe = 0; stripe < STRIPES; stripe++)
+                sum += counters.get(stripe * PADDING);
+            if(sum == 0)
+                return;
+            Thread.yield();
+        }
+    }
+
+    private static int stripe() {
+        return ((int) Thread.currentThread().threadId() & (STRIPES - 1)) * PADDING;
+    }
+
+}
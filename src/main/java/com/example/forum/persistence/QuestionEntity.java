@@ -0,0 +1,49 @@
+package com.example.forum.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
+import jakarta.persistence.Table;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Row of a question in the question table of the JPA store, with its replies.
+ * <p>
+ * Ids are assigned before the entity is persisted, from the question_ids sequence, so that rows can be inserted
+ * in JDBC batches. Replies are only loaded along with the question by fetch joins, ordered by id.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "question")
+public class QuestionEntity {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false, length = ReplyEntity.MAX_TEXT_LENGTH)
+    private String author;
+
+    @Column(nullable = false, length = ReplyEntity.MAX_TEXT_LENGTH)
+    private String message;
+
+    @OneToMany(mappedBy = "question")
+    @OrderBy("id")
+    private List<ReplyEntity> replies = new ArrayList<>();
+
+    public QuestionEntity(Long id, String author, String message) {
+        this.id = id;
+        this.author = author;
+        this.message = message;
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.example.forum.persistence;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Row of a reply in the reply table of the JPA store.
+ * <p>
+ * Ids are assigned before the entity is persisted, from the reply_ids sequence. The question is a lazy
+ * reference so that saving a reply doesn't load its question, and the replies of a question are found
+ * through the index on question_id.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "reply", indexes = @Index(name = "reply_question_id", columnList = "question_id, id"))
+public class ReplyEntity {
+
+    /**
+     * Maximum length of authors and messages, which H2 stores in variable length columns.
+     */
+    static final int MAX_TEXT_LENGTH = 1 << 20;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false, length = MAX_TEXT_LENGTH)
+    private String author;
+
+    @Column(nullable = false, length = MAX_TEXT_LENGTH)
+    private String message;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "question_id", nullable = false)
+    private QuestionEntity question;
+
+    public ReplyEntity(Long id, String author, String message, QuestionEntity question) {
+        this.id = id;
+        this.author = author;
+        this.message = message;
+        this.question = question;
+    }
+
+}
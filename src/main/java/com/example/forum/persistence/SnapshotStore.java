@@ -0,0 +1,376 @@
+package com.example.forum.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+
+/**
+ * Directory of compact binary images of the whole datastore, each taken at a known {@link WriteAheadLog} lsn,
+ * so that startup only replays the log records following the newest image.
+ * <p>
+ * An image is laid out as
+ * <pre>
+ * int magic | int version | long lsn
+ * ( byte 1 | long questionId | string author | string message | int replyCount
+ *     ( long replyId | string author | string message ) * replyCount ) *
+ * byte 0
+ * long questionIdTracker | long replyIdTracker | long questionCount | long replyCount | int crc32
+ * </pre>
+ * where strings are an int length followed by UTF-8 bytes and the crc covers everything before it. Images are
+ * written to a temporary file which is fsynced and atomically renamed, and read back through memory mapped
+ * windows after their crc has been checked.
+ */
+public class SnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private static final int MAGIC = 0x46534e50;
+
+    private static final int VERSION = 1;
+
+    private static final int TRAILER_BYTES = 8 + 8 + 8 + 8 + 4;
+
+    private static final String PREFIX = "snapshot-";
+
+    private static final String SUFFIX = ".bin";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Largest part of an image mapped at once.
+     */
+    private static final int WINDOW_BYTES = 256 << 20;
+
+    private final Path directory;
+
+    private final int retain;
+
+    private SnapshotStore(Path directory, int retain) {
+        this.directory = directory;
+        this.retain = retain;
+    }
+
+    /**
+     * Opens the store in directory, creating the directory if it doesn't exist and deleting images left half
+     * written by a crash.
+     *
+     * @param directory directory holding the images
+     * @param retain number of newest images kept when older ones are pruned
+     * @return the opened store
+     * @throws IOException if the directory can't be created or cleaned
+     */
+    public static SnapshotStore open(Path directory, int retain) throws IOException {
+        if(retain < 1)
+            throw new IllegalArgumentException("At least one snapshot must be retained");
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + TEMP_SUFFIX)) {
+            for(Path path : stream)
+                Files.delete(path);
+        }
+        return new SnapshotStore(directory, retain);
+    }
+
+    /**
+     * Values stored in an image besides the questions and replies.
+     */
+    public static final class Header {
+
+        private final long lsn;
+
+        private final long questionIdTracker;
+
+        private final long replyIdTracker;
+
+        Header(long lsn, long questionIdTracker, long replyIdTracker) {
+            this.lsn = lsn;
+            this.questionIdTracker = questionIdTracker;
+            this.replyIdTracker = replyIdTracker;
+        }
+
+        /**
+         * @return lsn of the last log record reflected in the image
+         */
+        public long getLsn() {
+            return lsn;
+        }
+
+        public long getQuestionIdTracker() {
+            return questionIdTracker;
+        }
+
+        public long getReplyIdTracker() {
+            return replyIdTracker;
+        }
+
+    }
+
+    /**
+     * Writes an image of questions and their replies.
+     *
+     * @param lsn lsn of the last log record reflected in questions
+     * @param questions questions to write, each with its replies
+     * @param questionIdTracker value of the question id tracker, read after questions have been iterated
+     * @param replyIdTracker value of the reply id tracker, read after questions have been iterated
+     * @return path of the written image
+     * @throws IOException if the image can't be written
+     */
+    public Path write(long lsn, Iterable<Question> questions, LongSupplier questionIdTracker, LongSupplier replyIdTracker) throws IOException {
+        Path target = directory.resolve(snapshotName(lsn));
+        Path temp = directory.resolve(snapshotName(lsn) + TEMP_SUFFIX);
+        CRC32 crc = new CRC32();
+        long questionCount = 0;
+        long replyCount = 0;
+        try {
+            try (OutputStream file = Files.newOutputStream(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(lsn);
+                for(Question question : questions) {
+                    out.writeByte(1);
+                    out.writeLong(question.getId());
+                    writeString(out, question.getAuthor());
+                    writeString(out, question.getMessage());
+                    // Replies may be appended while writing, only the ones counted here are written.
+                    List<Reply> replies = question.getReplies();
+                    int count = replies.size();
+                    out.writeInt(count);
+                    for(int i = 0; i < count; i++) {
+                        Reply reply = replies.get(i);
+                        out.writeLong(reply.getId());
+                        writeString(out, reply.getAuthor());
+                        writeString(out, reply.getMessage());
+                    }
+                    questionCount++;
+                    replyCount += count;
+                }
+                out.writeByte(0);
+                out.writeLong(questionIdTracker.getAsLong());
+                out.writeLong(replyIdTracker.getAsLong());
+                out.writeLong(questionCount);
+                out.writeLong(replyCount);
+                out.flush();
+                out.writeInt((int) crc.getValue());
+                out.flush();
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException deleteFailure) {
+                e.addSuppressed(deleteFailure);
+            }
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+        logger.info("Wrote snapshot {} with {} questions and {} replies", target, questionCount, replyCount);
+        return target;
+    }
+
+    /**
+     * Loads the newest readable image, falling back to older ones when an image is corrupt.
+     *
+     * @param handler receives every question, without replies, and then its replies
+     * @return header of the loaded image or null if there is none
+     * @throws IOException if the directory can't be read
+     */
+    public Header loadLatest(WriteAheadLog.RecordHandler handler) throws IOException {
+        List<Path> snapshots = listSnapshots();
+        for(int i = snapshots.size() - 1; i >= 0; i--) {
+            Path path = snapshots.get(i);
+            try (MappedReader reader = new MappedReader(path)) {
+                if(!reader.checksumMatches()) {
+                    logger.warn("Skipping snapshot {} with bad checksum", path);
+                    continue;
+                }
+                return load(reader, handler);
+            } catch (IOException e) {
+                logger.warn("Skipping unreadable snapshot {}", path, e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return lsn of the oldest retained image, log records up to it are no longer needed. 0 if there is no image.
+     * @throws IOException if the directory can't be read
+     */
+    public long oldestRetainedLsn() throws IOException {
+        List<Path> snapshots = listSnapshots();
+        if(snapshots.isEmpty())
+            return 0;
+        return lsnOf(snapshots.get(Math.max(0, snapshots.size() - retain)));
+    }
+
+    /**
+     * Deletes every image except the newest retained ones.
+     *
+     * @throws IOException if an image can't be deleted
+     */
+    public void prune() throws IOException {
+        List<Path> snapshots = listSnapshots();
+        for(int i = 0; i < snapshots.size() - retain; i++) {
+            Files.delete(snapshots.get(i));
+            logger.info("Deleted snapshot {}", snapshots.get(i));
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private static Header load(MappedReader reader, WriteAheadLog.RecordHandler handler) throws IOException {
+        if(reader.getInt() != MAGIC || reader.getInt() != VERSION)
+            throw new IOException("Not a snapshot of a supported version");
+        long lsn = reader.getLong();
+        while(reader.getByte() == 1) {
+            long questionId = reader.getLong();
+            handler.onQuestion(lsn, Question.builder().id(questionId).author(reader.getString()).message(reader.getString()).build());
+            int replyCount = reader.getInt();
+            for(int i = 0; i < replyCount; i++) {
+                long replyId = reader.getLong();
+                handler.onReply(lsn, Reply.builder().id(replyId).author(reader.getString()).message(reader.getString()).questionId(questionId).build());
+            }
+        }
+        return new Header(lsn, reader.getLong(), reader.getLong());
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for(Path path : stream)
+                snapshots.add(path);
+        }
+        Collections.sort(snapshots, (a, b) -> Long.compare(lsnOf(a), lsnOf(b)));
+        return snapshots;
+    }
+
+    private static long lsnOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    static String snapshotName(long lsn) {
+        return String.format("%s%020d%s", PREFIX, lsn, SUFFIX);
+    }
+
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Can't force snapshot directory {}", directory, e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Sequential reader over a file mapped in windows of at most {@link SnapshotStore#WINDOW_BYTES}, so that
+     * images larger than a single {@link MappedByteBuffer} can be read.
+     */
+    private static final class MappedReader implements Closeable {
+
+        private final FileChannel channel;
+
+        private final long size;
+
+        private long windowStart;
+
+        private MappedByteBuffer window;
+
+        MappedReader(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            size = channel.size();
+            if(size < 4 + 4 + 8 + 1 + TRAILER_BYTES)
+                throw new EOFException("Snapshot " + path + " is truncated");
+            window = map(0);
+        }
+
+        boolean checksumMatches() throws IOException {
+            CRC32 crc = new CRC32();
+            long checked = 0;
+            long covered = size - 4;
+            while(checked < covered) {
+                MappedByteBuffer part = channel.map(FileChannel.MapMode.READ_ONLY, checked, Math.min(WINDOW_BYTES, covered - checked));
+                checked += part.remaining();
+                crc.update(part);
+            }
+            MappedByteBuffer stored = channel.map(FileChannel.MapMode.READ_ONLY, covered, 4);
+            return stored.getInt() == (int) crc.getValue();
+        }
+
+        byte getByte() throws IOException {
+            ensure(1);
+            return window.get();
+        }
+
+        int getInt() throws IOException {
+            ensure(4);
+            return window.getInt();
+        }
+
+        long getLong() throws IOException {
+            ensure(8);
+            return window.getLong();
+        }
+
+        String getString() throws IOException {
+            int length = getInt();
+            ensure(length);
+            byte[] bytes = new byte[length];
+            window.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if(window.remaining() >= bytes)
+                return;
+            long position = windowStart + window.position();
+            if(bytes > WINDOW_BYTES || position + bytes > size)
+                throw new EOFException("Unexpected end of snapshot at offset " + position);
+            window = map(position);
+        }
+
+        private MappedByteBuffer map(long position) throws IOException {
+            windowStart = position;
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_BYTES, size - position));
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,632 @@
+package com.example.forum.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+
+/**
+ * Append-only log of every {@link Question} and {@link Reply} saved, used to rebuild the in-memory datastore
+ * after a restart.
+ * <p>
+ * Records are numbered by a log sequence number (lsn) starting at 1. Appending only encodes the record into
+ * an in-memory staging buffer and returns its lsn; {@link #sync(long)} then makes it durable according to the
+ * {@link DurabilityMode}. Staged records are written with a single {@link FileChannel#write(ByteBuffer)} and a
+ * single {@link FileChannel#force(boolean)}, so concurrent writers waiting on {@link #sync(long)} share one
+ * fsync (group commit), as do the records of a batch appended at once.
+ * <p>
+ * The log is split into segment files named after the lsn of their first record. Each record is framed as
+ * <pre>
+ * int payloadLength | int crc32 | long lsn | byte type | payload
+ * </pre>
+ * where the crc covers lsn, type and payload. {@link #replay(long, RecordHandler)} reads the segments through
+ * memory mapped buffers and truncates a torn record at the end of the last segment left by a crash.
+ * It must be called once before anything is appended.
+ */
+public class WriteAheadLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    static final byte QUESTION = 1;
+
+    static final byte REPLY = 2;
+
+    /**
+     * payloadLength, crc32, lsn and type.
+     */
+    static final int HEADER_BYTES = 4 + 4 + 8 + 1;
+
+    private static final String SEGMENT_PREFIX = "wal-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final int INITIAL_STAGING_BYTES = 1 << 20;
+
+    private final Path directory;
+
+    private final DurabilityMode durabilityMode;
+
+    private final long segmentBytes;
+
+    /**
+     * Guards staging and lastLsn. Never held while doing I/O, except in {@link DurabilityMode#PER_WRITE}.
+     */
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    private ByteBuffer staging = ByteBuffer.allocateDirect(INITIAL_STAGING_BYTES);
+
+    private long lastLsn;
+
+    /**
+     * Guards the segment files and spare. Always taken before appendLock. A lock rather than a monitor, since
+     * it is held while forcing the log and a virtual thread blocked on a monitor pins its carrier thread.
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private ByteBuffer spare = ByteBuffer.allocateDirect(INITIAL_STAGING_BYTES);
+
+    private FileChannel segment;
+
+    private long segmentSize;
+
+    private long writtenLsn;
+
+    private volatile long durableLsn;
+
+    private volatile boolean recovered;
+
+    private volatile boolean closed;
+
+    private volatile IOException failure;
+
+    private ScheduledExecutorService flusher;
+
+    private final CRC32 crc = new CRC32();
+
+    private WriteAheadLog(Path directory, DurabilityMode durabilityMode, long segmentBytes) {
+        this.directory = directory;
+        this.durabilityMode = durabilityMode;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Opens the log in directory, creating the directory if it doesn't exist.
+     *
+     * @param directory directory holding the segment files
+     * @param durabilityMode when appended records are forced to disk
+     * @param segmentBytes size after which a new segment file is started
+     * @param flushInterval interval between background flushes in {@link DurabilityMode#ASYNC} mode
+     * @return the opened log, to be replayed before appending to it
+     * @throws IOException if the directory can't be created
+     */
+    public static WriteAheadLog open(Path directory, DurabilityMode durabilityMode, long segmentBytes, Duration flushInterval) throws IOException {
+        if(segmentBytes <= 0 || segmentBytes > Integer.MAX_VALUE / 2)
+            throw new IllegalArgumentException("Segment size must be between 1 byte and 1GB");
+        Files.createDirectories(directory);
+        WriteAheadLog log = new WriteAheadLog(directory, durabilityMode, segmentBytes);
+        if(durabilityMode == DurabilityMode.ASYNC) {
+            log.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMillis = Math.max(1, flushInterval.toMillis());
+            log.flusher.scheduleWithFixedDelay(log::backgroundFlush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return log;
+    }
+
+    /**
+     * Receives the records read back by {@link WriteAheadLog#replay(long, RecordHandler)} in lsn order.
+     */
+    public interface RecordHandler {
+
+        void onQuestion(long lsn, Question question);
+
+        void onReply(long lsn, Reply reply);
+
+    }
+
+    /**
+     * Reads every record with an lsn greater than afterLsn and positions the log to append after the last
+     * valid record.
+     *
+     * @param afterLsn lsn up to which records are already reflected in the caller's state, 0 to read everything
+     * @param handler receives the records in lsn order
+     * @return lsn of the last valid record in the log or afterLsn if it is greater, appending continues after it
+     * @throws IOException if a segment can't be read or a record before the last one is corrupt
+     */
+    public long replay(long afterLsn, RecordHandler handler) throws IOException {
+        flushLock.lock();
+        try {
+            if(recovered)
+                throw new IllegalStateException("Write-ahead log has already been replayed");
+            List<Segment> segments = listSegments();
+            long last = 0;
+            for(int i = 0; i < segments.size(); i++) {
+                Segment current = segments.get(i);
+                boolean tail = i == segments.size() - 1;
+                if(!tail && segments.get(i + 1).firstLsn <= afterLsn + 1) {
+                    last = segments.get(i + 1).firstLsn - 1;
+                    continue;
+                }
+                try (FileChannel channel = FileChannel.open(current.path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    long size = channel.size();
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                    long scanned = scan(buffer, afterLsn, handler);
+                    if(scanned > 0)
+                        last = scanned;
+                    if(buffer.position() < size) {
+                        if(!tail)
+                            throw new IOException("Corrupt record in " + current.path + " at offset " + buffer.position());
+                        logger.warn("Truncating torn write-ahead log tail of {} at offset {}", current.path, buffer.position());
+                        channel.truncate(buffer.position());
+                        channel.force(true);
+                    }
+                }
+            }
+            // Records must keep numbering after afterLsn even if the log lost the segments up to it.
+            last = Math.max(last, afterLsn);
+            if(!segments.isEmpty()) {
+                Segment tail = segments.get(segments.size() - 1);
+                segment = FileChannel.open(tail.path, StandardOpenOption.WRITE);
+                segmentSize = segment.size();
+                segment.position(segmentSize);
+            }
+            appendLock.lock();
+            try {
+                lastLsn = last;
+            } finally {
+                appendLock.unlock();
+            }
+            writtenLsn = last;
+            durableLsn = last;
+            recovered = true;
+            return last;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Stages a record of a saved question.
+     *
+     * @param question question populated with its id
+     * @return lsn of the record, to be passed to {@link #sync(long)}
+     */
+    public long appendQuestion(Question question) {
+        return append(Collections.singletonList(questionRecord(question)));
+    }
+
+    /**
+     * Stages a record of every saved question at once, with consecutive lsns, so that a single
+     * {@link #sync(long)} makes all of them durable.
+     *
+     * @param questions questions populated with their ids
+     * @return lsn of the last record, to be passed to {@link #sync(long)}
+     */
+    public long appendQuestions(List<Question> questions) {
+        List<PendingRecord> records = new ArrayList<>(questions.size());
+        for(Question question : questions)
+            records.add(questionRecord(question));
+        return append(records);
+    }
+
+    /**
+     * Stages a record of a saved reply.
+     *
+     * @param reply reply populated with its id and questionId
+     * @return lsn of the record, to be passed to {@link #sync(long)}
+     */
+    public long appendReply(Reply reply) {
+        return append(Collections.singletonList(replyRecord(reply)));
+    }
+
+    /**
+     * Stages a record of every saved reply at once, with consecutive lsns, so that a single
+     * {@link #sync(long)} makes all of them durable.
+     *
+     * @param replies replies populated with their ids and questionIds
+     * @return lsn of the last record, to be passed to {@link #sync(long)}
+     */
+    public long appendReplies(List<Reply> replies) {
+        List<PendingRecord> records = new ArrayList<>(replies.size());
+        for(Reply reply : replies)
+            records.add(replyRecord(reply));
+        return append(records);
+    }
+
+    /**
+     * Waits until the record with the given lsn is durable as required by the {@link DurabilityMode}.
+     *
+     * @param lsn lsn returned when the record was appended
+     * @throws UncheckedIOException if the log couldn't be written
+     */
+    public void sync(long lsn) {
+        if(durableLsn >= lsn || durabilityMode == DurabilityMode.ASYNC)
+            return;
+        flushLock.lock();
+        try {
+            if(durableLsn < lsn)
+                flush();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments holding only records up to lsn. The segment being appended to is never deleted.
+     *
+     * @param lsn lsn up to which records are no longer needed, typically the lsn of the oldest retained snapshot
+     * @return number of deleted segments
+     * @throws IOException if a segment can't be deleted
+     */
+    public int deleteSegmentsBefore(long lsn) throws IOException {
+        flushLock.lock();
+        try {
+            List<Segment> segments = listSegments();
+            int deleted = 0;
+            for(int i = 0; i < segments.size() - 1 && segments.get(i + 1).firstLsn <= lsn + 1; i++) {
+                Files.delete(segments.get(i).path);
+                logger.info("Deleted write-ahead log segment {}", segments.get(i).path);
+                deleted++;
+            }
+            return deleted;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * @return lsn of the last record appended
+     */
+    public long lastLsn() {
+        appendLock.lock();
+        try {
+            return lastLsn;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * @return lsn of the last record forced to disk
+     */
+    public long durableLsn() {
+        return durableLsn;
+    }
+
+    public DurabilityMode getDurabilityMode() {
+        return durabilityMode;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Flushes every staged record and closes the current segment. A background flush already running is waited
+     * for rather than interrupted, which would close the segment under it and fail the log.
+     */
+    @Override
+    public void close() throws IOException {
+        if(flusher != null)
+            flusher.shutdown();
+        flushLock.lock();
+        try {
+            if(closed)
+                return;
+            try {
+                if(recovered && failure == null)
+                    flush();
+            } finally {
+                closed = true;
+                if(segment != null)
+                    segment.close();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @FunctionalInterface
+    private interface PayloadWriter {
+
+        void write(ByteBuffer buffer);
+
+    }
+
+    /**
+     * Record encoded outside of the locks, waiting to be staged.
+     */
+    private static final class PendingRecord {
+
+        private final int payloadBytes;
+
+        private final byte type;
+
+        private final PayloadWriter payloadWriter;
+
+        PendingRecord(int payloadBytes, byte type, PayloadWriter payloadWriter) {
+            this.payloadBytes = payloadBytes;
+            this.type = type;
+            this.payloadWriter = payloadWriter;
+        }
+
+    }
+
+    private static PendingRecord questionRecord(Question question) {
+        byte[] author = utf8(question.getAuthor());
+        byte[] message = utf8(question.getMessage());
+        int payloadBytes = 8 + 4 + author.length + 4 + message.length;
+        return new PendingRecord(payloadBytes, QUESTION, buffer -> {
+            buffer.putLong(question.getId());
+            putBytes(buffer, author);
+            putBytes(buffer, message);
+        });
+    }
+
+    private static PendingRecord replyRecord(Reply reply) {
+        byte[] author = utf8(reply.getAuthor());
+        byte[] message = utf8(reply.getMessage());
+        int payloadBytes = 8 + 8 + 4 + author.length + 4 + message.length;
+        return new PendingRecord(payloadBytes, REPLY, buffer -> {
+            buffer.putLong(reply.getId());
+            buffer.putLong(reply.getQuestionId());
+            putBytes(buffer, author);
+            putBytes(buffer, message);
+        });
+    }
+
+    private long append(List<PendingRecord> records) {
+        if(records.isEmpty())
+            throw new IllegalArgumentException("At least one record must be appended");
+        if(durabilityMode == DurabilityMode.PER_WRITE) {
+            flushLock.lock();
+            try {
+                long lsn = stage(records);
+                flush();
+                return lsn;
+            } finally {
+                flushLock.unlock();
+            }
+        }
+        return stage(records);
+    }
+
+    /**
+     * Stages records with consecutive lsns.
+     *
+     * @return lsn of the last record
+     */
+    private long stage(List<PendingRecord> records) {
+        appendLock.lock();
+        try {
+            checkWritable();
+            int batchBytes = 0;
+            for(PendingRecord record : records)
+                batchBytes += HEADER_BYTES + record.payloadBytes;
+            ensureStagingCapacity(batchBytes);
+            for(PendingRecord record : records) {
+                long lsn = ++lastLsn;
+                int start = staging.position();
+                staging.putInt(record.payloadBytes).putInt(0).putLong(lsn).put(record.type);
+                record.payloadWriter.write(staging);
+                ByteBuffer checksummed = staging.duplicate();
+                checksummed.position(start + 8).limit(start + HEADER_BYTES + record.payloadBytes);
+                crc.reset();
+                crc.update(checksummed);
+                staging.putInt(start + 4, (int) crc.getValue());
+            }
+            return lastLsn;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Writes and forces every staged record. Must be called holding flushLock.
+     */
+    private void flush() {
+        if(failure != null)
+            throw new UncheckedIOException("Write-ahead log failed earlier", failure);
+        ByteBuffer batch;
+        long batchLastLsn;
+        appendLock.lock();
+        try {
+            if(staging.position() == 0)
+                return;
+            batch = staging;
+            staging = spare;
+            batchLastLsn = lastLsn;
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            batch.flip();
+            if(segment == null || segmentSize >= segmentBytes)
+                roll(writtenLsn + 1);
+            int batchBytes = batch.remaining();
+            while(batch.hasRemaining())
+                segment.write(batch);
+            segment.force(false);
+            segmentSize += batchBytes;
+            writtenLsn = batchLastLsn;
+            durableLsn = batchLastLsn;
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException("Failed to write to write-ahead log", e);
+        } finally {
+            batch.clear();
+            spare = batch;
+        }
+    }
+
+    private void backgroundFlush() {
+        try {
+            flushLock.lock();
+            try {
+                if(recovered && !closed)
+                    flush();
+            } finally {
+                flushLock.unlock();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Background flush of write-ahead log failed", e);
+        }
+    }
+
+    private void roll(long firstLsn) throws IOException {
+        if(segment != null)
+            segment.close();
+        Path path = directory.resolve(segmentName(firstLsn));
+        segment = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentSize = 0;
+        forceDirectory();
+    }
+
+    /**
+     * Makes the creation of a new segment durable. Not supported on every platform, where it is skipped.
+     */
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Can't force write-ahead log directory {}", directory, e);
+        }
+    }
+
+    private void checkWritable() {
+        if(!recovered)
+            throw new IllegalStateException("Write-ahead log must be replayed before appending to it");
+        if(closed)
+            throw new IllegalStateException("Write-ahead log is closed");
+        if(failure != null)
+            throw new UncheckedIOException("Write-ahead log failed earlier", failure);
+    }
+
+    private void ensureStagingCapacity(int bytes) {
+        if(staging.remaining() >= bytes)
+            return;
+        int capacity = staging.capacity();
+        while(capacity - staging.position() < bytes)
+            capacity *= 2;
+        ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+        staging.flip();
+        grown.put(staging);
+        staging = grown;
+    }
+
+    /**
+     * Reads records from buffer until its end or the first invalid record, leaving its position after the
+     * last valid record.
+     *
+     * @return lsn of the last valid record read, 0 if there was none
+     */
+    private long scan(ByteBuffer buffer, long afterLsn, RecordHandler handler) {
+        long last = 0;
+        CRC32 checksum = new CRC32();
+        while(buffer.remaining() >= HEADER_BYTES) {
+            int start = buffer.position();
+            int payloadBytes = buffer.getInt(start);
+            if(payloadBytes < 0 || payloadBytes > buffer.limit() - start - HEADER_BYTES)
+                break;
+            ByteBuffer checksummed = buffer.duplicate();
+            checksummed.position(start + 8).limit(start + HEADER_BYTES + payloadBytes);
+            checksum.reset();
+            checksum.update(checksummed);
+            if((int) checksum.getValue() != buffer.getInt(start + 4))
+                break;
+            buffer.position(start + 8);
+            long lsn = buffer.getLong();
+            byte type = buffer.get();
+            if(lsn > afterLsn)
+                dispatch(lsn, type, buffer, handler);
+            buffer.position(start + HEADER_BYTES + payloadBytes);
+            last = lsn;
+        }
+        return last;
+    }
+
+    private static void dispatch(long lsn, byte type, ByteBuffer buffer, RecordHandler handler) {
+        switch (type) {
+            case QUESTION:
+                long questionId = buffer.getLong();
+                handler.onQuestion(lsn, Question.builder().id(questionId).author(getString(buffer)).message(getString(buffer)).build());
+                break;
+            case REPLY:
+                long replyId = buffer.getLong();
+                long repliedQuestionId = buffer.getLong();
+                handler.onReply(lsn, Reply.builder().id(replyId).questionId(repliedQuestionId).author(getString(buffer)).message(getString(buffer)).build());
+                break;
+            default:
+                throw new IllegalStateException("Unknown write-ahead log record type " + type + " at lsn " + lsn);
+        }
+    }
+
+    private List<Segment> listSegments() throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for(Path path : stream) {
+                String name = path.getFileName().toString();
+                segments.add(new Segment(path, Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))));
+            }
+        }
+        Collections.sort(segments, (a, b) -> Long.compare(a.firstLsn, b.firstLsn));
+        return segments;
+    }
+
+    static String segmentName(long firstLsn) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Segment {
+
+        private final Path path;
+
+        private final long firstLsn;
+
+        Segment(Path path, long firstLsn) {
+            this.path = path;
+            this.firstLsn = firstLsn;
+        }
+
+    }
+
+}
@@ -0,0 +1,723 @@
+package com.example.forum.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.QuestionListener;
+
+/**
+ * In-process full-text index of questions and replies, ranking threads with BM25.
+ * <p>
+ * Every question, its author and message together, and every reply is a document numbered in the order it is
+ * indexed. Since document numbers only grow, the posting list of a term is only ever appended to, and is kept
+ * compressed as the varint encoded gap from the previous document followed by the term frequency. Every
+ * BLOCK_SIZE postings a skip entry records where the block ends along with what bounds the score of any
+ * document of the block. Writers take turns on a single lock; readers
+ * never lock, reading the published document count first and ignoring anything above it, the way
+ * {@link com.example.forum.service.ReplyLog} is read.
+ * <p>
+ * A query scores documents one at a time, merging the posting lists in document order, and keeps the best
+ * scoring threads, a thread scoring as its best matching document. Once enough threads are found, documents
+ * which can't beat the worst of them are skipped: terms whose score bounds add up to less than it can't
+ * bring in a document on their own (MaxScore), and runs of documents whose blocks, in every posting list, bound
+ * their score below it are jumped over with the skip entries, so that a query of very common words doesn't
+ * decode most of their postings.
+ * <p>
+ * Words in many documents leave little to skip, their block bounds being close to the best scores, so a query
+ * may decode at most maxQueryPostings postings. A query whose posting lists are longer is run against windows of
+ * documents, newest first, each expected to hold a WINDOWS_PER_BUDGET-th of the budget, keeping the best threads
+ * from one window to the next, and stops once it has decoded its budget. Its results are then the best threads
+ * of the newest documents rather than of the whole index, and are marked as truncated. A query within its
+ * budget is exact.
+ */
+@ManagedResource(objectName = "com.example.forum:type=SearchIndex", description = "Full-text index of questions and replies")
+public class SearchIndex implements QuestionListener {
+
+    static final float K1 = 1.2f;
+
+    static final float B = 0.75f;
+
+    /**
+     * Postings per block of a posting list.
+     */
+    static final int BLOCK_SIZE = 128;
+
+    /**
+     * Longest token indexed, longer ones are cut.
+     */
+    static final int MAX_TOKEN_LENGTH = 64;
+
+    /**
+     * Most distinct terms of a query used for scoring, the following ones are ignored.
+     */
+    static final int MAX_QUERY_TERMS = 32;
+
+    /**
+     * Default of maxQueryPostings, the postings a query decodes at most.
+     */
+    static final int MAX_QUERY_POSTINGS = 1 << 16;
+
+    /**
+     * Windows a query over budget is expected to search before stopping.
+     */
+    static final int WINDOWS_PER_BUDGET = 4;
+
+    private static final int INITIAL_DOCUMENTS = 1024;
+
+    private final Map<String, PostingList> postings = new ConcurrentHashMap<>();
+
+    /**
+     * Most postings a query decodes, searching the newest documents first once its posting lists are longer.
+     */
+    private final int maxQueryPostings;
+
+    private final Object writeLock = new Object();
+
+    /**
+     * questionId of every document. Replaced by a larger copy when full, written before documentCount.
+     */
+    private volatile long[] documentQuestions = new long[INITIAL_DOCUMENTS];
+
+    /**
+     * Number of tokens of every document. Replaced by a larger copy when full, written before documentCount.
+     */
+    private volatile int[] documentLengths = new int[INITIAL_DOCUMENTS];
+
+    private volatile long totalLength;
+
+    /**
+     * Number of documents visible to queries, written last when a document is indexed.
+     */
+    private volatile int documentCount;
+
+    private final LongAdder postingBytes = new LongAdder();
+
+    private final LongAdder queries = new LongAdder();
+
+    private final LongAdder truncatedQueries = new LongAdder();
+
+    public SearchIndex() {
+        this(MAX_QUERY_POSTINGS);
+    }
+
+    /**
+     * @param maxQueryPostings most postings a query decodes, searching the newest documents first once its
+     *        posting lists are longer
+     */
+    public SearchIndex(int maxQueryPostings) {
+        if(maxQueryPostings < 1)
+            throw new IllegalArgumentException("A query needs at least one posting: " + maxQueryPostings);
+        this.maxQueryPostings = maxQueryPostings;
+    }
+
+    @Override
+    public void questionAdded(Question question) {
+        List<String> tokens = tokenize(question.getAuthor());
+        tokens.addAll(tokenize(question.getMessage()));
+        index(question.getId(), tokens);
+    }
+
+    @Override
+    public void replyAdded(Question question, Reply reply) {
+        index(question.getId(), tokenize(reply.getMessage()));
+    }
+
+    /**
+     * Returns the threads best matching query, by decreasing score.
+     *
+     * @param query words to look for, in any order
+     * @param limit maximum number of threads returned
+     * @return the best matching threads, empty if no document contains any word of query, truncated if the
+     *         query spent its budget before the oldest documents
+     */
+    public SearchResults search(String query, int limit) {
+        queries.increment();
+        // Every document below the count is fully visible, arrays are read after it so they hold them all.
+        int documents = documentCount;
+        long[] questions = documentQuestions;
+        int[] lengths = documentLengths;
+        if(documents == 0)
+            return new SearchResults(new ArrayList<>(), false);
+        float averageLength = Math.max(1f, (float) ((double) totalLength / documents));
+
+        List<PostingList> lists = new ArrayList<>();
+        long queryPostings = 0;
+        for(String term : new LinkedHashSet<>(tokenize(query))) {
+            if(lists.size() == MAX_QUERY_TERMS)
+                break;
+            PostingList list = postings.get(term);
+            if(list != null) {
+                lists.add(list);
+                queryPostings += list.documentFrequency;
+            }
+        }
+
+        TopThreads top = new TopThreads(limit);
+        // The whole index at once when the budget covers every posting, else windows of a part of the budget.
+        int window = queryPostings <= maxQueryPostings ? documents
+                : (int) Math.max(1, (long) documents * maxQueryPostings / (WINDOWS_PER_BUDGET * queryPostings));
+        long decoded = 0;
+        int end = documents;
+        while(end > 0 && decoded < maxQueryPostings) {
+            int start = Math.max(0, end - window);
+            decoded += search(lists, start, end, documents, averageLength, lengths, questions, top);
+            end = start;
+        }
+        if(end > 0)
+            truncatedQueries.increment();
+        return new SearchResults(top.results(), end > 0);
+    }
+
+    /**
+     * Offers to top the threads of the documents from start to end matching lists, skipping those which can't
+     * beat the threshold of top.
+     *
+     * @return number of postings decoded
+     */
+    private static long search(List<PostingList> lists, int start, int end, int documents, float averageLength, int[] lengths,
+            long[] questions, TopThreads top) {
+        List<Cursor> terms = new ArrayList<>();
+        for(PostingList list : lists) {
+            Cursor cursor = list.cursor(documents, averageLength);
+            if(cursor.next() && cursor.advanceTo(start))
+                terms.add(cursor);
+        }
+        terms.sort(Comparator.comparingDouble(cursor -> cursor.upperBound));
+        Cursor[] cursors = terms.toArray(new Cursor[0]);
+        // boundSums[i] bounds the score a document gets from cursors 0 to i.
+        float[] boundSums = new float[cursors.length];
+        for(int i = 0; i < cursors.length; i++)
+            boundSums[i] = (i == 0 ? 0 : boundSums[i - 1]) + cursors[i].upperBound;
+
+        while(true) {
+            float threshold = top.threshold();
+            // Cursors below firstEssential can't bring a document above the threshold on their own.
+            int firstEssential = 0;
+            while(firstEssential < cursors.length && boundSums[firstEssential] <= threshold)
+                firstEssential++;
+            int document = Integer.MAX_VALUE;
+            for(int i = firstEssential; i < cursors.length; i++)
+                if(!cursors[i].exhausted)
+                    document = Math.min(document, cursors[i].document);
+            if(document >= end)
+                break;
+
+            // Bound the score of the documents up to skipTo, from the blocks of every cursor around document.
+            float bound = 0;
+            int skipTo = Integer.MAX_VALUE;
+            for(int i = 0; i < firstEssential; i++) {
+                Cursor cursor = cursors[i];
+                if(!cursor.exhausted) {
+                    bound += cursor.blockBound(document);
+                    skipTo = Math.min(skipTo, cursor.blockEnd(document));
+                }
+            }
+            for(int i = firstEssential; i < cursors.length; i++) {
+                Cursor cursor = cursors[i];
+                if(cursor.exhausted)
+                    continue;
+                if(cursor.document == document) {
+                    bound += cursor.blockBound(document);
+                    skipTo = Math.min(skipTo, cursor.blockEnd(document));
+                } else {
+                    skipTo = Math.min(skipTo, cursor.document);
+                }
+            }
+            if(bound <= threshold) {
+                for(int i = firstEssential; i < cursors.length; i++)
+                    if(!cursors[i].exhausted && cursors[i].document == document)
+                        cursors[i].advanceTo(skipTo);
+                continue;
+            }
+
+            float norm = K1 * (1 - B + B * lengths[document] / averageLength);
+            float score = 0;
+            for(int i = firstEssential; i < cursors.length; i++)
+                if(!cursors[i].exhausted && cursors[i].document == document)
+                    score += cursors[i].score(norm);
+            for(int i = firstEssential - 1; i >= 0 && score + boundSums[i] > threshold; i--)
+                if(cursors[i].advanceTo(document) && cursors[i].document == document)
+                    score += cursors[i].score(norm);
+            top.offer(questions[document], score);
+            for(int i = firstEssential; i < cursors.length; i++)
+                if(!cursors[i].exhausted && cursors[i].document == document)
+                    cursors[i].next();
+        }
+        long decoded = 0;
+        for(Cursor cursor : cursors)
+            decoded += cursor.decoded;
+        return decoded;
+    }
+
+    @ManagedAttribute(description = "Number of questions and replies indexed")
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    @ManagedAttribute(description = "Number of distinct terms indexed")
+    public int getTermCount() {
+        return postings.size();
+    }
+
+    @ManagedAttribute(description = "Size of the compressed posting lists in bytes")
+    public long getPostingBytes() {
+        return postingBytes.sum();
+    }
+
+    @ManagedAttribute(description = "Number of queries run")
+    public long getQueryCount() {
+        return queries.sum();
+    }
+
+    @ManagedAttribute(description = "Number of queries stopped before the oldest documents, having decoded their budget of postings")
+    public long getTruncatedQueryCount() {
+        return truncatedQueries.sum();
+    }
+
+    /**
+     * Splits text into lower case runs of letters and digits.
+     *
+     * @param text text to split, may be null
+     * @return the tokens of text in order
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if(text == null)
+            return tokens;
+        int length = text.length();
+        int start = -1;
+        for(int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if(wordChar && start < 0) {
+                start = i;
+            } else if(!wordChar && start >= 0) {
+                tokens.add(text.substring(start, Math.min(i, start + MAX_TOKEN_LENGTH)).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private void index(long questionId, List<String> tokens) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for(String token : tokens)
+            frequencies.merge(token, 1, Integer::sum);
+        synchronized (writeLock) {
+            int document = documentCount;
+            if(document == documentQuestions.length) {
+                documentQuestions = Arrays.copyOf(documentQuestions, document * 2);
+                documentLengths = Arrays.copyOf(documentLengths, document * 2);
+            }
+            documentQuestions[document] = questionId;
+            documentLengths[document] = tokens.size();
+            for(Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                PostingList list = postings.computeIfAbsent(entry.getKey(), term -> new PostingList());
+                postingBytes.add(list.add(document, entry.getValue(), tokens.size()));
+            }
+            totalLength += tokens.size();
+            documentCount = document + 1;
+        }
+    }
+
+    /**
+     * Documents containing a term, in ascending order, as varint encoded gaps and frequencies, with a skip
+     * entry per full block of BLOCK_SIZE postings.
+     * <p>
+     * A block's score bound comes from its impacts, the pairs of frequency and document length of its postings
+     * which no other posting of the block beats on both, since the most frequent and the shortest are rarely
+     * the same document. There are at most as many as distinct frequencies, a handful for most blocks.
+     */
+    private static final class PostingList {
+
+        /**
+         * Ints per skip entry: last document of the block, offset of the end of the block in data and in impacts.
+         */
+        static final int SKIP_INTS = 3;
+
+        /**
+         * Replaced by a larger copy when full, written before size.
+         */
+        private volatile byte[] data = new byte[8];
+
+        private volatile int size;
+
+        /**
+         * Skip entries of the full blocks. Replaced by a larger copy when full, written before blocks.
+         */
+        private volatile int[] skips = new int[0];
+
+        /**
+         * Impacts of the full blocks one after the other, as frequency and length pairs. Replaced by a larger
+         * copy when full, written before blocks.
+         */
+        private volatile int[] impacts = new int[0];
+
+        private volatile int blocks;
+
+        /**
+         * Impacts of the whole list, replaced when they change, before size.
+         */
+        private volatile int[] listImpacts = new int[0];
+
+        private volatile int documentFrequency;
+
+        /**
+         * Last document added, impacts and postings of the block being filled, only used by the writer.
+         */
+        private int lastDocument = -1;
+
+        private int blockPostings;
+
+        private final Impacts blockImpacts = new Impacts();
+
+        private final Impacts allImpacts = new Impacts();
+
+        private int impactsSize;
+
+        /**
+         * Appends a document, called holding the write lock.
+         *
+         * @return number of bytes added
+         */
+        int add(int document, int frequency, int length) {
+            int start = size;
+            byte[] bytes = data;
+            if(bytes.length - start < 10) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                data = bytes;
+            }
+            int end = putVarint(bytes, start, document - lastDocument);
+            end = putVarint(bytes, end, frequency);
+            lastDocument = document;
+            documentFrequency++;
+            if(allImpacts.add(frequency, length))
+                listImpacts = allImpacts.toArray();
+            blockImpacts.add(frequency, length);
+            if(++blockPostings == BLOCK_SIZE)
+                completeBlock(document, end);
+            size = end;
+            return end - start;
+        }
+
+        Cursor cursor(int documents, float averageLength) {
+            int end = size;
+            byte[] bytes = data;
+            int[] bounds = listImpacts;
+            int fullBlocks = blocks;
+            int[] entries = skips;
+            int[] blockBounds = impacts;
+            // Blocks completed after size was read end beyond it.
+            while(fullBlocks > 0 && entries[(fullBlocks - 1) * SKIP_INTS + 1] > end)
+                fullBlocks--;
+            int frequency = documentFrequency;
+            float idf = (float) Math.log(1 + (documents - frequency + 0.5) / (frequency + 0.5));
+            return new Cursor(bytes, end, entries, blockBounds, fullBlocks, documents, idf, averageLength, bounds);
+        }
+
+        private void completeBlock(int document, int end) {
+            int[] pairs = impacts;
+            if(pairs.length - impactsSize < blockImpacts.size) {
+                pairs = Arrays.copyOf(pairs, Math.max(impactsSize + blockImpacts.size, pairs.length * 2));
+                impacts = pairs;
+            }
+            System.arraycopy(blockImpacts.pairs, 0, pairs, impactsSize, blockImpacts.size);
+            impactsSize += blockImpacts.size;
+            int block = blocks;
+            int[] entries = skips;
+            if(entries.length == block * SKIP_INTS) {
+                entries = Arrays.copyOf(entries, Math.max(SKIP_INTS, entries.length * 2));
+                skips = entries;
+            }
+            entries[block * SKIP_INTS] = document;
+            entries[block * SKIP_INTS + 1] = end;
+            entries[block * SKIP_INTS + 2] = impactsSize;
+            blocks = block + 1;
+            blockPostings = 0;
+            blockImpacts.size = 0;
+        }
+
+        private static int putVarint(byte[] bytes, int position, int value) {
+            while((value & ~0x7f) != 0) {
+                bytes[position++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[position++] = (byte) value;
+            return position;
+        }
+
+    }
+
+    /**
+     * Frequency and length pairs of which none has both a higher or equal frequency and a shorter or equal
+     * length than another, only used by the writer.
+     */
+    private static final class Impacts {
+
+        private int[] pairs = new int[8];
+
+        /**
+         * Number of ints used in pairs, twice the number of pairs.
+         */
+        private int size;
+
+        /**
+         * @return false if an existing pair beats or equals this one, which isn't added
+         */
+        boolean add(int frequency, int length) {
+            for(int i = 0; i < size; i += 2)
+                if(pairs[i] >= frequency && pairs[i + 1] <= length)
+                    return false;
+            int kept = 0;
+            for(int i = 0; i < size; i += 2) {
+                if(pairs[i] > frequency || pairs[i + 1] < length) {
+                    pairs[kept] = pairs[i];
+                    pairs[kept + 1] = pairs[i + 1];
+                    kept += 2;
+                }
+            }
+            if(kept + 2 > pairs.length)
+                pairs = Arrays.copyOf(pairs, pairs.length * 2);
+            pairs[kept] = frequency;
+            pairs[kept + 1] = length;
+            size = kept + 2;
+            return true;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(pairs, size);
+        }
+
+    }
+
+    /**
+     * Reader of a posting list positioned on a document.
+     */
+    private static final class Cursor {
+
+        private final byte[] data;
+
+        private final int end;
+
+        private final int[] skips;
+
+        private final int[] impacts;
+
+        private final int blocks;
+
+        private final int documents;
+
+        private final float idf;
+
+        private final float averageLength;
+
+        /**
+         * Highest score any document gets from this term.
+         */
+        private final float upperBound;
+
+        private int position;
+
+        /**
+         * Block holding the current posting, blocks for the postings following the last full block.
+         */
+        private int block;
+
+        /**
+         * Block last looked up for its bound, ahead of block when looking past the current document.
+         */
+        private int boundBlock;
+
+        /**
+         * Bound of the block boundComputedFor, computed once per block.
+         */
+        private int boundComputedFor = -1;
+
+        private float boundOfBlock;
+
+        private int document = -1;
+
+        private int frequency;
+
+        private boolean exhausted;
+
+        /**
+         * Number of postings read.
+         */
+        private int decoded;
+
+        Cursor(byte[] data, int end, int[] skips, int[] impacts, int blocks, int documents, float idf, float averageLength, int[] listImpacts) {
+            this.data = data;
+            this.end = end;
+            this.skips = skips;
+            this.impacts = impacts;
+            this.blocks = blocks;
+            this.documents = documents;
+            this.idf = idf;
+            this.averageLength = averageLength;
+            this.upperBound = bound(listImpacts, 0, listImpacts.length);
+        }
+
+        /**
+         * Moves to the next document visible to the query.
+         *
+         * @return false if there is none, the cursor being exhausted
+         */
+        boolean next() {
+            if(position >= end) {
+                exhausted = true;
+                return false;
+            }
+            if(block < blocks && position >= skips[block * PostingList.SKIP_INTS + 1])
+                block++;
+            document += getVarint();
+            frequency = getVarint();
+            decoded++;
+            if(document >= documents)
+                exhausted = true;
+            return !exhausted;
+        }
+
+        /**
+         * Moves to the first document at or after target, jumping over the blocks ending before it.
+         *
+         * @return false if there is none, the cursor being exhausted
+         */
+        boolean advanceTo(int target) {
+            if(exhausted)
+                return false;
+            while(block < blocks && skips[block * PostingList.SKIP_INTS] < target) {
+                document = skips[block * PostingList.SKIP_INTS];
+                position = skips[block * PostingList.SKIP_INTS + 1];
+                block++;
+            }
+            while(document < target)
+                if(!next())
+                    return false;
+            return true;
+        }
+
+        float score(float norm) {
+            return idf * frequency * (K1 + 1) / (frequency + norm);
+        }
+
+        /**
+         * Finds the block which would hold target, without moving the cursor.
+         *
+         * @return index of the block, blocks if past the last full block
+         */
+        private int blockOf(int target) {
+            if(boundBlock < block)
+                boundBlock = block;
+            while(boundBlock < blocks && skips[boundBlock * PostingList.SKIP_INTS] < target)
+                boundBlock++;
+            return boundBlock;
+        }
+
+        /**
+         * @param target document at or after the current one
+         * @return first document after the block which would hold target, Integer.MAX_VALUE past the last full block
+         */
+        int blockEnd(int target) {
+            int at = blockOf(target);
+            return at < blocks ? skips[at * PostingList.SKIP_INTS] + 1 : Integer.MAX_VALUE;
+        }
+
+        /**
+         * @param target document at or after the current one
+         * @return highest score a document of the block which would hold target gets from this term
+         */
+        float blockBound(int target) {
+            int at = blockOf(target);
+            if(at >= blocks)
+                return upperBound;
+            if(at != boundComputedFor) {
+                int from = at == 0 ? 0 : skips[(at - 1) * PostingList.SKIP_INTS + 2];
+                boundOfBlock = bound(impacts, from, skips[at * PostingList.SKIP_INTS + 2]);
+                boundComputedFor = at;
+            }
+            return boundOfBlock;
+        }
+
+        private float bound(int[] pairs, int from, int to) {
+            float bound = 0;
+            for(int i = from; i < to; i += 2) {
+                float norm = K1 * (1 - B + B * pairs[i + 1] / averageLength);
+                bound = Math.max(bound, idf * pairs[i] * (K1 + 1) / (pairs[i] + norm));
+            }
+            return bound;
+        }
+
+        private int getVarint() {
+            int value = 0;
+            for(int shift = 0; ; shift += 7) {
+                byte b = data[position++];
+                value |= (b & 0x7f) << shift;
+                if(b >= 0)
+                    return value;
+            }
+        }
+
+    }
+
+    /**
+     * Best scoring threads seen so far, each with the score of its best document.
+     */
+    private static final class TopThreads {
+
+        private final int limit;
+
+        private final Map<Long, SearchResult> threads = new HashMap<>();
+
+        private SearchResult lowest;
+
+        TopThreads(int limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * @return score a document must beat to change the results, negative infinity until limit threads are found
+         */
+        float threshold() {
+            return threads.size() == limit ? lowest.getScore() : Float.NEGATIVE_INFINITY;
+        }
+
+        void offer(long questionId, float score) {
+            if(score <= threshold())
+                return;
+            SearchResult current = threads.get(questionId);
+            if(current != null && current.getScore() >= score)
+                return;
+            if(current == null && threads.size() == limit)
+                threads.remove(lowest.getQuestionId());
+            threads.put(questionId, new SearchResult(questionId, score));
+            // Of equal scores the highest questionId goes first, as it comes last in the results.
+            lowest = null;
+            for(SearchResult result : threads.values())
+                if(lowest == null || result.getScore() < lowest.getScore()
+                        || result.getScore() == lowest.getScore() && result.getQuestionId() > lowest.getQuestionId())
+                    lowest = result;
+        }
+
+        List<SearchResult> results() {
+            List<SearchResult> results = new ArrayList<>(threads.values());
+            results.sort((a, b) -> a.getScore() != b.getScore()
+                    ? Float.compare(b.getScore(), a.getScore()) : Long.compare(a.getQuestionId(), b.getQuestionId()));
+            return results;
+        }
+
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.example.forum.search;
+
+/**
+ * Thread matching a query, with the BM25 score of its best matching question or reply.
+ */
+public final class SearchResult {
+
+    private final long questionId;
+
+    private final float score;
+
+    SearchResult(long questionId, float score) {
+        this.questionId = questionId;
+        this.score = score;
+    }
+
+    public long getQuestionId() {
+        return questionId;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.example.forum.search;
+
+import java.util.List;
+
+/**
+ * Threads best matching a query, and whether the query stopped short of the oldest documents.
+ */
+public final class SearchResults {
+
+    private final List<SearchResult> results;
+
+    private final boolean truncated;
+
+    SearchResults(List<SearchResult> results, boolean truncated) {
+        this.results = results;
+        this.truncated = truncated;
+    }
+
+    /**
+     * @return the best matching threads, by decreasing score
+     */
+    public List<SearchResult> getResults() {
+        return results;
+    }
+
+    /**
+     * @return true if the query spent its budget of postings before the oldest documents, so that the results
+     *         are the best threads of the newest documents only, false if they are exact
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+}
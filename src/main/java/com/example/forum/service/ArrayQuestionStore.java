@@ -0,0 +1,90 @@
+package com.example.forum.service;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.example.forum.model.Question;
+
+/**
+ * {@link QuestionStore} indexing questions by id in pages of PAGE_SIZE slots, since ids are dense. A question
+ * costs a single reference besides the question itself, with no boxed key or map node.
+ * <p>
+ * Pages are allocated as ids reach them and listed in a directory which is replaced by a longer copy when a
+ * page is added, so readers only read the directory and a slot, never locking.
+ */
+public class ArrayQuestionStore implements QuestionStore {
+
+    static final int PAGE_SHIFT = 12;
+
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final Object growLock = new Object();
+
+    /**
+     * Page p holds the questions with ids p * PAGE_SIZE to (p + 1) * PAGE_SIZE - 1, null until one is saved.
+     */
+    @SuppressWarnings("unchecked")
+    private volatile AtomicReferenceArray<Question>[] pages = new AtomicReferenceArray[0];
+
+    /**
+     * Highest id saved, iterators stop there.
+     */
+    private final AtomicLong highestId = new AtomicLong();
+
+    private final AtomicLong count = new AtomicLong();
+
+    @Override
+    public Question get(long questionId) {
+        AtomicReferenceArray<Question> page = page(questionId);
+        return page == null ? null : page.get((int) questionId & PAGE_MASK);
+    }
+
+    @Override
+    public boolean add(Question question) {
+        long id = question.getId();
+        if(id < 1)
+            throw new IllegalArgumentException("Question ids start at 1: " + id);
+        AtomicReferenceArray<Question> page = page(id);
+        if(page == null)
+            page = addPage((int) (id >>> PAGE_SHIFT));
+        if(!page.compareAndSet((int) id & PAGE_MASK, null, question))
+            return false;
+        count.incrementAndGet();
+        highestId.accumulateAndGet(id, Math::max);
+        return true;
+    }
+
+    @Override
+    public Iterator<Question> iterator(long afterId) {
+        return new IdOrderIterator(afterId, highestId::get, this::get);
+    }
+
+    @Override
+    public long size() {
+        return count.get();
+    }
+
+    private AtomicReferenceArray<Question> page(long questionId) {
+        AtomicReferenceArray<Question>[] directory = pages;
+        long index = questionId >>> PAGE_SHIFT;
+        return questionId < 0 || index >= directory.length ? null : directory[(int) index];
+    }
+
+    @SuppressWarnings("unchecked")
+    private AtomicReferenceArray<Question> addPage(int index) {
+        synchronized (growLock) {
+            AtomicReferenceArray<Question>[] directory = pages;
+            if(index < directory.length && directory[index] != null)
+                return directory[index];
+            AtomicReferenceArray<Question>[] grown = new AtomicReferenceArray[Math.max(directory.length, index + 1)];
+            System.arraycopy(directory, 0, grown, 0, directory.length);
+            grown[index] = new AtomicReferenceArray<>(PAGE_SIZE);
+            pages = grown;
+            return grown[index];
+        }
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.example.forum.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link IdSequence} kept in memory, recovered from the snapshot and the write-ahead log after a restart.
+ */
+public class AtomicIdSequence implements IdSequence {
+
+    private final AtomicLong last = new AtomicLong();
+
+    @Override
+    public long reserve(int count) {
+        return last.getAndAdd(count) + 1;
+    }
+
+    @Override
+    public void advanceTo(long id) {
+        last.accumulateAndGet(id, Math::max);
+    }
+
+    @Override
+    public long last() {
+        return last.get();
+    }
+
+}
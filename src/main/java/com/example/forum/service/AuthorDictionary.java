@@ -0,0 +1,81 @@
+package com.example.forum.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * Dictionary of the authors of the forum, giving each one a small int id and a single {@link String} instance
+ * shared by all of its posts. A few thousand authors write millions of posts, so a post costs a reference to
+ * the shared name, or an int in encoded records, instead of a copy of the name.
+ * <p>
+ * Ids are handed out from 0 in order of first use and never reused, since authors are never removed. Names
+ * are listed in an array indexed by id which is replaced by a longer copy when it is full, so resolving an id
+ * never locks.
+ */
+@ManagedResource(objectName = "com.example.forum:type=AuthorDictionary", description = "Dictionary of the authors")
+public class AuthorDictionary {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private final Object addLock = new Object();
+
+    /**
+     * Names by id, written before their id is published in ids.
+     */
+    private volatile String[] names = new String[INITIAL_CAPACITY];
+
+    private volatile int size;
+
+    /**
+     * @param author name of the author
+     * @return id of the author, added to the dictionary if it is new
+     */
+    public int idOf(String author) {
+        Integer id = ids.get(author);
+        if(id != null)
+            return id;
+        synchronized (addLock) {
+            id = ids.get(author);
+            if(id != null)
+                return id;
+            int newId = size;
+            if(newId == names.length) {
+                String[] grown = new String[newId * 2];
+                System.arraycopy(names, 0, grown, 0, newId);
+                names = grown;
+            }
+            names[newId] = author;
+            size = newId + 1;
+            ids.put(author, newId);
+            return newId;
+        }
+    }
+
+    /**
+     * @param authorId id returned by {@link #idOf(String)}
+     * @return shared name of the author
+     */
+    public String authorOf(int authorId) {
+        if(authorId < 0 || authorId >= size)
+            throw new IllegalArgumentException("Unknown author id " + authorId);
+        return names[authorId];
+    }
+
+    /**
+     * @param author name of the author
+     * @return the instance of the name shared by all the posts of the author
+     */
+    public String intern(String author) {
+        return authorOf(idOf(author));
+    }
+
+    @ManagedAttribute(description = "Number of distinct authors")
+    public int getAuthorCount() {
+        return size;
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.example.forum.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.ToLongFunction;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.example.forum.model.CursorPage;
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+
+/**
+ * Secondary indexes of the questions and replies of every author, kept up to date by {@link QuestionService}
+ * on the writing thread, so that a writer sees its question or reply listed as soon as it is saved.
+ * <p>
+ * Every author has a {@link ConcurrentSkipListSet} of the ids of its questions and a {@link ConcurrentSkipListMap}
+ * of its replies by id, so that, like the datastore itself, they can be paged through by key while being
+ * written to, and a page only costs the lookup of its first key and the items it holds, however many the
+ * author or the forum has. Concurrent writers may add an author's items out of id order, which they sort.
+ * Questions are kept by id only, to be read from the {@link QuestionStore}, which may keep them off the heap;
+ * replies are on the heap in their {@link ReplyLog} anyway.
+ */
+@Component
+@ManagedResource(objectName = "com.example.forum:type=AuthorIndex", description = "Questions and replies by author")
+public class AuthorIndex implements QuestionListener {
+
+    private final ConcurrentHashMap<String, ConcurrentSkipListSet<Long>> questionsByAuthor = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, ConcurrentSkipListMap<Long, Reply>> repliesByAuthor = new ConcurrentHashMap<>();
+
+    @Override
+    public void questionAdded(Question question) {
+        questionsByAuthor.computeIfAbsent(question.getAuthor(), author -> new ConcurrentSkipListSet<>())
+                .add(question.getId());
+    }
+
+    @Override
+    public void replyAdded(Question question, Reply reply) {
+        repliesByAuthor.computeIfAbsent(reply.getAuthor(), author -> new ConcurrentSkipListMap<>())
+                .put(reply.getId(), reply);
+    }
+
+    /**
+     * Retrieves a page of the ids of the {@link Question}s of an author in ascending order.
+     *
+     * @param author author of the questions, matched exactly
+     * @param afterId questionId of the last question of the previous page or null to start from the first question
+     * @param limit maximum number of questions in the page
+     * @return page of questionIds following afterId, empty if there are none
+     */
+    public CursorPage<Long> getQuestionIds(String author, Long afterId, int limit) {
+        NavigableSet<Long> ids = questionsByAuthor.get(author);
+        return page(ids == null ? null : ids.tailSet(afterId == null ? 0 : afterId, false).iterator(), limit, id -> id);
+    }
+
+    /**
+     * Retrieves a page of the {@link Reply}s of an author, to any question, in ascending replyId order.
+     *
+     * @param author author of the replies, matched exactly
+     * @param afterReplyId replyId of the last reply of the previous page or null to start from the first reply
+     * @param limit maximum number of replies in the page
+     * @return page of {@link Reply}s following afterReplyId, empty if there are none
+     */
+    public CursorPage<Reply> getReplies(String author, Long afterReplyId, int limit) {
+        NavigableMap<Long, Reply> replies = repliesByAuthor.get(author);
+        return page(replies == null ? null : replies.tailMap(afterReplyId == null ? 0 : afterReplyId, false).values().iterator(), limit, Reply::getId);
+    }
+
+    @ManagedAttribute(description = "Number of authors of questions")
+    public int getQuestionAuthorCount() {
+        return questionsByAuthor.size();
+    }
+
+    @ManagedAttribute(description = "Number of authors of replies")
+    public int getReplyAuthorCount() {
+        return repliesByAuthor.size();
+    }
+
+    private static <T> CursorPage<T> page(Iterator<T> iterator, int limit, ToLongFunction<T> idOf) {
+        List<T> page = new ArrayList<>(Math.min(limit, 64));
+        if(iterator == null)
+            return new CursorPage<>(page, null);
+        while(page.size() < limit && iterator.hasNext())
+            page.add(iterator.next());
+        Long nextAfter = !page.isEmpty() && iterator.hasNext() ? idOf.applyAsLong(page.get(page.size() - 1)) : null;
+        return new CursorPage<>(page, nextAfter);
+    }
+
+}
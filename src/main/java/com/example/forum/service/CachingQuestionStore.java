@@ -0,0 +1,342 @@
+package com.example.forum.service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+
+/**
+ * {@link DurableQuestionStore} keeping the questions most recently read from another durable store in memory,
+ * so that the hottest threads aren't read from the database on every request.
+ * <p>
+ * The cache holds up to maxEntries questions with their replies, split by id into up to SEGMENTS segments each
+ * guarded by its own lock. A segment evicts in segmented LRU order: a question enters the probation part of
+ * its segment when it is loaded or added, and moves to the protected part, up to 80% of the segment, when it
+ * is read again. Questions evicted from the protected part go back to probation, and those evicted from
+ * probation leave the cache.
+ * A scan of questions read once, like a bulk import or a crawler, therefore only churns probation and
+ * leaves the questions read repeatedly in place.
+ * <p>
+ * Reads missing the cache are single-flight: the first one loads the question from the store while the
+ * others for the same id wait for its result, so a stampede on a cold question makes a single read. Replies
+ * are written through to the store, which appends them to the {@link ReplyLog} of the question they were
+ * given. That is the cached question unless it was evicted and loaded again in between, in which case the
+ * cached copy, possibly loaded before the reply was saved, is dropped along with any load in flight.
+ * Pages of questions are read from the store directly and aren't cached.
+ */
+@ManagedResource(objectName = "com.example.forum:type=QuestionStore", description = "Cache of the questions of a database store")
+public class CachingQuestionStore implements DurableQuestionStore {
+
+    static final int SEGMENTS = 16;
+
+    /**
+     * Share of a segment holding the questions read more than once.
+     */
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private final DurableQuestionStore store;
+
+    private final int maxEntries;
+
+    private final Segment[] segments;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder loads = new LongAdder();
+
+    private final LongAdder loadNanos = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param store store the questions are read from and written to
+     * @param maxEntries maximum number of questions cached, at least 1
+     */
+    public CachingQuestionStore(DurableQuestionStore store, int maxEntries) {
+        this(store, maxEntries, Math.max(1, Math.min(SEGMENTS, maxEntries)));
+    }
+
+    CachingQuestionStore(DurableQuestionStore store, int maxEntries, int segmentCount) {
+        if(maxEntries < segmentCount)
+            throw new IllegalArgumentException("The cache must hold at least one question per segment: " + maxEntries);
+        this.store = store;
+        this.maxEntries = maxEntries;
+        this.segments = new Segment[segmentCount];
+        for(int i = 0; i < segmentCount; i++)
+            segments[i] = new Segment(maxEntries / segmentCount + (i < maxEntries % segmentCount ? 1 : 0));
+    }
+
+    @Override
+    public IdSequence questionIds() {
+        return store.questionIds();
+    }
+
+    @Override
+    public IdSequence replyIds() {
+        return store.replyIds();
+    }
+
+    @Override
+    public Question get(long questionId) {
+        Segment segment = segment(questionId);
+        CompletableFuture<Question> load;
+        CompletableFuture<Question> inFlight;
+        synchronized (segment) {
+            Question cached = segment.get(questionId);
+            if(cached != null) {
+                hits.increment();
+                return cached;
+            }
+            misses.increment();
+            load = new CompletableFuture<>();
+            inFlight = segment.loads.putIfAbsent(questionId, load);
+        }
+        return inFlight != null ? await(inFlight) : load(segment, questionId, load);
+    }
+
+    @Override
+    public boolean add(Question question) {
+        if(!store.add(question))
+            return false;
+        cache(question);
+        return true;
+    }
+
+    @Override
+    public void addAll(List<Question> questions) {
+        store.addAll(questions);
+        for(Question question : questions)
+            cache(question);
+    }
+
+    @Override
+    public Reply addReply(Question question, Supplier<Reply> factory) {
+        try {
+            return store.addReply(question, factory);
+        } finally {
+            replied(question);
+        }
+    }
+
+    @Override
+    public List<Reply> addReplies(Question question, Supplier<List<Reply>> factory) {
+        try {
+            return store.addReplies(question, factory);
+        } finally {
+            replied(question);
+        }
+    }
+
+    @Override
+    public Iterator<Question> iterator(long afterId) {
+        return store.iterator(afterId);
+    }
+
+    @Override
+    public Iterator<Question> iterator(long afterId, int fetchSize) {
+        return store.iterator(afterId, fetchSize);
+    }
+
+    @Override
+    public long size() {
+        return store.size();
+    }
+
+    @ManagedAttribute(description = "Reads answered from the cache")
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @ManagedAttribute(description = "Reads which loaded the question or waited for its load")
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @ManagedAttribute(description = "Share of the reads answered from the cache")
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @ManagedAttribute(description = "Questions read from the store, at most one at a time per question")
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    @ManagedAttribute(description = "Average time to read a question from the store in milliseconds")
+    public double getAverageLoadMillis() {
+        long loadCount = loads.sum();
+        return loadCount == 0 ? 0 : loadNanos.sum() / 1e6 / loadCount;
+    }
+
+    /**
+     * @return total time spent reading questions from the store, in nanoseconds
+     */
+    public long getLoadNanos() {
+        return loadNanos.sum();
+    }
+
+    @ManagedAttribute(description = "Questions evicted to stay within the size limit")
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @ManagedAttribute(description = "Number of cached questions")
+    public int getEntryCount() {
+        int count = 0;
+        for(Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.probation.size() + segment.protectedPart.size();
+            }
+        }
+        return count;
+    }
+
+    @ManagedAttribute(description = "Maximum number of cached questions")
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Reads the question from the store for every caller waiting on load, and caches it unless it was
+     * replied to in the meantime.
+     */
+    private Question load(Segment segment, long questionId, CompletableFuture<Question> load) {
+        long start = System.nanoTime();
+        Question question;
+        try {
+            question = store.get(questionId);
+        } catch (RuntimeException | Error e) {
+            synchronized (segment) {
+                segment.loads.remove(questionId, load);
+            }
+            load.completeExceptionally(e);
+            throw e;
+        }
+        loadNanos.add(System.nanoTime() - start);
+        loads.increment();
+        synchronized (segment) {
+            if(segment.loads.remove(questionId, load) && question != null)
+                segment.add(questionId, question);
+        }
+        load.complete(question);
+        return question;
+    }
+
+    private static Question await(CompletableFuture<Question> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if(e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    private void cache(Question question) {
+        Segment segment = segment(question.getId());
+        synchronized (segment) {
+            if(segment.get(question.getId()) == null)
+                segment.add(question.getId(), question);
+        }
+    }
+
+    /**
+     * Drops the cached copy of question unless it is the one the reply was appended to, and the load in
+     * flight which may have missed the reply.
+     */
+    private void replied(Question question) {
+        Segment segment = segment(question.getId());
+        synchronized (segment) {
+            segment.loads.remove(question.getId());
+            Question cached = segment.probation.get(question.getId());
+            if(cached == null)
+                cached = segment.protectedPart.get(question.getId());
+            if(cached != null && cached != question)
+                segment.remove(question.getId());
+        }
+    }
+
+    private Segment segment(long questionId) {
+        return segments[(int) Long.remainderUnsigned(questionId, segments.length)];
+    }
+
+    /**
+     * Probation and protected parts of the segmented LRU of some ids, along with the loads in flight for
+     * them, all guarded by the lock of the segment. Both parts are in access order, eldest first.
+     */
+    private final class Segment {
+
+        private final int capacity;
+
+        private final int protectedCapacity;
+
+        private final LinkedHashMap<Long, Question> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final LinkedHashMap<Long, Question> protectedPart = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final Map<Long, CompletableFuture<Question>> loads = new HashMap<>();
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.protectedCapacity = (int) (capacity * PROTECTED_RATIO);
+        }
+
+        /**
+         * @return the cached question, moved to the most recently used end of the protected part
+         */
+        Question get(long questionId) {
+            Question question = protectedPart.get(questionId);
+            if(question != null || protectedCapacity == 0)
+                return question != null ? question : probation.get(questionId);
+            question = probation.remove(questionId);
+            if(question == null)
+                return null;
+            protectedPart.put(questionId, question);
+            if(protectedPart.size() > protectedCapacity) {
+                Iterator<Map.Entry<Long, Question>> eldest = protectedPart.entrySet().iterator();
+                Map.Entry<Long, Question> demoted = eldest.next();
+                eldest.remove();
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+            return question;
+        }
+
+        /**
+         * Adds question to the most recently used end of probation, evicting the eldest of probation if the
+         * segment is full. Probation takes the room left by the protected part.
+         */
+        void add(long questionId, Question question) {
+            probation.put(questionId, question);
+            if(probation.size() + protectedPart.size() > capacity) {
+                Iterator<Question> eldest = probation.values().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+
+        void remove(long questionId) {
+            if(probation.remove(questionId) == null)
+                protectedPart.remove(questionId);
+        }
+
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.example.forum.service;
+
+/**
+ * {@link QuestionStore} keeping its questions and replies across restarts by itself, so that neither the
+ * write-ahead log nor snapshots are needed. It also hands out the ids, which must not be reused after a restart.
+ */
+public interface DurableQuestionStore extends QuestionStore {
+
+    /**
+     * @return sequence of the ids of the questions of this store
+     */
+    IdSequence questionIds();
+
+    /**
+     * @return sequence of the ids of the replies of this store
+     */
+    IdSequence replyIds();
+
+}
@@ -0,0 +1,52 @@
+package com.example.forum.service;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+
+import com.example.forum.model.Question;
+
+/**
+ * Iterator over the questions of a store which finds them by id, looking up every id following afterId in
+ * ascending order and skipping those without a question. It stops at the highest id, read again whenever it is
+ * reached, so that it sees questions saved while iterating as long as it hasn't gone past their id.
+ */
+final class IdOrderIterator implements Iterator<Question> {
+
+    private final LongSupplier highestId;
+
+    private final LongFunction<Question> lookup;
+
+    private long id;
+
+    private Question next;
+
+    /**
+     * @param afterId id of the last question already seen, 0 to start from the first question
+     * @param highestId highest id of the store
+     * @param lookup question with an id, null if there is none
+     */
+    IdOrderIterator(long afterId, LongSupplier highestId, LongFunction<Question> lookup) {
+        this.id = Math.max(0, afterId);
+        this.highestId = highestId;
+        this.lookup = lookup;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while(next == null && id < highestId.getAsLong())
+            next = lookup.apply(++id);
+        return next != null;
+    }
+
+    @Override
+    public Question next() {
+        if(!hasNext())
+            throw new NoSuchElementException();
+        Question question = next;
+        next = null;
+        return question;
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.example.forum.service;
+
+/**
+ * Source of the ids of questions or replies, handed out in ascending order from 1, {@link #stride()} apart.
+ */
+public interface IdSequence {
+
+    /**
+     * @param count number of ids to reserve
+     * @return first of count ids reserved for the caller, each {@link #stride()} above the previous one
+     */
+    long reserve(int count);
+
+    /**
+     * Like {@link #reserve(int)}, for ids which must be above those reserved before for the same owner, such as
+     * the ids of the replies of a question.
+     *
+     * @param ownerId id of the owner of the reserved ids
+     * @param count number of ids to reserve
+     * @return first of count ids reserved for the caller, each {@link #stride()} above the previous one
+     */
+    default long reserve(long ownerId, int count) {
+        return reserve(count);
+    }
+
+    /**
+     * Like {@link #reserve(int)}, for a single caller reserving on behalf of many writers, such as a single
+     * writer thread, whose reservations are spread the way those of the writers themselves would be.
+     *
+     * @param count number of ids to reserve
+     * @return first of count ids reserved for the caller, each {@link #stride()} above the previous one
+     */
+    default long reserveSpread(int count) {
+        return reserve(count);
+    }
+
+    /**
+     * @return difference between two ids of the same reservation
+     */
+    default int stride() {
+        return 1;
+    }
+
+    /**
+     * @return lowest id which a reservation made after this call may hand out
+     */
+    default long floor() {
+        return last() + 1;
+    }
+
+    /**
+     * Makes sure that the ids reserved after this call are above every id handed out so far.
+     *
+     * @return highest id handed out
+     */
+    default long seal() {
+        return last();
+    }
+
+    /**
+     * Makes sure that id and the ids below it are never handed out, since a recovered record uses it.
+     *
+     * @param id id in use
+     */
+    void advanceTo(long id);
+
+    /**
+     * @return highest id handed out or in use
+     */
+    long last();
+
+}
@@ -0,0 +1,62 @@
+package com.example.forum.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Watermark of the question ids up to which listing by id is settled: every question with an id up to it is
+ * in the datastore, or never will be. Ids are reserved before their question is added, so concurrent writers
+ * finish out of order, and a reader paging past a question added later would never see it. Reading only up to
+ * the watermark keeps every cursor below the ids still to come.
+ * <p>
+ * Writers call {@link #enter()} before reserving ids and {@link #exit(long)} once their questions are added,
+ * or failed to be. In between they hold the watermark below the lowest id they may get, the
+ * {@link IdSequence#floor()} of the sequence when they entered. Readers and writers never wait for each other.
+ */
+final class IdWatermark {
+
+    private final IdSequence ids;
+
+    /**
+     * Number of writers in flight by the floor of their ids.
+     */
+    private final ConcurrentSkipListMap<Long, Integer> floors = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param ids sequence the ids of the writers are reserved from
+     */
+    IdWatermark(IdSequence ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * Marks the start of a write, before its ids are reserved.
+     *
+     * @return token to pass to {@link #exit(long)}
+     */
+    long enter() {
+        long floor = ids.floor();
+        floors.merge(floor, 1, Integer::sum);
+        return floor;
+    }
+
+    /**
+     * Marks the end of a write started with {@link #enter()}, whether its questions were added or not.
+     *
+     * @param token token returned by {@link #enter()}
+     */
+    void exit(long token) {
+        floors.merge(token, -1, (count, decrement) -> count + decrement == 0 ? null : count + decrement);
+    }
+
+    /**
+     * @return highest id up to which every question is in the datastore or never will be
+     */
+    long get() {
+        // Sealed before looking for writers: a writer not found yet reserves ids above it.
+        long sealed = ids.seal();
+        Map.Entry<Long, Integer> lowest = floors.firstEntry();
+        return lowest == null ? sealed : Math.min(sealed, lowest.getKey() - 1);
+    }
+
+}
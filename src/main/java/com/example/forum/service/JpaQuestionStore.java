@@ -0,0 +1,331 @@
+package com.example.forum.service;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+
+import org.hibernate.Session;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.persistence.QuestionEntity;
+import com.example.forum.persistence.ReplyEntity;
+
+/**
+ * {@link DurableQuestionStore} saving questions and replies to a database through JPA, as
+ * {@link QuestionEntity} and {@link ReplyEntity} rows.
+ * <p>
+ * Ids come from the question_ids and reply_ids sequences, which are incremented by ID_BLOCK_SIZE: every value
+ * read from a sequence reserves the block of ids starting at it (the pooled-lo algorithm), so a round trip
+ * to the database hands out ID_BLOCK_SIZE ids. Since ids are assigned before rows are persisted, Hibernate
+ * can insert them in JDBC batches, which is how batches of questions or replies are saved in one transaction.
+ * The sequences are created and read with the SQL of the Hibernate dialect of the database, which must
+ * support sequences.
+ * <p>
+ * A question is read with its replies by a single fetch join query. Pages of questions take two queries, one
+ * for the ids of the page and one fetching those questions with their replies, since a fetch join can't be
+ * limited. Every read returns new questions whose replies are a {@link ReplyLog}, so they are used like the
+ * ones of in-memory stores.
+ */
+public class JpaQuestionStore implements DurableQuestionStore {
+
+    static final int ID_BLOCK_SIZE = 50;
+
+    /**
+     * Number of questions read at once by iterators, unless told otherwise.
+     */
+    private static final int PAGE_SIZE = 100;
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final Dialect dialect;
+
+    private final IdSequence questionIds;
+
+    private final IdSequence replyIds;
+
+    /**
+     * Creates the id sequences if they don't exist yet. The tables are expected to be created along with the
+     * persistence unit.
+     *
+     * @param entityManagerFactory factory of the persistence unit holding {@link QuestionEntity} and {@link ReplyEntity}
+     * @throws IllegalStateException if the database has no sequences
+     */
+    public JpaQuestionStore(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        if(!dialect.getSequenceSupport().supportsPooledSequences() || dialect.getQuerySequencesString() == null)
+            throw new IllegalStateException("The JPA store needs a database with sequences incremented by more than 1");
+        this.questionIds = new PooledSequence("question_ids");
+        this.replyIds = new PooledSequence("reply_ids");
+    }
+
+    @Override
+    public IdSequence questionIds() {
+        return questionIds;
+    }
+
+    @Override
+    public IdSequence replyIds() {
+        return replyIds;
+    }
+
+    @Override
+    public Question get(long questionId) {
+        return read(entityManager -> {
+            List<QuestionEntity> questions = entityManager.createQuery(
+                    "select q from QuestionEntity q left join fetch q.replies where q.id = :id", QuestionEntity.class)
+                    .setParameter("id", questionId)
+                    .getResultList();
+            return questions.isEmpty() ? null : toQuestion(questions.get(0));
+        });
+    }
+
+    /**
+     * @return true, since ids come from the sequence of this store and are never reused
+     */
+    @Override
+    public boolean add(Question question) {
+        addAll(Collections.singletonList(question));
+        return true;
+    }
+
+    @Override
+    public void addAll(List<Question> questions) {
+        write(entityManager -> {
+            for(Question question : questions)
+                entityManager.persist(new QuestionEntity(question.getId(), question.getAuthor(), question.getMessage()));
+        });
+    }
+
+    @Override
+    public Reply addReply(Question question, Supplier<Reply> factory) {
+        return addReplies(question, () -> Collections.singletonList(factory.get())).get(0);
+    }
+
+    @Override
+    public List<Reply> addReplies(Question question, Supplier<List<Reply>> factory) {
+        // Saved in the turn of the question read by the caller, which keeps its replies up to date and in id
+        // order when it is shared by several callers.
+        return ((ReplyLog) question.getReplies()).appendAll(() -> {
+            List<Reply> replies = factory.get();
+            write(entityManager -> {
+                QuestionEntity questionEntity = entityManager.getReference(QuestionEntity.class, question.getId());
+                for(Reply reply : replies)
+                    entityManager.persist(new ReplyEntity(reply.getId(), reply.getAuthor(), reply.getMessage(), questionEntity));
+            });
+            return replies;
+        });
+    }
+
+    @Override
+    public Iterator<Question> iterator(long afterId) {
+        return iterator(afterId, PAGE_SIZE);
+    }
+
+    @Override
+    public Iterator<Question> iterator(long afterId, int fetchSize) {
+        int pageSize = Math.max(1, Math.min(fetchSize, MAX_PAGE_SIZE));
+        return new Iterator<Question>() {
+
+            private long lastId = afterId;
+
+            private Iterator<Question> page = Collections.emptyIterator();
+
+            private boolean lastPage;
+
+            @Override
+            public boolean hasNext() {
+                if(!page.hasNext() && !lastPage) {
+                    List<Question> questions = page(lastId, pageSize);
+                    lastPage = questions.size() < pageSize;
+                    if(!questions.isEmpty())
+                        lastId = questions.get(questions.size() - 1).getId();
+                    page = questions.iterator();
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public Question next() {
+                if(!hasNext())
+                    throw new NoSuchElementException();
+                return page.next();
+            }
+        };
+    }
+
+    @Override
+    public long size() {
+        return read(entityManager -> entityManager.createQuery("select count(q) from QuestionEntity q", Long.class).getSingleResult());
+    }
+
+    /**
+     * Reads the pageSize questions following afterId with their replies.
+     */
+    private List<Question> page(long afterId, int pageSize) {
+        return read(entityManager -> {
+            List<Long> ids = entityManager.createQuery(
+                    "select q.id from QuestionEntity q where q.id > :afterId order by q.id", Long.class)
+                    .setParameter("afterId", afterId)
+                    .setMaxResults(pageSize)
+                    .getResultList();
+            if(ids.isEmpty())
+                return Collections.emptyList();
+            List<QuestionEntity> entities = entityManager.createQuery(
+                    "select q from QuestionEntity q left join fetch q.replies where q.id in :ids order by q.id", QuestionEntity.class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+            List<Question> questions = new ArrayList<>(entities.size());
+            for(QuestionEntity entity : entities)
+                questions.add(toQuestion(entity));
+            return questions;
+        });
+    }
+
+    private static Question toQuestion(QuestionEntity entity) {
+        List<Reply> replies = new ArrayList<>(entity.getReplies().size());
+        for(ReplyEntity reply : entity.getReplies())
+            replies.add(Reply.builder().id(reply.getId()).author(reply.getAuthor()).message(reply.getMessage()).questionId(entity.getId()).build());
+        ReplyLog replyLog = new ReplyLog();
+        replyLog.appendAll(() -> replies);
+        return Question.builder().id(entity.getId()).author(entity.getAuthor()).message(entity.getMessage()).replies(replyLog).build();
+    }
+
+    private <T> T read(Function<EntityManager, T> query) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return query.apply(entityManager);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private void write(Consumer<EntityManager> work) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        EntityTransaction transaction = entityManager.getTransaction();
+        try {
+            transaction.begin();
+            work.accept(entityManager);
+            transaction.commit();
+        } finally {
+            if(transaction.isActive())
+                transaction.rollback();
+            entityManager.close();
+        }
+    }
+
+    /**
+     * {@link IdSequence} handing out the blocks of ID_BLOCK_SIZE ids reserved by the values of a database
+     * sequence. Blocks read one after the other are consecutive unless another process uses the sequence,
+     * in which case the ids handed out skip to the new block.
+     */
+    private final class PooledSequence implements IdSequence {
+
+        private final String name;
+
+        /**
+         * Held while reading the sequence, so a lock rather than a monitor which would pin the carrier thread
+         * of a virtual thread waiting for the round trip.
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * Next id to hand out and end of the current block, both only used holding the lock of this sequence.
+         */
+        private long next;
+
+        private long blockEnd;
+
+        PooledSequence(String name) {
+            this.name = name;
+            if(!exists())
+                write(entityManager -> {
+                    for(String sql : dialect.getSequenceSupport().getCreateSequenceStrings(name, 1, ID_BLOCK_SIZE))
+                        entityManager.createNativeQuery(sql).executeUpdate();
+                });
+            // Starts above the ids saved before a restart, which last() and the listing watermark must cover.
+            next = nextValue();
+            blockEnd = next + ID_BLOCK_SIZE;
+        }
+
+        @Override
+        public long reserve(int count) {
+            lock.lock();
+            try {
+                while(blockEnd - next < count) {
+                    long blockStart = nextValue();
+                    if(blockStart != blockEnd)
+                        next = blockStart;
+                    blockEnd = blockStart + ID_BLOCK_SIZE;
+                }
+                long first = next;
+                next += count;
+                return first;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void advanceTo(long id) {
+            lock.lock();
+            try {
+                if(id >= next)
+                    reserve(Math.toIntExact(id - next + 1));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public long last() {
+            lock.lock();
+            try {
+                return next - 1;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long nextValue() {
+            return read(entityManager -> ((Number) entityManager
+                    .createNativeQuery(dialect.getSequenceSupport().getSequenceNextValString(name))
+                    .getSingleResult()).longValue());
+        }
+
+        /**
+         * @return whether the database lists a sequence with the name of this one, in any case
+         */
+        private boolean exists() {
+            return read(entityManager -> entityManager.unwrap(Session.class).doReturningWork(connection -> {
+                try (Statement statement = connection.createStatement();
+                        ResultSet sequences = statement.executeQuery(dialect.getQuerySequencesString())) {
+                    while(sequences.next()) {
+                        if(name.equalsIgnoreCase(sequences.getString("sequence_name")))
+                            return true;
+                    }
+                    return false;
+                }
+            }));
+        }
+
+    }
+
+}
@@ -0,0 +1,226 @@
+package com.example.forum.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import com.example.forum.model.Question;
+
+/**
+ * {@link QuestionStore} keeping the message of questions outside of the heap, in slabs of direct or memory
+ * mapped buffers, and decoding them into a {@link Question} only when it is read. Only the location of every
+ * question and its {@link ReplyLog} stay on the heap, in pages indexed by id like {@link ArrayQuestionStore},
+ * so the heap and the work of the garbage collector no longer grow with the text of the questions. Authors
+ * are stored as their id in an {@link AuthorDictionary}.
+ * <p>
+ * A question is laid out as
+ * <pre>
+ * int authorId | int messageLength | message UTF-8 bytes
+ * </pre>
+ * at the end of the current slab, a new slab being started when it is full. Writers take turns on a lock to
+ * append; readers never lock, reading the location of a question, which is set once its bytes are written,
+ * through a duplicate of its slab.
+ * <p>
+ * Mapped slabs are files of a directory which are deleted as soon as they are mapped, so nothing is left
+ * behind, and which the operating system can page out under memory pressure. The store isn't durable either
+ * way, the write-ahead log is.
+ */
+@ManagedResource(objectName = "com.example.forum:type=QuestionStore", description = "Off-heap store of questions")
+public class OffHeapQuestionStore implements QuestionStore {
+
+    private static final int PAGE_SHIFT = ArrayQuestionStore.PAGE_SHIFT;
+
+    private static final int PAGE_SIZE = ArrayQuestionStore.PAGE_SIZE;
+
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final int slabBytes;
+
+    /**
+     * Directory of the mapped slab files, null to allocate direct buffers.
+     */
+    private final Path directory;
+
+    private final AuthorDictionary authors;
+
+    private final Object writeLock = new Object();
+
+    /**
+     * Replaced by a longer copy when a slab is added, before the location of its first question is set.
+     */
+    private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+
+    /**
+     * Writer's view of the last slab, positioned at its end. Only used holding the write lock.
+     */
+    private ByteBuffer current;
+
+    /**
+     * Page p holds the questions with ids p * PAGE_SIZE to (p + 1) * PAGE_SIZE - 1, null until one is saved.
+     * Replaced by a longer copy when a page is added.
+     */
+    private volatile Page[] pages = new Page[0];
+
+    private final AtomicLong highestId = new AtomicLong();
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    /**
+     * @param slabBytes size of the slabs, larger questions getting a slab of their own
+     * @param directory directory of the memory mapped slab files, or null to allocate direct buffers
+     * @param authors dictionary of the authors of the questions
+     * @throws IOException if the directory can't be created
+     */
+    public OffHeapQuestionStore(int slabBytes, Path directory, AuthorDictionary authors) throws IOException {
+        if(slabBytes < 1024)
+            throw new IllegalArgumentException("Slabs must be at least 1KB");
+        this.slabBytes = slabBytes;
+        this.directory = directory;
+        this.authors = authors;
+        if(directory != null)
+            Files.createDirectories(directory);
+    }
+
+    @Override
+    public Question get(long questionId) {
+        Page page = page(questionId);
+        if(page == null)
+            return null;
+        int slot = (int) questionId & PAGE_MASK;
+        // Read first, the slab and the replies are visible once the location is.
+        long location = page.locations.get(slot);
+        if(location == 0)
+            return null;
+        ByteBuffer record = slabs[(int) (location >>> 32) - 1].duplicate();
+        record.position((int) location);
+        String author = authors.authorOf(record.getInt());
+        byte[] message = new byte[record.getInt()];
+        record.get(message);
+        return Question.builder().id(questionId).author(author).message(new String(message, StandardCharsets.UTF_8)).replies(page.replies[slot]).build();
+    }
+
+    @Override
+    public boolean add(Question question) {
+        long id = question.getId();
+        if(id < 1)
+            throw new IllegalArgumentException("Question ids start at 1: " + id);
+        if(!(question.getReplies() instanceof ReplyLog))
+            throw new IllegalArgumentException("Question replies must be a ReplyLog");
+        int authorId = authors.idOf(question.getAuthor());
+        byte[] message = question.getMessage().getBytes(StandardCharsets.UTF_8);
+        int recordBytes = 4 + 4 + message.length;
+        synchronized (writeLock) {
+            Page page = page(id);
+            if(page == null)
+                page = addPage((int) (id >>> PAGE_SHIFT));
+            int slot = (int) id & PAGE_MASK;
+            if(page.locations.get(slot) != 0)
+                return false;
+            if(current == null || current.remaining() < recordBytes)
+                addSlab(Math.max(slabBytes, recordBytes));
+            long location = ((long) slabs.length << 32) | current.position();
+            current.putInt(authorId).putInt(message.length).put(message);
+            page.replies[slot] = (ReplyLog) question.getReplies();
+            page.locations.set(slot, location);
+        }
+        usedBytes.addAndGet(recordBytes);
+        count.incrementAndGet();
+        highestId.accumulateAndGet(id, Math::max);
+        return true;
+    }
+
+    @Override
+    public Iterator<Question> iterator(long afterId) {
+        return new IdOrderIterator(afterId, highestId::get, this::get);
+    }
+
+    @Override
+    public long size() {
+        return count.get();
+    }
+
+    @ManagedAttribute(description = "Number of questions stored")
+    public long getQuestionCount() {
+        return count.get();
+    }
+
+    @ManagedAttribute(description = "Bytes of questions stored off the heap")
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    @ManagedAttribute(description = "Bytes of slabs allocated off the heap")
+    public long getAllocatedBytes() {
+        long allocated = 0;
+        for(ByteBuffer slab : slabs)
+            allocated += slab.capacity();
+        return allocated;
+    }
+
+    private Page page(long questionId) {
+        Page[] existing = pages;
+        long index = questionId >>> PAGE_SHIFT;
+        return questionId < 0 || index >= existing.length ? null : existing[(int) index];
+    }
+
+    /**
+     * Adds the page at index, called holding the write lock.
+     */
+    private Page addPage(int index) {
+        Page[] existing = pages;
+        Page[] grown = new Page[Math.max(existing.length, index + 1)];
+        System.arraycopy(existing, 0, grown, 0, existing.length);
+        grown[index] = new Page();
+        pages = grown;
+        return grown[index];
+    }
+
+    /**
+     * Starts a new slab of at least the given size, called holding the write lock.
+     */
+    private void addSlab(int bytes) {
+        ByteBuffer slab;
+        if(directory == null) {
+            slab = ByteBuffer.allocateDirect(bytes);
+        } else {
+            Path file = directory.resolve("slab-" + slabs.length + ".bin");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+                slab = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map slab " + file, e);
+            }
+        }
+        ByteBuffer[] grown = new ByteBuffer[slabs.length + 1];
+        System.arraycopy(slabs, 0, grown, 0, slabs.length);
+        grown[slabs.length] = slab;
+        slabs = grown;
+        current = slab.duplicate();
+    }
+
+    /**
+     * Locations of PAGE_SIZE questions, as their slab plus one in the high int and their offset in the low
+     * int, 0 while not saved, along with their replies, written before their location.
+     */
+    private static final class Page {
+
+        private final AtomicLongArray locations = new AtomicLongArray(PAGE_SIZE);
+
+        private final ReplyLog[] replies = new ReplyLog[PAGE_SIZE];
+
+    }
+
+}
@@ -0,0 +1,236 @@
+package com.example.forum.service;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+
+/**
+ * {@link QuestionStore} whose every write publishes a new immutable {@link Snapshot} of the whole forum, so that
+ * a reader gets a consistent view of every question and reply at one point in time by reading a single field.
+ * <p>
+ * Questions are kept in a {@link PersistentVector} indexed by id, each with a {@link PersistentVector} of its
+ * replies instead of a {@link ReplyLog}. Saving a question or a reply copies the path to it in both vectors
+ * and the question itself, and shares everything else with the previous snapshot, which stays valid as long as
+ * it is referenced. A writer builds the next snapshot from the current one and publishes it with a
+ * compare-and-set, building it again from the newer snapshot if another writer published first; readers never
+ * lock and never see a write in progress.
+ * <p>
+ * Replies to a question are built in the turn of the question, one of TURNS locks picked by its id, so that their
+ * ids are ascending in its vector like in a {@link ReplyLog}. Replies to questions of different turns, and
+ * questions, never wait for each other.
+ */
+public class PersistentQuestionStore implements QuestionStore {
+
+    /**
+     * Number of turns the questions are spread over by id, a power of 2.
+     */
+    static final int TURNS = 256;
+
+    /**
+     * Turns of the questions. Locks rather than monitors, since reply factories may write to the write-ahead
+     * log while holding them and a virtual thread blocked on a monitor pins its carrier thread.
+     */
+    private final ReentrantLock[] turns = new ReentrantLock[TURNS];
+
+    private final AtomicReference<Snapshot> head = new AtomicReference<>(new Snapshot(PersistentVector.empty(), 0));
+
+    public PersistentQuestionStore() {
+        for(int i = 0; i < TURNS; i++)
+            turns[i] = new ReentrantLock();
+    }
+
+    /**
+     * @return the forum as of the last write, which later writes leave unchanged
+     */
+    public Snapshot snapshot() {
+        return head.get();
+    }
+
+    @Override
+    public Question get(long questionId) {
+        return head.get().get(questionId);
+    }
+
+    @Override
+    public boolean add(Question question) {
+        while(true) {
+            Snapshot current = head.get();
+            Snapshot next = current.with(question);
+            if(next == current)
+                return false;
+            if(head.compareAndSet(current, next))
+                return true;
+        }
+    }
+
+    /**
+     * Saves all questions in a single snapshot, so that readers see either none or all of them.
+     */
+    @Override
+    public void addAll(List<Question> questions) {
+        while(true) {
+            Snapshot current = head.get();
+            Snapshot next = current;
+            for(Question question : questions)
+                next = next.with(question);
+            if(head.compareAndSet(current, next))
+                return;
+        }
+    }
+
+    /**
+     * Appends the reply built by factory to the latest version of question, in the turn of the question.
+     */
+    @Override
+    public Reply addReply(Question question, Supplier<Reply> factory) {
+        ReentrantLock turn = turn(question.getId());
+        turn.lock();
+        try {
+            // Fails before building the reply if the question isn't in the store.
+            latest(question);
+            Reply reply = factory.get();
+            publishReplies(question.getId(), replies -> replies.plus(reply));
+            return reply;
+        } finally {
+            turn.unlock();
+        }
+    }
+
+    /**
+     * Appends all the replies built by factory to the latest version of question in a single snapshot, in the
+     * turn of the question.
+     */
+    @Override
+    public List<Reply> addReplies(Question question, Supplier<List<Reply>> factory) {
+        ReentrantLock turn = turn(question.getId());
+        turn.lock();
+        try {
+            // Fails before building the replies if the question isn't in the store.
+            latest(question);
+            List<Reply> replies = factory.get();
+            publishReplies(question.getId(), current -> current.plusAll(replies));
+            return replies;
+        } finally {
+            turn.unlock();
+        }
+    }
+
+    /**
+     * @return iterator over the questions of the snapshot of the last write
+     */
+    @Override
+    public Iterator<Question> iterator(long afterId) {
+        return head.get().iterator(afterId);
+    }
+
+    @Override
+    public long size() {
+        return head.get().size();
+    }
+
+    /**
+     * @return version of question in the current snapshot, which readers may have got from an older one
+     */
+    @Override
+    public Question latest(Question question) {
+        Question current = head.get().get(question.getId());
+        if(current == null)
+            throw new IllegalArgumentException("Question " + question.getId() + " isn't in the store");
+        return current;
+    }
+
+    /**
+     * Publishes a snapshot where the question with questionId has the replies appended by append to those it
+     * has in the current snapshot. Only called in the turn of the question, so no other writer changes its
+     * replies in the meantime.
+     */
+    private void publishReplies(long questionId, UnaryOperator<PersistentVector<Reply>> append) {
+        while(true) {
+            Snapshot current = head.get();
+            Question question = current.get(questionId);
+            Snapshot next = current.replace(PostEncoder.withReplies(question, append.apply(replies(question))));
+            if(head.compareAndSet(current, next))
+                return;
+        }
+    }
+
+    private ReentrantLock turn(long questionId) {
+        return turns[(int) (questionId & (TURNS - 1))];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PersistentVector<Reply> replies(Question question) {
+        return (PersistentVector<Reply>) question.getReplies();
+    }
+
+    /**
+     * The questions and replies of the store at one point in time, never changed.
+     */
+    public static final class Snapshot {
+
+        /**
+         * Question with id i at index i - 1, null if there is none.
+         */
+        private final PersistentVector<Question> questions;
+
+        private final long size;
+
+        private Snapshot(PersistentVector<Question> questions, long size) {
+            this.questions = questions;
+            this.size = size;
+        }
+
+        /**
+         * @param questionId id of the question
+         * @return the question with its replies as of this snapshot, or null if there is none with this id
+         */
+        public Question get(long questionId) {
+            return questionId < 1 || questionId > questions.size() ? null : questions.get((int) (questionId - 1));
+        }
+
+        /**
+         * @param afterId id of the last question already seen, 0 to start from the first question
+         * @return iterator over the questions of this snapshot following afterId in ascending id order
+         */
+        public Iterator<Question> iterator(long afterId) {
+            return new IdOrderIterator(afterId, questions::size, this::get);
+        }
+
+        /**
+         * @return number of questions in this snapshot
+         */
+        public long size() {
+            return size;
+        }
+
+        /**
+         * @return this snapshot with question added, its replies copied to a vector, or this snapshot if it
+         *         already has a question with the same id
+         */
+        private Snapshot with(Question question) {
+            long id = question.getId();
+            if(id < 1 || id > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Question ids range from 1 to " + Integer.MAX_VALUE + ": " + id);
+            if(get(id) != null)
+                return this;
+            List<Reply> replies = question.getReplies();
+            Question saved = PostEncoder.withReplies(question, replies == null ? PersistentVector.empty() : PersistentVector.copyOf(replies));
+            return new Snapshot(questions.with((int) (id - 1), saved), size + 1);
+        }
+
+        /**
+         * @return this snapshot with question in place of the one with the same id
+         */
+        private Snapshot replace(Question question) {
+            return new Snapshot(questions.with((int) (question.getId() - 1), question), size);
+        }
+
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.example.forum.service;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list whose updates return a new list sharing all but the updated path with the old one, so any
+ * number of versions can be kept at the cost of what changed between them.
+ * <p>
+ * Elements are kept in a trie of WIDTH wide arrays indexed by BITS bits of the index at every level. Setting an
+ * element copies the arrays on the path from the root to its leaf, log32 of the size of them, and leaves every
+ * other array shared. Setting an element beyond the end extends the list, leaving null elements between.
+ *
+ * @param <E> type of the elements
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final int BITS = 5;
+
+    private static final int WIDTH = 1 << BITS;
+
+    private static final int MASK = WIDTH - 1;
+
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(new Object[WIDTH], 0, 0);
+
+    /**
+     * Root of the trie, a leaf when shift is 0.
+     */
+    private final Object[] root;
+
+    /**
+     * Number of index bits below the root level.
+     */
+    private final int shift;
+
+    private final int size;
+
+    private PersistentVector(Object[] root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    /**
+     * @return vector of the elements of list, list itself if it is a vector
+     */
+    public static <E> PersistentVector<E> copyOf(List<? extends E> list) {
+        if(list instanceof PersistentVector) {
+            @SuppressWarnings("unchecked")
+            PersistentVector<E> vector = (PersistentVector<E>) list;
+            return vector;
+        }
+        PersistentVector<E> vector = empty();
+        return vector.plusAll(list);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if(index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        Object[] node = root;
+        for(int level = shift; level > 0 && node != null; level -= BITS)
+            node = (Object[]) node[(index >>> level) & MASK];
+        return node == null ? null : (E) node[index & MASK];
+    }
+
+    /**
+     * @param index index of the element, extending the vector if it isn't below its size
+     * @param element element to set
+     * @return vector holding element at index and the elements of this vector elsewhere
+     */
+    public PersistentVector<E> with(int index, E element) {
+        if(index < 0)
+            throw new IndexOutOfBoundsException("Index: " + index);
+        Object[] newRoot = root;
+        int newShift = shift;
+        // Grows a level while index is beyond the capacity of the trie.
+        while(newShift < Integer.SIZE - BITS && (index >>> (newShift + BITS)) != 0) {
+            Object[] grown = new Object[WIDTH];
+            grown[0] = newRoot;
+            newRoot = grown;
+            newShift += BITS;
+        }
+        return new PersistentVector<>(with(newRoot, newShift, index, element), newShift, Math.max(size, index + 1));
+    }
+
+    /**
+     * @return vector of the elements of this vector followed by element
+     */
+    public PersistentVector<E> plus(E element) {
+        return with(size, element);
+    }
+
+    /**
+     * @return vector of the elements of this vector followed by elements
+     */
+    public PersistentVector<E> plusAll(List<? extends E> elements) {
+        PersistentVector<E> vector = this;
+        for(E element : elements)
+            vector = vector.plus(element);
+        return vector;
+    }
+
+    /**
+     * Copies the path of node down to the leaf of index, with element set in the leaf.
+     */
+    private static Object[] with(Object[] node, int level, int index, Object element) {
+        Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+        if(level == 0)
+            copy[index & MASK] = element;
+        else {
+            int slot = (index >>> level) & MASK;
+            copy[slot] = with((Object[]) copy[slot], level - BITS, index, element);
+        }
+        return copy;
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.example.forum.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.springframework.lang.Nullable;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Builds the {@link Question}s and {@link Reply}s kept in the datastore of {@link QuestionService} from the
+ * ones it is given, so that they take as little heap as possible.
+ * <p>
+ * Authors are replaced by the name shared through the {@link AuthorDictionary}. With compact messages, messages
+ * are kept as UTF-8 byte arrays, half the size of the UTF-16 chars of a {@link String} for ASCII text, and
+ * decoded every time they are read. Serialized responses are cached, so that mostly happens when a question is
+ * replied to.
+ */
+public class PostEncoder {
+
+    private final AuthorDictionary authors;
+
+    private final boolean compactMessages;
+
+    /**
+     * @param authors dictionary sharing the names of the authors, or null to keep the name of every post
+     * @param compactMessages whether messages are kept as UTF-8 byte arrays
+     */
+    public PostEncoder(@Nullable AuthorDictionary authors, boolean compactMessages) {
+        this.authors = authors;
+        this.compactMessages = compactMessages;
+    }
+
+    /**
+     * @return the question to keep in the datastore
+     */
+    public Question question(long id, String author, String message, ReplyLog replies) {
+        if(compactMessages)
+            return new CompactQuestion(id, author(author), utf8(message), replies);
+        return Question.builder().id(id).author(author(author)).message(message).replies(replies).build();
+    }
+
+    /**
+     * @param questionId id of the question replied to, preferably the instance held by the question so that
+     *            all of its replies share it
+     * @return the reply to keep in the datastore
+     */
+    public Reply reply(long id, String author, String message, Long questionId) {
+        if(compactMessages)
+            return new CompactReply(id, author(author), utf8(message), questionId);
+        return Reply.builder().id(id).author(author(author)).message(message).questionId(questionId).build();
+    }
+
+    /**
+     * @return copy of question with replies instead of its own, sharing its author and encoded message
+     */
+    public static Question withReplies(Question question, List<Reply> replies) {
+        if(question instanceof CompactQuestion)
+            return new CompactQuestion(question.getId(), question.getAuthor(), ((CompactQuestion) question).message, replies);
+        return Question.builder().id(question.getId()).author(question.getAuthor()).message(question.getMessage()).replies(replies).build();
+    }
+
+    private String author(String author) {
+        return authors == null ? author : authors.intern(author);
+    }
+
+    private static byte[] utf8(String message) {
+        return message.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * {@link Question} whose message is kept as UTF-8 bytes and decoded on every read. Serialized like a
+     * {@link Question}, which would otherwise start with the overridden message.
+     */
+    @JsonPropertyOrder({"id", "author", "message", "replies"})
+    private static final class CompactQuestion extends Question {
+
+        private final byte[] message;
+
+        CompactQuestion(Long id, String author, byte[] message, List<Reply> replies) {
+            super(id, author, null, replies);
+            this.message = message;
+        }
+
+        @Override
+        public String getMessage() {
+            return new String(message, StandardCharsets.UTF_8);
+        }
+
+    }
+
+    /**
+     * {@link Reply} whose message is kept as UTF-8 bytes and decoded on every read. Serialized like a
+     * {@link Reply}, which would otherwise start with the overridden message.
+     */
+    @JsonPropertyOrder({"id", "author", "message", "questionId"})
+    private static final class CompactReply extends Reply {
+
+        private final byte[] message;
+
+        CompactReply(long id, String author, byte[] message, Long questionId) {
+            super(id, author, null, questionId);
+            this.message = message;
+        }
+
+        @Override
+        public String getMessage() {
+            return new String(message, StandardCharsets.UTF_8);
+        }
+
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.example.forum.service;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+
+/**
+ * Receives the questions and replies saved by {@link QuestionService}, once they are durable, and the ones
+ * recovered when the service is created. Called on the writing thread, so implementations must be thread safe
+ * and quick.
+ */
+public interface QuestionListener {
+
+    /**
+     * @param question question just saved, with its id
+     */
+    default void questionAdded(Question question) {
+    }
+
+    /**
+     * @param question question replied to, whose replies already contain reply
+     * @param reply reply just saved, with its id
+     */
+    default void replyAdded(Question question, Reply reply) {
+    }
+
+}
@@ -1,38 +1,275 @@
 package com.example.forum.service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
+import com.example.forum.model.CursorPage;
 import com.example.forum.model.Question;
 import com.example.forum.model.Reply;
+import com.example.forum.persistence.InFlightWrites;
+import com.example.forum.persistence.SnapshotStore;
+import com.example.forum.persistence.WriteAheadLog;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 
 /**
- * {@link Service} class abstracting the datastore interaction logic. A {@link ConcurrentHashMap} is used as an in-memory data store.
+ * {@link Service} class abstracting the datastore interaction logic. A {@link QuestionStore} iterating in
+ * questionId order is used as an in-memory data store so that questions can be paged through by key. Saved
+ * questions and replies are built by a {@link PostEncoder}, which shares the names of authors and may keep
+ * messages as UTF-8 bytes.
+ * <p>
+ * When a {@link WriteAheadLog} is configured every question and reply is logged and synced, as far as its
+ * durability mode requires, before it is added to the datastore, so that readers, versions and listeners never
+ * see a write which a crash could lose, or one whose caller got an error. A reply is synced in the turn of its
+ * question, so replies to one question wait for each other's sync while those to other questions share it.
+ * The datastore and id trackers are rebuilt from the log when the service is created. When a
+ * {@link SnapshotStore} is configured as well, the newest snapshot is loaded first and only the log records
+ * following it are replayed. A {@link DurableQuestionStore} keeps the questions and replies and hands out their
+ * ids by itself instead, and is only read when the service is created to tell the listeners about its content.
+ * A {@link ShardedQuestionStore} hands out the ids as well, from a counter per shard.
+ * <p>
+ * {@link QuestionListener}s are told about every saved and recovered question and reply.
+ * <p>
+ * Question ids are reserved before the question is added, so concurrent writes may become visible out of id
+ * order. Questions are only listed up to an {@link IdWatermark}, below which none is still to come, so that a
+ * client paging by id never goes past a question which is saved later.
+ * <p>
+ * Writes are applied by the calling threads, or by a single writer thread once {@link #startSingleWriter(int, int)}
+ * is called. The writer drains the writes from a {@link WriteRing} in batches, logs every batch with a single
+ * sync and only then applies it to the datastore, so readers only ever see durable questions and replies.
+ * <p>
+ * Every question has a version, the number of its replies, and the datastore has a version bumped by every
+ * saved question and reply. Both are bumped once the change is visible, so content read after a version is at
+ * least as new as that version.
  */
 @Service
 public class QuestionService {
 
     /**
-     * {@link Map} to be used as in memory datastore.
+     * Milliseconds a caller of the single writer waits for its write before checking the writer is still there.
+     */
+    private static final long WRITE_CHECK_MILLIS = 1_000;
+
+    /**
+     * {@link QuestionStore} to be used as in memory datastore, ordered by questionId.
+     */
+    private final QuestionStore dataStore;
+
+    /**
+     * Builds the questions and replies saved in dataStore.
+     */
+    private final PostEncoder postEncoder;
+
+    /**
+     * A tracker used to track primary key of {@link Question}s in datastore.
+     */
+    private final IdSequence questionIdTracker;
+
+    /**
+     * A tracker used to track primary key of {@link Reply}s in datastore.
+     */
+    private final IdSequence replyIdTracker;
+
+    /**
+     * Id up to which questions are listed, below the ids of the questions which may still be added.
+     */
+    private final IdWatermark questionWatermark;
+
+    /**
+     * Version of the datastore, the number of questions and replies it holds.
+     */
+    private AtomicLong storeVersion = new AtomicLong();
+
+    /**
+     * Log the datastore is rebuilt from after a restart, null if the datastore isn't durable.
      */
-    private ConcurrentHashMap<Long, Question> dataStore = new ConcurrentHashMap<>();
+    private final WriteAheadLog writeAheadLog;
 
     /**
-     * A tracker used to track primary key of {@link Question}s in in-memory datastore.
+     * Snapshots of the datastore bounding the part of writeAheadLog to replay, null if snapshots aren't taken.
      */
-    private AtomicLong questionIdTracker = new AtomicLong();
+    private final SnapshotStore snapshotStore;
 
     /**
-     * A tracker used to track primary key of {@link Reply}s in in-memory datastore.
+     * Writes logged to writeAheadLog which may not be in dataStore yet.
      */
-    private AtomicLong replyIdTracker = new AtomicLong();
+    private final InFlightWrites inFlightWrites = new InFlightWrites();
+
+    /**
+     * lsn of the newest snapshot written or loaded.
+     */
+    private volatile long lastSnapshotLsn;
+
+    /**
+     * Ring of the single writer, null while writes are applied by the calling threads.
+     */
+    private volatile WriteRing<Write> writeRing;
+
+    /**
+     * Listeners told about saved and recovered questions and replies.
+     */
+    private final List<QuestionListener> listeners;
+
+    /**
+     * Latency of every operation, recorded in the forum.service timer tagged with the operation.
+     */
+    private final Timer addQuestionTimer;
+
+    private final Timer addQuestionsTimer;
+
+    private final Timer getQuestionsTimer;
+
+    private final Timer getQuestionByIdTimer;
+
+    private final Timer getRepliesTimer;
+
+    private final Timer replyToQuestionTimer;
+
+    private final Timer addRepliesTimer;
+
+    private final Logger logger = LoggerFactory.getLogger(QuestionService.class);
+
+    /**
+     * Creates a service whose datastore only lives in memory.
+     */
+    public QuestionService() {
+        this(null, null);
+    }
+
+    /**
+     * Creates a service whose datastore is logged to writeAheadLog, after replaying it into the datastore.
+     *
+     * @param writeAheadLog log to replay and append to
+     */
+    public QuestionService(WriteAheadLog writeAheadLog) {
+        this(writeAheadLog, null);
+    }
+
+    /**
+     * Creates a service whose datastore is logged to writeAheadLog, after loading the newest snapshot of
+     * snapshotStore and replaying the log records following it into the datastore.
+     *
+     * @param writeAheadLog log to replay and append to, or null to keep the datastore in memory only
+     * @param snapshotStore snapshots to load and write, or null to always replay the whole log
+     */
+    public QuestionService(@Nullable WriteAheadLog writeAheadLog, @Nullable SnapshotStore snapshotStore) {
+        this(writeAheadLog, snapshotStore, null);
+    }
+
+    /**
+     * Creates a service like {@link #QuestionService(WriteAheadLog, SnapshotStore)} which tells listeners
+     * about saved questions and replies, starting with the recovered ones.
+     *
+     * @param writeAheadLog log to replay and append to, or null to keep the datastore in memory only
+     * @param snapshotStore snapshots to load and write, or null to always replay the whole log
+     * @param listeners listeners of saved questions and replies, or null if there are none
+     */
+    public QuestionService(@Nullable WriteAheadLog writeAheadLog, @Nullable SnapshotStore snapshotStore, @Nullable List<QuestionListener> listeners) {
+        this(null, writeAheadLog, snapshotStore, listeners);
+    }
+
+    /**
+     * Creates a service like {@link #QuestionService(WriteAheadLog, SnapshotStore, List)} keeping its datastore
+     * in dataStore.
+     *
+     * @param dataStore empty store of the questions, or null for an {@link ArrayQuestionStore}
+     * @param writeAheadLog log to replay and append to, or null to keep the datastore in memory only
+     * @param snapshotStore snapshots to load and write, or null to always replay the whole log
+     * @param listeners listeners of saved questions and replies, or null if there are none
+     */
+    public QuestionService(@Nullable QuestionStore dataStore, @Nullable WriteAheadLog writeAheadLog, @Nullable SnapshotStore snapshotStore,
+            @Nullable List<QuestionListener> listeners) {
+        this(dataStore, null, writeAheadLog, snapshotStore, listeners);
+    }
+
+    /**
+     * Creates a service like {@link #QuestionService(QuestionStore, WriteAheadLog, SnapshotStore, List)}
+     * whose questions and replies are built by postEncoder.
+     *
+     * @param dataStore empty store of the questions, or null for an {@link ArrayQuestionStore}
+     * @param postEncoder encoder of the saved questions and replies, or null to share the names of authors
+     *            and keep messages as UTF-8 bytes
+     * @param writeAheadLog log to replay and append to, or null to keep the datastore in memory only
+     * @param snapshotStore snapshots to load and write, or null to always replay the whole log
+     * @param listeners listeners of saved questions and replies, or null if there are none
+     */
+    public QuestionService(@Nullable QuestionStore dataStore, @Nullable PostEncoder postEncoder, @Nullable WriteAheadLog writeAheadLog,
+            @Nullable SnapshotStore snapshotStore, @Nullable List<QuestionListener> listeners) {
+        this(dataStore, postEncoder, writeAheadLog, snapshotStore, listeners, null);
+    }
+
+    /**
+     * Creates a service like {@link #QuestionService(QuestionStore, PostEncoder, WriteAheadLog, SnapshotStore, List)}
+     * recording the latency of its operations in meterRegistry.
+     *
+     * @param dataStore empty store of the questions, or null for an {@link ArrayQuestionStore}
+     * @param postEncoder encoder of the saved questions and replies, or null to share the names of authors
+     *            and keep messages as UTF-8 bytes
+     * @param writeAheadLog log to replay and append to, or null to keep the datastore in memory only
+     * @param snapshotStore snapshots to load and write, or null to always replay the whole log
+     * @param listeners listeners of saved questions and replies, or null if there are none
+     * @param meterRegistry registry of the forum.service timers and forum.ids.last gauges, or null not to record them
+     */
+    @Autowired
+    public QuestionService(@Nullable QuestionStore dataStore, @Nullable PostEncoder postEncoder, @Nullable WriteAheadLog writeAheadLog,
+            @Nullable SnapshotStore snapshotStore, @Nullable List<QuestionListener> listeners, @Nullable MeterRegistry meterRegistry) {
+        if(snapshotStore != null && writeAheadLog == null)
+            throw new IllegalArgumentException("Snapshots require a write-ahead log");
+        if(dataStore instanceof DurableQuestionStore && writeAheadLog != null)
+            throw new IllegalArgumentException("A durable store doesn't need a write-ahead log");
+        this.dataStore = dataStore == null ? new ArrayQuestionStore() : dataStore;
+        this.postEncoder = postEncoder == null ? new PostEncoder(new AuthorDictionary(), true) : postEncoder;
+        if(dataStore instanceof DurableQuestionStore) {
+            questionIdTracker = ((DurableQuestionStore) dataStore).questionIds();
+            replyIdTracker = ((DurableQuestionStore) dataStore).replyIds();
+        } else if(dataStore instanceof ShardedQuestionStore) {
+            questionIdTracker = ((ShardedQuestionStore) dataStore).questionIds();
+            replyIdTracker = ((ShardedQuestionStore) dataStore).replyIds();
+        } else {
+            questionIdTracker = new AtomicIdSequence();
+            replyIdTracker = new AtomicIdSequence();
+        }
+        questionWatermark = new IdWatermark(questionIdTracker);
+        this.writeAheadLog = writeAheadLog;
+        this.snapshotStore = snapshotStore;
+        this.listeners = listeners == null ? Collections.emptyList() : new ArrayList<>(listeners);
+        MeterRegistry registry = meterRegistry == null ? new CompositeMeterRegistry() : meterRegistry;
+        addQuestionTimer = timer(registry, "addQuestion");
+        addQuestionsTimer = timer(registry, "addQuestions");
+        getQuestionsTimer = timer(registry, "getQuestions");
+        getQuestionByIdTimer = timer(registry, "getQuestionById");
+        getRepliesTimer = timer(registry, "getReplies");
+        replyToQuestionTimer = timer(registry, "replyToQuestion");
+        addRepliesTimer = timer(registry, "addReplies");
+        Gauge.builder("forum.ids.last", questionIdTracker, IdSequence::last).description("Id of the last question or reply saved or reserved")
+                .tag("type", "question").register(registry);
+        Gauge.builder("forum.ids.last", replyIdTracker, IdSequence::last).description("Id of the last question or reply saved or reserved")
+                .tag("type", "reply").register(registry);
+        if(writeAheadLog != null)
+            recover();
+        else if(dataStore instanceof DurableQuestionStore)
+            load();
+    }
 
-    
     /**
      * Saves a new {@link Question} to datastore.
      *
@@ -40,21 +277,129 @@ public class QuestionService {
      * @return question saved in dataStore and populated with questionId
      */
     public Question addQuestion(Question question) {
-        Question savedQuestion = Question.builder()
-                .id(questionIdTracker.incrementAndGet()).author(question.getAuthor()).message(question.getMessage()).replies(new ArrayList<>())
-                .build();
-        dataStore.put(savedQuestion.getId(), savedQuestion);
-        return savedQuestion;
+        long start = System.nanoTime();
+        try {
+            WriteRing<Write> ring = writeRing;
+            if(ring != null) {
+                Question savedQuestion = (Question) write(ring, new Write(null, Collections.singletonList(question))).get(0);
+                fireQuestionAdded(savedQuestion);
+                return savedQuestion;
+            }
+            Question savedQuestion;
+            long watermarkToken = questionWatermark.enter();
+            try {
+                savedQuestion = postEncoder.question(questionIdTracker.reserve(1), question.getAuthor(), question.getMessage(), new ReplyLog());
+                if(writeAheadLog == null) {
+                    dataStore.add(savedQuestion);
+                    storeVersion.incrementAndGet();
+                } else {
+                    int writeToken = inFlightWrites.enter();
+                    try {
+                        writeAheadLog.sync(writeAheadLog.appendQuestion(savedQuestion));
+                        dataStore.add(savedQuestion);
+                        storeVersion.incrementAndGet();
+                    } finally {
+                        inFlightWrites.exit(writeToken);
+                    }
+                }
+            } finally {
+                questionWatermark.exit(watermarkToken);
+            }
+            fireQuestionAdded(savedQuestion);
+            return savedQuestion;
+        } finally {
+            addQuestionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Saves several new {@link Question}s to datastore at once. Their ids are reserved from the tracker in a
+     * single step and, when a {@link WriteAheadLog} is configured, all of them are logged and made durable
+     * together.
+     *
+     * @param questions {@link Question}s to be asked in the forum
+     * @return questions saved in dataStore and populated with questionIds, in the order of questions
+     */
+    public List<Question> addQuestions(List<Question> questions) {
+        long start = System.nanoTime();
+        try {
+            if(questions.isEmpty())
+                return Collections.emptyList();
+            WriteRing<Write> ring = writeRing;
+            if(ring != null) {
+                @SuppressWarnings("unchecked")
+                List<Question> savedQuestions = (List<Question>) write(ring, new Write(null, questions));
+                for(Question savedQuestion : savedQuestions)
+                    fireQuestionAdded(savedQuestion);
+                return savedQuestions;
+            }
+            List<Question> savedQuestions = new ArrayList<>(questions.size());
+            long watermarkToken = questionWatermark.enter();
+            try {
+                long firstId = questionIdTracker.reserve(questions.size());
+                int stride = questionIdTracker.stride();
+                for(Question question : questions) {
+                    savedQuestions.add(postEncoder.question(firstId + (long) savedQuestions.size() * stride, question.getAuthor(), question.getMessage(), new ReplyLog()));
+                }
+                if(writeAheadLog == null) {
+                    putAll(savedQuestions);
+                } else {
+                    int writeToken = inFlightWrites.enter();
+                    try {
+                        writeAheadLog.sync(writeAheadLog.appendQuestions(savedQuestions));
+                        putAll(savedQuestions);
+                    } finally {
+                        inFlightWrites.exit(writeToken);
+                    }
+                }
+            } finally {
+                questionWatermark.exit(watermarkToken);
+            }
+            for(Question savedQuestion : savedQuestions)
+                fireQuestionAdded(savedQuestion);
+            return savedQuestions;
+        } finally {
+            addQuestionsTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Retrieves a page of {@link Question}s from dataStore in ascending questionId order. Only the requested
+     * page is visited, so the cost doesn't depend on the size of dataStore. The page stops at the watermark of
+     * the questions still being added, the next one picks them up.
+     *
+     * @param afterId questionId of the last question of the previous page or null to start from the first question
+     * @param limit maximum number of questions in the page
+     * @return page of {@link Question}s following afterId, empty if there are none.
+     */
+    public CursorPage<Question> getQuestions(Long afterId, int limit) {
+        long start = System.nanoTime();
+        try {
+            List<Question> questions = new ArrayList<>(Math.min(limit, 64));
+            // One more than the limit tells whether another page follows.
+            Iterator<Question> iterator = iterateQuestions(afterId, limit + 1);
+            while(questions.size() < limit && iterator.hasNext())
+                questions.add(iterator.next());
+            Long nextAfter = !questions.isEmpty() && iterator.hasNext() ? questions.get(questions.size() - 1).getId() : null;
+            return new CursorPage<>(questions, nextAfter);
+        } finally {
+            getQuestionsTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
     /**
-     * Retrieves a list of all the {@link Question}s from dataStore.
+     * Iterates over the {@link Question}s of dataStore in ascending questionId order, for callers streaming
+     * them instead of reading a page. Like pages, it stops at the watermark of the questions still being added
+     * when it is created, so questions saved while iterating may or may not be seen.
      *
-     * @return list of all the {@link Question}s if present in dataStore, or empty list.
+     * @param afterId questionId of the last question already seen or null to start from the first question
+     * @param fetchSize number of questions the caller expects to read, which stores reading in batches may fetch at once
+     * @return iterator over the questions following afterId
      */
-    public List<Question> getAllQuestions() {
-        Collection<Question> questions = dataStore.values();
-        return new ArrayList<>(questions);
+    public Iterator<Question> iterateQuestions(Long afterId, int fetchSize) {
+        // Read before iterating, since the questions up to it are added by then.
+        long watermark = questionWatermark.get();
+        return new WatermarkIterator(dataStore.iterator(afterId == null ? 0 : afterId, fetchSize), watermark);
     }
 
     /**
@@ -64,28 +409,516 @@ public class QuestionService {
      * @return question from datastore based on questionId or null if the question corresponding to this id is missing
      */
     public Question getQuestionById(Long questionId) {
-        return dataStore.get(questionId);
+        long start = System.nanoTime();
+        try {
+            return dataStore.get(questionId);
+        } finally {
+            getQuestionByIdTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
     /**
-     * Add a reply to a particular question. The reply is added to the replies collection of question
-     * represented by questionId.
+     * Retrieves a page of the {@link Reply}s of a question in ascending replyId order. Only the requested page
+     * is visited, so the cost doesn't depend on the number of replies to the question.
+     *
+     * @param questionId ID of the question whose replies are returned
+     * @param afterReplyId replyId of the last reply already seen or null to start from the first reply
+     * @param limit maximum number of replies in the page
+     * @return page of {@link Reply}s following afterReplyId, empty if there are none, or null if the question corresponding to questionId doesn't exist
+     */
+    public CursorPage<Reply> getReplies(Long questionId, Long afterReplyId, int limit) {
+        long start = System.nanoTime();
+        try {
+            Question question = dataStore.get(questionId);
+            if(question == null)
+                return null;
+            // One more than the limit tells whether another page follows.
+            List<Reply> replies = ReplyLog.repliesAfter(question.getReplies(), afterReplyId == null ? 0 : afterReplyId, limit + 1);
+            if(replies.size() <= limit)
+                return new CursorPage<>(replies, null);
+            List<Reply> page = replies.subList(0, limit);
+            return new CursorPage<>(page, page.isEmpty() ? null : page.get(limit - 1).getId());
+        } finally {
+            getRepliesTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Returns the version of question, bumped by every reply to it. Replies are only ever appended, so the
+     * version is the number of replies.
+     *
+     * @param question question from the datastore
+     * @return version of question
+     */
+    public int getVersion(Question question) {
+        return question.getReplies().size();
+    }
+
+    /**
+     * Returns the version of the datastore, bumped by every saved question and reply.
+     *
+     * @return version of the datastore
+     */
+    public long getStoreVersion() {
+        return storeVersion.get();
+    }
+
+    /**
+     * Add a reply to a particular question. The reply is appended to the {@link ReplyLog} of question
+     * represented by questionId, so it can be done while other threads read or reply to the same question.
      * 
      * @param questionId ID of question to which this reply is answered
      * @param reply Reply to the question
      * @return reply saved in dataStore and populated with replyId or null if the question corresponding to questionId doesn't exist
      */
     public Reply replyToQuestion(Long questionId, Reply reply) {
-        
-        Question questionToReply = dataStore.get(questionId);
-        if(questionToReply == null)
-            return null;
-        Reply savedReply = Reply.builder()
-                .id(replyIdTracker.incrementAndGet()).author(reply.getAuthor()).message(reply.getMessage()).questionId(questionId)
-                .build();
-        questionToReply.getReplies().add(savedReply);
-        return savedReply;
+        long start = System.nanoTime();
+        try {
+            Question questionToReply = dataStore.get(questionId);
+            if(questionToReply == null)
+                return null;
+            WriteRing<Write> ring = writeRing;
+            if(ring != null) {
+                Reply savedReply = (Reply) write(ring, new Write(questionToReply, Collections.singletonList(reply))).get(0);
+                fireReplyAdded(dataStore.latest(questionToReply), savedReply);
+                return savedReply;
+            }
+            if(writeAheadLog == null) {
+                Reply savedReply = dataStore.addReply(questionToReply, () -> postEncoder.reply(
+                        replyIdTracker.reserve(questionToReply.getId(), 1), reply.getAuthor(), reply.getMessage(), questionToReply.getId()));
+                storeVersion.incrementAndGet();
+                fireReplyAdded(dataStore.latest(questionToReply), savedReply);
+                return savedReply;
+            }
+            Reply savedReply;
+            int writeToken = inFlightWrites.enter();
+            try {
+                savedReply = dataStore.addReply(questionToReply, () -> {
+                    Reply newReply = postEncoder.reply(replyIdTracker.reserve(questionToReply.getId(), 1), reply.getAuthor(), reply.getMessage(), questionToReply.getId());
+                    writeAheadLog.sync(writeAheadLog.appendReply(newReply));
+                    return newReply;
+                });
+                storeVersion.incrementAndGet();
+            } finally {
+                inFlightWrites.exit(writeToken);
+            }
+            fireReplyAdded(dataStore.latest(questionToReply), savedReply);
+            return savedReply;
+        } finally {
+            replyToQuestionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Adds several replies to a particular question at once. Their ids are reserved from the tracker in a
+     * single step and they are appended to the {@link ReplyLog} of the question in a single turn, so they are
+     * consecutive in it. When a {@link WriteAheadLog} is configured, all of them are logged and made durable
+     * together.
+     *
+     * @param questionId ID of question to which these replies are answered
+     * @param replies Replies to the question
+     * @return replies saved in dataStore and populated with replyIds, in the order of replies, or null if the question corresponding to questionId doesn't exist
+     */
+    public List<Reply> addReplies(Long questionId, List<Reply> replies) {
+        long start = System.nanoTime();
+        try {
+            Question questionToReply = dataStore.get(questionId);
+            if(questionToReply == null)
+                return null;
+            if(replies.isEmpty())
+                return Collections.emptyList();
+            WriteRing<Write> ring = writeRing;
+            if(ring != null) {
+                @SuppressWarnings("unchecked")
+                List<Reply> savedReplies = (List<Reply>) write(ring, new Write(questionToReply, replies));
+                Question repliedQuestion = dataStore.latest(questionToReply);
+                for(Reply savedReply : savedReplies)
+                    fireReplyAdded(repliedQuestion, savedReply);
+                return savedReplies;
+            }
+            List<Reply> savedReplies;
+            int writeToken = writeAheadLog == null ? 0 : inFlightWrites.enter();
+            try {
+                savedReplies = dataStore.addReplies(questionToReply, () -> {
+                    long firstId = replyIdTracker.reserve(questionToReply.getId(), replies.size());
+                    int stride = replyIdTracker.stride();
+                    List<Reply> newReplies = new ArrayList<>(replies.size());
+                    for(Reply reply : replies) {
+                        newReplies.add(postEncoder.reply(firstId + (long) newReplies.size() * stride, reply.getAuthor(), reply.getMessage(), questionToReply.getId()));
+                    }
+                    if(writeAheadLog != null)
+                        writeAheadLog.sync(writeAheadLog.appendReplies(newReplies));
+                    return newReplies;
+                });
+                storeVersion.addAndGet(savedReplies.size());
+            } finally {
+                if(writeAheadLog != null)
+                    inFlightWrites.exit(writeToken);
+            }
+            Question repliedQuestion = dataStore.latest(questionToReply);
+            for(Reply savedReply : savedReplies)
+                fireReplyAdded(repliedQuestion, savedReply);
+            return savedReplies;
+        } finally {
+            addRepliesTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Hands every following write over to a single writer thread, which applies them in the order they are
+     * submitted, in batches of up to maxBatch writes: the questions and replies of a batch get their ids, are
+     * logged and synced at once when a {@link WriteAheadLog} is configured, then are added to the datastore and
+     * bump its version once. Calling threads wait for their write to be applied and then tell the listeners.
+     * A write which fails fails alone, unless it is the sync of the batch, which fails every write it logs.
+     * <p>
+     * Stop the returned ring once no more writes are made, e.g. on shutdown, which applies the pending writes.
+     *
+     * @param capacity number of writes waiting for the writer before calling threads wait for a free slot, a power of 2
+     * @param maxBatch maximum number of writes applied at once
+     * @return ring of the writer, started
+     */
+    public WriteRing<?> startSingleWriter(int capacity, int maxBatch) {
+        if(writeRing != null)
+            throw new IllegalStateException("The single writer is already started");
+        WriteRing<Write> ring = new WriteRing<>("question-writer", capacity, maxBatch, this::apply);
+        ring.start();
+        writeRing = ring;
+        return ring;
+    }
+
+    /**
+     * Submits write to ring and waits for the writer to apply it, or to fail it, checking every
+     * WRITE_CHECK_MILLIS that the writer thread is still there.
+     *
+     * @return saved questions or replies of write
+     */
+    private static List<?> write(WriteRing<Write> ring, Write write) {
+        ring.submit(write);
+        try {
+            while(true) {
+                try {
+                    return write.saved.get(WRITE_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // The writer applies every submitted write unless its thread is gone.
+                    if(ring.terminated() && !write.saved.isDone())
+                        throw new IllegalStateException("The single writer stopped before applying the write");
+                }
+            }
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if(e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the single writer", e);
+        }
+    }
+
+    /**
+     * Applies a batch of writes on the writer thread: reserves their ids and builds the saved questions and
+     * replies in submission order, logs them with a single sync, then adds them to dataStore. Question ids are
+     * reserved spread over the stripes of questionIdTracker, reply ids for their question. Replies are appended
+     * in their turn of the question, which no other thread takes while the writer runs.
+     * <p>
+     * A write fails on its own when it can't be built, logged or added, the others of the batch are still
+     * applied. A failed sync fails every write logged with it, none of them being added. Only an Error fails
+     * every write not added yet.
+     */
+    private void apply(List<Write> batch) {
+        long watermarkToken = questionWatermark.enter();
+        int writeToken = writeAheadLog == null ? 0 : inFlightWrites.enter();
+        long count = 0;
+        try {
+            List<Write> logged = new ArrayList<>(batch.size());
+            long lsn = 0;
+            for(Write write : batch) {
+                try {
+                    if(write.question == null) {
+                        long firstId = questionIdTracker.reserveSpread(write.posts.size());
+                        int stride = questionIdTracker.stride();
+                        List<Question> savedQuestions = new ArrayList<>(write.posts.size());
+                        for(Object post : write.posts) {
+                            Question question = (Question) post;
+                            savedQuestions.add(postEncoder.question(firstId + (long) savedQuestions.size() * stride, question.getAuthor(), question.getMessage(), new ReplyLog()));
+                        }
+                        if(writeAheadLog != null)
+                            lsn = writeAheadLog.appendQuestions(savedQuestions);
+                        write.built = savedQuestions;
+                    } else {
+                        long firstId = replyIdTracker.reserve(write.question.getId(), write.posts.size());
+                        int stride = replyIdTracker.stride();
+                        List<Reply> savedReplies = new ArrayList<>(write.posts.size());
+                        for(Object post : write.posts) {
+                            Reply reply = (Reply) post;
+                            savedReplies.add(postEncoder.reply(firstId + (long) savedReplies.size() * stride, reply.getAuthor(), reply.getMessage(), write.question.getId()));
+                        }
+                        if(writeAheadLog != null)
+                            lsn = writeAheadLog.appendReplies(savedReplies);
+                        write.built = savedReplies;
+                    }
+                    logged.add(write);
+                } catch (RuntimeException e) {
+                    write.saved.completeExceptionally(e);
+                }
+            }
+            if(writeAheadLog != null && !logged.isEmpty()) {
+                try {
+                    writeAheadLog.sync(lsn);
+                } catch (RuntimeException e) {
+                    for(Write write : logged)
+                        write.saved.completeExceptionally(e);
+                    logged.clear();
+                }
+            }
+            for(Write write : logged) {
+                try {
+                    if(write.question == null) {
+                        @SuppressWarnings("unchecked")
+                        List<Question> savedQuestions = (List<Question>) write.built;
+                        dataStore.addAll(savedQuestions);
+                    } else {
+                        @SuppressWarnings("unchecked")
+                        List<Reply> savedReplies = (List<Reply>) write.built;
+                        dataStore.addReplies(write.question, () -> savedReplies);
+                    }
+                    write.applied = true;
+                    count += write.posts.size();
+                } catch (RuntimeException e) {
+                    write.saved.completeExceptionally(e);
+                }
+            }
+        } catch (Throwable e) {
+            // Fails every write not added yet, whatever was thrown, so that no caller waits for it forever.
+            for(Write write : batch) {
+                if(!write.applied)
+                    write.saved.completeExceptionally(e);
+            }
+            throw e;
+        } finally {
+            storeVersion.addAndGet(count);
+            if(writeAheadLog != null)
+                inFlightWrites.exit(writeToken);
+            questionWatermark.exit(watermarkToken);
+            for(Write write : batch) {
+                if(write.applied)
+                    write.saved.complete(write.built);
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot of the datastore without blocking writers, then prunes the snapshots and log segments
+     * no longer needed. Only waits for the writes already logged to be applied to the datastore, so that the
+     * snapshot reflects every log record up to its lsn.
+     *
+     * @return true if a snapshot was written, false if nothing was logged since the last one
+     * @throws IOException if the snapshot can't be written or pruning fails
+     */
+    public boolean writeSnapshot() throws IOException {
+        if(snapshotStore == null)
+            throw new IllegalStateException("Snapshots are not enabled");
+        long lsn = writeAheadLog.lastLsn();
+        if(lsn <= lastSnapshotLsn)
+            return false;
+        inFlightWrites.awaitPriorWrites();
+        snapshotStore.write(lsn, () -> dataStore.iterator(0), questionIdTracker::last, replyIdTracker::last);
+        lastSnapshotLsn = lsn;
+        snapshotStore.prune();
+        writeAheadLog.deleteSegmentsBefore(snapshotStore.oldestRetainedLsn());
+        return true;
+    }
+
+    /**
+     * Rebuilds the datastore and both id trackers from the newest snapshot, if any, and the log records following it.
+     */
+    private void recover() {
+        long start = System.nanoTime();
+        RecoveryHandler handler = new RecoveryHandler();
+        try {
+            long afterLsn = 0;
+            if(snapshotStore != null) {
+                SnapshotStore.Header header = snapshotStore.loadLatest(handler);
+                if(header != null) {
+                    afterLsn = header.getLsn();
+                    lastSnapshotLsn = afterLsn;
+                    questionIdTracker.advanceTo(header.getQuestionIdTracker());
+                    replyIdTracker.advanceTo(header.getReplyIdTracker());
+                }
+                handler.replayedRecords = 0;
+            }
+            writeAheadLog.replay(afterLsn, handler);
+            logger.info("Recovered {} questions from snapshot at lsn {} and {} log records in {} ms",
+                    dataStore.size(), afterLsn, handler.replayedRecords, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover datastore from " + writeAheadLog.getDirectory(), e);
+        }
+    }
+
+    /**
+     * Questions, or replies to a question, saved at once by the single writer.
+     */
+    private static final class Write {
+
+        /**
+         * Question replied to, null if posts are questions.
+         */
+        private final Question question;
+
+        /**
+         * Questions or replies as received.
+         */
+        private final List<?> posts;
+
+        /**
+         * Saved questions or replies, built by the writer.
+         */
+        private List<?> built;
+
+        /**
+         * Whether built was added to the datastore, only used by the writer.
+         */
+        private boolean applied;
+
+        private final CompletableFuture<List<?>> saved = new CompletableFuture<>();
+
+        Write(Question question, List<?> posts) {
+            this.question = question;
+            this.posts = posts;
+        }
+
+    }
+
+    /**
+     * Iterator over the questions of dataStore up to a watermark.
+     */
+    private static final class WatermarkIterator implements Iterator<Question> {
+
+        private final Iterator<Question> questions;
+
+        private final long watermark;
+
+        private Question next;
+
+        /**
+         * Whether a question above the watermark was read, after which every question is above it.
+         */
+        private boolean passed;
+
+        WatermarkIterator(Iterator<Question> questions, long watermark) {
+            this.questions = questions;
+            this.watermark = watermark;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if(next == null && !passed && questions.hasNext()) {
+                Question question = questions.next();
+                if(question.getId() <= watermark)
+                    next = question;
+                else
+                    passed = true;
+            }
+            return next != null;
+        }
+
+        @Override
+        public Question next() {
+            if(!hasNext())
+                throw new NoSuchElementException();
+            Question question = next;
+            next = null;
+            return question;
+        }
+
+    }
+
+    /**
+     * Applies recovered questions and replies to the datastore. Records already present are skipped, since the
+     * log records following a snapshot may also be in the snapshot.
+     */
+    private class RecoveryHandler implements WriteAheadLog.RecordHandler {
+
+        private long replayedRecords;
+
+        @Override
+        public void onQuestion(long lsn, Question question) {
+            Question recovered = postEncoder.question(question.getId(), question.getAuthor(), question.getMessage(), new ReplyLog());
+            if(dataStore.add(recovered)) {
+                storeVersion.incrementAndGet();
+                fireQuestionAdded(recovered);
+            }
+            questionIdTracker.advanceTo(question.getId());
+            replayedRecords++;
+        }
+
+        @Override
+        public void onReply(long lsn, Reply reply) {
+            Question question = dataStore.get(reply.getQuestionId());
+            if(question == null) {
+                logger.warn("Skipping reply {} to unknown question {} at lsn {}", reply.getId(), reply.getQuestionId(), lsn);
+                return;
+            }
+            List<Reply> replies = question.getReplies();
+            // Reply ids are ascending within a question, anything not above the last one is already present.
+            if(replies.isEmpty() || replies.get(replies.size() - 1).getId() < reply.getId()) {
+                Reply recovered = dataStore.addReply(question, () -> postEncoder.reply(reply.getId(), reply.getAuthor(), reply.getMessage(), question.getId()));
+                storeVersion.incrementAndGet();
+                fireReplyAdded(dataStore.latest(question), recovered);
+            }
+            replyIdTracker.advanceTo(reply.getId());
+            replayedRecords++;
+        }
+
+    }
+
+    /**
+     * Tells the listeners about the questions and replies of a durable store, which were saved before a restart.
+     */
+    private void load() {
+        long start = System.nanoTime();
+        long questions = 0;
+        for(Iterator<Question> iterator = dataStore.iterator(0); iterator.hasNext();) {
+            Question question = iterator.next();
+            storeVersion.addAndGet(1 + question.getReplies().size());
+            fireQuestionAdded(question);
+            for(Reply reply : question.getReplies())
+                fireReplyAdded(question, reply);
+            questions++;
+        }
+        logger.info("Loaded {} questions from {} in {} ms", questions, dataStore.getClass().getSimpleName(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void putAll(List<Question> questions) {
+        dataStore.addAll(questions);
+        storeVersion.addAndGet(questions.size());
+    }
+
+    private void fireQuestionAdded(Question question) {
+        for(QuestionListener listener : listeners) {
+            try {
+                listener.questionAdded(question);
+            } catch (RuntimeException e) {
+                logger.error("Listener {} failed on question {}", listener, question.getId(), e);
+            }
+        }
+    }
+
+    private void fireReplyAdded(Question question, Reply reply) {
+        for(QuestionListener listener : listeners) {
+            try {
+                listener.replyAdded(question, reply);
+            } catch (RuntimeException e) {
+                logger.error("Listener {} failed on reply {} to question {}", listener, reply.getId(), question.getId(), e);
+            }
+        }
+    }
 
+    private static Timer timer(MeterRegistry registry, String operation) {
+        return Timer.builder("forum.service").description("Latency of the QuestionService operations")
+                .tag("operation", operation).register(registry);
     }
 
 }
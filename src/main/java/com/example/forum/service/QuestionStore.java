@@ -0,0 +1,104 @@
+package com.example.forum.service;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+
+/**
+ * In-memory datastore of {@link QuestionService}: the questions by id, each with its {@link ReplyLog}.
+ * <p>
+ * Implementations are safe for concurrent use without locking readers, and iterate in ascending id order so
+ * that questions can be paged through by key. Questions are never removed or replaced. Ids start from 1 but
+ * aren't dense: a {@link StripedIdSequence} or a database sequence skips ids. They aren't added in ascending
+ * order either, since concurrent writers finish out of order, so the service only lists them up to an
+ * {@link IdWatermark}.
+ * <p>
+ * Replies are appended to the {@link ReplyLog} of their question, which in-memory stores keep as is; other
+ * stores save them as well, and {@link PersistentQuestionStore} keeps a new immutable list of them instead.
+ */
+public interface QuestionStore {
+
+    /**
+     * @param questionId id of the question
+     * @return the question with its replies, or null if there is none with this id
+     */
+    Question get(long questionId);
+
+    /**
+     * Saves a new question. Its replies must be a {@link ReplyLog}, which the store keeps as is unless it keeps
+     * its own copy.
+     *
+     * @param question question with its id
+     * @return false if a question with this id was already saved, which is kept
+     */
+    boolean add(Question question);
+
+    /**
+     * Saves new questions, as if added one after the other.
+     *
+     * @param questions questions with their ids
+     */
+    default void addAll(List<Question> questions) {
+        for(Question question : questions)
+            add(question);
+    }
+
+    /**
+     * Appends the reply built by factory to the replies of question.
+     *
+     * @param question question from this store, possibly an older version of it
+     * @param factory builds the reply, called in the turn of the question so that reply ids are ascending
+     * @return the saved reply
+     */
+    default Reply addReply(Question question, Supplier<Reply> factory) {
+        return ((ReplyLog) question.getReplies()).append(factory);
+    }
+
+    /**
+     * Appends all the replies built by factory to the replies of question at once.
+     *
+     * @param question question from this store, possibly an older version of it
+     * @param factory builds the replies, called in the turn of the question so that reply ids are ascending
+     * @return the saved replies
+     */
+    default List<Reply> addReplies(Question question, Supplier<List<Reply>> factory) {
+        return ((ReplyLog) question.getReplies()).appendAll(factory);
+    }
+
+    /**
+     * @param question question from this store, possibly an older version of it
+     * @return the version of question with all the replies saved to it so far, question itself unless the store
+     *         saves replies to a new version of the question
+     */
+    default Question latest(Question question) {
+        return question;
+    }
+
+    /**
+     * @param afterId id of the last question already seen, 0 to start from the first question
+     * @return iterator over the questions following afterId in ascending id order, which sees questions saved
+     *         while iterating as long as it hasn't gone past their id
+     */
+    Iterator<Question> iterator(long afterId);
+
+    /**
+     * Like {@link #iterator(long)}, for a caller expecting to read about fetchSize questions, which stores
+     * reading questions in batches use as the size of their batches.
+     *
+     * @param afterId id of the last question already seen, 0 to start from the first question
+     * @param fetchSize number of questions the caller expects to read
+     * @return iterator over the questions following afterId in ascending id order
+     */
+    default Iterator<Question> iterator(long afterId, int fetchSize) {
+        return iterator(afterId);
+    }
+
+    /**
+     * @return number of questions saved
+     */
+    long size();
+
+}
@@ -0,0 +1,42 @@
+package com.example.forum.service;
+
+/**
+ * Implementation of the {@link QuestionStore} keeping the datastore of {@link QuestionService}.
+ */
+public enum QuestionStoreType {
+
+    /**
+     * {@link SkipListQuestionStore}: a map node and a boxed key per question.
+     */
+    SKIP_LIST,
+
+    /**
+     * {@link ArrayQuestionStore}: a reference per question in pages indexed by id.
+     */
+    ARRAY,
+
+    /**
+     * {@link ShardedQuestionStore}: a {@link SkipListQuestionStore} and an id counter per shard, merged when
+     * listing.
+     */
+    SHARDED,
+
+    /**
+     * {@link PersistentQuestionStore}: an immutable snapshot of the whole forum per write, sharing all but the
+     * changed path with the previous one.
+     */
+    PERSISTENT,
+
+    /**
+     * {@link OffHeapQuestionStore}: the text of the questions in direct or memory mapped buffers, decoded on
+     * every read.
+     */
+    OFF_HEAP,
+
+    /**
+     * {@link JpaQuestionStore}: the questions and replies in the database, which keeps them across restarts
+     * without the write-ahead log.
+     */
+    JPA
+
+}
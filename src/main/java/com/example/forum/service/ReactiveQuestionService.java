@@ -0,0 +1,104 @@
+package com.example.forum.service;
+
+import java.util.Iterator;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Non-blocking facade of {@link QuestionService} for the reactive API. Nothing is read or saved until the
+ * returned publishers are subscribed to.
+ * <p>
+ * Saving waits for the write-ahead log or the database, so writes run on writeScheduler, typically a bounded
+ * elastic scheduler, and never on the event loop which subscribes. Reads of an in-memory datastore never
+ * block and run on the subscribing thread with {@link reactor.core.scheduler.Schedulers#immediate()}, while
+ * reads of a database go to a blocking scheduler as well.
+ */
+public class ReactiveQuestionService {
+
+    private final QuestionService questionService;
+
+    private final Scheduler writeScheduler;
+
+    private final Scheduler readScheduler;
+
+    /**
+     * @param questionService service saving and reading the questions
+     * @param writeScheduler scheduler of the blocking writes
+     * @param readScheduler scheduler of the reads, immediate unless the datastore blocks
+     */
+    public ReactiveQuestionService(QuestionService questionService, Scheduler writeScheduler, Scheduler readScheduler) {
+        this.questionService = questionService;
+        this.writeScheduler = writeScheduler;
+        this.readScheduler = readScheduler;
+    }
+
+    /**
+     * @param question {@link Question} to be asked in the forum
+     * @return question saved in the datastore and populated with questionId
+     */
+    public Mono<Question> addQuestion(Question question) {
+        return Mono.fromCallable(() -> questionService.addQuestion(question)).subscribeOn(writeScheduler);
+    }
+
+    /**
+     * Streams the questions following afterId in ascending questionId order. Questions are read from the
+     * datastore as the subscriber requests them, so a slow client holds up reading instead of the questions
+     * piling up in memory.
+     *
+     * @param afterId questionId of the last question already seen or null to start from the first question
+     * @param limit maximum number of questions streamed
+     * @return up to limit questions following afterId
+     */
+    public Flux<Question> getQuestions(Long afterId, int limit) {
+        Iterable<Question> questions = () -> questionService.iterateQuestions(afterId, limit);
+        return Flux.fromIterable(questions).take(limit, true).subscribeOn(readScheduler);
+    }
+
+    /**
+     * @param afterId questionId of the last question already seen or null to start from the first question
+     * @return true if a question follows afterId, reading at most one question
+     */
+    public Mono<Boolean> hasQuestionsAfter(Long afterId) {
+        return Mono.fromCallable(() -> {
+            Iterator<Question> iterator = questionService.iterateQuestions(afterId, 1);
+            return iterator.hasNext();
+        }).subscribeOn(readScheduler);
+    }
+
+    /**
+     * @param questionId ID of the question to return
+     * @return question from the datastore, empty if it doesn't exist
+     */
+    public Mono<Question> getQuestionById(long questionId) {
+        return Mono.fromCallable(() -> questionService.getQuestionById(questionId)).subscribeOn(readScheduler);
+    }
+
+    /**
+     * @param questionId ID of question to which this reply is answered
+     * @param reply reply to the question
+     * @return reply saved in the datastore and populated with replyId, empty if the question doesn't exist
+     */
+    public Mono<Reply> replyToQuestion(long questionId, Reply reply) {
+        return Mono.fromCallable(() -> questionService.replyToQuestion(questionId, reply)).subscribeOn(writeScheduler);
+    }
+
+    /**
+     * @see QuestionService#getVersion(Question)
+     */
+    public int getVersion(Question question) {
+        return questionService.getVersion(question);
+    }
+
+    /**
+     * @see QuestionService#getStoreVersion()
+     */
+    public long getStoreVersion() {
+        return questionService.getStoreVersion();
+    }
+
+}
@@ -0,0 +1,247 @@
+package com.example.forum.service;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import com.example.forum.model.Reply;
+
+/**
+ * Append-only list of the {@link Reply}s of one question which can be read while it is being appended to.
+ * <p>
+ * Replies are kept in chunks which double in size and are never copied or moved once written, so a reader
+ * only has to read the published size to get a consistent snapshot: every reply below that size is fully
+ * written and will never change. Readers never lock and never copy. Appenders to the same log take turns on
+ * a lock private to this log, which keeps the ids handed out by the reply factory ascending in log order;
+ * appenders to different questions never contend with each other.
+ * <p>
+ * The list is unmodifiable through the {@link List} interface, {@link #append(Supplier)} and
+ * {@link #appendAll(Supplier)} are the only ways to add replies. Iterators are snapshots of the log at the
+ * time they are created.
+ */
+public class ReplyLog extends AbstractList<Reply> implements RandomAccess {
+
+    /**
+     * log2 of the capacity of the first chunk. Chunk k holds FIRST_CHUNK_CAPACITY << k replies.
+     */
+    private static final int FIRST_CHUNK_SHIFT = 3;
+
+    private static final int FIRST_CHUNK_CAPACITY = 1 << FIRST_CHUNK_SHIFT;
+
+    private static final Reply[][] NO_CHUNKS = new Reply[0][];
+
+    /**
+     * Turn of the appenders. A lock rather than a monitor, since factories may write to a database while
+     * holding it and a virtual thread blocked on a monitor pins its carrier thread.
+     */
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    /**
+     * Chunks written so far. Replaced by a longer copy when a chunk is added, chunks themselves are shared.
+     */
+    private volatile Reply[][] chunks = NO_CHUNKS;
+
+    /**
+     * Number of replies visible to readers. Written after the reply and its chunk, so reading it first
+     * guarantees that every reply below it is visible.
+     */
+    private volatile int size;
+
+    /**
+     * Appends the reply created by factory to the end of this log. The factory is called while holding the
+     * turn of this log, so replies created by it are appended in the order it is called.
+     *
+     * @param factory creates the reply to append, typically assigning it the next id
+     * @return the appended reply
+     */
+    public Reply append(Supplier<Reply> factory) {
+        appendLock.lock();
+        try {
+            Reply reply = factory.get();
+            int index = size;
+            chunkFor(index)[offsetOf(index)] = reply;
+            size = index + 1;
+            return reply;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Appends every reply created by factory to the end of this log in a single turn, so that readers see
+     * either none or all of them.
+     *
+     * @param factory creates the replies to append, typically assigning them the next ids
+     * @return the appended replies
+     */
+    public List<Reply> appendAll(Supplier<List<Reply>> factory) {
+        appendLock.lock();
+        try {
+            List<Reply> replies = factory.get();
+            int index = size;
+            for(Reply reply : replies) {
+                chunkFor(index)[offsetOf(index)] = reply;
+                index++;
+            }
+            size = index;
+            return replies;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * @return number of replies in this log at the time of the call
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Reply get(int index) {
+        int currentSize = size;
+        if(index < 0 || index >= currentSize)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + currentSize);
+        return chunks[chunkIndexOf(index)][offsetOf(index)];
+    }
+
+    /**
+     * @return an iterator over the replies present at the time of the call
+     */
+    @Override
+    public Iterator<Reply> iterator() {
+        return snapshot().iterator();
+    }
+
+    /**
+     * @return an immutable view of the replies present at the time of the call, which shares storage with this log
+     */
+    public List<Reply> snapshot() {
+        int currentSize = size;
+        return new Snapshot(chunks, currentSize);
+    }
+
+    /**
+     * Returns the replies following replyId, found by binary search since ids are ascending in log order, so
+     * the cost depends on the number of replies returned and not on the length of the log.
+     *
+     * @param replyId id of the last reply already seen, 0 to start from the first reply
+     * @param limit maximum number of replies returned
+     * @return an immutable view of at most limit replies present at the time of the call and following replyId
+     */
+    public List<Reply> repliesAfter(long replyId, int limit) {
+        return repliesAfter(snapshot(), replyId, limit);
+    }
+
+    /**
+     * Like {@link #repliesAfter(long, int)} for the replies of any question, a {@link ReplyLog} or an immutable
+     * list of replies in ascending id order.
+     *
+     * @param replies replies of a question
+     * @param replyId id of the last reply already seen, 0 to start from the first reply
+     * @param limit maximum number of replies returned
+     * @return a view of at most limit replies following replyId
+     */
+    public static List<Reply> repliesAfter(List<Reply> replies, long replyId, int limit) {
+        if(replies instanceof ReplyLog)
+            return ((ReplyLog) replies).repliesAfter(replyId, limit);
+        int low = 0;
+        int high = replies.size();
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(replies.get(middle).getId() <= replyId)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return replies.subList(low, (int) Math.min(replies.size(), (long) low + limit));
+    }
+
+    /**
+     * Returns the chunk holding index, allocating it if needed. Must be called while holding the turn.
+     */
+    private Reply[] chunkFor(int index) {
+        int chunkIndex = chunkIndexOf(index);
+        Reply[][] current = chunks;
+        if(chunkIndex < current.length)
+            return current[chunkIndex];
+        Reply[][] grown = new Reply[chunkIndex + 1][];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        grown[chunkIndex] = new Reply[FIRST_CHUNK_CAPACITY << chunkIndex];
+        chunks = grown;
+        return grown[chunkIndex];
+    }
+
+    private static int chunkIndexOf(int index) {
+        return 31 - Integer.numberOfLeadingZeros((index >>> FIRST_CHUNK_SHIFT) + 1);
+    }
+
+    private static int offsetOf(int index) {
+        return index - (((1 << chunkIndexOf(index)) - 1) << FIRST_CHUNK_SHIFT);
+    }
+
+    /**
+     * Fixed size view of the first size replies of the log.
+     */
+    private static final class Snapshot extends AbstractList<Reply> implements RandomAccess {
+
+        private final Reply[][] chunks;
+
+        private final int size;
+
+        Snapshot(Reply[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Reply get(int index) {
+            if(index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            return chunks[chunkIndexOf(index)][offsetOf(index)];
+        }
+
+        @Override
+        public Iterator<Reply> iterator() {
+            return new Iterator<Reply>() {
+
+                private int chunkIndex;
+
+                private int offset;
+
+                private int remaining = size;
+
+                @Override
+                public boolean hasNext() {
+                    return remaining > 0;
+                }
+
+                @Override
+                public Reply next() {
+                    if(remaining == 0)
+                        throw new NoSuchElementException();
+                    Reply[] chunk = chunks[chunkIndex];
+                    Reply reply = chunk[offset++];
+                    if(offset == chunk.length) {
+                        chunkIndex++;
+                        offset = 0;
+                    }
+                    remaining--;
+                    return reply;
+                }
+            };
+        }
+
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.example.forum.service;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import com.example.forum.model.Question;
+
+/**
+ * {@link QuestionStore} partitioned into shards, each keeping its questions in its own
+ * {@link SkipListQuestionStore}, so that concurrent writers of different shards touch neither the same map nor
+ * the same id counter. It hands out the ids of questions and replies from a {@link StripedIdSequence} with a
+ * stripe per shard, and a question is kept by the shard of the stripe of its id, found from the id alone.
+ * <p>
+ * Listing merges the shards lazily: the iterator holds the next question of every shard and returns the lowest
+ * one, reading a shard again only once its question is returned. Since stripes advance independently, ids are
+ * sparse within a shard and only roughly follow the order questions were saved in across shards, a new id being
+ * at most maxIdSkew below the highest one.
+ */
+public class ShardedQuestionStore implements QuestionStore {
+
+    private final QuestionStore[] shards;
+
+    private final StripedIdSequence questionIds;
+
+    private final StripedIdSequence replyIds;
+
+    /**
+     * @param shards number of shards, and of stripes of the id sequences
+     */
+    public ShardedQuestionStore(int shards) {
+        this(shards, StripedIdSequence.DEFAULT_MAX_SKEW);
+    }
+
+    /**
+     * @param shards number of shards, and of stripes of the id sequences
+     * @param maxIdSkew most a question or reply id may be below one handed out before
+     */
+    public ShardedQuestionStore(int shards, long maxIdSkew) {
+        if(shards < 1)
+            throw new IllegalArgumentException("At least one shard is needed: " + shards);
+        this.shards = new QuestionStore[shards];
+        for(int i = 0; i < shards; i++)
+            this.shards[i] = new SkipListQuestionStore();
+        this.questionIds = new StripedIdSequence(shards, maxIdSkew);
+        this.replyIds = new StripedIdSequence(shards, maxIdSkew);
+    }
+
+    @Override
+    public Question get(long questionId) {
+        return questionId < 1 ? null : shards[questionIds.stripe(questionId)].get(questionId);
+    }
+
+    @Override
+    public boolean add(Question question) {
+        long id = question.getId();
+        if(id < 1)
+            throw new IllegalArgumentException("Question ids start at 1: " + id);
+        return shards[questionIds.stripe(id)].add(question);
+    }
+
+    @Override
+    public Iterator<Question> iterator(long afterId) {
+        return shards.length == 1 ? shards[0].iterator(afterId) : new MergingIterator(shards, afterId);
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for(QuestionStore shard : shards)
+            size += shard.size();
+        return size;
+    }
+
+    /**
+     * @return sequence of the ids of the questions of this store, whose stripes are its shards
+     */
+    public IdSequence questionIds() {
+        return questionIds;
+    }
+
+    /**
+     * @return sequence of the ids of the replies of this store, reserving the ids of the replies of a question
+     *         from the stripe of its shard
+     */
+    public IdSequence replyIds() {
+        return replyIds;
+    }
+
+    /**
+     * @return number of shards
+     */
+    public int getShards() {
+        return shards.length;
+    }
+
+    /**
+     * k-way merge of the iterators of the shards, on a heap of their next questions.
+     */
+    private static class MergingIterator implements Iterator<Question> {
+
+        private final PriorityQueue<Head> heads;
+
+        MergingIterator(QuestionStore[] shards, long afterId) {
+            heads = new PriorityQueue<>(shards.length);
+            for(QuestionStore shard : shards) {
+                Iterator<Question> iterator = shard.iterator(afterId);
+                if(iterator.hasNext())
+                    heads.add(new Head(iterator));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Question next() {
+            Head head = heads.poll();
+            if(head == null)
+                throw new NoSuchElementException();
+            Question question = head.question;
+            if(head.iterator.hasNext()) {
+                head.question = head.iterator.next();
+                heads.add(head);
+            }
+            return question;
+        }
+
+    }
+
+    /**
+     * Next question of a shard, with the iterator of the shard following it.
+     */
+    private static class Head implements Comparable<Head> {
+
+        private final Iterator<Question> iterator;
+
+        private Question question;
+
+        Head(Iterator<Question> iterator) {
+            this.iterator = iterator;
+            this.question = iterator.next();
+        }
+
+        @Override
+        public int compareTo(Head other) {
+            return Long.compare(question.getId(), other.question.getId());
+        }
+
+    }
+
+}
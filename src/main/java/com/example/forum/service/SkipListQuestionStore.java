@@ -0,0 +1,36 @@
+package com.example.forum.service;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.example.forum.model.Question;
+
+/**
+ * {@link QuestionStore} keeping questions in a {@link ConcurrentSkipListMap} ordered by id. Every question costs
+ * a boxed key and a map node besides the question itself, but ids may be sparse.
+ */
+public class SkipListQuestionStore implements QuestionStore {
+
+    private final ConcurrentSkipListMap<Long, Question> questions = new ConcurrentSkipListMap<>();
+
+    @Override
+    public Question get(long questionId) {
+        return questions.get(questionId);
+    }
+
+    @Override
+    public boolean add(Question question) {
+        return questions.putIfAbsent(question.getId(), question) == null;
+    }
+
+    @Override
+    public Iterator<Question> iterator(long afterId) {
+        return questions.tailMap(afterId, false).values().iterator();
+    }
+
+    @Override
+    public long size() {
+        return questions.size();
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.example.forum.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically asks {@link QuestionService} to write a snapshot of its datastore on a background thread, and
+ * writes a last one on shutdown so that the next startup replays as little as possible.
+ */
+public class Snapshotter {
+
+    private final Logger logger = LoggerFactory.getLogger(Snapshotter.class);
+
+    private final QuestionService questionService;
+
+    private final Duration interval;
+
+    private ScheduledExecutorService executor;
+
+    public Snapshotter(QuestionService questionService, Duration interval) {
+        this.questionService = questionService;
+        this.interval = interval;
+    }
+
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = interval.toMillis();
+        executor.scheduleWithFixedDelay(this::snapshot, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        snapshot();
+    }
+
+    private void snapshot() {
+        try {
+            questionService.writeSnapshot();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to write snapshot", e);
+        }
+    }
+
+}
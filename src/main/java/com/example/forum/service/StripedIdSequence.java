@@ -0,0 +1,177 @@
+package com.example.forum.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link IdSequence} split into stripes, each with its own counter so that threads reserving ids at the same
+ * time don't contend on a single cache line. Stripe s of n hands out the ids s + 1, s + 1 + n, s + 1 + 2n and
+ * so on, so ids are unique without any coordination between stripes, ascending within a stripe, and the stripe
+ * of an id is known from the id alone.
+ * <p>
+ * A thread reserves from the stripe of its thread id, and ids reserved for an owner come from the stripe of
+ * the owner, so that they ascend along with it. Spread reservations take the stripes in turn. Stripes advance at the pace of their own threads, so an id may
+ * be handed out after a higher one of another stripe: listing by id sees questions roughly, not strictly, in
+ * the order they were saved. Every stripe catches up with {@link #advanceTo(long)}.
+ * <p>
+ * How far behind a stripe may be is bounded by maxSkew: every id handed out is at least the highest one handed
+ * out before it minus maxSkew, since a stripe lagging further skips ahead before reserving. The highest id is
+ * shared by all stripes as a high watermark raised only once it lags by more than maxSkew / 2, so that it is
+ * mostly read and its cache line seldom bounces.
+ * <p>
+ * The {@link #floor()} of a writer is therefore maxSkew / 2 below the high watermark, and listing by id lags
+ * that far behind the newest questions while writes are in flight. {@link #seal()} moves every stripe past the
+ * highest id, skipping the ids lagging stripes haven't handed out, so that a question saved after a page is
+ * read never gets an id below its cursor.
+ */
+public class StripedIdSequence implements IdSequence {
+
+    /**
+     * Slots of counters between two stripes, so that each counter sits on its own pair of 64-byte cache lines
+     * and the adjacent line prefetcher doesn't pull in a neighbour.
+     */
+    private static final int PADDING = 16;
+
+    /**
+     * Default of maxSkew, in ids.
+     */
+    public static final long DEFAULT_MAX_SKEW = 1024;
+
+    private final int stripes;
+
+    /**
+     * Slot s * PADDING holds the number of ids handed out by stripe s.
+     */
+    private final AtomicLongArray counters;
+
+    /**
+     * Most an id handed out may be below one handed out before.
+     */
+    private final long maxSkew;
+
+    /**
+     * Highest id handed out, or at most maxSkew / 2 below it.
+     */
+    private final AtomicLong highWatermark = new AtomicLong();
+
+    /**
+     * Number of spread reservations, picking the stripe of the next one.
+     */
+    private final AtomicInteger spreadReservations = new AtomicInteger();
+
+    /**
+     * @param stripes number of stripes, also the stride of the ids of a reservation
+     */
+    public StripedIdSequence(int stripes) {
+        this(stripes, DEFAULT_MAX_SKEW);
+    }
+
+    /**
+     * @param stripes number of stripes, also the stride of the ids of a reservation
+     * @param maxSkew most an id handed out may be below one handed out before
+     */
+    public StripedIdSequence(int stripes, long maxSkew) {
+        if(stripes < 1)
+            throw new IllegalArgumentException("At least one stripe is needed: " + stripes);
+        if(maxSkew < 0)
+            throw new IllegalArgumentException("The skew of the stripes can't be negative: " + maxSkew);
+        this.stripes = stripes;
+        this.counters = new AtomicLongArray(stripes * PADDING);
+        this.maxSkew = maxSkew;
+    }
+
+    @Override
+    public long reserve(int count) {
+        return reserveFrom((int) (Thread.currentThread().threadId() % stripes), count);
+    }
+
+    @Override
+    public long reserve(long ownerId, int count) {
+        return reserveFrom(stripe(ownerId), count);
+    }
+
+    @Override
+    public long reserveSpread(int count) {
+        return reserveFrom(Math.floorMod(spreadReservations.getAndIncrement(), stripes), count);
+    }
+
+    @Override
+    public int stride() {
+        return stripes;
+    }
+
+    @Override
+    public void advanceTo(long id) {
+        for(int stripe = 0; stripe < stripes && stripe < id; stripe++) {
+            // Number of ids of the stripe up to id.
+            long count = (id - stripe - 1) / stripes + 1;
+            if(counters.get(stripe * PADDING) < count)
+                counters.accumulateAndGet(stripe * PADDING, count, Math::max);
+        }
+        highWatermark.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * Reads the high watermark only, leaving the stripes alone: a stripe raises itself to maxSkew / 2 below the
+     * high watermark before reserving, and the high watermark only rises.
+     */
+    @Override
+    public long floor() {
+        return Math.max(1, highWatermark.get() - maxSkew / 2);
+    }
+
+    @Override
+    public long seal() {
+        long last = last();
+        advanceTo(last);
+        return last;
+    }
+
+    @Override
+    public long last() {
+        long last = 0;
+        for(int stripe = 0; stripe < stripes; stripe++) {
+            long count = counters.get(stripe * PADDING);
+            if(count > 0)
+                last = Math.max(last, (count - 1) * stripes + stripe + 1);
+        }
+        return last;
+    }
+
+    /**
+     * @param id id of this sequence, at least 1
+     * @return stripe which hands out id
+     */
+    public int stripe(long id) {
+        return (int) ((id - 1) % stripes);
+    }
+
+    /**
+     * @return number of stripes
+     */
+    public int getStripes() {
+        return stripes;
+    }
+
+    /**
+     * Reserves count ids from stripe, first moving it up to the low watermark, maxSkew / 2 below the high one,
+     * then raises the high watermark if the last id reserved is more than maxSkew / 2 above it.
+     */
+    private long reserveFrom(int stripe, int count) {
+        int slot = stripe * PADDING;
+        long lowWatermark = highWatermark.get() - maxSkew / 2;
+        if(lowWatermark > stripe + 1) {
+            // Number of ids of the stripe below the low watermark.
+            long floor = (lowWatermark - stripe - 2) / stripes + 1;
+            if(counters.get(slot) < floor)
+                counters.accumulateAndGet(slot, floor, Math::max);
+        }
+        long first = counters.getAndAdd(slot, count) * stripes + stripe + 1;
+        long last = first + (long) (count - 1) * stripes;
+        if(last - highWatermark.get() > maxSkew / 2)
+            highWatermark.accumulateAndGet(last, Math::max);
+        return first;
+    }
+
+}
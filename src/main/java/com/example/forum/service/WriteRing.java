@@ -0,0 +1,179 @@
+package com.example.forum.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded ring of writes submitted by any number of threads and applied by a single writer thread, which hands
+ * them to a handler in batches of up to maxBatch writes in the order they were submitted.
+ * <p>
+ * Submitting never locks: a producer claims the next sequence with a single atomic increment, waits for its
+ * slot only while the ring is full, then publishes its write to the slot. The writer drains the published slots
+ * in sequence order, frees them before running the handler so that producers can go on filling the ring, and
+ * parks when there is nothing to drain. Producers unpark it only when it is parked.
+ * <p>
+ * Stopping sets a bit of the tail sequence, so that a producer either claims its sequence before the ring is
+ * stopped, and the writer drains it before stopping, or fails to claim one. Whatever the handler throws is logged
+ * and the writer goes on with the next batch.
+ *
+ * @param <T> type of the writes
+ */
+public class WriteRing<T> {
+
+    /**
+     * Nanoseconds a producer waits between two checks of a full ring.
+     */
+    private static final long FULL_WAIT_NANOS = 10_000;
+
+    /**
+     * Bit of the tail sequence set once the ring is stopped.
+     */
+    private static final long STOPPED = 1L << 62;
+
+    /**
+     * Milliseconds stopping waits for the writer thread to apply the pending writes.
+     */
+    private static final long STOP_TIMEOUT_MILLIS = 30_000;
+
+    private final Logger logger = LoggerFactory.getLogger(WriteRing.class);
+
+    private final AtomicReferenceArray<T> slots;
+
+    private final int mask;
+
+    private final int maxBatch;
+
+    private final Consumer<List<T>> handler;
+
+    private final Thread writer;
+
+    /**
+     * Next sequence to claim, with the STOPPED bit set once the ring is stopped.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Next sequence to drain, only written by the writer. Slots below it are free.
+     */
+    private volatile long head;
+
+    private volatile boolean parked;
+
+    /**
+     * @param name name of the writer thread
+     * @param capacity number of slots, a power of 2
+     * @param maxBatch maximum number of writes handed to handler at once
+     * @param handler applies a batch of writes on the writer thread, which logs anything it throws and goes on
+     */
+    public WriteRing(String name, int capacity, int maxBatch, Consumer<List<T>> handler) {
+        if(capacity < 1 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Capacity must be a power of 2: " + capacity);
+        if(maxBatch < 1)
+            throw new IllegalArgumentException("At least one write must be applied at once: " + maxBatch);
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.maxBatch = maxBatch;
+        this.handler = handler;
+        this.writer = new Thread(this::run, name);
+        writer.setDaemon(true);
+    }
+
+    public void start() {
+        writer.start();
+    }
+
+    /**
+     * Applies the writes already submitted, then stops the writer thread. Writes submitted once stopping has
+     * started are rejected.
+     *
+     * @throws InterruptedException if interrupted while waiting for the writer thread
+     * @throws IllegalStateException if the writer thread doesn't stop within STOP_TIMEOUT_MILLIS
+     */
+    public void stop() throws InterruptedException {
+        long sequence;
+        do {
+            sequence = tail.get();
+        } while((sequence & STOPPED) == 0 && !tail.compareAndSet(sequence, sequence | STOPPED));
+        LockSupport.unpark(writer);
+        writer.join(STOP_TIMEOUT_MILLIS);
+        if(writer.isAlive())
+            throw new IllegalStateException("Writer " + writer.getName() + " didn't stop within " + STOP_TIMEOUT_MILLIS
+                    + " ms, " + backlog() + " writes pending");
+    }
+
+    /**
+     * Hands write over to the writer thread, waiting only while the ring is full.
+     *
+     * @param write write to apply
+     * @throws IllegalStateException if the ring is stopped or its writer thread has terminated
+     */
+    public void submit(T write) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if((sequence & STOPPED) != 0 || terminated())
+                throw new IllegalStateException("Writer " + writer.getName() + " is stopped");
+        } while(!tail.compareAndSet(sequence, sequence + 1));
+        while(sequence - head > mask) {
+            if(terminated())
+                throw new IllegalStateException("Writer " + writer.getName() + " is stopped");
+            LockSupport.parkNanos(this, FULL_WAIT_NANOS);
+        }
+        slots.set((int) sequence & mask, write);
+        if(parked)
+            LockSupport.unpark(writer);
+    }
+
+    /**
+     * @return true if the writer thread has terminated, after which submitted writes are never applied
+     */
+    public boolean terminated() {
+        return writer.getState() == Thread.State.TERMINATED;
+    }
+
+    /**
+     * @return number of writes submitted and not drained yet
+     */
+    public long backlog() {
+        return Math.max(0, (tail.get() & ~STOPPED) - head);
+    }
+
+    private void run() {
+        List<T> batch = new ArrayList<>(maxBatch);
+        long next = head;
+        while(true) {
+            T write;
+            while(batch.size() < maxBatch && (write = slots.get((int) next & mask)) != null) {
+                slots.set((int) next & mask, null);
+                batch.add(write);
+                next++;
+            }
+            if(!batch.isEmpty()) {
+                head = next;
+                try {
+                    handler.accept(batch);
+                } catch (Throwable e) {
+                    logger.error("Failed to apply {} writes", batch.size(), e);
+                }
+                batch.clear();
+                continue;
+            }
+            long sequence = tail.get();
+            if((sequence & STOPPED) != 0 && (sequence & ~STOPPED) == next)
+                return;
+            parked = true;
+            // Checked again after announcing the park, a producer publishing meanwhile sees it and unparks.
+            if((tail.get() & STOPPED) == 0 && slots.get((int) next & mask) == null)
+                LockSupport.park(this);
+            parked = false;
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.example.forum;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.forum.model.Question;
+import com.example.forum.service.CachingQuestionStore;
+import com.example.forum.service.QuestionStore;
+
+/**
+ * Starts the whole application with the jpa profile, on an in-memory database instead of the file one of the
+ * profile.
+ */
+@ActiveProfiles("jpa")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "management.server.port=0",
+        "spring.jmx.unique-names=true",
+        "spring.datasource.url=jdbc:h2:mem:forum-jpa-test"})
+public class ForumApplicationJpaTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private QuestionStore questionStore;
+
+    /**
+     * Given:
+     *      The application started with the jpa profile.
+     *
+     * When:
+     *      A question is posted to /v2/questions, then read back from /v2/questions/{questionId}.
+     *
+     * Then:
+     *      The question is created with 201 Created status and read with 200 OK status, from the JPA store.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("jpa profile | POST then GET /questions/{questionId} | question created and read from database")
+    public void shouldServeQuestionsWithJpaProfile() throws Exception {
+
+        assertThat(questionStore).isInstanceOf(CachingQuestionStore.class);
+
+        ResponseEntity<Question> created = restTemplate.postForEntity("/v2/questions",
+                Question.builder().author("John").message("Hello").build(), Question.class);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+        ResponseEntity<Question> read = restTemplate.getForEntity("/v2/questions/{questionId}", Question.class, created.getBody().getId());
+        assertThat(read.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(read.getBody().getMessage()).isEqualTo("Hello");
+
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.example.forum;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.example.forum.model.Question;
+
+/**
+ * Starts the whole application with the reactive API served besides the servlet one.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "management.server.port=0",
+        "spring.jmx.unique-names=true",
+        "forum.reactive.enabled=true",
+        "forum.reactive.port=0"})
+public class ForumApplicationReactiveTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    @Qualifier("reactiveWebServer")
+    private WebServer reactiveWebServer;
+
+    /**
+     * Given:
+     *      The application started with forum.reactive.enabled=true.
+     *
+     * When:
+     *      A question is posted to /v2/questions of the reactive API, then read back from
+     *      /v2/questions/{questionId} of the servlet API.
+     *
+     * Then:
+     *      The question is created with 201 Created status and read with 200 OK status, both APIs sharing
+     *      the same questions.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("reactive API enabled | POST reactive then GET servlet /questions/{questionId} | question created and read")
+    public void shouldServeQuestionsWithReactiveApiEnabled() throws Exception {
+
+        ResponseEntity<Question> created = restTemplate.postForEntity("http://localhost:" + reactiveWebServer.getPort() + "/v2/questions",
+                Question.builder().author("John").message("Hello").build(), Question.class);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+        ResponseEntity<Question> read = restTemplate.getForEntity("/v2/questions/{questionId}", Question.class, created.getBody().getId());
+        assertThat(read.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(read.getBody().getMessage()).isEqualTo("Hello");
+
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.example.forum;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.example.forum.model.Question;
+
+/**
+ * Starts the whole application with the default configuration, the in-memory store on Tomcat.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "management.server.port=0",
+        // Every test context registers the same MBeans.
+        "spring.jmx.unique-names=true"})
+public class ForumApplicationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    /**
+     * Given:
+     *      The application started with the default configuration.
+     *
+     * When:
+     *      A question is posted to /v2/questions, then read back from /v2/questions/{questionId}.
+     *
+     * Then:
+     *      The question is created with 201 Created status and read with 200 OK status.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("default configuration | POST then GET /questions/{questionId} | question created and read")
+    public void shouldServeQuestionsWithDefaultConfiguration() throws Exception {
+
+        ResponseEntity<Question> created = restTemplate.postForEntity("/v2/questions",
+                Question.builder().author("John").message("Hello").build(), Question.class);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+        ResponseEntity<Question> read = restTemplate.getForEntity("/v2/questions/{questionId}", Question.class, created.getBody().getId());
+        assertThat(read.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(read.getBody().getMessage()).isEqualTo("Hello");
+
+    }
+
+}
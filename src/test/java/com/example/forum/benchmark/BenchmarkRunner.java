@@ -0,0 +1,40 @@
+package com.example.forum.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks once per thread count listed in the jmh.threads system property and writes the results
+ * of every run to a single JSON file named by the jmh.result system property, so that runs can be compared
+ * against a baseline with any JMH result viewer.
+ * <p>
+ * Arguments are regular JMH command line options, e.g. a benchmark regex or -p storeSize=1000.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        String resultFile = System.getProperty("jmh.result", "target/jmh-result.json");
+        List<RunResult> results = new ArrayList<>();
+        for(String threads : System.getProperty("jmh.threads", "1").split(",")) {
+            Options options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(Integer.parseInt(threads.trim()))
+                    .build();
+            Collection<RunResult> run = new Runner(options).run();
+            results.addAll(run);
+        }
+        ResultFormatFactory.getInstance(ResultFormatType.JSON, resultFile).writeOut(results);
+        System.out.println("Benchmark results written to " + resultFile);
+    }
+
+}
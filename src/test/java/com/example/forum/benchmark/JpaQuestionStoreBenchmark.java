@@ -0,0 +1,199 @@
+package com.example.forum.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import com.example.forum.model.CursorPage;
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.persistence.DurabilityMode;
+import com.example.forum.persistence.WriteAheadLog;
+import com.example.forum.service.CachingQuestionStore;
+import com.example.forum.service.JpaQuestionStore;
+import com.example.forum.service.QuestionService;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Throughput of the {@link QuestionService} operations with every store, prefilled with storeSize questions
+ * of REPLIES_PER_QUESTION replies each:
+ * <ul>
+ * <li>ARRAY keeps the questions in memory only.</li>
+ * <li>ARRAY_WAL keeps them in memory and logs writes to a write-ahead log with BATCHED durability.</li>
+ * <li>JPA saves them to an H2 file database through {@link JpaQuestionStore}, configured like the application.</li>
+ * <li>JPA_CACHED does the same through a {@link CachingQuestionStore} of CACHE_SIZE questions.</li>
+ * </ul>
+ * getHotQuestionById reads ids following Zipf's law, which the cache of JPA_CACHED is sized to hit mostly.
+ * Files are written to a temporary directory deleted on tear down.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JpaQuestionStoreBenchmark {
+
+    private static final int REPLIES_PER_QUESTION = 4;
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final int PAGE_LIMIT = 100;
+
+    private static final int CACHE_SIZE = 1000;
+
+    private static final Question QUESTION = Question.builder().author("John").message("How do I benchmark?").build();
+
+    private static final Reply REPLY = Reply.builder().author("Jane").message("Use JMH.").build();
+
+    @Param({"ARRAY", "ARRAY_WAL", "JPA", "JPA_CACHED"})
+    public String storeType;
+
+    @Param({"10000"})
+    public int storeSize;
+
+    private Path directory;
+
+    private WriteAheadLog writeAheadLog;
+
+    private HikariDataSource dataSource;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    private QuestionService questionService;
+
+    private List<Question> questionBatch;
+
+    private List<Reply> replyBatch;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("store-benchmark");
+        switch(storeType) {
+        case "ARRAY":
+            questionService = new QuestionService();
+            break;
+        case "ARRAY_WAL":
+            writeAheadLog = WriteAheadLog.open(directory, DurabilityMode.BATCHED, 64 << 20, Duration.ofMillis(200));
+            questionService = new QuestionService(writeAheadLog);
+            break;
+        case "JPA_CACHED":
+            questionService = new QuestionService(new CachingQuestionStore(new JpaQuestionStore(entityManagerFactory()), CACHE_SIZE), null, null, null);
+            break;
+        default:
+            questionService = new QuestionService(new JpaQuestionStore(entityManagerFactory()), null, null, null);
+        }
+        questionBatch = Collections.nCopies(BATCH_SIZE, QUESTION);
+        replyBatch = Collections.nCopies(BATCH_SIZE, REPLY);
+        List<Reply> replies = Collections.nCopies(REPLIES_PER_QUESTION, REPLY);
+        for(int i = 0; i < storeSize; i += BATCH_SIZE) {
+            for(Question question : questionService.addQuestions(questionBatch))
+                questionService.addReplies(question.getId(), replies);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if(writeAheadLog != null)
+            writeAheadLog.close();
+        if(entityManagerFactory != null)
+            entityManagerFactory.close();
+        if(dataSource != null)
+            dataSource.close();
+        List<Path> files = new ArrayList<>();
+        Files.walk(directory).forEach(files::add);
+        Collections.reverse(files);
+        for(Path file : files)
+            Files.delete(file);
+    }
+
+    @Benchmark
+    public Question addQuestion() {
+        return questionService.addQuestion(QUESTION);
+    }
+
+    @Benchmark
+    public List<Question> addQuestionBatch() {
+        return questionService.addQuestions(questionBatch);
+    }
+
+    @Benchmark
+    public Reply replyToQuestion() {
+        return questionService.replyToQuestion(randomQuestionId(), REPLY);
+    }
+
+    @Benchmark
+    public List<Reply> addReplyBatch() {
+        return questionService.addReplies(randomQuestionId(), replyBatch);
+    }
+
+    @Benchmark
+    public Question getQuestionById() {
+        return questionService.getQuestionById(randomQuestionId());
+    }
+
+    @Benchmark
+    public Question getHotQuestionById(HotIds hotIds) {
+        return questionService.getQuestionById(hotIds.zipf.next() + 1L);
+    }
+
+    @Benchmark
+    public CursorPage<Question> getQuestionsRandomPage() {
+        return questionService.getQuestions(randomQuestionId(), PAGE_LIMIT);
+    }
+
+    private long randomQuestionId() {
+        return ThreadLocalRandom.current().nextLong(1, storeSize + 1);
+    }
+
+    /**
+     * Question ids of one thread, drawn with Zipf's law.
+     */
+    @State(Scope.Thread)
+    public static class HotIds {
+
+        private Zipf zipf;
+
+        @Setup
+        public void setUp(JpaQuestionStoreBenchmark benchmark) {
+            zipf = new Zipf(benchmark.storeSize, new Random());
+        }
+
+    }
+
+    private EntityManagerFactory entityManagerFactory() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:file:" + directory.resolve("forum").toAbsolutePath());
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan("com.example.forum.persistence");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        Properties properties = new Properties();
+        properties.setProperty("hibernate.hbm2ddl.auto", "create");
+        properties.setProperty("hibernate.jdbc.batch_size", "50");
+        properties.setProperty("hibernate.order_inserts", "true");
+        factory.setJpaProperties(properties);
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+        return entityManagerFactory;
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.example.forum.benchmark;
+
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.ArrayQuestionStore;
+import com.example.forum.service.AuthorDictionary;
+import com.example.forum.service.PersistentQuestionStore;
+import com.example.forum.service.PostEncoder;
+import com.example.forum.service.QuestionStore;
+import com.example.forum.service.ReplyLog;
+
+/**
+ * Cost of the writes and reads of the PERSISTENT store, which publishes an immutable snapshot per write,
+ * against the ARRAY store, which changes in place, both prefilled with storeSize questions.
+ * <p>
+ * Run it with the GC profiler, -prof gc, whose gc.alloc.rate.norm is the memory allocated per write. Beyond the
+ * question or reply itself, for PERSISTENT that is the memory every version takes, kept as long as a reader
+ * holds its snapshot and garbage afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PersistentStoreBenchmark {
+
+    private static final int PAGE_LIMIT = 100;
+
+    @Param({"ARRAY", "PERSISTENT"})
+    public String storeType;
+
+    @Param({"1000", "1000000"})
+    public int storeSize;
+
+    private final PostEncoder postEncoder = new PostEncoder(new AuthorDictionary(), true);
+
+    private final AtomicLong questionIds = new AtomicLong();
+
+    private final AtomicLong replyIds = new AtomicLong();
+
+    private QuestionStore store;
+
+    @Setup
+    public void setUp() {
+        store = storeType.equals("PERSISTENT") ? new PersistentQuestionStore() : new ArrayQuestionStore();
+        for(int i = 0; i < storeSize; i++)
+            addQuestion();
+    }
+
+    @Benchmark
+    public boolean addQuestion() {
+        return store.add(postEncoder.question(questionIds.incrementAndGet(), "John", "How much does a version cost?", new ReplyLog()));
+    }
+
+    @Benchmark
+    public Reply replyToQuestion() {
+        Question question = store.get(ThreadLocalRandom.current().nextLong(1, storeSize + 1));
+        return store.addReply(question, () -> postEncoder.reply(replyIds.incrementAndGet(), "Jane", "A path.", question.getId()));
+    }
+
+    @Benchmark
+    public void iterateRandomPage(Blackhole blackhole) {
+        Iterator<Question> iterator = store.iterator(ThreadLocalRandom.current().nextLong(storeSize - PAGE_LIMIT));
+        for(int i = 0; i < PAGE_LIMIT && iterator.hasNext(); i++)
+            blackhole.consume(iterator.next());
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.example.forum.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.AuthorDictionary;
+import com.example.forum.service.PostEncoder;
+import com.example.forum.service.QuestionService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Heap taken by the posts of a {@link QuestionService} for every {@link PostEncoder} setting, and the cost of
+ * serializing a question with its replies, which decodes compact messages.
+ * <p>
+ * The forum is filled with questions of REPLIES_PER_QUESTION replies each, posted by AUTHORS authors whose
+ * activity follows Zipf's law, so that a few authors write most posts, with messages of MIN_WORDS to MAX_WORDS
+ * words drawn from a Zipf vocabulary. Every post gets its own author string, like the ones deserialized from
+ * requests. The setup prints the heap retained per post after a full GC:
+ * <ul>
+ * <li>STRINGS keeps the author and message strings of every post, as the service used to.</li>
+ * <li>SHARED_AUTHORS shares the name of authors through an {@link AuthorDictionary}.</li>
+ * <li>COMPACT also keeps messages as UTF-8 bytes.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PostEncodingBenchmark {
+
+    private static final int AUTHORS = 5_000;
+
+    private static final int VOCABULARY_SIZE = 50_000;
+
+    private static final int REPLIES_PER_QUESTION = 4;
+
+    private static final int MIN_WORDS = 5;
+
+    private static final int MAX_WORDS = 60;
+
+    @Param({"STRINGS", "SHARED_AUTHORS", "COMPACT"})
+    public String encoding;
+
+    @Param({"200000"})
+    public int questions;
+
+    private QuestionService questionService;
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        Random random = new Random(42);
+        Zipf authors = new Zipf(AUTHORS, random);
+        Zipf words = new Zipf(VOCABULARY_SIZE, random);
+        long heapBefore = usedHeap();
+        questionService = new QuestionService(null, newEncoder(), null, null, null);
+        long messageChars = 0;
+        for(int i = 0; i < questions; i++) {
+            String message = words(words, random);
+            messageChars += message.length();
+            Question question = questionService.addQuestion(Question.builder().author(author(authors)).message(message).build());
+            for(int r = 0; r < REPLIES_PER_QUESTION; r++) {
+                message = words(words, random);
+                messageChars += message.length();
+                questionService.replyToQuestion(question.getId(), Reply.builder().author(author(authors)).message(message).build());
+            }
+        }
+        long posts = (long) questions * (REPLIES_PER_QUESTION + 1);
+        System.out.printf("%n%s footprint of %d posts of %d chars on average: %d heap bytes per post%n",
+                encoding, posts, messageChars / posts, (usedHeap() - heapBefore) / posts);
+    }
+
+    @Benchmark
+    public byte[] serializeQuestion() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(questionService.getQuestionById(ThreadLocalRandom.current().nextLong(1, questions + 1)));
+    }
+
+    private PostEncoder newEncoder() {
+        switch(encoding) {
+        case "STRINGS":
+            return new PostEncoder(null, false);
+        case "SHARED_AUTHORS":
+            return new PostEncoder(new AuthorDictionary(), false);
+        default:
+            return new PostEncoder(new AuthorDictionary(), true);
+        }
+    }
+
+    private static String author(Zipf authors) {
+        return "user" + authors.next();
+    }
+
+    private static String words(Zipf words, Random random) {
+        int count = MIN_WORDS + random.nextInt(MAX_WORDS - MIN_WORDS + 1);
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < count; i++)
+            builder.append(i == 0 ? "" : " ").append("w").append(Integer.toString(words.next(), 36));
+        return builder.toString();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for(int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.example.forum.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.forum.model.CursorPage;
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.QuestionService;
+
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+/**
+ * Throughput of the {@link QuestionService} operations behind the REST endpoints, against an in-memory store
+ * prefilled with storeSize questions of REPLIES_PER_QUESTION replies each. Thread counts are set by
+ * {@link BenchmarkRunner}.
+ * <p>
+ * addQuestion keeps growing the store during its run, which matches how the forum grows in production.
+ * <p>
+ * meterRegistry NONE records nothing, PROMETHEUS records the forum.service timers like the application does,
+ * which tells the overhead of the instrumentation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class QuestionServiceBenchmark {
+
+    private static final int REPLIES_PER_QUESTION = 4;
+
+    private static final int PAGE_LIMIT = 100;
+
+    private static final Question QUESTION = Question.builder().author("John").message("How do I benchmark?").build();
+
+    private static final Reply REPLY = Reply.builder().author("Jane").message("Use JMH.").build();
+
+    @Param({"1000", "100000"})
+    public int storeSize;
+
+    @Param({"NONE", "PROMETHEUS"})
+    public String meterRegistry;
+
+    private QuestionService questionService;
+
+    @Setup
+    public void setUp() {
+        questionService = new QuestionService(null, null, null, null, null,
+                meterRegistry.equals("PROMETHEUS") ? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT) : null);
+        for(int i = 0; i < storeSize; i++) {
+            Question question = questionService.addQuestion(QUESTION);
+            for(int r = 0; r < REPLIES_PER_QUESTION; r++)
+                questionService.replyToQuestion(question.getId(), REPLY);
+        }
+    }
+
+    @Benchmark
+    public Question addQuestion() {
+        return questionService.addQuestion(QUESTION);
+    }
+
+    @Benchmark
+    public Reply replyToQuestion() {
+        return questionService.replyToQuestion(randomQuestionId(), REPLY);
+    }
+
+    @Benchmark
+    public Question getQuestionById() {
+        return questionService.getQuestionById(randomQuestionId());
+    }
+
+    @Benchmark
+    public CursorPage<Question> getQuestionsFirstPage() {
+        return questionService.getQuestions(null, PAGE_LIMIT);
+    }
+
+    @Benchmark
+    public CursorPage<Question> getQuestionsRandomPage() {
+        return questionService.getQuestions(randomQuestionId(), PAGE_LIMIT);
+    }
+
+    private long randomQuestionId() {
+        return ThreadLocalRandom.current().nextLong(1, storeSize + 1);
+    }
+
+}
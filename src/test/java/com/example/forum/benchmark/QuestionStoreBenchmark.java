@@ -0,0 +1,118 @@
+package com.example.forum.benchmark;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.example.forum.model.Question;
+import com.example.forum.service.ArrayQuestionStore;
+import com.example.forum.service.AuthorDictionary;
+import com.example.forum.service.OffHeapQuestionStore;
+import com.example.forum.service.PersistentQuestionStore;
+import com.example.forum.service.QuestionStore;
+import com.example.forum.service.QuestionStoreType;
+import com.example.forum.service.ReplyLog;
+import com.example.forum.service.ShardedQuestionStore;
+import com.example.forum.service.SkipListQuestionStore;
+
+/**
+ * Throughput of reading questions from every {@link QuestionStoreType} prefilled with storeSize questions, with
+ * OFF_HEAP using direct buffers and MAPPED memory mapped files.
+ * <p>
+ * The setup also prints the footprint per question of the filled store: the heap retained after a full GC and
+ * the direct and mapped buffers allocated, each question having its own author and message strings like the
+ * ones deserialized from requests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class QuestionStoreBenchmark {
+
+    private static final int PAGE_LIMIT = 100;
+
+    @Param({"SKIP_LIST", "ARRAY", "SHARDED", "PERSISTENT", "OFF_HEAP", "MAPPED"})
+    public String storeType;
+
+    @Param({"1000000"})
+    public int storeSize;
+
+    private QuestionStore store;
+
+    @Setup
+    public void setUp() throws Exception {
+        long heapBefore = usedHeap();
+        long buffersBefore = bufferBytes();
+        store = newStore();
+        for(long id = 1; id <= storeSize; id++) {
+            store.add(Question.builder()
+                    .id(id).author("user-" + id % 10_000).message("How do I keep question " + id + " out of the heap?")
+                    .replies(new ReplyLog())
+                    .build());
+        }
+        long heap = usedHeap() - heapBefore;
+        long buffers = bufferBytes() - buffersBefore;
+        System.out.printf("%n%s footprint of %d questions: %d heap bytes per question, %d buffer bytes per question%n",
+                storeType, storeSize, heap / storeSize, buffers / storeSize);
+    }
+
+    @Benchmark
+    public Question getQuestionById() {
+        return store.get(ThreadLocalRandom.current().nextLong(1, storeSize + 1));
+    }
+
+    @Benchmark
+    public void iterateRandomPage(Blackhole blackhole) {
+        Iterator<Question> iterator = store.iterator(ThreadLocalRandom.current().nextLong(storeSize - PAGE_LIMIT));
+        for(int i = 0; i < PAGE_LIMIT && iterator.hasNext(); i++)
+            blackhole.consume(iterator.next());
+    }
+
+    private QuestionStore newStore() throws Exception {
+        switch(storeType) {
+        case "SKIP_LIST":
+            return new SkipListQuestionStore();
+        case "ARRAY":
+            return new ArrayQuestionStore();
+        case "SHARDED":
+            return new ShardedQuestionStore(16);
+        case "PERSISTENT":
+            return new PersistentQuestionStore();
+        case "OFF_HEAP":
+            return new OffHeapQuestionStore(64 << 20, null, new AuthorDictionary());
+        default:
+            Path directory = Files.createTempDirectory("question-store");
+            directory.toFile().deleteOnExit();
+            return new OffHeapQuestionStore(64 << 20, directory, new AuthorDictionary());
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for(int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long bufferBytes() {
+        long bytes = 0;
+        for(BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class))
+            bytes += pool.getTotalCapacity();
+        return bytes;
+    }
+
+}
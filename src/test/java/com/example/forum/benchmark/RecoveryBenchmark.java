@@ -0,0 +1,128 @@
+package com.example.forum.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.persistence.DurabilityMode;
+import com.example.forum.persistence.WriteAheadLog;
+import com.example.forum.service.QuestionService;
+
+/**
+ * Time taken to recover from a write-ahead log of records records, QUESTIONS questions followed by replies to
+ * random questions. replayLog only reads and decodes the records, recoverService rebuilds the datastore and id
+ * trackers of a {@link QuestionService} from them, as on startup. Give the forks a heap large enough for the
+ * rebuilt store, e.g. with -jvmArgs -Xmx4g for 10 million records.
+ * <p>
+ * The log is written once, to a temporary directory deleted after the run, and every iteration opens it again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RecoveryBenchmark {
+
+    private static final int QUESTIONS = 100_000;
+
+    private static final int BATCH = 1000;
+
+    private static final long SEGMENT_BYTES = 64 << 20;
+
+    @Param({"1000000", "10000000"})
+    public int records;
+
+    private Path directory;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("recovery-benchmark");
+        Random random = new Random(42);
+        try (WriteAheadLog log = open()) {
+            log.replay(0, counting(new long[1]));
+            List<Question> questions = new ArrayList<>(BATCH);
+            for(long id = 1; id <= QUESTIONS; id++) {
+                questions.add(Question.builder().id(id).author("user" + random.nextInt(10_000)).message("How does the log recover " + id + "?").build());
+                if(questions.size() == BATCH) {
+                    log.appendQuestions(questions);
+                    questions.clear();
+                }
+            }
+            List<Reply> replies = new ArrayList<>(BATCH);
+            for(long id = 1; id <= records - QUESTIONS; id++) {
+                long questionId = 1 + random.nextInt(QUESTIONS);
+                replies.add(Reply.builder().id(id).questionId(questionId).author("user" + random.nextInt(10_000)).message("By replaying it, " + id).build());
+                if(replies.size() == BATCH) {
+                    log.appendReplies(replies);
+                    replies.clear();
+                }
+            }
+            if(!replies.isEmpty())
+                log.appendReplies(replies);
+            log.sync(log.lastLsn());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        List<Path> files = new ArrayList<>();
+        Files.walk(directory).forEach(files::add);
+        Collections.reverse(files);
+        for(Path file : files)
+            Files.delete(file);
+    }
+
+    @Benchmark
+    public long replayLog() throws Exception {
+        long[] count = new long[1];
+        try (WriteAheadLog log = open()) {
+            log.replay(0, counting(count));
+        }
+        return count[0];
+    }
+
+    @Benchmark
+    public QuestionService recoverService() throws Exception {
+        try (WriteAheadLog log = open()) {
+            return new QuestionService(log);
+        }
+    }
+
+    /**
+     * @return handler counting the records in count[0]
+     */
+    private static WriteAheadLog.RecordHandler counting(long[] count) {
+        return new WriteAheadLog.RecordHandler() {
+
+            @Override
+            public void onQuestion(long lsn, Question question) {
+                count[0]++;
+            }
+
+            @Override
+            public void onReply(long lsn, Reply reply) {
+                count[0]++;
+            }
+        };
+    }
+
+    private WriteAheadLog open() throws Exception {
+        return WriteAheadLog.open(directory, DurabilityMode.ASYNC, SEGMENT_BYTES, Duration.ofMillis(200));
+    }
+
+}
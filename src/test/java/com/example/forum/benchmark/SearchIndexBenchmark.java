@@ -0,0 +1,107 @@
+package com.example.forum.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.search.SearchIndex;
+import com.example.forum.search.SearchResults;
+
+/**
+ * Latency of {@link SearchIndex} queries over documents questions and replies, whose words are drawn from a
+ * VOCABULARY_SIZE word vocabulary following Zipf's law like natural language, so that the most frequent words
+ * are in most documents. Every question has REPLIES_PER_QUESTION replies.
+ * <p>
+ * searchRareTerms draws the one to three words of a query uniformly from the vocabulary, like queries for
+ * content words. searchZipfTerms draws them from the same distribution as the documents, which makes queries
+ * of very frequent words, whose posting lists span most documents, common.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SearchIndexBenchmark {
+
+    private static final int VOCABULARY_SIZE = 50_000;
+
+    private static final int REPLIES_PER_QUESTION = 3;
+
+    private static final int MIN_WORDS = 5;
+
+    private static final int MAX_WORDS = 40;
+
+    private static final int QUERIES = 4096;
+
+    private static final int LIMIT = 10;
+
+    @Param({"1000000", "3000000"})
+    public int documents;
+
+    private SearchIndex searchIndex;
+
+    private String[] rareQueries;
+
+    private String[] zipfQueries;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Zipf zipf = new Zipf(VOCABULARY_SIZE, random);
+        searchIndex = new SearchIndex();
+        Question question = null;
+        for(int document = 0; document < documents; document++) {
+            String message = words(zipf, MIN_WORDS + random.nextInt(MAX_WORDS - MIN_WORDS + 1));
+            if(document % (REPLIES_PER_QUESTION + 1) == 0) {
+                question = Question.builder().id((long) document + 1).author("user" + random.nextInt(10_000)).message(message).build();
+                searchIndex.questionAdded(question);
+            } else {
+                searchIndex.replyAdded(question, Reply.builder().id((long) document + 1).message(message).build());
+            }
+        }
+        rareQueries = new String[QUERIES];
+        zipfQueries = new String[QUERIES];
+        for(int i = 0; i < QUERIES; i++) {
+            List<String> rare = new ArrayList<>();
+            int terms = 1 + random.nextInt(3);
+            for(int t = 0; t < terms; t++)
+                rare.add(word(random.nextInt(VOCABULARY_SIZE)));
+            rareQueries[i] = String.join(" ", rare);
+            zipfQueries[i] = words(zipf, terms);
+        }
+    }
+
+    @Benchmark
+    public SearchResults searchRareTerms() {
+        return searchIndex.search(rareQueries[ThreadLocalRandom.current().nextInt(QUERIES)], LIMIT);
+    }
+
+    @Benchmark
+    public SearchResults searchZipfTerms() {
+        return searchIndex.search(zipfQueries[ThreadLocalRandom.current().nextInt(QUERIES)], LIMIT);
+    }
+
+    private static String words(Zipf zipf, int count) {
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < count; i++)
+            builder.append(i == 0 ? "" : " ").append(word(zipf.next()));
+        return builder.toString();
+    }
+
+    private static String word(int rank) {
+        return "w" + Integer.toString(rank, 36);
+    }
+
+}
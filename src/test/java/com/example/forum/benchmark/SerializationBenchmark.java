@@ -0,0 +1,98 @@
+package com.example.forum.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.forum.cache.QuestionResponseCache;
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.QuestionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Average time to serialize a {@link Question} with replyCount replies the way the REST endpoints do, and to
+ * read it back. The question comes from {@link QuestionService} so its replies are the same list type the
+ * endpoints serialize, and the mapper has the defaults Spring MVC applies. readCachedQuestion measures the
+ * {@link QuestionResponseCache} hit serving GET /questions/{questionId} instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+    @Param({"0", "100", "10000"})
+    public int replyCount;
+
+    private ObjectMapper objectMapper;
+
+    private Question question;
+
+    private byte[] serializedQuestion;
+
+    private QuestionResponseCache questionResponseCache;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        QuestionService questionService = new QuestionService();
+        question = questionService.addQuestion(Question.builder().author("John").message("How do I benchmark?").build());
+        for(int i = 0; i < replyCount; i++)
+            questionService.replyToQuestion(question.getId(), Reply.builder().author("author-" + i % 50).message("Reply number " + i).build());
+        serializedQuestion = objectMapper.writeValueAsBytes(question);
+        questionResponseCache = new QuestionResponseCache(objectMapper, Long.MAX_VALUE, Long.MAX_VALUE);
+        questionResponseCache.get(question).getJson();
+    }
+
+    @Benchmark
+    public byte[] writeQuestionAsBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(question);
+    }
+
+    @Benchmark
+    public long writeQuestionToStream() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        objectMapper.writeValue(out, question);
+        return out.count;
+    }
+
+    @Benchmark
+    public byte[] readCachedQuestion() throws IOException {
+        return questionResponseCache.get(question).getJson();
+    }
+
+    @Benchmark
+    public Question readQuestion() throws IOException {
+        return objectMapper.readValue(serializedQuestion, Question.class);
+    }
+
+    /**
+     * Discards the bytes written like a response stream would, without the cost of growing a buffer.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.example.forum.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.forum.model.Question;
+import com.example.forum.service.ArrayQuestionStore;
+import com.example.forum.service.AtomicIdSequence;
+import com.example.forum.service.IdSequence;
+import com.example.forum.service.QuestionService;
+import com.example.forum.service.QuestionStore;
+import com.example.forum.service.ShardedQuestionStore;
+
+/**
+ * Throughput of concurrent writes with a single id counter and store, ARRAY, against a counter and a map per
+ * shard, SHARDED. Run it over a range of thread counts to get the scaling curve, e.g. with
+ * -Djmh.threads=1,2,4,8,16,32,64.
+ * <p>
+ * reserveId only reserves question ids, which is where writers contend on a single cache line. addQuestion
+ * saves a question through {@link QuestionService} without write-ahead log. The store is emptied before every
+ * iteration, which should be short enough for the questions it adds to fit in the heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ShardedStoreBenchmark {
+
+    private static final Question QUESTION = Question.builder().author("John").message("How do I shard?").build();
+
+    @Param({"ARRAY", "SHARDED"})
+    public String storeType;
+
+    @Param({"64"})
+    public int shards;
+
+    private IdSequence questionIds;
+
+    private QuestionService questionService;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        QuestionStore store;
+        if(storeType.equals("SHARDED")) {
+            ShardedQuestionStore shardedStore = new ShardedQuestionStore(shards);
+            questionIds = shardedStore.questionIds();
+            store = shardedStore;
+        } else {
+            questionIds = new AtomicIdSequence();
+            store = new ArrayQuestionStore();
+        }
+        questionService = new QuestionService(store, null, null, null);
+    }
+
+    @Benchmark
+    public long reserveId() {
+        return questionIds.reserve(1);
+    }
+
+    @Benchmark
+    public Question addQuestion() {
+        return questionService.addQuestion(QUESTION);
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.example.forum.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.persistence.DurabilityMode;
+import com.example.forum.persistence.WriteAheadLog;
+import com.example.forum.service.QuestionService;
+import com.example.forum.service.WriteRing;
+
+/**
+ * Throughput of the writes of {@link QuestionService} applied by the calling threads, CALLERS, against a single
+ * writer draining a {@link WriteRing}, SINGLE_WRITER, in memory only or with a BATCHED write-ahead log. Run it
+ * over several thread counts, e.g. with -Djmh.threads=1,4,16,64.
+ * <p>
+ * The service is created before every iteration with storeSize questions to reply to, and the log is written
+ * to a temporary directory deleted after the iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SingleWriterBenchmark {
+
+    private static final Question QUESTION = Question.builder().author("John").message("Who writes?").build();
+
+    private static final Reply REPLY = Reply.builder().author("Jane").message("One thread.").build();
+
+    @Param({"CALLERS", "SINGLE_WRITER"})
+    public String writer;
+
+    @Param({"NONE", "BATCHED"})
+    public String writeAheadLog;
+
+    @Param({"1000"})
+    public int storeSize;
+
+    private Path directory;
+
+    private WriteAheadLog log;
+
+    private WriteRing<?> ring;
+
+    private QuestionService questionService;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        if(writeAheadLog.equals("BATCHED")) {
+            directory = Files.createTempDirectory("single-writer-benchmark");
+            log = WriteAheadLog.open(directory, DurabilityMode.BATCHED, 64 << 20, Duration.ofMillis(200));
+        }
+        questionService = new QuestionService(log);
+        questionService.addQuestions(Collections.nCopies(storeSize, QUESTION));
+        if(writer.equals("SINGLE_WRITER"))
+            ring = questionService.startSingleWriter(4096, 256);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws Exception {
+        if(ring != null)
+            ring.stop();
+        if(log != null) {
+            log.close();
+            List<Path> files = new ArrayList<>();
+            Files.walk(directory).forEach(files::add);
+            Collections.reverse(files);
+            for(Path file : files)
+                Files.delete(file);
+        }
+        ring = null;
+        log = null;
+    }
+
+    @Benchmark
+    public Question addQuestion() {
+        return questionService.addQuestion(QUESTION);
+    }
+
+    @Benchmark
+    public Reply replyToQuestion() {
+        return questionService.replyToQuestion(ThreadLocalRandom.current().nextLong(1, storeSize + 1), REPLY);
+    }
+
+}
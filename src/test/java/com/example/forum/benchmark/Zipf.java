@@ -0,0 +1,32 @@
+package com.example.forum.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Ranks drawn with probability proportional to 1 / (rank + 1), by binary search of the cumulative distribution.
+ */
+final class Zipf {
+
+    private final double[] cumulative;
+
+    private final Random random;
+
+    Zipf(int size, Random random) {
+        this.random = random;
+        cumulative = new double[size];
+        double sum = 0;
+        for(int rank = 0; rank < size; rank++) {
+            sum += 1.0 / (rank + 1);
+            cumulative[rank] = sum;
+        }
+        for(int rank = 0; rank < size; rank++)
+            cumulative[rank] /= sum;
+    }
+
+    int next() {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.example.forum.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.QuestionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class QuestionResponseCacheTest {
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private QuestionResponseCache cache;
+
+    private QuestionService questionService;
+
+    @BeforeEach
+    public void setup() {
+        cache = new QuestionResponseCache(objectMapper, 4096, 4096);
+        questionService = new QuestionService(null, null, Arrays.asList(cache));
+    }
+
+    /**
+     * Given:
+     *      A question whose encoding is cached.
+     *
+     * When:
+     *      The question is encoded again, then replied to and encoded once more.
+     *
+     * Then:
+     *      The second encoding is the cached one and the last one has the reply.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("cached question | reply | next encoding has the reply")
+    public void shouldEncodeReplyWhenCachedQuestionIsRepliedTo() throws Exception {
+
+        Question question = questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+        byte[] first = cache.get(question).getJson();
+        byte[] second = cache.get(question).getJson();
+        questionService.replyToQuestion(question.getId(), Reply.builder().author("Jane").message("Hi").build());
+        byte[] third = cache.get(question).getJson();
+
+        assertThat(second).isSameAs(first);
+        assertThat(objectMapper.readValue(third, Question.class).getReplies()).extracting(Reply::getMessage).containsExactly("Hi");
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(2);
+        assertThat(cache.getEntryCount()).isEqualTo(1);
+        assertThat(cache.getSizeInBytes()).isEqualTo(third.length + QuestionResponseCache.ENTRY_OVERHEAD);
+
+    }
+
+    /**
+     * Given:
+     *      A cache holding a few kilobytes of encodings.
+     *
+     * When:
+     *      Far more questions than fit are encoded, one of them being read again between each of the others.
+     *
+     * Then:
+     *      The cache stays within its size, evicting other questions, and the question read again stays cached.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("cache full | encode more questions | size bounded and frequently read question kept")
+    public void shouldEvictByBytesAndKeepRecentlyReadEntriesWhenFull() throws Exception {
+
+        Question hot = questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+        cache.get(hot).getJson();
+        for(int i = 0; i < 200; i++) {
+            Question question = questionService.addQuestion(Question.builder().author("Jane").message("Question " + i).build());
+            cache.get(question).getJson();
+            cache.get(hot).getJson();
+            assertThat(cache.getSizeInBytes()).isLessThanOrEqualTo(4096);
+        }
+
+        assertThat(cache.getEvictionCount()).isPositive();
+        assertThat(cache.getEntryCount()).isLessThan(201);
+        assertThat(cache.getHitCount()).isEqualTo(200);
+
+    }
+
+    /**
+     * Given:
+     *      A question whose encoding is larger than the largest cached entry.
+     *
+     * When:
+     *      The question is encoded twice.
+     *
+     * Then:
+     *      Both encodings are misses and nothing is cached.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("question larger than entry limit | encode twice | not cached")
+    public void shouldNotCacheEncodingsLargerThanEntryLimit() throws Exception {
+
+        Question question = questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+        for(int i = 0; i < 100; i++)
+            questionService.replyToQuestion(question.getId(), Reply.builder().author("Jane").message("Reply " + i).build());
+
+        cache.get(question).getJson();
+        cache.get(question).getJson();
+
+        assertThat(cache.getMissCount()).isEqualTo(2);
+        assertThat(cache.getEntryCount()).isZero();
+        assertThat(cache.getSizeInBytes()).isZero();
+
+    }
+
+}
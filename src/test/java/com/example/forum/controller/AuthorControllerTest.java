@@ -0,0 +1,145 @@
+package com.example.forum.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.example.forum.exception.ExceptionAdvice;
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.AuthorIndex;
+import com.example.forum.service.QuestionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class AuthorControllerTest {
+
+    private MockMvc mockMvc;
+
+    private QuestionService questionService;
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    public void setup() {
+        AuthorIndex authorIndex = new AuthorIndex();
+        questionService = new QuestionService(null, null, Arrays.asList(authorIndex));
+        mockMvc = MockMvcBuilders.standaloneSetup(new AuthorController(questionService, authorIndex))
+                .setControllerAdvice(new ExceptionAdvice())
+                .build();
+    }
+
+    /**
+     * Given:
+     *      The datastore contains 5 questions of John among questions of other authors.
+     *
+     * When:
+     *      The GET request is sent to /v2/authors/John/questions with limit 3, then with the cursor returned in
+     *      the X-Next-Cursor header.
+     *
+     * Then:
+     *      The first page holds John's first 3 questions, the second one his last 2 and no cursor.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("questions of several authors | GET /authors/{author}/questions page by page | only the author's questions")
+    public void shouldPageThroughQuestionsOfAuthor() throws Exception {
+
+        for(int i = 0; i < 5; i++) {
+            questionService.addQuestion(Question.builder().author("John").message("Question " + i).build());
+            questionService.addQuestion(Question.builder().author("Jane").message("Other " + i).build());
+        }
+
+        MvcResult firstPage = mockMvc.perform(get("/v2/authors/John/questions").param("limit", "3"))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andReturn();
+        String cursor = firstPage.getResponse().getHeader("X-Next-Cursor");
+        MvcResult lastPage = mockMvc.perform(get("/v2/authors/John/questions").param("limit", "3").param("cursor", cursor))
+            .andExpect(status().isOk())
+            .andReturn();
+
+        assertThat(questions(firstPage)).extracting(Question::getId).containsExactly(1L, 3L, 5L);
+        assertThat(questions(lastPage)).extracting(Question::getId).containsExactly(7L, 9L);
+        assertThat(questions(lastPage)).extracting(Question::getAuthor).containsOnly("John");
+        assertThat(lastPage.getResponse().getHeader("X-Next-Cursor")).isNull();
+
+    }
+
+    /**
+     * Given:
+     *      Alice replied to several questions, and so did other authors.
+     *
+     * When:
+     *      The GET request is sent to /v2/authors/Alice/replies.
+     *
+     * Then:
+     *      The request completes with 200 OK status and returns every reply of Alice in id order, each with
+     *      the questionId it answers.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("replies to several questions | GET /authors/{author}/replies | the author's replies in id order")
+    public void shouldReturnRepliesOfAuthorToEveryQuestion() throws Exception {
+
+        Question first = questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+        Question second = questionService.addQuestion(Question.builder().author("Jane").message("Hi").build());
+        questionService.replyToQuestion(first.getId(), Reply.builder().author("Alice").message("Hey").build());
+        questionService.replyToQuestion(first.getId(), Reply.builder().author("Bob").message("Howdy").build());
+        questionService.addReplies(second.getId(), Arrays.asList(
+                Reply.builder().author("Alice").message("Hey again").build(),
+                Reply.builder().author("Bob").message("Hi Jane").build()));
+
+        MvcResult result = mockMvc.perform(get("/v2/authors/Alice/replies"))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andReturn();
+
+        List<Reply> replies = Arrays.asList(objectMapper.readValue(result.getResponse().getContentAsString(), Reply[].class));
+        assertThat(replies).extracting(Reply::getMessage).containsExactly("Hey", "Hey again");
+        assertThat(replies).extracting(Reply::getQuestionId).containsExactly(first.getId(), second.getId());
+
+    }
+
+    /**
+     * Given:
+     *      The datastore contains questions of John only.
+     *
+     * When:
+     *      The GET requests are sent to /v2/authors/Jane/questions and /v2/authors/John/replies.
+     *
+     * Then:
+     *      Both requests complete with 204 No Content status.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("author without posts | GET /authors/{author}/questions and /replies | 204 No Content")
+    public void shouldReturnNoContentWhenAuthorHasNoPosts() throws Exception {
+
+        questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+
+        mockMvc.perform(get("/v2/authors/Jane/questions"))
+            .andExpect(status().isNoContent());
+        mockMvc.perform(get("/v2/authors/John/replies"))
+            .andExpect(status().isNoContent());
+
+    }
+
+    private List<Question> questions(MvcResult result) throws Exception {
+        return Arrays.asList(objectMapper.readValue(result.getResponse().getContentAsString(), Question[].class));
+    }
+
+}
@@ -0,0 +1,219 @@
+package com.example.forum.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.example.forum.exception.ExceptionAdvice;
+import com.example.forum.model.ImportSummary;
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.QuestionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class BulkControllerTest {
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private QuestionService questionService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setup() {
+        questionService = new QuestionService();
+        mockMvc = mockMvc(questionService);
+    }
+
+    /**
+     * Given:
+     *      The datastore contains questions, some of them with replies.
+     *
+     * When:
+     *      The GET request is sent to /v2/questions:export and its response is sent to
+     *      /v2/questions:import of another forum.
+     *
+     * Then:
+     *      The export holds one line per question with its replies in id order, and the other forum
+     *      ends up with the same questions and replies.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("questions with replies | GET /questions:export then POST /questions:import | one line per question and same forum")
+    public void shouldExportOneLinePerQuestionAndImportItBack() throws Exception {
+
+        questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+        questionService.addQuestion(Question.builder().author("Jane").message("Hi\nthere").build());
+        questionService.replyToQuestion(1L, Reply.builder().author("Alice").message("Hey").build());
+        questionService.replyToQuestion(1L, Reply.builder().author("Bob").message("Howdy!").build());
+
+        MvcResult export = mockMvc.perform(get("/v2/questions:export"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+        assertThat(export.getResponse().getContentType()).isEqualTo(BulkController.APPLICATION_NDJSON_VALUE);
+        String ndjson = export.getResponse().getContentAsString();
+        String[] lines = ndjson.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[0], Question.class).getReplies()).extracting(Reply::getAuthor).containsExactly("Alice", "Bob");
+        assertThat(objectMapper.readValue(lines[1], Question.class).getMessage()).isEqualTo("Hi\nthere");
+
+        QuestionService otherService = new QuestionService();
+        MvcResult result = mockMvc(otherService)
+            .perform(post("/v2/questions:import").content(ndjson).header(HttpHeaders.CONTENT_TYPE, BulkController.APPLICATION_NDJSON_VALUE))
+            .andExpect(status().isOk())
+            .andReturn();
+
+        ImportSummary summary = objectMapper.readValue(result.getResponse().getContentAsString(), ImportSummary.class);
+        assertThat(summary.getQuestions()).isEqualTo(2);
+        assertThat(summary.getReplies()).isEqualTo(2);
+        assertThat(summary.getRejected()).isZero();
+        assertThat(otherService.getQuestionById(1L).getReplies()).extracting(Reply::getMessage).containsExactly("Hey", "Howdy!");
+        assertThat(otherService.getQuestionById(2L).getAuthor()).isEqualTo("Jane");
+
+    }
+
+    /**
+     * When:
+     *      The POST request is sent to /v2/questions:import with a valid line, a line failing validation,
+     *      another valid line and a line which isn't JSON.
+     *
+     * Then:
+     *      The request completes with 400 Bad Request status, the valid lines before the malformed one
+     *      are imported and both rejected lines are reported with their line number.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("POST /questions:import invalid and malformed lines | 400 Bad Request and lines before malformed one imported")
+    public void shouldImportValidLinesAndReportRejectedOnesWhenImporting() throws Exception {
+
+        String ndjson = "{\"author\":\"John\",\"message\":\"Hello\"}\n"
+                + "{\"author\":\"\",\"message\":\"Hi\"}\n"
+                + "{\"author\":\"Dan\",\"message\":\"Yo\",\"replies\":[{\"author\":\"Alice\",\"message\":\"Hey\"}]}\n"
+                + "{\"author\":\n";
+
+        MvcResult result = mockMvc
+            .perform(post("/v2/questions:import").content(ndjson).header(HttpHeaders.CONTENT_TYPE, BulkController.APPLICATION_NDJSON_VALUE))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+        ImportSummary summary = objectMapper.readValue(result.getResponse().getContentAsString(), ImportSummary.class);
+        assertThat(summary.getQuestions()).isEqualTo(2);
+        assertThat(summary.getReplies()).isEqualTo(1);
+        assertThat(summary.getRejected()).isEqualTo(2);
+        assertThat(summary.getErrors().get(0).getObjectName()).isEqualTo("line 2");
+        assertThat(summary.getErrors().get(0).getFieldName()).isEqualTo("author");
+        assertThat(summary.getErrors().get(1).getObjectName()).startsWith("line ");
+        assertThat(questionService.getQuestions(null, 10).getItems()).extracting(Question::getAuthor).containsExactly("John", "Dan");
+
+    }
+
+    /**
+     * Given:
+     *      A request body generated on the fly, much larger than an import batch.
+     *
+     * When:
+     *      It is imported.
+     *
+     * Then:
+     *      Questions are saved in batches no larger than the import batch while most of the body is still
+     *      unread, so the body is never buffered as a whole.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("large generated body | import | saved in bounded batches while reading")
+    public void shouldSaveBatchesWhileReadingWhenImportingLargeBody() throws Exception {
+
+        int lines = 20 * BulkController.IMPORT_BATCH_SIZE;
+        GeneratedQuestions body = new GeneratedQuestions(lines);
+        List<long[]> batches = new ArrayList<>();
+        QuestionService recordingService = new QuestionService() {
+            @Override
+            public List<Question> addQuestions(List<Question> questions) {
+                batches.add(new long[] {questions.size(), body.linesRead});
+                return super.addQuestions(questions);
+            }
+        };
+
+        ResponseEntity<ImportSummary> response = new BulkController(recordingService, objectMapper, validator).importQuestions(body);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getQuestions()).isEqualTo(lines);
+        assertThat(batches).allMatch(batch -> batch[0] <= BulkController.IMPORT_BATCH_SIZE);
+        assertThat(batches.get(0)[1]).isLessThan(lines / 10);
+        assertThat(recordingService.getQuestionById((long) lines).getMessage()).isEqualTo("Hello " + (lines - 1));
+
+    }
+
+    private MockMvc mockMvc(QuestionService service) {
+        return MockMvcBuilders.standaloneSetup(new BulkController(service, objectMapper, validator))
+                .setControllerAdvice(new ExceptionAdvice())
+                .build();
+    }
+
+    /**
+     * Newline delimited questions generated as they are read, counting the lines handed out.
+     */
+    private static final class GeneratedQuestions extends InputStream {
+
+        private final int lines;
+
+        private long linesRead;
+
+        private byte[] line = new byte[0];
+
+        private int position;
+
+        GeneratedQuestions(int lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if(position == line.length) {
+                if(linesRead == lines)
+                    return -1;
+                line = ("{\"author\":\"John\",\"message\":\"Hello " + linesRead + "\"}\n").getBytes(StandardCharsets.UTF_8);
+                position = 0;
+                linesRead++;
+            }
+            int count = Math.min(length, line.length - position);
+            System.arraycopy(line, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.example.forum.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.example.forum.config.FeedProperties;
+import com.example.forum.exception.ExceptionAdvice;
+import com.example.forum.feed.FeedBus;
+import com.example.forum.feed.SlowConsumerPolicy;
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.QuestionService;
+
+public class FeedControllerTest {
+
+    private MockMvc mockMvc;
+    private QuestionService questionService;
+    private FeedBus feedBus;
+
+    /**
+     * Setup {@link MockMvc} to test {@link FeedController} with a {@link FeedBus} listening to the service.
+     */
+    @BeforeEach
+    public void setup() {
+        feedBus = new FeedBus(16, 1, SlowConsumerPolicy.DISCONNECT, 1024, Duration.ZERO, Duration.ZERO);
+        questionService = new QuestionService(null, null, Arrays.asList(feedBus));
+        mockMvc = MockMvcBuilders.standaloneSetup(new FeedController(questionService, feedBus, new FeedProperties()))
+                .setControllerAdvice(new ExceptionAdvice())
+                .build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        feedBus.close();
+    }
+
+    /**
+     * Given:
+     *      A client connected to /v2/questions/feed.
+     *
+     * When:
+     *      A question is added.
+     *
+     * Then:
+     *      The stream receives a question event with the question's id and JSON.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("GET /questions/feed | question added | question event streamed")
+    public void shouldStreamQuestionEventWhenQuestionIsAdded() throws Exception {
+
+        MvcResult result = mockMvc.perform(get("/v2/questions/feed").accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+
+        String stream = awaitContent(result, "\"replies\":[]}");
+        assertThat(stream).contains("id:1").contains("event:question").contains("\"author\":\"John\"").contains("\"message\":\"Hello\"");
+        assertThat(result.getResponse().getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+
+    }
+
+    /**
+     * Given:
+     *      A client connected to /v2/questions/{questionId}/feed.
+     *
+     * When:
+     *      The question and another question are replied to.
+     *
+     * Then:
+     *      The stream receives a reply event for the reply to its question only.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("GET /questions/{questionId}/feed | replies added | only the question's replies streamed")
+    public void shouldStreamReplyEventsOfQuestionWhenRepliesAreAdded() throws Exception {
+
+        questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+        questionService.addQuestion(Question.builder().author("Jane").message("Hi").build());
+        MvcResult result = mockMvc.perform(get("/v2/questions/1/feed").accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        questionService.replyToQuestion(2L, Reply.builder().author("Bob").message("Other").build());
+        questionService.replyToQuestion(1L, Reply.builder().author("Alice").message("Howdy!").build());
+
+        String stream = awaitContent(result, "\"message\":\"Howdy!\"");
+        assertThat(stream).contains("id:2").contains("event:reply").doesNotContain("Other");
+
+    }
+
+    /**
+     * When:
+     *      A client connects to /v2/questions/{questionId}/feed
+     *      and {@link Question} with that questionId doesn't exist.
+     *
+     * Then:
+     *      The request completes with 404 Not Found status.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("GET /questions/{questionId}/feed questionId doesn't exist | 404 Not Found")
+    public void shouldReturn404NotFoundWhenSubscribingToNonExistentQuestionId() throws Exception {
+
+        mockMvc.perform(get("/v2/questions/1/feed").accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(status().isNotFound());
+        assertThat(feedBus.getSubscriberCount()).isZero();
+
+    }
+
+    /**
+     * Waits until the streamed content contains expected, events being sent from another thread.
+     */
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        String content = result.getResponse().getContentAsString();
+        while(!content.contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            content = result.getResponse().getContentAsString();
+        }
+        assertThat(content).contains(expected);
+        return content;
+    }
+
+}
@@ -10,6 +10,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import java.util.Arrays;
 import java.util.List;
 
+import jakarta.validation.Validation;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -21,18 +23,22 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 
+import com.example.forum.cache.QuestionResponseCache;
 import com.example.forum.controller.QuestionController;
 import com.example.forum.exception.ExceptionAdvice;
+import com.example.forum.model.BatchItemResult;
 import com.example.forum.model.Error;
 import com.example.forum.model.Question;
 import com.example.forum.model.Reply;
 import com.example.forum.service.QuestionService;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class QuestionControllerTest {
 
     private MockMvc mockMvc;
     private QuestionService questionService;
+    private QuestionResponseCache questionResponseCache;
 
     private ObjectMapper objectMapper = new ObjectMapper();
 
@@ -42,8 +48,9 @@ public class QuestionControllerTest {
      */
     @BeforeEach
     public void setup() {
-        questionService = new QuestionService();
-        mockMvc = MockMvcBuilders.standaloneSetup(new QuestionController(questionService))
+        questionResponseCache = new QuestionResponseCache(new ObjectMapper(), 1 << 20, 1 << 20);
+        questionService = new QuestionService(null, null, Arrays.asList(questionResponseCache));
+        mockMvc = MockMvcBuilders.standaloneSetup(new QuestionController(questionService, questionResponseCache, Validation.buildDefaultValidatorFactory().getValidator()))
                 .setControllerAdvice(new ExceptionAdvice())
                 .build();
     }
@@ -105,6 +112,83 @@ public class QuestionControllerTest {
 
     }
 
+    /**
+     * Given:
+     *      The datastore contains three questions.
+     * 
+     * When:
+     *      The GET request is sent to /v2/questions with limit 2 and then
+     *      with the cursor returned in X-Next-Cursor header.
+     * 
+     * Then: 
+     *      The first request returns the first two questions and the cursor of the next page,
+     *      the second request returns the last question and no cursor.
+     *      
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("questions present | GET /questions?limit=2 and cursor | 200 OK and pages of questions")
+    public void shouldReturnPagesOfQuestionsWhenLimitAndCursorAreSent() throws Exception {
+
+        questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+        questionService.addQuestion(Question.builder().author("Jane").message("Hi").build());
+        questionService.addQuestion(Question.builder().author("Alice").message("Howdy!").build());
+
+        MvcResult firstPage = mockMvc.perform(get("/v2/questions").param("limit", "2"))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andReturn();
+
+        List<Question> questions = Arrays.asList(objectMapper.readValue(firstPage.getResponse().getContentAsString(), Question[].class));
+        assertThat(questions).extracting(Question::getId).containsExactly(1L, 2L);
+        String cursor = firstPage.getResponse().getHeader("X-Next-Cursor");
+        assertThat(cursor).isNotBlank();
+        assertThat(firstPage.getResponse().getHeader(HttpHeaders.LINK)).contains("cursor=" + cursor).contains("rel=\"next\"");
+
+        MvcResult lastPage = mockMvc.perform(get("/v2/questions").param("limit", "2").param("cursor", cursor))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andReturn();
+
+        questions = Arrays.asList(objectMapper.readValue(lastPage.getResponse().getContentAsString(), Question[].class));
+        assertThat(questions).extracting(Question::getId).containsExactly(3L);
+        assertThat(lastPage.getResponse().getHeader("X-Next-Cursor")).isNull();
+
+        MvcResult afterPage = mockMvc.perform(get("/v2/questions").param("after", "1"))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andReturn();
+
+        questions = Arrays.asList(objectMapper.readValue(afterPage.getResponse().getContentAsString(), Question[].class));
+        assertThat(questions).extracting(Question::getId).containsExactly(2L, 3L);
+
+    }
+
+    /**
+     * When:
+     *      The GET request is sent to /v2/questions with a cursor which can't be decoded.
+     * 
+     * Then: 
+     *      The request completes with 400 Bad Request status and
+     *      returns array of errors in response describing the problem.
+     *      
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("GET /questions?cursor=invalid | 400 Bad Request and error array in response")
+    public void shouldReturn400BadRequestWhenCursorIsInvalid() throws Exception {
+
+        MvcResult result = mockMvc.perform(get("/v2/questions").param("cursor", "not-a-cursor"))
+            .andDo(print())
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+        List<Error> errors = Arrays.asList(objectMapper.readValue(result.getResponse().getContentAsString(), Error[].class));
+        assertThat(errors.get(0).getFieldName()).isEqualTo("cursor");
+        assertThat(errors.get(0).getRejectedValue()).isEqualTo("not-a-cursor");
+
+    }
+
     /**
      * When:
      *      The DELETE request is sent to /v2/questions.
@@ -185,6 +269,76 @@ public class QuestionControllerTest {
 
     }
 
+    /**
+     * When:
+     *      The POST request is sent to /v2/questions:batch with several {@link Question}s,
+     *      one of them having a blank author.
+     *
+     * Then:
+     *      The request completes with 200 OK status, the valid questions are saved with consecutive ids
+     *      and the response holds the outcome of each question in request order.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("POST /questions:batch body:Questions one invalid | 200 OK and outcome of each question")
+    public void shouldSaveValidQuestionsAndReportInvalidOnesWhenPostQuestionsBatchRequestIsSent() throws Exception {
+
+        List<Question> questions = Arrays.asList(
+                Question.builder().author("John").message("Hello").build(),
+                Question.builder().author("").message("Hi").build(),
+                Question.builder().author("Dan").message("Yo").build());
+
+        MvcResult result = mockMvc
+            .perform(post("/v2/questions:batch").content(objectMapper.writeValueAsString(questions))
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andReturn();
+
+        List<BatchItemResult<Question>> results = objectMapper.readValue(result.getResponse().getContentAsString(),
+                new TypeReference<List<BatchItemResult<Question>>>() {});
+        assertThat(results).extracting(BatchItemResult::getStatus).containsExactly(201, 400, 201);
+        assertThat(results.get(0).getItem().getId()).isEqualTo(1L);
+        assertThat(results.get(2).getItem().getId()).isEqualTo(2L);
+        assertThat(results.get(2).getItem().getAuthor()).isEqualTo("Dan");
+        assertThat(results.get(1).getItem()).isNull();
+        assertThat(results.get(1).getErrors()).extracting(Error::getFieldName).containsExactly("author");
+        assertThat(results.get(1).getErrors().get(0).getObjectName()).isEqualTo("question");
+        assertThat(questionService.getQuestions(null, 10).getItems()).extracting(Question::getAuthor).containsExactly("John", "Dan");
+
+    }
+
+    /**
+     * When:
+     *      The POST request is sent to /v2/questions:batch with more questions than allowed in a batch.
+     *
+     * Then:
+     *      The request completes with 400 Bad Request status, returns an error describing the allowed size
+     *      and nothing is saved.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("POST /questions:batch body:too many Questions | 400 Bad Request, error array in response and nothing saved")
+    public void shouldReturn400BadRequestWhenQuestionsBatchIsTooLarge() throws Exception {
+
+        Question[] questions = new Question[QuestionController.MAX_BATCH_SIZE + 1];
+        Arrays.fill(questions, Question.builder().author("John").message("Hello").build());
+
+        MvcResult result = mockMvc
+            .perform(post("/v2/questions:batch").content(objectMapper.writeValueAsString(questions))
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+        List<Error> errors = Arrays.asList(objectMapper.readValue(result.getResponse().getContentAsString(), Error[].class));
+        assertThat(errors.get(0).getRejectedValue()).isEqualTo(String.valueOf(QuestionController.MAX_BATCH_SIZE + 1));
+        assertThat(errors.get(0).getExpectedValue()).isEqualTo("1 to " + QuestionController.MAX_BATCH_SIZE);
+        assertThat(questionService.getQuestions(null, 10).getItems()).isEmpty();
+
+    }
+
     /**
      * When:
      *      The POST request is sent to /v2/questions with {@link Question}
@@ -374,6 +528,123 @@ public class QuestionControllerTest {
 
     }
 
+    /**
+     * Given:
+     *      The {@link Question} with questionId was read once, so its response is cached.
+     *
+     * When:
+     *      A reply is posted to it and the GET request is sent to /v2/questions/{questionId} twice.
+     *
+     * Then:
+     *      Both responses contain the new reply, the first one encoding it and the second one
+     *      coming from the cache.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("cached question replied to | GET /questions/{questionId} | 200 OK and question with new reply")
+    public void shouldReturnNewReplyWhenCachedQuestionIsRepliedTo() throws Exception {
+
+        questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+        mockMvc.perform(get("/v2/questions/1")).andExpect(status().isOk());
+        mockMvc.perform(post("/v2/questions/1/reply")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"author\":\"Jane\",\"message\":\"Hi\"}"))
+            .andExpect(status().isCreated());
+
+        for(int read = 0; read < 2; read++) {
+            MvcResult result = mockMvc.perform(get("/v2/questions/1"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+            assertThat(result.getResponse().getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+            Question question = objectMapper.readValue(result.getResponse().getContentAsString(), Question.class);
+            assertThat(question.getReplies()).hasSize(1);
+            assertThat(question.getReplies().get(0).getAuthor()).isEqualTo("Jane");
+        }
+        assertThat(questionResponseCache.getMissCount()).isEqualTo(2);
+        assertThat(questionResponseCache.getHitCount()).isEqualTo(1);
+
+    }
+
+    /**
+     * Given:
+     *      The {@link Question} with questionId was read and its ETag kept.
+     *
+     * When:
+     *      The GET request is sent to /v2/questions/{questionId} with the ETag in If-None-Match,
+     *      before and after a reply is posted.
+     *
+     * Then:
+     *      The first request completes with 304 Not Modified and an empty body without encoding the question,
+     *      the second one with 200 OK, the reply and a new ETag.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("GET /questions/{questionId} If-None-Match:ETag | 304 Not Modified until replied to")
+    public void shouldReturn304NotModifiedWhenQuestionIsUnchangedSinceETag() throws Exception {
+
+        questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+        String etag = mockMvc.perform(get("/v2/questions/1"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isEqualTo("\"0\"");
+
+        MvcResult notModified = mockMvc.perform(get("/v2/questions/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andDo(print())
+            .andExpect(status().isNotModified())
+            .andReturn();
+        assertThat(notModified.getResponse().getContentAsString()).isEmpty();
+        assertThat(notModified.getResponse().getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+        assertThat(questionResponseCache.getMissCount() + questionResponseCache.getHitCount()).isEqualTo(1);
+
+        questionService.replyToQuestion(1L, Reply.builder().author("Jane").message("Hi").build());
+        MvcResult modified = mockMvc.perform(get("/v2/questions/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andReturn();
+        assertThat(modified.getResponse().getHeader(HttpHeaders.ETAG)).isEqualTo("\"1\"");
+        assertThat(objectMapper.readValue(modified.getResponse().getContentAsString(), Question.class).getReplies()).hasSize(1);
+
+    }
+
+    /**
+     * Given:
+     *      A page of questions was read and its ETag kept.
+     *
+     * When:
+     *      The GET request is sent to /v2/questions with the ETag in If-None-Match,
+     *      before and after a reply is posted to any question.
+     *
+     * Then:
+     *      The first request completes with 304 Not Modified and an empty body,
+     *      the second one with 200 OK and a new ETag.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("GET /questions If-None-Match:ETag | 304 Not Modified until anything is saved")
+    public void shouldReturn304NotModifiedWhenStoreIsUnchangedSinceETag() throws Exception {
+
+        questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+        questionService.addQuestion(Question.builder().author("Jane").message("Hi").build());
+        String etag = mockMvc.perform(get("/v2/questions").param("limit", "1"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isEqualTo("\"2\"");
+
+        MvcResult notModified = mockMvc.perform(get("/v2/questions").param("limit", "1").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andReturn();
+        assertThat(notModified.getResponse().getContentAsString()).isEmpty();
+
+        questionService.replyToQuestion(2L, Reply.builder().author("John").message("Hey").build());
+        mockMvc.perform(get("/v2/questions").param("limit", "1").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(result -> assertThat(result.getResponse().getHeader(HttpHeaders.ETAG)).isEqualTo("\"3\""));
+
+    }
+
     /**
      * When:
      *      The GET request is sent to /v2/questions/{questionId}
@@ -424,6 +695,85 @@ public class QuestionControllerTest {
 
     }
 
+    /**
+     * Given:
+     *      The {@link Question} with questionId has replies.
+     *
+     * When:
+     *      The GET request is sent to /v2/questions/{questionId}/replies page by page with the X-Next-Cursor header,
+     *      then polled again with the last cursor after a new reply is posted.
+     *
+     * Then:
+     *      Every page completes with 200 OK and the following replies, the last page still has a cursor
+     *      and polling with it returns only the new reply.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("replies present | GET /questions/{questionId}/replies with cursor | 200 OK and replies following cursor")
+    public void shouldReturnRepliesFollowingCursorWhenPollingReplies() throws Exception {
+
+        questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+        for(int i = 0; i < 3; i++)
+            questionService.replyToQuestion(1L, Reply.builder().author("Jane").message("Hi " + i).build());
+
+        MvcResult firstPage = mockMvc.perform(get("/v2/questions/1/replies").param("limit", "2"))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andReturn();
+        List<Reply> replies = Arrays.asList(objectMapper.readValue(firstPage.getResponse().getContentAsString(), Reply[].class));
+        assertThat(replies).extracting(Reply::getId).containsExactly(1L, 2L);
+        String cursor = firstPage.getResponse().getHeader("X-Next-Cursor");
+        assertThat(firstPage.getResponse().getHeader(HttpHeaders.LINK)).contains("cursor=" + cursor).contains("rel=\"next\"");
+
+        MvcResult lastPage = mockMvc.perform(get("/v2/questions/1/replies").param("limit", "2").param("cursor", cursor))
+            .andExpect(status().isOk())
+            .andReturn();
+        replies = Arrays.asList(objectMapper.readValue(lastPage.getResponse().getContentAsString(), Reply[].class));
+        assertThat(replies).extracting(Reply::getId).containsExactly(3L);
+        assertThat(lastPage.getResponse().getHeader(HttpHeaders.LINK)).isNull();
+        String pollCursor = lastPage.getResponse().getHeader("X-Next-Cursor");
+        assertThat(pollCursor).isNotBlank();
+
+        mockMvc.perform(get("/v2/questions/1/replies").param("cursor", pollCursor))
+            .andExpect(status().isNoContent())
+            .andExpect(result -> assertThat(result.getResponse().getHeader("X-Next-Cursor")).isEqualTo(pollCursor));
+
+        questionService.replyToQuestion(1L, Reply.builder().author("Alice").message("Howdy!").build());
+        MvcResult polled = mockMvc.perform(get("/v2/questions/1/replies").param("cursor", pollCursor))
+            .andExpect(status().isOk())
+            .andReturn();
+        replies = Arrays.asList(objectMapper.readValue(polled.getResponse().getContentAsString(), Reply[].class));
+        assertThat(replies).extracting(Reply::getMessage).containsExactly("Howdy!");
+
+        MvcResult afterReply = mockMvc.perform(get("/v2/questions/1/replies").param("afterReplyId", "2"))
+            .andExpect(status().isOk())
+            .andReturn();
+        replies = Arrays.asList(objectMapper.readValue(afterReply.getResponse().getContentAsString(), Reply[].class));
+        assertThat(replies).extracting(Reply::getId).containsExactly(3L, 4L);
+
+    }
+
+    /**
+     * When:
+     *      The GET request is sent to /v2/questions/{questionId}/replies
+     *      and {@link Question} with that questionId doesn't exist.
+     *
+     * Then:
+     *      The request completes with 404 Not Found status.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("GET /questions/{questionId}/replies questionId doesn't exist | 404 Not Found")
+    public void shouldReturn404NotFoundWhenRequestingRepliesOfNonExistentQuestionId() throws Exception {
+
+        mockMvc.perform(get("/v2/questions/1/replies"))
+            .andDo(print())
+            .andExpect(status().isNotFound());
+
+    }
+
     /**
      * Given:
      *      The {@link Question} with questionId exist.
@@ -500,6 +850,74 @@ public class QuestionControllerTest {
 
     }
 
+    /**
+     * Given:
+     *      The {@link Question} with questionId exist.
+     *
+     * When:
+     *      The POST request is sent to /v2/questions/{questionId}/replies:batch with several {@link Reply}s,
+     *      one of them having a blank message.
+     *
+     * Then:
+     *      The request completes with 200 OK status, the valid replies are appended to the question with
+     *      consecutive ids and the response holds the outcome of each reply in request order.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("POST /questions/{questionId}/replies:batch body:Replies one invalid | 200 OK and outcome of each reply")
+    public void shouldSaveValidRepliesAndReportInvalidOnesWhenPostRepliesBatchRequestIsSent() throws Exception {
+
+        Question savedQuestion = questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+        List<Reply> replies = Arrays.asList(
+                Reply.builder().author("Jane").message("").build(),
+                Reply.builder().author("Alice").message("Hi").build(),
+                Reply.builder().author("Bob").message("Howdy!").build());
+
+        MvcResult result = mockMvc
+            .perform(post("/v2/questions/" + savedQuestion.getId() + "/replies:batch").content(objectMapper.writeValueAsString(replies))
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andReturn();
+
+        List<BatchItemResult<Reply>> results = objectMapper.readValue(result.getResponse().getContentAsString(),
+                new TypeReference<List<BatchItemResult<Reply>>>() {});
+        assertThat(results).extracting(BatchItemResult::getStatus).containsExactly(400, 201, 201);
+        assertThat(results.get(0).getErrors()).extracting(Error::getFieldName).containsExactly("message");
+        assertThat(results.get(1).getItem().getId()).isEqualTo(1L);
+        assertThat(results.get(2).getItem().getId()).isEqualTo(2L);
+        assertThat(results.get(2).getItem().getQuestionId()).isEqualTo(savedQuestion.getId());
+        assertThat(questionService.getQuestionById(savedQuestion.getId()).getReplies()).extracting(Reply::getAuthor).containsExactly("Alice", "Bob");
+
+    }
+
+    /**
+     * Given:
+     *      The {@link Question} with questionId doesn't exist.
+     *
+     * When:
+     *      The POST request is sent to /v2/questions/{questionId}/replies:batch with {@link Reply}s.
+     *
+     * Then:
+     *      The request completes with 404 Not Found status.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("POST /questions/{questionId}/replies:batch questionId doesn't exist | 404 Not Found")
+    public void shouldReturn404NotFoundWhenSendingRepliesBatchToNonExistentQuestionId() throws Exception {
+
+        List<Reply> replies = Arrays.asList(Reply.builder().author("Jane").message("Hi").build());
+
+        mockMvc
+            .perform(post("/v2/questions/1/replies:batch").content(objectMapper.writeValueAsString(replies))
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE))
+            .andDo(print())
+            .andExpect(status().isNotFound());
+
+    }
+
     /**
      * Given:
      *      The {@link Question} with questionId doesn't exist.
@@ -0,0 +1,150 @@
+package com.example.forum.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import jakarta.validation.Validation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.example.forum.cache.QuestionResponseCache;
+import com.example.forum.exception.ExceptionAdvice;
+import com.example.forum.model.Error;
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.QuestionService;
+import com.example.forum.service.ReactiveQuestionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.scheduler.Schedulers;
+
+public class ReactiveQuestionHandlerTest {
+
+    private WebTestClient webTestClient;
+    private QuestionService questionService;
+
+    /**
+     * Setup {@link WebTestClient} to test the routes of {@link ReactiveQuestionHandler} answering errors with
+     * {@link ExceptionAdvice}.
+     */
+    @BeforeEach
+    public void setup() {
+        QuestionResponseCache questionResponseCache = new QuestionResponseCache(new ObjectMapper(), 1 << 20, 1 << 20);
+        questionService = new QuestionService(null, null, Arrays.asList(questionResponseCache));
+        ReactiveQuestionService reactiveQuestionService = new ReactiveQuestionService(questionService, Schedulers.boundedElastic(), Schedulers.immediate());
+        ReactiveQuestionHandler handler = new ReactiveQuestionHandler(reactiveQuestionService, questionResponseCache,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ExceptionAdvice());
+        webTestClient = WebTestClient.bindToRouterFunction(handler.routes()).build();
+    }
+
+    /**
+     * Given:
+     *      The datastore contains 3 questions.
+     *
+     * When:
+     *      The GET request is sent to /v2/questions with limit=2, then with after=3.
+     *
+     * Then:
+     *      The first page streams the first 2 questions in id order with 200 OK status, the second one
+     *      completes with 204 No Content status as no question follows the third one.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("3 questions | GET /questions?limit=2, then after=3 | 200 OK and 2 questions, then 204 No Content")
+    public void shouldStreamPageOfQuestions() throws Exception {
+
+        for(int i = 0; i < 3; i++)
+            questionService.addQuestion(Question.builder().author("John").message("Hello " + i).build());
+
+        List<Question> page = webTestClient.get().uri("/v2/questions?limit=2").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBodyList(Question.class).returnResult().getResponseBody();
+        webTestClient.get().uri("/v2/questions?after=3").exchange()
+                .expectStatus().isNoContent();
+
+        assertThat(page).extracting(Question::getId).containsExactly(1L, 2L);
+
+    }
+
+    /**
+     * Given:
+     *      An empty datastore.
+     *
+     * When:
+     *      A question with a blank author is posted, then the GET request is sent to /v2/questions with
+     *      limit=0.
+     *
+     * Then:
+     *      Both complete with 400 Bad Request status and the errors the servlet API answers with: a field
+     *      error of the question, then a parameter error.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("invalid question, limit=0 | POST /questions, GET /questions | 400 Bad Request and errors of the servlet API")
+    public void shouldReturnErrorsOfServletApiWhenRequestIsInvalid() throws Exception {
+
+        List<Error> bodyErrors = webTestClient.post().uri("/v2/questions").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"author\":\"\",\"message\":\"Hello\"}").exchange()
+                .expectStatus().isBadRequest()
+                .expectBodyList(Error.class).returnResult().getResponseBody();
+        List<Error> limitErrors = webTestClient.get().uri("/v2/questions?limit=0").exchange()
+                .expectStatus().isBadRequest()
+                .expectBodyList(Error.class).returnResult().getResponseBody();
+
+        assertThat(bodyErrors).hasSize(1);
+        assertThat(bodyErrors.get(0).getFieldName()).isEqualTo("author");
+        assertThat(bodyErrors.get(0).getObjectName()).isEqualTo("question");
+        assertThat(bodyErrors.get(0).getMessage()).isEqualTo("Author should not be blank");
+        assertThat(limitErrors).hasSize(1);
+        assertThat(limitErrors.get(0).getFieldName()).isEqualTo("limit");
+        assertThat(limitErrors.get(0).getRejectedValue()).isEqualTo("0");
+
+    }
+
+    /**
+     * Given:
+     *      The datastore contains a question with id 1.
+     *
+     * When:
+     *      A reply is posted to question 1, then to question 2, then question 1 is requested.
+     *
+     * Then:
+     *      The first reply is created with 201 Created status, the second one completes with 404 Not Found
+     *      status, and question 1 is returned with its reply and the ETag of its version.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("question 1 | POST /questions/1/reply, /questions/2/reply, GET /questions/1 | 201 Created, 404 Not Found, question with reply")
+    public void shouldReplyToExistingQuestionOnly() throws Exception {
+
+        questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+        String reply = "{\"author\":\"Jane\",\"message\":\"Hi\"}";
+
+        Reply savedReply = webTestClient.post().uri("/v2/questions/1/reply").contentType(MediaType.APPLICATION_JSON).bodyValue(reply).exchange()
+                .expectStatus().isCreated()
+                .expectBody(Reply.class).returnResult().getResponseBody();
+        webTestClient.post().uri("/v2/questions/2/reply").contentType(MediaType.APPLICATION_JSON).bodyValue(reply).exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_FOUND);
+        Question question = webTestClient.get().uri("/v2/questions/1").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"1\"")
+                .expectBody(Question.class).returnResult().getResponseBody();
+
+        assertThat(savedReply.getId()).isEqualTo(1L);
+        assertThat(savedReply.getQuestionId()).isEqualTo(1L);
+        assertThat(question.getReplies()).extracting(Reply::getMessage).containsExactly("Hi");
+
+    }
+
+}
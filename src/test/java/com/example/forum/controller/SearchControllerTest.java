@@ -0,0 +1,137 @@
+package com.example.forum.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.example.forum.exception.ExceptionAdvice;
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.model.SearchHit;
+import com.example.forum.search.SearchIndex;
+import com.example.forum.service.QuestionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class SearchControllerTest {
+
+    private MockMvc mockMvc;
+
+    private QuestionService questionService;
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    public void setup() {
+        SearchIndex searchIndex = new SearchIndex();
+        questionService = new QuestionService(null, null, Arrays.asList(searchIndex));
+        mockMvc = MockMvcBuilders.standaloneSetup(new SearchController(questionService, searchIndex))
+                .setControllerAdvice(new ExceptionAdvice())
+                .build();
+    }
+
+    /**
+     * Given:
+     *      The datastore contains threads, one of them matching the searched words in a reply.
+     *
+     * When:
+     *      The GET request is sent to /v2/questions/search with the words in q.
+     *
+     * Then:
+     *      The request completes with 200 OK status and returns the matching thread's question.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("matching reply | GET /questions/search?q= | 200 OK and matching thread")
+    public void shouldReturnMatchingThreadsWhenSearching() throws Exception {
+
+        questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+        Question question = questionService.addQuestion(Question.builder().author("Jane").message("Which JVM?").build());
+        questionService.replyToQuestion(question.getId(), Reply.builder().author("Alice").message("Use a recent LTS release").build());
+
+        MvcResult result = mockMvc.perform(get("/v2/questions/search").param("q", "lts release").param("limit", "5"))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andReturn();
+
+        List<SearchHit> hits = Arrays.asList(objectMapper.readValue(result.getResponse().getContentAsString(), SearchHit[].class));
+        assertThat(hits).hasSize(1);
+        assertThat(hits.get(0).getQuestionId()).isEqualTo(question.getId());
+        assertThat(hits.get(0).getMessage()).isEqualTo("Which JVM?");
+        assertThat(hits.get(0).getScore()).isPositive();
+
+    }
+
+    /**
+     * Given:
+     *      A search index with a budget of 20 postings per query, and 50 threads with the same word.
+     *
+     * When:
+     *      The GET request is sent to /v2/questions/search with that word, then with a word of one thread only.
+     *
+     * Then:
+     *      The first response marks the results as truncated with X-Search-Truncated, the second doesn't.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("query over budget, then within | GET /questions/search?q= | X-Search-Truncated only on the first")
+    public void shouldMarkResultsOfQueriesOverBudgetAsTruncated() throws Exception {
+
+        SearchIndex searchIndex = new SearchIndex(20);
+        questionService = new QuestionService(null, null, Arrays.asList(searchIndex));
+        mockMvc = MockMvcBuilders.standaloneSetup(new SearchController(questionService, searchIndex))
+                .setControllerAdvice(new ExceptionAdvice())
+                .build();
+        questionService.addQuestion(Question.builder().author("John").message("common rare").build());
+        for(int i = 0; i < 50; i++)
+            questionService.addQuestion(Question.builder().author("John").message("common").build());
+
+        mockMvc.perform(get("/v2/questions/search").param("q", "common"))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(header().string(SearchController.TRUNCATED_HEADER, "true"));
+        mockMvc.perform(get("/v2/questions/search").param("q", "rare"))
+            .andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(SearchController.TRUNCATED_HEADER));
+
+    }
+
+    /**
+     * Given:
+     *      The datastore contains a thread.
+     *
+     * When:
+     *      The GET request is sent to /v2/questions/search with words it doesn't contain.
+     *
+     * Then:
+     *      The request completes with 204 No Content status.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("no matching thread | GET /questions/search?q= | 204 No Content")
+    public void shouldReturnNoContentWhenNothingMatches() throws Exception {
+
+        questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+
+        mockMvc.perform(get("/v2/questions/search").param("q", "goodbye"))
+            .andDo(print())
+            .andExpect(status().isNoContent());
+
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.example.forum.exception;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ClientErrorLogTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(ClientErrorLog.LOGGER_NAME);
+
+    private final ListAppender<ILoggingEvent> events = new ListAppender<>();
+
+    @BeforeEach
+    public void setUp() {
+        events.start();
+        logger.addAppender(events);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        logger.detachAppender(events);
+    }
+
+    /**
+     * Given:
+     *      A client error log of at most 5 events per second.
+     *
+     * When:
+     *      1000 client errors are logged at once, then one more after a second.
+     *
+     * Then:
+     *      At most 10 events are logged, since the errors may straddle two seconds, all without stack trace.
+     *      The others are counted as skipped, every event tells how many were skipped since the previous
+     *      one, adding up to all of them, and the last has its message on one line.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("5 events per second | 1000 errors at once | at most 10 logged without stack trace, others counted")
+    public void shouldRateLimitClientErrors() throws Exception {
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ClientErrorLog clientErrorLog = new ClientErrorLog(5, 1, registry);
+
+        for(int i = 0; i < 1000; i++)
+            clientErrorLog.log(new InvalidCursorException("cursor-" + i), HttpStatus.BAD_REQUEST);
+        int logged = events.list.size();
+        Thread.sleep(1100);
+        clientErrorLog.log(new IllegalArgumentException("Bad\n\"cursor\""), HttpStatus.BAD_REQUEST);
+
+        assertThat(logged).isBetween(5, 10);
+        assertThat(events.list).allMatch(event -> event.getThrowableProxy() == null);
+        assertThat(registry.get("forum.errors.log.skipped").counter().count()).isEqualTo(1000 - logged);
+        assertThat(events.list).extracting(event -> skipped(event.getFormattedMessage())).hasSize(logged + 1)
+                .matches(counts -> counts.stream().mapToLong(Long::longValue).sum() == 1000 - logged);
+        String last = events.list.get(events.list.size() - 1).getFormattedMessage();
+        assertThat(last).startsWith("event=client_error status=400 exception=IllegalArgumentException ")
+                .endsWith("message=\"Bad \\\"cursor\\\"\"");
+
+    }
+
+    private static long skipped(String message) {
+        Matcher matcher = Pattern.compile(" skipped=(\\d+) ").matcher(message);
+        assertThat(matcher.find()).isTrue();
+        return Long.parseLong(matcher.group(1));
+    }
+
+}
@@ -0,0 +1,302 @@
+package com.example.forum.feed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.QuestionService;
+
+public class FeedBusTest {
+
+    private static final int SUBSCRIBERS = 10_000;
+
+    private static final int DELIVERY_THREADS = 4;
+
+    private static final int WRITERS = 4;
+
+    private static final int QUESTIONS_PER_WRITER = 25;
+
+    private FeedBus feedBus;
+
+    private ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        writers.shutdownNow();
+        writers.awaitTermination(10, TimeUnit.SECONDS);
+        if(feedBus != null)
+            feedBus.close();
+    }
+
+    /**
+     * Given:
+     *      10k subscribers of new questions on a bus with 4 delivery threads,
+     *      whose connections block until the writers are done.
+     *
+     * When:
+     *      Several threads add questions at the same time.
+     *
+     * Then:
+     *      Every writer completes while every connection is still blocked, then every subscriber
+     *      receives every question once the connections are released.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("10k subscribers blocked | concurrent questions | writers not blocked and every question delivered")
+    public void shouldDeliverToTenThousandSubscribersWithoutBlockingWriters() throws Exception {
+
+        int questions = WRITERS * QUESTIONS_PER_WRITER;
+        feedBus = new FeedBus(questions, DELIVERY_THREADS, SlowConsumerPolicy.DISCONNECT, 1024, Duration.ZERO, Duration.ZERO);
+        QuestionService questionService = new QuestionService(null, null, Arrays.asList(feedBus));
+        CountDownLatch writersDone = new CountDownLatch(1);
+        List<CountingSink> sinks = new ArrayList<>();
+        for(int i = 0; i < SUBSCRIBERS; i++) {
+            CountingSink sink = new CountingSink(writersDone);
+            sinks.add(sink);
+            feedBus.subscribeToQuestions(sink);
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        for(int w = 0; w < WRITERS; w++) {
+            futures.add(writers.submit(() -> {
+                for(int i = 0; i < QUESTIONS_PER_WRITER; i++)
+                    questionService.addQuestion(Question.builder().author("John").message("Hello " + i).build());
+            }));
+        }
+        for(Future<?> future : futures)
+            future.get(30, TimeUnit.SECONDS);
+        assertThat(feedBus.getDeliveredCount()).isZero();
+        writersDone.countDown();
+
+        awaitTrue(() -> feedBus.getDeliveredCount() == (long) SUBSCRIBERS * questions);
+        for(CountingSink sink : sinks)
+            assertThat(sink.received.get()).isEqualTo(questions);
+        assertThat(feedBus.getDroppedCount()).isZero();
+        assertThat(feedBus.getDisconnectedCount()).isZero();
+        assertThat(feedBus.getSubscriberCount()).isEqualTo(SUBSCRIBERS);
+
+    }
+
+    /**
+     * Given:
+     *      A subscriber whose connection never returns and a fast subscriber, both on a bus with small buffers
+     *      disconnecting slow consumers.
+     *
+     * When:
+     *      More questions than a buffer holds are added, one at a time.
+     *
+     * Then:
+     *      The slow subscriber is disconnected and the fast one receives every question.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("slow subscriber | buffer overflows | slow subscriber disconnected and others unaffected")
+    public void shouldDisconnectSlowSubscriberWhenItsBufferOverflows() throws Exception {
+
+        feedBus = new FeedBus(8, 2, SlowConsumerPolicy.DISCONNECT, 1024, Duration.ZERO, Duration.ZERO);
+        QuestionService questionService = new QuestionService(null, null, Arrays.asList(feedBus));
+        CountDownLatch never = new CountDownLatch(1);
+        CountingSink slow = new CountingSink(never);
+        CountingSink fast = new CountingSink(new CountDownLatch(0));
+        FeedBus.Subscription slowSubscription = feedBus.subscribeToQuestions(slow);
+        feedBus.subscribeToQuestions(fast);
+
+        // Each question waits for the fast subscriber, so only the slow one falls behind.
+        for(int i = 0; i < 50; i++) {
+            questionService.addQuestion(Question.builder().author("John").message("Hello " + i).build());
+            int received = i + 1;
+            awaitTrue(() -> fast.received.get() == received);
+        }
+
+        awaitTrue(slowSubscription::isClosed);
+        assertThat(slow.completed.get()).isTrue();
+        assertThat(feedBus.getDisconnectedCount()).isEqualTo(1);
+        assertThat(feedBus.getSubscriberCount()).isEqualTo(1);
+        never.countDown();
+
+    }
+
+    /**
+     * Given:
+     *      More subscribers whose connection never returns than delivery threads, and a fast subscriber, on a bus
+     *      with a short send timeout.
+     *
+     * When:
+     *      Questions are added, then the connections are released.
+     *
+     * Then:
+     *      The fast subscriber receives every question, the stuck subscribers are disconnected as their send times
+     *      out, and their sinks complete and the pool shrinks back once the connections return.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("stuck subscribers over delivery threads | send times out | stuck ones disconnected and others unaffected")
+    public void shouldDisconnectSubscribersWhoseSendTimesOut() throws Exception {
+
+        feedBus = new FeedBus(64, DELIVERY_THREADS, SlowConsumerPolicy.DISCONNECT, 1024, Duration.ZERO, Duration.ofMillis(200));
+        QuestionService questionService = new QuestionService(null, null, Arrays.asList(feedBus));
+        CountDownLatch never = new CountDownLatch(1);
+        List<CountingSink> stuck = new ArrayList<>();
+        List<FeedBus.Subscription> stuckSubscriptions = new ArrayList<>();
+        for(int i = 0; i < DELIVERY_THREADS + 1; i++) {
+            CountingSink sink = new CountingSink(never);
+            stuck.add(sink);
+            stuckSubscriptions.add(feedBus.subscribeToQuestions(sink));
+        }
+        CountingSink fast = new CountingSink(new CountDownLatch(0));
+        feedBus.subscribeToQuestions(fast);
+
+        for(int i = 0; i < 10; i++)
+            questionService.addQuestion(Question.builder().author("John").message("Hello " + i).build());
+
+        awaitTrue(() -> fast.received.get() == 10);
+        awaitTrue(() -> stuckSubscriptions.stream().allMatch(FeedBus.Subscription::isClosed));
+        assertThat(feedBus.getTimedOutCount()).isEqualTo(DELIVERY_THREADS + 1);
+        assertThat(feedBus.getDisconnectedCount()).isEqualTo(DELIVERY_THREADS + 1);
+        assertThat(feedBus.getSubscriberCount()).isEqualTo(1);
+        assertThat(stuck).noneMatch(sink -> sink.completed.get());
+        never.countDown();
+
+        awaitTrue(() -> stuck.stream().allMatch(sink -> sink.completed.get()));
+        awaitTrue(() -> feedBus.getDeliveryThreads() == DELIVERY_THREADS);
+
+    }
+
+    /**
+     * Given:
+     *      A subscriber whose connection blocks on a bus with small buffers dropping events of slow consumers.
+     *
+     * When:
+     *      More questions than its buffer holds are added, then the connection is released.
+     *
+     * Then:
+     *      The subscriber stays subscribed, the overflowing events are dropped and the others are received.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("slow subscriber | buffer overflows with DROP | events dropped and subscriber kept")
+    public void shouldDropEventsOfSlowSubscriberWhenPolicyIsDrop() throws Exception {
+
+        feedBus = new FeedBus(8, 1, SlowConsumerPolicy.DROP, 1024, Duration.ZERO, Duration.ZERO);
+        QuestionService questionService = new QuestionService(null, null, Arrays.asList(feedBus));
+        CountDownLatch release = new CountDownLatch(1);
+        CountingSink slow = new CountingSink(release);
+        FeedBus.Subscription subscription = feedBus.subscribeToQuestions(slow);
+
+        for(int i = 0; i < 50; i++)
+            questionService.addQuestion(Question.builder().author("John").message("Hello " + i).build());
+        // One event is being sent and a buffer's worth is waiting, every other one is dropped.
+        awaitTrue(() -> feedBus.getDroppedCount() >= 50 - 8 - 1);
+        release.countDown();
+
+        awaitTrue(() -> slow.received.get() + feedBus.getDroppedCount() == 50);
+        assertThat(subscription.isClosed()).isFalse();
+        assertThat(slow.completed.get()).isFalse();
+
+    }
+
+    /**
+     * Given:
+     *      A subscriber of the replies to one question and a subscriber of the replies to another one.
+     *
+     * When:
+     *      Both questions are replied to.
+     *
+     * Then:
+     *      Each subscriber receives only the replies to its question, in order.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("reply subscribers | replies to several questions | each receives its question's replies")
+    public void shouldDeliverOnlyRepliesOfSubscribedQuestion() throws Exception {
+
+        feedBus = new FeedBus(64, 2, SlowConsumerPolicy.DISCONNECT, 1024, Duration.ZERO, Duration.ZERO);
+        QuestionService questionService = new QuestionService(null, null, Arrays.asList(feedBus));
+        Question first = questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+        Question second = questionService.addQuestion(Question.builder().author("Jane").message("Hi").build());
+        CountingSink firstSink = new CountingSink(new CountDownLatch(0));
+        CountingSink secondSink = new CountingSink(new CountDownLatch(0));
+        feedBus.subscribeToReplies(first.getId(), firstSink);
+        feedBus.subscribeToReplies(second.getId(), secondSink);
+
+        for(int i = 0; i < 10; i++) {
+            questionService.replyToQuestion(first.getId(), Reply.builder().author("Alice").message("First " + i).build());
+            questionService.replyToQuestion(second.getId(), Reply.builder().author("Bob").message("Second " + i).build());
+        }
+
+        awaitTrue(() -> firstSink.received.get() == 10 && secondSink.received.get() == 10);
+        assertThat(firstSink.events).allMatch(event -> event.getType() == FeedEvent.Type.REPLY && event.getQuestionId() == first.getId());
+        assertThat(firstSink.events).extracting(FeedEvent::getId).isSorted();
+        assertThat(secondSink.events).allMatch(event -> event.getQuestionId() == second.getId());
+
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while(!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition still false after 60s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Sink counting the events it receives, each send blocking until a latch is released.
+     */
+    private static final class CountingSink implements FeedSink {
+
+        private final CountDownLatch release;
+
+        private final AtomicInteger received = new AtomicInteger();
+
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private final List<FeedEvent> events = new CopyOnWriteArrayList<>();
+
+        CountingSink(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(FeedEvent event) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if(events.size() < 100)
+                events.add(event);
+            received.incrementAndGet();
+        }
+
+        @Override
+        public void complete() {
+            completed.set(true);
+        }
+
+    }
+
+}
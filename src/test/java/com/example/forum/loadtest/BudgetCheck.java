@@ -0,0 +1,30 @@
+package com.example.forum.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Fails the build when the verdict written by the last {@link LoadGenerator} run is missing or failed.
+ */
+public class BudgetCheck {
+
+    public static void main(String[] args) throws IOException {
+        Path verdictFile = Paths.get(args.length > 0 ? args[0] : "target/loadtest").resolve(LoadGenerator.VERDICT_FILE);
+        if(!Files.exists(verdictFile)) {
+            System.err.println("No load test verdict in " + verdictFile);
+            System.exit(1);
+        }
+        List<String> verdict = Files.readAllLines(verdictFile, StandardCharsets.UTF_8);
+        if(verdict.isEmpty() || !LoadGenerator.PASSED.equals(verdict.get(0))) {
+            for(String line : verdict)
+                System.err.println(line);
+            System.exit(1);
+        }
+        System.out.println("Load test within its budgets");
+    }
+
+}
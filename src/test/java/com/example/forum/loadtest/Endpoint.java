@@ -0,0 +1,36 @@
+package com.example.forum.loadtest;
+
+/**
+ * Endpoints exercised by the {@link LoadGenerator}, each recorded in its own latency histogram.
+ */
+enum Endpoint {
+
+    LIST_QUESTIONS("listQuestions", "GET /questions"),
+
+    GET_QUESTION("getQuestion", "GET /questions/{id}"),
+
+    ADD_QUESTION("addQuestion", "POST /questions"),
+
+    ADD_REPLY("addReply", "POST /questions/{id}/reply");
+
+    private final String key;
+
+    private final String description;
+
+    Endpoint(String key, String description) {
+        this.key = key;
+        this.description = description;
+    }
+
+    /**
+     * @return name used in property names and output files
+     */
+    String getKey() {
+        return key;
+    }
+
+    String getDescription() {
+        return description;
+    }
+
+}
@@ -0,0 +1,320 @@
+package com.example.forum.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Closed or fixed rate HTTP load generator for the forum API. Seeds questions and replies, loads the server
+ * with the mixed workload described by {@link LoadTestSettings} and records the latency of every endpoint in
+ * an HdrHistogram, then writes the percentile distributions and a verdict checked by {@link BudgetCheck}.
+ * <p>
+ * Run it against a started app, with loadtest.* system properties overriding the workload. The process never
+ * fails on a blown budget so that a build can stop the app before checking the verdict.
+ */
+public class LoadGenerator {
+
+    static final String VERDICT_FILE = "verdict.txt";
+
+    static final String PASSED = "PASSED";
+
+    static final String FAILED = "FAILED";
+
+    /**
+     * Highest recorded latency in microseconds, larger values are clamped.
+     */
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final LoadTestSettings settings;
+
+    private final List<Long> questionIds = new ArrayList<>();
+
+    private final List<Long> hotQuestionIds = new ArrayList<>();
+
+    /**
+     * Latencies and errors of every endpoint, shared by the workers so that thousands of them don't each
+     * need their own histograms.
+     */
+    private final Map<Endpoint, Histogram> histograms = new EnumMap<>(Endpoint.class);
+
+    private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+
+    private LoadGenerator(LoadTestSettings settings) {
+        this.settings = settings;
+        for(Endpoint endpoint : Endpoint.values()) {
+            histograms.put(endpoint, new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3));
+            errors.put(endpoint, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        LoadTestSettings settings = new LoadTestSettings();
+        // Keeps one idle connection per thread instead of the default 5.
+        System.setProperty("http.maxConnections", Integer.toString(settings.threads));
+        Files.createDirectories(settings.output);
+        List<String> verdict = new ArrayList<>();
+        try {
+            verdict = new LoadGenerator(settings).run();
+        } catch (Exception e) {
+            e.printStackTrace();
+            verdict.add(FAILED);
+            verdict.add("Load test aborted: " + e);
+        }
+        Files.write(settings.output.resolve(VERDICT_FILE), verdict, StandardCharsets.UTF_8);
+    }
+
+    private List<String> run() throws Exception {
+        ExecutorService executor = settings.virtualThreads ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(settings.threads);
+        try {
+            seed(executor);
+            long start = System.nanoTime();
+            long recordFrom = start + settings.warmup.toNanos();
+            long end = recordFrom + settings.duration.toNanos();
+            System.out.printf("Running %d %s threads for %d ms after a %d ms warmup%n", settings.threads, settings.virtualThreads ? "virtual" : "platform",
+                    settings.duration.toMillis(), settings.warmup.toMillis());
+            List<Future<?>> futures = new ArrayList<>();
+            for(int i = 0; i < settings.threads; i++) {
+                Worker worker = new Worker(hotQuestionIds.get(i % hotQuestionIds.size()), recordFrom, end);
+                futures.add(executor.submit(worker::run));
+            }
+            for(Future<?> future : futures)
+                future.get();
+            return report();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates the seed, large and hot questions in parallel.
+     */
+    private void seed(ExecutorService executor) throws Exception {
+        System.out.printf("Seeding %d questions with %d replies, %d with %d replies and %d hot questions%n",
+                settings.seedQuestions, settings.seedReplies, settings.largeQuestions, settings.largeReplies, settings.hotQuestions);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        for(int i = 0; i < settings.threads; i++) {
+            int thread = i;
+            futures.add(executor.submit(() -> {
+                List<Long> ids = new ArrayList<>();
+                for(int q = thread; q < settings.seedQuestions; q += settings.threads)
+                    ids.add(seedQuestion(settings.seedReplies));
+                for(int q = thread; q < settings.largeQuestions; q += settings.threads)
+                    ids.add(seedQuestion(settings.largeReplies));
+                return ids;
+            }));
+        }
+        for(Future<List<Long>> future : futures)
+            questionIds.addAll(future.get());
+        for(int i = 0; i < Math.max(1, settings.hotQuestions); i++)
+            hotQuestionIds.add(seedQuestion(settings.seedReplies));
+        questionIds.addAll(hotQuestionIds);
+    }
+
+    private long seedQuestion(int replies) throws IOException {
+        long questionId = objectMapper.readTree(send("POST", "/questions", questionBody()).body).get("id").asLong();
+        for(int r = 0; r < replies; r++)
+            send("POST", "/questions/" + questionId + "/reply", replyBody());
+        return questionId;
+    }
+
+    /**
+     * Sends requests from a single client thread and records their latencies once the warmup is over.
+     */
+    private final class Worker {
+
+        private final long hotQuestionId;
+
+        private final long recordFrom;
+
+        private final long end;
+
+        Worker(long hotQuestionId, long recordFrom, long end) {
+            this.hotQuestionId = hotQuestionId;
+            this.recordFrom = recordFrom;
+            this.end = end;
+        }
+
+        void run() {
+            long interval = settings.ratePerThread > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / settings.ratePerThread) : 0;
+            // Spreads the first requests of the threads over an interval instead of sending them all at once.
+            long intendedStart = System.nanoTime() - (interval > 0 ? ThreadLocalRandom.current().nextLong(interval) : 0);
+            while(true) {
+                long start;
+                if(interval > 0) {
+                    intendedStart += interval;
+                    LockSupport.parkNanos(intendedStart - System.nanoTime());
+                    start = intendedStart;
+                } else {
+                    start = System.nanoTime();
+                }
+                if(start >= end)
+                    return;
+                Endpoint endpoint = nextEndpoint();
+                boolean succeeded = sendTo(endpoint);
+                long latency = System.nanoTime() - start;
+                if(start >= recordFrom) {
+                    histograms.get(endpoint).recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latency), HIGHEST_LATENCY_MICROS));
+                    if(!succeeded)
+                        errors.get(endpoint).increment();
+                }
+            }
+        }
+
+        private Endpoint nextEndpoint() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if(random.nextDouble() < settings.writeRatio)
+                return random.nextDouble() < settings.replyRatio ? Endpoint.ADD_REPLY : Endpoint.ADD_QUESTION;
+            return random.nextDouble() < settings.listRatio ? Endpoint.LIST_QUESTIONS : Endpoint.GET_QUESTION;
+        }
+
+        private boolean sendTo(Endpoint endpoint) {
+            try {
+                switch(endpoint) {
+                    case LIST_QUESTIONS:
+                        return send("GET", "/questions?limit=" + settings.pageLimit + "&after=" + (randomQuestionId() - 1), null).succeeded();
+                    case GET_QUESTION:
+                        return send("GET", "/questions/" + targetQuestionId(), null).succeeded();
+                    case ADD_QUESTION:
+                        return send("POST", "/questions", questionBody()).succeeded();
+                    case ADD_REPLY:
+                        return send("POST", "/questions/" + targetQuestionId() + "/reply", replyBody()).succeeded();
+                    default:
+                        throw new IllegalStateException("Unknown endpoint " + endpoint);
+                }
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        private long targetQuestionId() {
+            return ThreadLocalRandom.current().nextDouble() < settings.hotRatio ? hotQuestionId : randomQuestionId();
+        }
+
+        private long randomQuestionId() {
+            return questionIds.get(ThreadLocalRandom.current().nextInt(questionIds.size()));
+        }
+
+    }
+
+    private List<String> report() throws IOException {
+        List<String> failures = new ArrayList<>();
+        double seconds = settings.duration.toNanos() / 1e9;
+        long totalRequests = 0;
+        long totalErrors = 0;
+        System.out.printf("%n%-28s %10s %10s %9s %9s %9s %9s %9s %7s%n", "Endpoint", "Requests", "Req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "Errors");
+        for(Endpoint endpoint : Endpoint.values()) {
+            Histogram histogram = histograms.get(endpoint);
+            long count = histogram.getTotalCount();
+            long endpointErrors = errors.get(endpoint).sum();
+            System.out.printf("%-28s %10d %10.0f %9.2f %9.2f %9.2f %9.2f %9.2f %7d%n", endpoint.getDescription(), count, count / seconds,
+                    millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9), histogram.getMaxValue() / 1000.0,
+                    endpointErrors);
+            totalRequests += count;
+            totalErrors += endpointErrors;
+            writeDistribution(endpoint, histogram);
+            Duration budget = settings.p99Budgets.get(endpoint);
+            if(count > 0 && histogram.getValueAtPercentile(99) > TimeUnit.NANOSECONDS.toMicros(budget.toNanos()))
+                failures.add(String.format("%s p99 of %.2f ms exceeds the budget of %d ms", endpoint.getDescription(), millis(histogram, 99), budget.toMillis()));
+        }
+        System.out.printf("%-28s %10d %10.0f%n%n", "Total", totalRequests, totalRequests / seconds);
+        if(totalRequests > 0 && (double) totalErrors / totalRequests > settings.maxErrorRate)
+            failures.add(String.format("%d of %d requests failed, more than the accepted rate of %s", totalErrors, totalRequests, settings.maxErrorRate));
+        List<String> verdict = new ArrayList<>();
+        verdict.add(failures.isEmpty() ? PASSED : FAILED);
+        verdict.addAll(failures);
+        return verdict;
+    }
+
+    private void writeDistribution(Endpoint endpoint, Histogram histogram) throws IOException {
+        Path file = settings.output.resolve(endpoint.getKey() + ".hgrm");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static byte[] questionBody() {
+        return ("{\"author\":\"loadtest-" + Thread.currentThread().threadId() + "\",\"message\":\"How fast is the forum?\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] replyBody() {
+        return ("{\"author\":\"loadtest-" + Thread.currentThread().threadId() + "\",\"message\":\"Fast enough.\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Response send(String method, String path, byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) URI.create(settings.baseUrl + path).toURL().openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Accept", "application/json");
+        if(body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+        }
+        int status = connection.getResponseCode();
+        // Reading the whole body lets the connection be reused for the next request.
+        InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        byte[] responseBody = in == null ? new byte[0] : readFully(in);
+        return new Response(status, responseBody);
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while((read = stream.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+            return out.toByteArray();
+        }
+    }
+
+    private static final class Response {
+
+        private final int status;
+
+        private final byte[] body;
+
+        Response(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        boolean succeeded() {
+            return status < 400;
+        }
+
+    }
+
+}
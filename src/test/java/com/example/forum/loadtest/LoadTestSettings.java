@@ -0,0 +1,135 @@
+package com.example.forum.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Workload of a {@link LoadGenerator} run, read from loadtest.* system properties. Durations accept the
+ * same formats as Spring Boot properties, e.g. 30s or 50ms.
+ */
+final class LoadTestSettings {
+
+    private static final String PREFIX = "loadtest.";
+
+    /**
+     * Base url of the forum API.
+     */
+    final String baseUrl = string("baseUrl", "http://localhost:5001/v2");
+
+    /**
+     * Number of client threads, each with its own connection.
+     */
+    final int threads = integer("threads", 16);
+
+    /**
+     * Runs the client threads as virtual threads, so that thousands of connections don't take thousands of
+     * platform threads from the machine the server runs on.
+     */
+    final boolean virtualThreads = Boolean.parseBoolean(string("virtualThreads", "false"));
+
+    /**
+     * Time spent loading the server before latencies are recorded.
+     */
+    final Duration warmup = duration("warmup", "10s");
+
+    /**
+     * Time during which latencies are recorded.
+     */
+    final Duration duration = duration("duration", "30s");
+
+    /**
+     * Requests per second sent by each thread, possibly below 1, 0 to send the next request as soon as the
+     * previous one completed. Threads start at random times within the first interval. With a rate latencies are measured from when a request should have been sent, so that a
+     * stalled server isn't hidden by the client waiting for it (coordinated omission).
+     */
+    final double ratePerThread = Double.parseDouble(string("ratePerThread", "0"));
+
+    /**
+     * Fraction of requests which are writes, the rest are reads.
+     */
+    final double writeRatio = fraction("writeRatio", 0.2);
+
+    /**
+     * Fraction of writes which are replies, the rest add questions.
+     */
+    final double replyRatio = fraction("replyRatio", 0.8);
+
+    /**
+     * Fraction of reads which list a page of questions, the rest get a single question.
+     */
+    final double listRatio = fraction("listRatio", 0.2);
+
+    /**
+     * Questions created before the run, each with seedReplies replies.
+     */
+    final int seedQuestions = integer("seedQuestions", 1000);
+
+    final int seedReplies = integer("seedReplies", 5);
+
+    /**
+     * Questions created before the run with largeReplies replies each, read like every other question.
+     */
+    final int largeQuestions = integer("largeQuestions", 10);
+
+    final int largeReplies = integer("largeReplies", 2000);
+
+    /**
+     * Hot questions receiving hotRatio of the question reads and replies. Thread i uses hot question
+     * i % hotQuestions, so as many hot questions as threads gives every thread its own question and a single
+     * one makes every thread contend on it.
+     */
+    final int hotQuestions = integer("hotQuestions", 4);
+
+    final double hotRatio = fraction("hotRatio", 0.5);
+
+    /**
+     * Number of items requested per page when listing questions.
+     */
+    final int pageLimit = integer("pageLimit", 100);
+
+    /**
+     * Highest accepted fraction of failed requests.
+     */
+    final double maxErrorRate = fraction("maxErrorRate", 0.0);
+
+    /**
+     * p99 latency budget of every endpoint, overridden per endpoint by loadtest.p99Budget.&lt;endpoint key&gt;.
+     */
+    final Map<Endpoint, Duration> p99Budgets = new EnumMap<>(Endpoint.class);
+
+    /**
+     * Directory receiving the percentile distributions and the verdict.
+     */
+    final Path output = Paths.get(string("output", "target/loadtest"));
+
+    LoadTestSettings() {
+        Duration p99Budget = duration("p99Budget", "100ms");
+        for(Endpoint endpoint : Endpoint.values())
+            p99Budgets.put(endpoint, duration("p99Budget." + endpoint.getKey(), p99Budget.toString()));
+    }
+
+    private static String string(String name, String defaultValue) {
+        return System.getProperty(PREFIX + name, defaultValue);
+    }
+
+    private static int integer(String name, int defaultValue) {
+        return Integer.parseInt(string(name, Integer.toString(defaultValue)));
+    }
+
+    private static double fraction(String name, double defaultValue) {
+        double value = Double.parseDouble(string(name, Double.toString(defaultValue)));
+        if(value < 0 || value > 1)
+            throw new IllegalArgumentException(PREFIX + name + " must be between 0 and 1");
+        return value;
+    }
+
+    private static Duration duration(String name, String defaultValue) {
+        return DurationStyle.detectAndParse(string(name, defaultValue));
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.example.forum.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+
+import com.example.forum.exception.ExceptionAdvice;
+import com.example.forum.exception.InvalidCursorException;
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.persistence.DurabilityMode;
+import com.example.forum.persistence.WriteAheadLog;
+import com.example.forum.service.PersistentQuestionStore;
+import com.example.forum.service.QuestionService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ForumMetricsTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Given:
+     *      A logged service with questions and replies, of which one thread has 3 replies.
+     *
+     * When:
+     *      The service is restarted from its log with new metrics and a new registry, then saves one more reply.
+     *
+     * Then:
+     *      The gauges count the recovered questions and replies as well as the new reply, the id gauges
+     *      have the last ids and only the operations called since the restart are timed.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("recovered service | new reply | gauges count recovered and new posts")
+    public void shouldCountRecoveredAndNewPosts() throws Exception {
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory, DurabilityMode.PER_WRITE, 1 << 20, Duration.ofMillis(100))) {
+            QuestionService questionService = new QuestionService(log);
+            Question first = questionService.addQuestion(question());
+            questionService.addQuestion(question());
+            questionService.addReplies(first.getId(), Arrays.asList(reply(), reply()));
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory, DurabilityMode.PER_WRITE, 1 << 20, Duration.ofMillis(100))) {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            ForumMetrics forumMetrics = new ForumMetrics();
+            forumMetrics.bindTo(registry);
+            QuestionService questionService = new QuestionService(null, null, log, null, Arrays.asList(forumMetrics), registry);
+            questionService.replyToQuestion(1L, reply());
+
+            assertThat(registry.get("forum.questions").gauge().value()).isEqualTo(2);
+            assertThat(registry.get("forum.replies").gauge().value()).isEqualTo(3);
+            assertThat(registry.get("forum.thread.replies.max").gauge().value()).isEqualTo(3);
+            assertThat(registry.get("forum.ids.last").tag("type", "question").gauge().value()).isEqualTo(2);
+            assertThat(registry.get("forum.ids.last").tag("type", "reply").gauge().value()).isEqualTo(3);
+            assertThat(registry.get("forum.service").tag("operation", "replyToQuestion").timer().count()).isEqualTo(1);
+            assertThat(registry.get("forum.service").tag("operation", "addQuestion").timer().count()).isEqualTo(0);
+        }
+
+    }
+
+    /**
+     * Given:
+     *      A service over the PERSISTENT store, which saves every reply to a new version of its question.
+     *
+     * When:
+     *      A question gets two replies one by one, then two more at once.
+     *
+     * Then:
+     *      The largest thread gauge counts all 4 replies, since the listeners are told about the version of
+     *      the question holding the new replies rather than the one read before saving them.
+     */
+    @Test
+    @DisplayName("PERSISTENT store | replies one by one and at once | largest thread counts every reply")
+    public void shouldCountRepliesOfPersistentStore() {
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ForumMetrics forumMetrics = new ForumMetrics();
+        forumMetrics.bindTo(registry);
+        QuestionService questionService = new QuestionService(new PersistentQuestionStore(), null, null, null, Arrays.asList(forumMetrics), registry);
+        Question question = questionService.addQuestion(question());
+        questionService.replyToQuestion(question.getId(), reply());
+        questionService.replyToQuestion(question.getId(), reply());
+        questionService.addReplies(question.getId(), Arrays.asList(reply(), reply()));
+
+        assertThat(registry.get("forum.replies").gauge().value()).isEqualTo(4);
+        assertThat(registry.get("forum.thread.replies.max").gauge().value()).isEqualTo(4);
+
+    }
+
+    /**
+     * Given:
+     *      An exception advice recording its errors.
+     *
+     * When:
+     *      It handles two invalid cursors.
+     *
+     * Then:
+     *      The forum.errors counter of the exception and status is 2.
+     */
+    @Test
+    @DisplayName("exception advice | two invalid cursors | errors counted by exception and status")
+    public void shouldCountErrorsByExceptionAndStatus() {
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExceptionAdvice exceptionAdvice = new ExceptionAdvice(registry, null);
+
+        exceptionAdvice.handle(new InvalidCursorException("a"));
+        exceptionAdvice.handle(new InvalidCursorException("b"));
+
+        assertThat(registry.get("forum.errors").tag("exception", "InvalidCursorException")
+                .tag("status", String.valueOf(HttpStatus.BAD_REQUEST.value())).counter().count()).isEqualTo(2);
+
+    }
+
+    private static Question question() {
+        return Question.builder().author("John").message("Hello").build();
+    }
+
+    private static Reply reply() {
+        return Reply.builder().author("Jane").message("Hi").build();
+    }
+
+}
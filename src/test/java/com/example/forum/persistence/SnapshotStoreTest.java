@@ -0,0 +1,202 @@
+package com.example.forum.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.QuestionService;
+
+public class SnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Given:
+     *      A service with questions and replies saved before and after a snapshot,
+     *      with a segment size small enough for every record to get its own segment.
+     *
+     * When:
+     *      A new service is created from the same directories.
+     *
+     * Then:
+     *      Every question and reply is recovered, id trackers continue after the highest ids
+     *      and the log segments older than the snapshot are deleted.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("snapshot and log tail | restart | datastore recovered and old segments pruned")
+    public void shouldRecoverFromSnapshotAndLogTailWhenRestarted() throws Exception {
+
+        try (WriteAheadLog log = openLog()) {
+            QuestionService questionService = new QuestionService(log, openSnapshots());
+            questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+            questionService.replyToQuestion(1L, Reply.builder().author("Jane").message("Hi").build());
+            assertThat(questionService.writeSnapshot()).isTrue();
+            assertThat(questionService.writeSnapshot()).isFalse();
+            questionService.replyToQuestion(1L, Reply.builder().author("Alice").message("Howdy!").build());
+            questionService.addQuestion(Question.builder().author("Bob").message("Yo").build());
+        }
+        assertThat(listFiles("wal")).doesNotContain(WriteAheadLog.segmentName(1));
+        assertThat(listFiles("snapshots")).containsExactly(SnapshotStore.snapshotName(2));
+
+        try (WriteAheadLog log = openLog()) {
+            QuestionService questionService = new QuestionService(log, openSnapshots());
+            assertThat(questionService.getQuestionById(1L).getReplies()).extracting(Reply::getAuthor).containsExactly("Jane", "Alice");
+            assertThat(questionService.getQuestionById(2L).getAuthor()).isEqualTo("Bob");
+            assertThat(questionService.addQuestion(Question.builder().author("Carol").message("Hey").build()).getId()).isEqualTo(3L);
+            assertThat(questionService.replyToQuestion(3L, Reply.builder().author("Dan").message("Hi").build()).getId()).isEqualTo(3L);
+        }
+
+    }
+
+    /**
+     * Given:
+     *      Threads replying to questions while snapshots are being written.
+     *
+     * When:
+     *      A new service is created from the same directories.
+     *
+     * Then:
+     *      No reply is lost or duplicated.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("replies written during snapshots | restart | every reply recovered once")
+    public void shouldRecoverEveryReplyWrittenDuringSnapshots() throws Exception {
+
+        int writers = 4;
+        int repliesPerWriter = 2_000;
+        try (WriteAheadLog log = openLog()) {
+            QuestionService questionService = new QuestionService(log, openSnapshots());
+            for(int i = 0; i < 10; i++)
+                questionService.addQuestion(Question.builder().author("John").message("Hello " + i).build());
+            ExecutorService executor = Executors.newFixedThreadPool(writers);
+            List<Future<?>> futures = new ArrayList<>();
+            for(int w = 0; w < writers; w++) {
+                futures.add(executor.submit(() -> {
+                    for(int i = 0; i < repliesPerWriter; i++)
+                        questionService.replyToQuestion(1L + i % 10, Reply.builder().author("Jane").message("Hi " + i).build());
+                }));
+            }
+            while(futures.stream().anyMatch(future -> !future.isDone()))
+                questionService.writeSnapshot();
+            for(Future<?> future : futures)
+                future.get();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+
+        try (WriteAheadLog log = openLog()) {
+            QuestionService questionService = new QuestionService(log, openSnapshots());
+            List<Long> replyIds = new ArrayList<>();
+            for(long questionId = 1; questionId <= 10; questionId++)
+                questionService.getQuestionById(questionId).getReplies().forEach(reply -> replyIds.add(reply.getId()));
+            assertThat(replyIds).hasSize(writers * repliesPerWriter).doesNotHaveDuplicates();
+        }
+
+    }
+
+    /**
+     * Given:
+     *      Two snapshots, the newest of which is corrupt.
+     *
+     * When:
+     *      A new service is created from the same directories.
+     *
+     * Then:
+     *      The older snapshot is loaded and the log replayed from it.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("newest snapshot corrupt | restart | older snapshot and log used")
+    public void shouldFallBackToOlderSnapshotWhenNewestIsCorrupt() throws Exception {
+
+        try (WriteAheadLog log = openLog()) {
+            QuestionService questionService = new QuestionService(log, openSnapshots());
+            questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+            questionService.writeSnapshot();
+            questionService.replyToQuestion(1L, Reply.builder().author("Jane").message("Hi").build());
+            questionService.writeSnapshot();
+        }
+        try (FileChannel channel = FileChannel.open(directory.resolve("snapshots").resolve(SnapshotStore.snapshotName(2)), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {42}), 20);
+        }
+
+        try (WriteAheadLog log = openLog()) {
+            QuestionService questionService = new QuestionService(log, openSnapshots());
+            assertThat(questionService.getQuestionById(1L).getReplies()).extracting(Reply::getAuthor).containsExactly("Jane");
+        }
+
+    }
+
+    /**
+     * Given:
+     *      A snapshot store whose first write at an lsn fails while iterating the questions.
+     *
+     * When:
+     *      The snapshot is written again at the same lsn.
+     *
+     * Then:
+     *      The failed write leaves no temporary file behind and the second write succeeds.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("snapshot write failing midway | write again at same lsn | no temporary file left and snapshot written")
+    public void shouldRetrySnapshotAtSameLsnWhenWriteFailed() throws Exception {
+
+        SnapshotStore snapshots = openSnapshots();
+        List<Question> questions = List.of(Question.builder().id(1L).author("John").message("Hello").replies(new ArrayList<>()).build());
+        Iterable<Question> failing = () -> {
+            throw new IllegalStateException("Datastore unavailable");
+        };
+
+        assertThatThrownBy(() -> snapshots.write(7, failing, () -> 1, () -> 0)).isInstanceOf(IllegalStateException.class);
+        assertThat(listFiles("snapshots")).isEmpty();
+
+        Path written = snapshots.write(7, questions, () -> 1, () -> 0);
+        assertThat(written.getFileName().toString()).isEqualTo(SnapshotStore.snapshotName(7));
+        assertThat(listFiles("snapshots")).containsExactly(SnapshotStore.snapshotName(7));
+
+    }
+
+    private WriteAheadLog openLog() throws IOException {
+        return WriteAheadLog.open(directory.resolve("wal"), DurabilityMode.BATCHED, 1, Duration.ofMillis(10));
+    }
+
+    private SnapshotStore openSnapshots() throws IOException {
+        return SnapshotStore.open(directory.resolve("snapshots"), 2);
+    }
+
+    private List<String> listFiles(String subdirectory) throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve(subdirectory))) {
+            return files.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+}
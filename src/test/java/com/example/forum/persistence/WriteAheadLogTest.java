@@ -0,0 +1,298 @@
+package com.example.forum.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.QuestionListener;
+import com.example.forum.service.QuestionService;
+
+public class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Given:
+     *      A service logging to a write-ahead log with questions and replies saved.
+     *
+     * When:
+     *      The log is closed and a new service is created from the same directory.
+     *
+     * Then:
+     *      The new service has the same questions and replies and continues both id sequences.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("questions and replies logged | restart | datastore and id trackers recovered")
+    public void shouldRecoverQuestionsRepliesAndIdsWhenRestarted() throws Exception {
+
+        for(DurabilityMode mode : DurabilityMode.values()) {
+            Path modeDirectory = directory.resolve(mode.name());
+            try (WriteAheadLog log = open(modeDirectory, mode)) {
+                QuestionService questionService = new QuestionService(log);
+                questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+                questionService.addQuestion(Question.builder().author("Jane").message("Olá").build());
+                questionService.replyToQuestion(1L, Reply.builder().author("Alice").message("Hi").build());
+                questionService.replyToQuestion(2L, Reply.builder().author("Bob").message("Howdy!").build());
+                questionService.replyToQuestion(1L, Reply.builder().author("Carol").message("Hey").build());
+            }
+
+            try (WriteAheadLog log = open(modeDirectory, mode)) {
+                QuestionService questionService = new QuestionService(log);
+                Question first = questionService.getQuestionById(1L);
+                assertThat(first.getAuthor()).isEqualTo("John");
+                assertThat(first.getReplies()).extracting(Reply::getId).containsExactly(1L, 3L);
+                assertThat(first.getReplies()).extracting(Reply::getAuthor).containsExactly("Alice", "Carol");
+                assertThat(questionService.getQuestionById(2L).getMessage()).isEqualTo("Olá");
+                assertThat(questionService.getQuestionById(2L).getReplies()).extracting(Reply::getQuestionId).containsExactly(2L);
+
+                assertThat(questionService.addQuestion(Question.builder().author("Dan").message("Yo").build()).getId()).isEqualTo(3L);
+                assertThat(questionService.replyToQuestion(3L, Reply.builder().author("Eve").message("Hi").build()).getId()).isEqualTo(4L);
+            }
+        }
+
+    }
+
+    /**
+     * Given:
+     *      A write-ahead log whose last record was only partially written by a crash.
+     *
+     * When:
+     *      The log is replayed.
+     *
+     * Then:
+     *      Every complete record is replayed, the torn record is dropped and appending continues after
+     *      the last complete record.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("torn record at end of log | replay | complete records recovered and tail truncated")
+    public void shouldTruncateTornTailWhenReplaying() throws Exception {
+
+        try (WriteAheadLog log = open(directory, DurabilityMode.PER_WRITE)) {
+            QuestionService questionService = new QuestionService(log);
+            questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+            questionService.replyToQuestion(1L, Reply.builder().author("Jane").message("Hi").build());
+        }
+        Path segment = directory.resolve(WriteAheadLog.segmentName(1));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 42, 1, 2, 3}));
+        }
+
+        try (WriteAheadLog log = open(directory, DurabilityMode.PER_WRITE)) {
+            QuestionService questionService = new QuestionService(log);
+            assertThat(log.lastLsn()).isEqualTo(2L);
+            assertThat(questionService.getQuestionById(1L).getReplies()).hasSize(1);
+            questionService.replyToQuestion(1L, Reply.builder().author("Alice").message("Howdy!").build());
+        }
+
+        try (WriteAheadLog log = open(directory, DurabilityMode.PER_WRITE)) {
+            QuestionService questionService = new QuestionService(log);
+            assertThat(log.lastLsn()).isEqualTo(3L);
+            assertThat(questionService.getQuestionById(1L).getReplies()).extracting(Reply::getAuthor).containsExactly("Jane", "Alice");
+        }
+
+    }
+
+    /**
+     * Given:
+     *      A write-ahead log with a segment size smaller than a record.
+     *
+     * When:
+     *      Several records are appended and the log is replayed.
+     *
+     * Then:
+     *      Every record is in its own segment and all of them are replayed in order.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("small segment size | append and replay | records spread over segments replayed in order")
+    public void shouldReplayRecordsSpreadOverSegments() throws Exception {
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory, DurabilityMode.BATCHED, 1, Duration.ofMillis(10))) {
+            QuestionService questionService = new QuestionService(log);
+            for(int i = 0; i < 5; i++)
+                questionService.addQuestion(Question.builder().author("John").message("Hello " + i).build());
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory, DurabilityMode.BATCHED, 1, Duration.ofMillis(10))) {
+            QuestionService questionService = new QuestionService(log);
+            assertThat(directory.resolve(WriteAheadLog.segmentName(5))).exists();
+            assertThat(questionService.getQuestionById(5L).getMessage()).isEqualTo("Hello 4");
+            assertThat(log.lastLsn()).isEqualTo(5L);
+        }
+
+    }
+
+    /**
+     * Given:
+     *      A write-ahead log flushing every write, with a segment size smaller than a record so that every
+     *      flush starts a new segment.
+     *
+     * When:
+     *      A batch of questions and a batch of replies are saved and the log is replayed.
+     *
+     * Then:
+     *      Each batch is flushed once, into a single segment, and every question and reply is recovered with
+     *      consecutive ids.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("batches of questions and replies | save and replay | one flush per batch and batches recovered")
+    public void shouldFlushEachBatchOnceWhenSavingBatches() throws Exception {
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory, DurabilityMode.PER_WRITE, 1, Duration.ofMillis(10))) {
+            QuestionService questionService = new QuestionService(log);
+            questionService.addQuestions(Arrays.asList(
+                    Question.builder().author("John").message("Hello").build(),
+                    Question.builder().author("Jane").message("Hi").build(),
+                    Question.builder().author("Dan").message("Yo").build()));
+            questionService.addReplies(2L, Arrays.asList(
+                    Reply.builder().author("Alice").message("First").build(),
+                    Reply.builder().author("Bob").message("Second").build()));
+        }
+        assertThat(directory.resolve(WriteAheadLog.segmentName(1))).exists();
+        assertThat(directory.resolve(WriteAheadLog.segmentName(2))).doesNotExist();
+        assertThat(directory.resolve(WriteAheadLog.segmentName(4))).exists();
+        assertThat(directory.resolve(WriteAheadLog.segmentName(5))).doesNotExist();
+
+        try (WriteAheadLog log = open(directory, DurabilityMode.PER_WRITE)) {
+            QuestionService questionService = new QuestionService(log);
+            assertThat(questionService.getQuestions(null, 10).getItems()).extracting(Question::getAuthor).containsExactly("John", "Jane", "Dan");
+            assertThat(questionService.getQuestionById(2L).getReplies()).extracting(Reply::getId).containsExactly(1L, 2L);
+            assertThat(questionService.getQuestionById(2L).getReplies()).extracting(Reply::getMessage).containsExactly("First", "Second");
+            assertThat(log.lastLsn()).isEqualTo(5L);
+        }
+
+    }
+
+    /**
+     * Given:
+     *      A write-ahead log flushing asynchronously every millisecond.
+     *
+     * When:
+     *      Batches of questions are appended and the log is closed while the background flush is busy writing
+     *      them, again and again.
+     *
+     * Then:
+     *      Closing waits for the background flush instead of interrupting it, and every question is replayed.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("async log flushing every millisecond | close while flushing | every record replayed")
+    public void shouldFlushEveryRecordWhenClosedDuringBackgroundFlush() throws Exception {
+
+        List<Question> questions = new ArrayList<>();
+        long id = 0;
+        for(int round = 0; round < 20; round++) {
+            try (WriteAheadLog log = WriteAheadLog.open(directory, DurabilityMode.ASYNC, 1 << 20, Duration.ofMillis(1))) {
+                log.replay(0, new WriteAheadLog.RecordHandler() {
+
+                    @Override
+                    public void onQuestion(long lsn, Question question) {
+                    }
+
+                    @Override
+                    public void onReply(long lsn, Reply reply) {
+                    }
+                });
+                for(int batch = 0; batch < 50; batch++) {
+                    questions.clear();
+                    for(int i = 0; i < 100; i++)
+                        questions.add(Question.builder().id(++id).author("John").message("Hello " + id).build());
+                    log.appendQuestions(questions);
+                }
+            }
+        }
+
+        try (WriteAheadLog log = open(directory, DurabilityMode.ASYNC)) {
+            QuestionService questionService = new QuestionService(log);
+            assertThat(log.lastLsn()).isEqualTo(id);
+            assertThat(questionService.getQuestionById(id).getMessage()).isEqualTo("Hello " + id);
+        }
+
+    }
+
+    /**
+     * Given:
+     *      For each kind of save, a service with a question, logging every flush to its own segment, whose log
+     *      can't start the next segment since a file of that name is in the way.
+     *
+     * When:
+     *      A question, a batch of questions, a reply or a batch of replies is saved.
+     *
+     * Then:
+     *      The save fails, and isn't visible in the datastore, its version or to listeners, since nothing is
+     *      added before it is synced.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("log failing to sync | save questions or replies | save fails and doesn't become visible")
+    public void shouldNotPublishWritesWhichFailedToSync() throws Exception {
+
+        List<Consumer<QuestionService>> saves = Arrays.asList(
+                questionService -> questionService.addQuestion(Question.builder().author("John").message("Lost").build()),
+                questionService -> questionService.addQuestions(Arrays.asList(Question.builder().author("John").message("Lost").build())),
+                questionService -> questionService.replyToQuestion(1L, Reply.builder().author("Jane").message("Lost").build()),
+                questionService -> questionService.addReplies(1L, Arrays.asList(Reply.builder().author("Jane").message("Lost").build())));
+        for(int i = 0; i < saves.size(); i++) {
+            Path logDirectory = directory.resolve("wal" + i);
+            try (WriteAheadLog log = WriteAheadLog.open(logDirectory, DurabilityMode.BATCHED, 1, Duration.ofMillis(10))) {
+                List<Long> told = new ArrayList<>();
+                QuestionService questionService = new QuestionService(log, null, Arrays.asList(new QuestionListener() {
+
+                    @Override
+                    public void questionAdded(Question question) {
+                        told.add(question.getId());
+                    }
+
+                    @Override
+                    public void replyAdded(Question question, Reply reply) {
+                        told.add(-reply.getId());
+                    }
+                }));
+                questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+                Files.createFile(logDirectory.resolve(WriteAheadLog.segmentName(2)));
+
+                Consumer<QuestionService> save = saves.get(i);
+                assertThatThrownBy(() -> save.accept(questionService)).isInstanceOf(UncheckedIOException.class);
+
+                assertThat(questionService.getQuestions(null, 10).getItems()).extracting(Question::getMessage).containsExactly("Hello");
+                assertThat(questionService.getQuestionById(1L).getReplies()).isEmpty();
+                assertThat(questionService.getStoreVersion()).isEqualTo(1);
+                assertThat(told).containsExactly(1L);
+            }
+        }
+
+    }
+
+    private static WriteAheadLog open(Path directory, DurabilityMode mode) throws IOException {
+        return WriteAheadLog.open(directory, mode, 1 << 20, Duration.ofMillis(10));
+    }
+
+}
@@ -0,0 +1,194 @@
+package com.example.forum.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.service.QuestionService;
+
+public class SearchIndexTest {
+
+    private SearchIndex searchIndex = new SearchIndex();
+
+    private QuestionService questionService = new QuestionService(null, null, Arrays.asList(searchIndex));
+
+    /**
+     * Given:
+     *      Questions mentioning two words, one of them mentioning both and another one mentioning one of
+     *      them several times.
+     *
+     * When:
+     *      The words are searched for.
+     *
+     * Then:
+     *      Only threads containing one of the words are returned, the one containing both first, then the
+     *      one repeating a word, regardless of case and punctuation.
+     */
+    @Test
+    @DisplayName("questions with rare and common words | search | ranked by BM25")
+    public void shouldRankThreadsByBm25WhenSearching() {
+
+        ask("John", "How do I configure the garbage collector?");
+        ask("Jane", "The JVM garbage collector, G1 or ZGC? Which garbage collector pauses least?");
+        ask("Dan", "How do I configure logging?");
+        ask("Eve", "Unrelated thread about cooking");
+
+        List<SearchResult> results = searchIndex.search("Garbage CONFIGURE", 10).getResults();
+
+        assertThat(results).extracting(SearchResult::getQuestionId).containsExactly(1L, 2L, 3L);
+        assertThat(searchIndex.search("garbage", 10).getResults()).extracting(SearchResult::getQuestionId).containsExactly(2L, 1L);
+        assertThat(results).extracting(SearchResult::getScore).isSortedAccordingTo((a, b) -> Float.compare(b, a));
+        assertThat(searchIndex.search("cooking", 10).getResults()).extracting(SearchResult::getQuestionId).containsExactly(4L);
+        assertThat(searchIndex.search("jane", 10).getResults()).extracting(SearchResult::getQuestionId).containsExactly(2L);
+        assertThat(searchIndex.search("nothing matches", 10).getResults()).isEmpty();
+
+    }
+
+    /**
+     * Given:
+     *      Threads whose replies, but not questions, contain a word, one of them several times.
+     *
+     * When:
+     *      The word is searched for with a limit of one thread.
+     *
+     * Then:
+     *      The thread of the best matching reply is returned once.
+     */
+    @Test
+    @DisplayName("replies containing a word | search with limit | thread of best reply returned once")
+    public void shouldReturnThreadOfMatchingRepliesOnceWhenSearching() {
+
+        Question first = ask("John", "Hello");
+        Question second = ask("Jane", "Hi");
+        questionService.replyToQuestion(first.getId(), Reply.builder().author("Alice").message("Try restarting it, a long message about other things entirely").build());
+        questionService.replyToQuestion(second.getId(), Reply.builder().author("Bob").message("Restarting fixed it").build());
+        questionService.replyToQuestion(second.getId(), Reply.builder().author("Carol").message("Restarting, restarting").build());
+
+        List<SearchResult> results = searchIndex.search("restarting", 1).getResults();
+
+        assertThat(results).extracting(SearchResult::getQuestionId).containsExactly(second.getId());
+        assertThat(searchIndex.search("restarting", 10).getResults()).extracting(SearchResult::getQuestionId).containsExactly(second.getId(), first.getId());
+        assertThat(searchIndex.getDocumentCount()).isEqualTo(5);
+
+    }
+
+    /**
+     * Given:
+     *      Several threads adding questions with a common word while another thread searches for it.
+     *
+     * When:
+     *      Every writer is done.
+     *
+     * Then:
+     *      Searches never fail while writing and the last one finds every question.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("concurrent writers | search while indexing | every question found")
+    public void shouldFindEveryQuestionWhenSearchingWhileIndexing() throws Exception {
+
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[4];
+            for(int w = 0; w < futures.length; w++) {
+                futures[w] = writers.submit(() -> {
+                    for(int i = 0; i < 2000; i++)
+                        ask("John", "common word " + i);
+                });
+            }
+            for(Future<?> future : futures) {
+                while(!future.isDone())
+                    assertThat(searchIndex.search("common", 10).getResults()).hasSizeLessThanOrEqualTo(10);
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+
+        assertThat(searchIndex.search("common", 100).getResults()).hasSize(100);
+        assertThat(searchIndex.search("word 1999", 8000).getResults()).hasSize(8000);
+        assertThat(searchIndex.getDocumentCount()).isEqualTo(8000);
+
+    }
+
+    /**
+     * Given:
+     *      Thousands of questions of words drawn from a small vocabulary, each word in many blocks of postings.
+     *
+     * When:
+     *      Words are searched for with a limit of ten threads, skipping the documents which can't make it.
+     *
+     * Then:
+     *      The same threads are returned with the same scores as when scoring every matching document.
+     */
+    @Test
+    @DisplayName("thousands of questions | search with small limit | same results as scoring every document")
+    public void shouldReturnSameResultsAsExhaustiveSearchWhenSkippingDocuments() {
+
+        Random random = new Random(42);
+        for(int i = 0; i < 5000; i++) {
+            StringBuilder message = new StringBuilder();
+            for(int w = 0, words = 1 + random.nextInt(20); w < words; w++)
+                message.append(" w").append(random.nextInt(1 + random.nextInt(50)));
+            ask("user" + random.nextInt(100), message.toString());
+        }
+
+        for(String query : Arrays.asList("w0", "w0 w1", "w3 w17 w42", "w1 user7", "w49 w0 w2 w5")) {
+            List<SearchResult> exhaustive = searchIndex.search(query, 5000).getResults();
+            assertThat(searchIndex.search(query, 10).getResults()).as(query)
+                    .usingRecursiveFieldByFieldElementComparatorOnFields("questionId", "score")
+                    .containsExactlyElementsOf(exhaustive.subList(0, 10));
+        }
+
+    }
+
+    /**
+     * Given:
+     *      An index of 100 questions, all containing a common word, the first one repeating it, and a budget of
+     *      20 postings per query.
+     *
+     * When:
+     *      The common word, then a word of the first question only, are searched for.
+     *
+     * Then:
+     *      The common word is searched for in the newest questions until the budget is spent, missing the
+     *      best match, and the query is marked and counted as truncated, while the rare word is found in the
+     *      first one and its results are exact.
+     */
+    @Test
+    @DisplayName("budget of 20 postings | search of word in 100 questions, then rare word | newest searched, rare found")
+    public void shouldSearchNewestDocumentsOnlyWhenPostingsExceedBudget() {
+
+        SearchIndex budgetedIndex = new SearchIndex(20);
+        budgetedIndex.questionAdded(Question.builder().id(1L).author("John").message("common common common rare").build());
+        for(long id = 2; id <= 100; id++)
+            budgetedIndex.questionAdded(Question.builder().id(id).author("John").message("common and more").build());
+
+        SearchResults common = budgetedIndex.search("common", 100);
+        SearchResults rare = budgetedIndex.search("rare", 10);
+
+        assertThat(common.getResults()).isNotEmpty().extracting(SearchResult::getQuestionId).allMatch(id -> id > 80);
+        assertThat(common.isTruncated()).isTrue();
+        assertThat(rare.getResults()).extracting(SearchResult::getQuestionId).containsExactly(1L);
+        assertThat(rare.isTruncated()).isFalse();
+        assertThat(budgetedIndex.getTruncatedQueryCount()).isEqualTo(1);
+
+    }
+
+    private Question ask(String author, String message) {
+        return questionService.addQuestion(Question.builder().author(author).message(message).build());
+    }
+
+}
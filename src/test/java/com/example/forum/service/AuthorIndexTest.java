@@ -0,0 +1,123 @@
+package com.example.forum.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.forum.model.CursorPage;
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.persistence.DurabilityMode;
+import com.example.forum.persistence.WriteAheadLog;
+
+public class AuthorIndexTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Given:
+     *      Several threads adding questions and replies of the same authors at the same time.
+     *
+     * When:
+     *      Every writer is done and the questions of an author are paged through.
+     *
+     * Then:
+     *      Every question of the author is listed once, in ascending id order.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("concurrent writers | page through an author's questions | every question once in id order")
+    public void shouldListEveryQuestionInIdOrderWhenWrittenConcurrently() throws Exception {
+
+        AuthorIndex authorIndex = new AuthorIndex();
+        QuestionService questionService = new QuestionService(null, null, Arrays.asList(authorIndex));
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[4];
+            for(int w = 0; w < futures.length; w++) {
+                String author = w % 2 == 0 ? "John" : "Jane";
+                futures[w] = writers.submit(() -> {
+                    for(int i = 0; i < 1000; i++) {
+                        Question question = questionService.addQuestion(Question.builder().author(author).message("Hello " + i).build());
+                        questionService.replyToQuestion(question.getId(), Reply.builder().author("Alice").message("Hi").build());
+                    }
+                });
+            }
+            for(Future<?> future : futures)
+                future.get(30, TimeUnit.SECONDS);
+        } finally {
+            writers.shutdownNow();
+        }
+
+        long seen = 0;
+        long last = 0;
+        Long after = null;
+        do {
+            CursorPage<Long> page = authorIndex.getQuestionIds("John", after, 128);
+            for(Long id : page.getItems()) {
+                assertThat(questionService.getQuestionById(id).getAuthor()).isEqualTo("John");
+                assertThat(id).isGreaterThan(last);
+                last = id;
+                seen++;
+            }
+            after = page.getNextAfter();
+        } while(after != null);
+        assertThat(seen).isEqualTo(2000);
+        assertThat(authorIndex.getReplies("Alice", null, 5000).getItems()).hasSize(4000);
+
+    }
+
+    /**
+     * Given:
+     *      Questions and replies saved to a write-ahead log.
+     *
+     * When:
+     *      A new service with an empty index recovers from the log.
+     *
+     * Then:
+     *      The index lists the recovered questions and replies of every author.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("logged questions and replies | recovery | index rebuilt")
+    public void shouldRebuildIndexWhenRecovering() throws Exception {
+
+        try (WriteAheadLog log = openLog()) {
+            QuestionService questionService = new QuestionService(log);
+            Question question = questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+            questionService.replyToQuestion(question.getId(), Reply.builder().author("Alice").message("Hey").build());
+            questionService.addQuestion(Question.builder().author("Jane").message("Hi").build());
+        }
+
+        AuthorIndex authorIndex = new AuthorIndex();
+        try (WriteAheadLog log = openLog()) {
+            QuestionService questionService = new QuestionService(log, null, Arrays.asList(authorIndex));
+            List<Long> ids = authorIndex.getQuestionIds("John", null, 10).getItems();
+            assertThat(ids).hasSize(1);
+            assertThat(questionService.getQuestionById(ids.get(0)).getMessage()).isEqualTo("Hello");
+        }
+
+        assertThat(authorIndex.getReplies("Alice", null, 10).getItems()).extracting(Reply::getMessage).containsExactly("Hey");
+        assertThat(authorIndex.getQuestionIds("Alice", null, 10).getItems()).isEmpty();
+
+    }
+
+    private WriteAheadLog openLog() throws Exception {
+        return WriteAheadLog.open(directory, DurabilityMode.BATCHED, 1, Duration.ofMillis(10));
+    }
+
+}
@@ -0,0 +1,266 @@
+package com.example.forum.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.forum.metrics.CacheMetrics;
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class CachingQuestionStoreTest {
+
+    private static final int READERS = 16;
+
+    private ExecutorService executor = Executors.newFixedThreadPool(READERS);
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Given:
+     *      A cache in front of a store whose reads of a question block until released.
+     *
+     * When:
+     *      Many threads read the same question, which isn't cached, at once.
+     *
+     * Then:
+     *      The store is read once, every thread gets the question it read
+     *      and the following reads are hits.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("cold question | concurrent reads | single read of the store")
+    public void shouldLoadColdQuestionOnce() throws Exception {
+
+        SlowStore store = new SlowStore();
+        store.add(question(1));
+        CachingQuestionStore cache = new CachingQuestionStore(store, 100);
+        store.release = new CountDownLatch(1);
+
+        List<Future<Question>> readers = new ArrayList<>();
+        for(int i = 0; i < READERS; i++)
+            readers.add(executor.submit(() -> cache.get(1)));
+        assertThat(store.reading.await(10, TimeUnit.SECONDS)).isTrue();
+        while(cache.getMissCount() < READERS)
+            Thread.sleep(1);
+        store.release.countDown();
+
+        Question loaded = readers.get(0).get(10, TimeUnit.SECONDS);
+        for(Future<Question> reader : readers)
+            assertThat(reader.get(10, TimeUnit.SECONDS)).isSameAs(loaded);
+        assertThat(cache.get(1)).isSameAs(loaded);
+        assertThat(store.reads.get()).isEqualTo(1);
+        assertThat(cache.getLoadCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getHitRatio()).isEqualTo(1.0 / (READERS + 1));
+
+    }
+
+    /**
+     * Given:
+     *      A cached question.
+     *
+     * When:
+     *      A reply is added to the cached question, then to a copy of it read from the store.
+     *
+     * Then:
+     *      The first reply is written through to the cached question, which stays cached.
+     *      The second one drops the cached question, whose next read has both replies.
+     */
+    @Test
+    @DisplayName("cached question | replies to it and to a copy | cached question kept up to date or dropped")
+    public void shouldKeepRepliedQuestionsUpToDate() {
+
+        SlowStore store = new SlowStore();
+        CachingQuestionStore cache = new CachingQuestionStore(store, 100);
+        cache.add(question(1));
+        Question cached = cache.get(1);
+        assertThat(store.reads.get()).isEqualTo(0);
+
+        cache.addReply(cached, () -> reply(1, 1));
+        assertThat(cache.get(1)).isSameAs(cached);
+        assertThat(cached.getReplies()).extracting(Reply::getId).containsExactly(1L);
+
+        cache.addReply(store.get(1), () -> reply(1, 2));
+        Question reloaded = cache.get(1);
+        assertThat(reloaded).isNotSameAs(cached);
+        assertThat(reloaded.getReplies()).extracting(Reply::getId).containsExactly(1L, 2L);
+        assertThat(cache.getLoadCount()).isEqualTo(1);
+
+    }
+
+    /**
+     * Given:
+     *      A cache of 10 questions in a single segment, where 2 questions were read twice.
+     *
+     * When:
+     *      100 other questions are read once each.
+     *
+     * Then:
+     *      The 2 questions read twice are still cached and only 10 questions are.
+     */
+    @Test
+    @DisplayName("questions read twice | scan of other questions | questions read twice kept")
+    public void shouldKeepFrequentlyReadQuestionsDuringScans() {
+
+        SlowStore store = new SlowStore();
+        for(long id = 1; id <= 102; id++)
+            store.add(question(id));
+        CachingQuestionStore cache = new CachingQuestionStore(store, 10, 1);
+        for(long id = 1; id <= 2; id++) {
+            cache.get(id);
+            cache.get(id);
+        }
+
+        for(long id = 3; id <= 102; id++)
+            cache.get(id);
+        int reads = store.reads.get();
+        cache.get(1);
+        cache.get(2);
+
+        assertThat(store.reads.get()).isEqualTo(reads);
+        assertThat(cache.getEntryCount()).isEqualTo(10);
+        assertThat(cache.getEvictionCount()).isEqualTo(92);
+
+    }
+
+    /**
+     * Given:
+     *      A cache of a single question with its meters bound to a registry.
+     *
+     * When:
+     *      A question is read twice, then another one once.
+     *
+     * Then:
+     *      The registry has the hits and misses, the hit ratio, both loads, the eviction and the cache size.
+     */
+    @Test
+    @DisplayName("cache of one question | reads | hits, misses, loads, evictions and size metered")
+    public void shouldMeterReadsOfCache() {
+
+        SlowStore store = new SlowStore();
+        store.add(question(1));
+        store.add(question(2));
+        CachingQuestionStore cache = new CachingQuestionStore(store, 1, 1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new CacheMetrics(cache).bindTo(registry);
+
+        cache.get(1);
+        cache.get(1);
+        cache.get(2);
+
+        assertThat(registry.get("forum.cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("forum.cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("forum.cache.hit.ratio").gauge().value()).isEqualTo(1.0 / 3);
+        assertThat(registry.get("forum.cache.loads").functionTimer().count()).isEqualTo(2);
+        assertThat(registry.get("forum.cache.loads").functionTimer().totalTime(TimeUnit.NANOSECONDS)).isPositive();
+        assertThat(registry.get("forum.cache.evictions").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("forum.cache.size").gauge().value()).isEqualTo(1);
+
+    }
+
+    private static Question question(long id) {
+        return Question.builder().id(id).author("author").message("message " + id).replies(new ReplyLog()).build();
+    }
+
+    private static Reply reply(long questionId, long id) {
+        return Reply.builder().id(id).questionId(questionId).author("author").message("reply " + id).build();
+    }
+
+    /**
+     * Durable store returning a new copy of a question on every read, like a database, counting the reads
+     * and blocking them until release is counted down when set.
+     */
+    private static final class SlowStore implements DurableQuestionStore {
+
+        private final ArrayQuestionStore questions = new ArrayQuestionStore();
+
+        private final AtomicInteger reads = new AtomicInteger();
+
+        private final CountDownLatch reading = new CountDownLatch(1);
+
+        private volatile CountDownLatch release;
+
+        @Override
+        public IdSequence questionIds() {
+            return new AtomicIdSequence();
+        }
+
+        @Override
+        public IdSequence replyIds() {
+            return new AtomicIdSequence();
+        }
+
+        @Override
+        public Question get(long questionId) {
+            reads.incrementAndGet();
+            reading.countDown();
+            try {
+                if(release != null)
+                    release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Question saved = questions.get(questionId);
+            if(saved == null)
+                return null;
+            ReplyLog replies = new ReplyLog();
+            replies.appendAll(((ReplyLog) saved.getReplies())::snapshot);
+            return Question.builder().id(questionId).author(saved.getAuthor()).message(saved.getMessage()).replies(replies).build();
+        }
+
+        @Override
+        public boolean add(Question question) {
+            ReplyLog replies = new ReplyLog();
+            replies.appendAll(((ReplyLog) question.getReplies())::snapshot);
+            return questions.add(Question.builder().id(question.getId()).author(question.getAuthor()).message(question.getMessage()).replies(replies).build());
+        }
+
+        @Override
+        public List<Reply> addReplies(Question question, Supplier<List<Reply>> factory) {
+            return ((ReplyLog) question.getReplies()).appendAll(() -> {
+                List<Reply> replies = factory.get();
+                ((ReplyLog) questions.get(question.getId()).getReplies()).appendAll(() -> replies);
+                return replies;
+            });
+        }
+
+        @Override
+        public Reply addReply(Question question, Supplier<Reply> factory) {
+            return addReplies(question, () -> Collections.singletonList(factory.get())).get(0);
+        }
+
+        @Override
+        public Iterator<Question> iterator(long afterId) {
+            return questions.iterator(afterId);
+        }
+
+        @Override
+        public long size() {
+            return questions.size();
+        }
+
+    }
+
+}
@@ -0,0 +1,188 @@
+package com.example.forum.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import com.example.forum.model.CursorPage;
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+
+public class JpaQuestionStoreTest {
+
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        entityManagerFactory = open("jdbc:h2:mem:" + UUID.randomUUID(), null);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    /**
+     * Given:
+     *      A service saving to the database, with questions, replies and batches of both.
+     *
+     * When:
+     *      A new service is created on the same database, as after a restart, and saves more questions.
+     *
+     * Then:
+     *      Questions are read back in id order with their replies, the listeners are told about them
+     *      and new ids follow the ones in use.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("JPA store | service restarted on the same database | questions and replies kept")
+    public void shouldKeepQuestionsAndRepliesAcrossRestarts() throws Exception {
+
+        QuestionService questionService = new QuestionService(new JpaQuestionStore(entityManagerFactory), null, null, null);
+        Question first = questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+        questionService.replyToQuestion(first.getId(), Reply.builder().author("Jane").message("Hi").build());
+        questionService.addReplies(first.getId(), Arrays.asList(
+                Reply.builder().author("Alice").message("Hey").build(),
+                Reply.builder().author("Bob").message("Howdy").build()));
+        List<Question> batch = questionService.addQuestions(Arrays.asList(
+                Question.builder().author("Jane").message("Second").build(),
+                Question.builder().author("Bob").message("Third").build()));
+
+        AuthorIndex authorIndex = new AuthorIndex();
+        QuestionService restarted = new QuestionService(new JpaQuestionStore(entityManagerFactory), null, null, Arrays.asList(authorIndex));
+        CursorPage<Question> page = restarted.getQuestions(null, 10);
+        assertThat(page.getItems()).extracting(Question::getMessage).containsExactly("Hello", "Second", "Third");
+        assertThat(page.getItems().get(0).getReplies()).extracting(Reply::getMessage).containsExactly("Hi", "Hey", "Howdy");
+        assertThat(restarted.getReplies(first.getId(), 1L, 1).getItems()).extracting(Reply::getMessage).containsExactly("Hey");
+        assertThat(restarted.getStoreVersion()).isEqualTo(6);
+        assertThat(authorIndex.getReplies("Bob", null, 10).getItems()).extracting(Reply::getMessage).containsExactly("Howdy");
+
+        Question next = restarted.addQuestion(Question.builder().author("John").message("Again").build());
+        assertThat(next.getId()).isGreaterThan(batch.get(1).getId());
+        assertThat(restarted.getQuestionById(next.getId()).getMessage()).isEqualTo("Again");
+
+    }
+
+    /**
+     * Given:
+     *      A database holding questions with many replies each.
+     *
+     * When:
+     *      A question and a page of questions are read, and a batch of replies is saved.
+     *
+     * Then:
+     *      A question is read with its replies by one statement, a page by two, and the batch is inserted
+     *      in JDBC batches rather than by one statement per reply.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("JPA store | reads and batch writes | no statement per reply")
+    public void shouldReadThreadsInOneQueryAndWriteInBatches() throws Exception {
+
+        QuestionService questionService = new QuestionService(new JpaQuestionStore(entityManagerFactory), null, null, null);
+        List<Question> questions = new ArrayList<>();
+        for(int q = 0; q < 150; q++)
+            questions.add(Question.builder().author("John").message("Question " + q).build());
+        for(Question question : questionService.addQuestions(questions)) {
+            List<Reply> replies = new ArrayList<>();
+            for(int r = 0; r < 10; r++)
+                replies.add(Reply.builder().author("Jane").message("Reply " + r).build());
+            questionService.addReplies(question.getId(), replies);
+        }
+
+        statistics.clear();
+        Question question = questionService.getQuestionById(75L);
+        assertThat(question.getReplies()).hasSize(10);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        statistics.clear();
+        CursorPage<Question> page = questionService.getQuestions(0L, 100);
+        assertThat(page.getItems()).hasSize(100);
+        assertThat(page.getItems()).allSatisfy(item -> assertThat(item.getReplies()).hasSize(10));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        List<Reply> replies = new ArrayList<>();
+        for(int r = 0; r < 1000; r++)
+            replies.add(Reply.builder().author("Bob").message("Batch " + r).build());
+        statistics.clear();
+        questionService.addReplies(question.getId(), replies);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1000);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(100);
+        assertThat(questionService.getQuestionById(question.getId()).getReplies()).hasSize(1010);
+
+    }
+
+    /**
+     * Given:
+     *      A database in PostgreSQL mode used through the PostgreSQL dialect of Hibernate, whose sequences
+     *      are created and read with other statements than those of H2.
+     *
+     * When:
+     *      Questions and a reply are saved, then a new store is created on the same database, as after a
+     *      restart, and saves another question.
+     *
+     * Then:
+     *      The sequences are created once and the ids of the new question follow the ones in use.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("JPA store on PostgreSQL dialect | save and restart | sequences created and read through the dialect")
+    public void shouldUseSequencesOfDialect() throws Exception {
+
+        EntityManagerFactory postgres = open("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE", "org.hibernate.dialect.PostgreSQLDialect");
+        try {
+            QuestionService questionService = new QuestionService(new JpaQuestionStore(postgres), null, null, null);
+            Question first = questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+            questionService.replyToQuestion(first.getId(), Reply.builder().author("Jane").message("Hi").build());
+
+            QuestionService restarted = new QuestionService(new JpaQuestionStore(postgres), null, null, null);
+            Question next = restarted.addQuestion(Question.builder().author("John").message("Again").build());
+            assertThat(next.getId()).isGreaterThan(first.getId());
+            assertThat(restarted.getQuestionById(first.getId()).getReplies()).extracting(Reply::getMessage).containsExactly("Hi");
+        } finally {
+            postgres.close();
+        }
+
+    }
+
+    private static EntityManagerFactory open(String url, String dialect) {
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(new SingleConnectionDataSource(url, true));
+        factory.setPackagesToScan("com.example.forum.persistence");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        Properties properties = new Properties();
+        properties.setProperty("hibernate.hbm2ddl.auto", "create");
+        properties.setProperty("hibernate.jdbc.batch_size", "50");
+        properties.setProperty("hibernate.order_inserts", "true");
+        properties.setProperty("hibernate.generate_statistics", "true");
+        properties.setProperty("hibernate.session.events.log", "false");
+        if(dialect != null)
+            properties.setProperty("hibernate.dialect", dialect);
+        factory.setJpaProperties(properties);
+        factory.afterPropertiesSet();
+        return factory.getObject();
+    }
+
+}
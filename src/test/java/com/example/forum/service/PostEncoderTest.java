@@ -0,0 +1,155 @@
+package com.example.forum.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.persistence.DurabilityMode;
+import com.example.forum.persistence.WriteAheadLog;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class PostEncoderTest {
+
+    private static final int THREADS = 8;
+
+    private static final int AUTHORS = 5_000;
+
+    private ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Given:
+     *      A service keeping compact messages.
+     *
+     * When:
+     *      Questions and replies with multi-byte characters are saved by authors whose names are separate
+     *      strings in every request.
+     *
+     * Then:
+     *      All the posts of an author share one name, and messages are read and serialized as they were saved, in the usual field order.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("compact messages | posts of the same author | author shared and message unchanged")
+    public void shouldShareAuthorsAndDecodeMessages() throws Exception {
+
+        QuestionService questionService = new QuestionService(null, new PostEncoder(new AuthorDictionary(), true), null, null, null);
+        Question question = questionService.addQuestion(Question.builder().author(new String("Jöhn")).message("Grüße, 世界").build());
+        Reply reply = questionService.replyToQuestion(question.getId(), Reply.builder().author(new String("Jöhn")).message("€ 5").build());
+        List<Reply> replies = questionService.addReplies(question.getId(), Arrays.asList(
+                Reply.builder().author(new String("Jöhn")).message("Hi").build()));
+
+        assertThat(reply.getAuthor()).isSameAs(question.getAuthor());
+        assertThat(replies.get(0).getAuthor()).isSameAs(question.getAuthor());
+        assertThat(reply.getQuestionId()).isSameAs(question.getId());
+        String serialized = objectMapper.writeValueAsString(questionService.getQuestionById(question.getId()));
+        assertThat(serialized).startsWith("{\"id\":1,\"author\":\"Jöhn\",\"message\":").contains("{\"id\":1,\"author\":\"Jöhn\",\"message\":\"€ 5\",\"questionId\":1}");
+        JsonNode json = objectMapper.readTree(serialized);
+        assertThat(json.get("author").asText()).isEqualTo("Jöhn");
+        assertThat(json.get("message").asText()).isEqualTo("Grüße, 世界");
+        assertThat(json.get("replies").get(0).get("message").asText()).isEqualTo("€ 5");
+        assertThat(json.get("replies").get(1).get("questionId").asLong()).isEqualTo(question.getId());
+
+    }
+
+    /**
+     * Given:
+     *      A write-ahead log holding questions and replies of the same author.
+     *
+     * When:
+     *      A service keeping compact messages is recovered from it.
+     *
+     * Then:
+     *      The recovered posts share the name of their author and keep their messages.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("compact messages | service recovered from log | authors shared and messages restored")
+    public void shouldEncodeRecoveredPosts() throws Exception {
+
+        Path logDirectory = directory.resolve("wal");
+        try (WriteAheadLog log = WriteAheadLog.open(logDirectory, DurabilityMode.BATCHED, 1, Duration.ofMillis(10))) {
+            QuestionService questionService = new QuestionService(log);
+            Question question = questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+            questionService.replyToQuestion(question.getId(), Reply.builder().author("John").message("Anyone?").build());
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(logDirectory, DurabilityMode.BATCHED, 1, Duration.ofMillis(10))) {
+            QuestionService questionService = new QuestionService(null, new PostEncoder(new AuthorDictionary(), true), log, null, null);
+            Question question = questionService.getQuestionById(1L);
+            assertThat(question.getMessage()).isEqualTo("Hello");
+            assertThat(question.getReplies()).extracting(Reply::getMessage).containsExactly("Anyone?");
+            assertThat(question.getReplies().get(0).getAuthor()).isSameAs(question.getAuthor());
+        }
+
+    }
+
+    /**
+     * Given:
+     *      An empty author dictionary.
+     *
+     * When:
+     *      Many threads look up the ids of the same authors at the same time.
+     *
+     * Then:
+     *      Every author gets a single id, which resolves back to its name.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("author dictionary | concurrent lookups of the same authors | one id per author")
+    public void shouldGiveOneIdPerAuthorWhenLookedUpConcurrently() throws Exception {
+
+        AuthorDictionary dictionary = new AuthorDictionary();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<int[]>> lookups = new ArrayList<>();
+        for(int t = 0; t < THREADS; t++) {
+            lookups.add(executor.submit(() -> {
+                start.await();
+                int[] ids = new int[AUTHORS];
+                for(int a = 0; a < AUTHORS; a++)
+                    ids[a] = dictionary.idOf("author-" + a);
+                return ids;
+            }));
+        }
+        start.countDown();
+
+        int[] ids = lookups.get(0).get(30, TimeUnit.SECONDS);
+        for(Future<int[]> lookup : lookups)
+            assertThat(lookup.get(30, TimeUnit.SECONDS)).containsExactly(ids);
+        for(int a = 0; a < AUTHORS; a++)
+            assertThat(dictionary.authorOf(ids[a])).isEqualTo("author-" + a);
+        assertThat(dictionary.getAuthorCount()).isEqualTo(AUTHORS);
+
+    }
+
+}
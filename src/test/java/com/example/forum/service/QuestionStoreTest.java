@@ -0,0 +1,484 @@
+package com.example.forum.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.forum.model.CursorPage;
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.persistence.DurabilityMode;
+import com.example.forum.persistence.WriteAheadLog;
+
+public class QuestionStoreTest {
+
+    private static final int WRITERS = 8;
+
+    private static final int QUESTIONS_PER_WRITER = 5_000;
+
+    private ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Given:
+     *      Every kind of question store.
+     *
+     * When:
+     *      Many threads add questions with interleaved ids, some of them twice,
+     *      while another thread keeps iterating over the store.
+     *
+     * Then:
+     *      Only the first question added with an id is kept, every question can be read by id
+     *      and iterating returns them all in ascending id order.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("every store | concurrent adds and iterations | questions kept once and iterated in id order")
+    public void shouldKeepQuestionsAddedConcurrentlyInIdOrder() throws Exception {
+
+        for(QuestionStore store : stores()) {
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicBoolean writing = new AtomicBoolean(true);
+            List<Future<?>> writers = new ArrayList<>();
+            for(int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for(int i = 0; i < QUESTIONS_PER_WRITER; i++) {
+                        long id = (long) i * WRITERS + writer + 1;
+                        assertThat(store.add(question(id, "writer-" + writer))).isTrue();
+                        assertThat(store.add(question(id, "duplicate"))).isFalse();
+                    }
+                    return null;
+                }));
+            }
+            Future<?> reader = executor.submit(() -> {
+                start.await();
+                while(writing.get()) {
+                    long last = 0;
+                    for(Iterator<Question> iterator = store.iterator(0); iterator.hasNext();) {
+                        long id = iterator.next().getId();
+                        assertThat(id).isGreaterThan(last);
+                        last = id;
+                    }
+                }
+                return null;
+            });
+            start.countDown();
+            for(Future<?> writer : writers)
+                writer.get(60, TimeUnit.SECONDS);
+            writing.set(false);
+            reader.get(60, TimeUnit.SECONDS);
+
+            long total = (long) WRITERS * QUESTIONS_PER_WRITER;
+            assertThat(store.size()).as(store.getClass().getSimpleName()).isEqualTo(total);
+            long expectedId = 0;
+            for(Iterator<Question> iterator = store.iterator(0); iterator.hasNext();) {
+                Question question = iterator.next();
+                assertThat(question.getId()).isEqualTo(++expectedId);
+                assertThat(question.getAuthor()).isEqualTo("writer-" + (expectedId - 1) % WRITERS);
+            }
+            assertThat(expectedId).isEqualTo(total);
+            assertThat(store.get(total / 2).getMessage()).isEqualTo("Question " + total / 2);
+            assertThat(store.iterator(total - 1).next().getId()).isEqualTo(total);
+            assertThat(store.iterator(total).hasNext()).isFalse();
+            assertThat(store.get(total + 1)).isNull();
+        }
+
+    }
+
+    /**
+     * Given:
+     *      An off-heap store mapping slabs of 1KB in a directory.
+     *
+     * When:
+     *      Questions with multi-byte characters and questions larger than a slab are added and replied to.
+     *
+     * Then:
+     *      They are decoded as added and every read shares the replies of the question.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("off-heap store | large and multi-byte questions | decoded as added with shared replies")
+    public void shouldDecodeQuestionsSpanningSlabs() throws Exception {
+
+        OffHeapQuestionStore store = new OffHeapQuestionStore(1024, directory.resolve("slabs"), new AuthorDictionary());
+        String large = String.join("", Collections.nCopies(300, "ünïcødé "));
+        for(long id = 1; id <= 100; id++) {
+            store.add(Question.builder()
+                    .id(id).author("Jöhn " + id % 3).message(id % 10 == 0 ? large : "Qüestion " + id).replies(new ReplyLog())
+                    .build());
+        }
+        ((ReplyLog) store.get(7).getReplies()).append(() -> Reply.builder().id(1L).questionId(7L).author("Jane").message("Hi").build());
+
+        for(long id = 1; id <= 100; id++) {
+            Question question = store.get(id);
+            assertThat(question.getAuthor()).isEqualTo("Jöhn " + id % 3);
+            assertThat(question.getMessage()).isEqualTo(id % 10 == 0 ? large : "Qüestion " + id);
+        }
+        assertThat(store.get(3).getAuthor()).isSameAs(store.get(6).getAuthor());
+        assertThat(store.get(7).getReplies()).extracting(Reply::getMessage).containsExactly("Hi");
+        assertThat(store.getQuestionCount()).isEqualTo(100);
+        assertThat(store.getAllocatedBytes()).isGreaterThanOrEqualTo(store.getUsedBytes());
+
+    }
+
+    /**
+     * Given:
+     *      A write-ahead log holding questions and replies.
+     *
+     * When:
+     *      A service keeping its questions off the heap is created on that log.
+     *
+     * Then:
+     *      The questions and their replies are recovered.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("off-heap store | service recovered from log | questions and replies restored")
+    public void shouldRecoverServiceIntoOffHeapStore() throws Exception {
+
+        Path logDirectory = directory.resolve("wal");
+        try (WriteAheadLog log = WriteAheadLog.open(logDirectory, DurabilityMode.BATCHED, 1, Duration.ofMillis(10))) {
+            QuestionService questionService = new QuestionService(new OffHeapQuestionStore(1024, null, new AuthorDictionary()), log, null, null);
+            Question question = questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+            questionService.replyToQuestion(question.getId(), Reply.builder().author("Jane").message("Hi").build());
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(logDirectory, DurabilityMode.BATCHED, 1, Duration.ofMillis(10))) {
+            QuestionService questionService = new QuestionService(new OffHeapQuestionStore(1024, null, new AuthorDictionary()), log, null, null);
+            Question question = questionService.getQuestionById(1L);
+            assertThat(question.getMessage()).isEqualTo("Hello");
+            assertThat(question.getReplies()).extracting(Reply::getMessage).containsExactly("Hi");
+        }
+
+    }
+
+    /**
+     * Given:
+     *      A service on a store of 4 shards, logged to a write-ahead log.
+     *
+     * When:
+     *      Many threads add questions one by one and in batches and reply to them, then a service is
+     *      recovered from the log into a new sharded store and adds a question.
+     *
+     * Then:
+     *      Ids are unique and ascend on every thread and within every question, which shares the shard of its
+     *      replies, listing merges the shards in id order, and the recovered service hands out an id above
+     *      all the recovered ones.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("sharded store | concurrent writes, then recovery from log | unique ascending ids, merged in id order")
+    public void shouldHandOutUniqueIdsPerShardAndMergeThem() throws Exception {
+
+        int shards = 4;
+        int questionsPerWriter = 200;
+        Path logDirectory = directory.resolve("wal");
+        List<Question> saved = Collections.synchronizedList(new ArrayList<>());
+        try (WriteAheadLog log = WriteAheadLog.open(logDirectory, DurabilityMode.ASYNC, 1, Duration.ofMillis(10))) {
+            QuestionService questionService = new QuestionService(new ShardedQuestionStore(shards), log, null, null);
+            List<Future<?>> writers = new ArrayList<>();
+            for(int w = 0; w < WRITERS; w++) {
+                writers.add(executor.submit(() -> {
+                    long last = 0;
+                    for(int i = 0; i < questionsPerWriter; i++) {
+                        List<Question> questions = i % 10 == 0
+                                ? questionService.addQuestions(Collections.nCopies(3, Question.builder().author("John").message("Batch").build()))
+                                : Collections.singletonList(questionService.addQuestion(Question.builder().author("John").message("Hello").build()));
+                        for(Question question : questions) {
+                            assertThat(question.getId()).isGreaterThan(last);
+                            last = question.getId();
+                            questionService.replyToQuestion(question.getId(), Reply.builder().author("Jane").message("Hi").build());
+                            questionService.addReplies(question.getId(), Collections.nCopies(2, Reply.builder().author("Jane").message("Ho").build()));
+                            saved.add(question);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for(Future<?> writer : writers)
+                writer.get(60, TimeUnit.SECONDS);
+
+            assertThat(saved).extracting(Question::getId).doesNotHaveDuplicates();
+            for(Question question : saved) {
+                assertThat(question.getReplies()).extracting(Reply::getId).isSorted().doesNotHaveDuplicates().hasSize(3)
+                        .allMatch(id -> (id - 1) % shards == (question.getId() - 1) % shards);
+            }
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(logDirectory, DurabilityMode.ASYNC, 1, Duration.ofMillis(10))) {
+            QuestionService questionService = new QuestionService(new ShardedQuestionStore(shards), log, null, null);
+            List<Long> listed = new ArrayList<>();
+            questionService.iterateQuestions(null, 100).forEachRemaining(question -> listed.add(question.getId()));
+            long highest = saved.stream().mapToLong(Question::getId).max().getAsLong();
+
+            assertThat(listed).isSorted().hasSameSizeAs(saved)
+                    .containsExactlyInAnyOrderElementsOf(saved.stream().map(Question::getId).toList());
+            assertThat(questionService.getQuestionById(highest).getReplies()).hasSize(3);
+            assertThat(questionService.addQuestion(Question.builder().author("John").message("Again").build()).getId()).isGreaterThan(highest);
+        }
+
+    }
+
+    /**
+     * Given:
+     *      A service on a persistent store, logged to a write-ahead log, with 2 questions, the first with a reply.
+     *
+     * When:
+     *      A snapshot of the store is taken, then a question is added and both questions are replied to, then
+     *      a service is recovered from the log into a new persistent store.
+     *
+     * Then:
+     *      The snapshot and the questions read from it are unchanged, the store has every write, and the
+     *      recovered service has the questions and replies, paged by reply id.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("persistent store | snapshot, then writes, then recovery from log | snapshot unchanged, writes recovered")
+    public void shouldKeepSnapshotsOfPersistentStoreUnchanged() throws Exception {
+
+        Path logDirectory = directory.resolve("wal");
+        try (WriteAheadLog log = WriteAheadLog.open(logDirectory, DurabilityMode.BATCHED, 1, Duration.ofMillis(10))) {
+            PersistentQuestionStore store = new PersistentQuestionStore();
+            QuestionService questionService = new QuestionService(store, log, null, null);
+            questionService.addQuestions(Arrays.asList(Question.builder().author("John").message("First").build(),
+                    Question.builder().author("John").message("Second").build()));
+            questionService.replyToQuestion(1L, Reply.builder().author("Jane").message("Hi").build());
+            PersistentQuestionStore.Snapshot snapshot = store.snapshot();
+            Question first = snapshot.get(1);
+
+            questionService.addQuestion(Question.builder().author("John").message("Third").build());
+            questionService.replyToQuestion(1L, Reply.builder().author("Jane").message("Again").build());
+            questionService.addReplies(2L, Arrays.asList(Reply.builder().author("Jane").message("Ho").build()));
+
+            assertThat(snapshot.size()).isEqualTo(2);
+            assertThat(snapshot.get(3)).isNull();
+            assertThat(first.getReplies()).extracting(Reply::getMessage).containsExactly("Hi");
+            assertThat(snapshot.get(2).getReplies()).isEmpty();
+            List<String> listed = new ArrayList<>();
+            snapshot.iterator(0).forEachRemaining(question -> listed.add(question.getMessage()));
+            assertThat(listed).containsExactly("First", "Second");
+            assertThat(store.size()).isEqualTo(3);
+            assertThat(store.get(1).getReplies()).extracting(Reply::getMessage).containsExactly("Hi", "Again");
+            assertThat(store.get(1).getMessage()).isEqualTo("First");
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(logDirectory, DurabilityMode.BATCHED, 1, Duration.ofMillis(10))) {
+            QuestionService questionService = new QuestionService(new PersistentQuestionStore(), log, null, null);
+
+            assertThat(questionService.getQuestionById(3L).getMessage()).isEqualTo("Third");
+            assertThat(questionService.getReplies(1L, 1L, 10).getItems()).extracting(Reply::getMessage).containsExactly("Again");
+            assertThat(questionService.getQuestionById(2L).getReplies()).extracting(Reply::getMessage).containsExactly("Ho");
+        }
+
+    }
+
+    /**
+     * Given:
+     *      A persistent store with a question per writer and one more question.
+     *
+     * When:
+     *      A reply to the last question is held in its turn, while every writer replies to its own question
+     *      many times, one reply or a batch of two at a time.
+     *
+     * Then:
+     *      The writers aren't held by the reply in progress, and every question ends up with all of its
+     *      replies in ascending id order.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("persistent store | one reply held in its turn, concurrent replies to other questions | others not held, every reply kept in order")
+    public void shouldReplyToQuestionsOfPersistentStoreConcurrently() throws Exception {
+
+        PersistentQuestionStore store = new PersistentQuestionStore();
+        for(long id = 1; id <= WRITERS + 1; id++)
+            store.add(question(id, "John"));
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Reply> held = executor.submit(() -> store.addReply(store.get(WRITERS + 1), () -> {
+            holding.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Reply.builder().id(1L).questionId((long) WRITERS + 1).author("Jane").message("Held").build();
+        }));
+        assertThat(holding.await(10, TimeUnit.SECONDS)).isTrue();
+
+        List<Future<?>> writers = new ArrayList<>();
+        for(int w = 0; w < WRITERS; w++) {
+            long questionId = w + 1;
+            writers.add(executor.submit(() -> {
+                long replyId = 0;
+                for(int i = 0; i < 500; i++) {
+                    Question question = store.get(questionId);
+                    if(i % 2 == 0) {
+                        long id = ++replyId;
+                        store.addReply(question, () -> Reply.builder().id(id).questionId(questionId).author("Jane").message("Hi").build());
+                    } else {
+                        long first = ++replyId;
+                        long second = ++replyId;
+                        store.addReplies(question, () -> Arrays.asList(
+                                Reply.builder().id(first).questionId(questionId).author("Jane").message("Hi").build(),
+                                Reply.builder().id(second).questionId(questionId).author("Jane").message("Hi").build()));
+                    }
+                }
+                return null;
+            }));
+        }
+        for(Future<?> writer : writers)
+            writer.get(30, TimeUnit.SECONDS);
+        assertThat(held.isDone()).isFalse();
+        release.countDown();
+        held.get(10, TimeUnit.SECONDS);
+
+        for(long questionId = 1; questionId <= WRITERS; questionId++) {
+            List<Reply> replies = store.get(questionId).getReplies();
+            assertThat(replies).hasSize(750);
+            for(int i = 0; i < replies.size(); i++)
+                assertThat(replies.get(i).getId()).isEqualTo(i + 1L);
+        }
+        assertThat(store.get(WRITERS + 1).getReplies()).extracting(Reply::getMessage).containsExactly("Held");
+
+    }
+
+    /**
+     * Given:
+     *      A service whose store holds the first question while it is being added.
+     *
+     * When:
+     *      A second question is added while the first one is held, a third fails to be added, then the first one
+     *      is released.
+     *
+     * Then:
+     *      Pages and iterators stop below the held question, so that no cursor goes past it, then list every
+     *      question once it is added, the failed one not holding them up.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("array store | question held while being added, later ones added or failed | listing stops below the held question")
+    public void shouldListQuestionsOnlyUpToTheOnesStillBeingAdded() throws Exception {
+
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        QuestionService questionService = new QuestionService(new ArrayQuestionStore() {
+
+            @Override
+            public boolean add(Question question) {
+                if(question.getMessage().equals("Failed"))
+                    throw new IllegalStateException("Failed to add");
+                if(question.getMessage().equals("Held")) {
+                    holding.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.add(question);
+            }
+        }, null, null, null);
+        Future<Question> held = executor.submit(() -> questionService.addQuestion(Question.builder().author("John").message("Held").build()));
+        assertThat(holding.await(10, TimeUnit.SECONDS)).isTrue();
+        Question later = questionService.addQuestion(Question.builder().author("Jane").message("Later").build());
+        assertThatThrownBy(() -> questionService.addQuestion(Question.builder().author("Jane").message("Failed").build()))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(questionService.getQuestionById(later.getId())).isNotNull();
+        assertThat(questionService.getQuestions(null, 10).getItems()).isEmpty();
+        assertThat(questionService.iterateQuestions(null, 10).hasNext()).isFalse();
+
+        release.countDown();
+        held.get(10, TimeUnit.SECONDS);
+        Question last = questionService.addQuestion(Question.builder().author("John").message("Last").build());
+        assertThat(questionService.getQuestions(null, 10).getItems()).extracting(Question::getMessage).containsExactly("Held", "Later", "Last");
+        assertThat(questionService.getQuestions(later.getId(), 10).getItems()).extracting(Question::getId).containsExactly(last.getId());
+
+    }
+
+    /**
+     * Given:
+     *      A service with a store of two shards, whose questions were all saved by a thread of one shard.
+     *
+     * When:
+     *      A page of questions is read, then a thread of the other shard, which lags behind, saves a question.
+     *
+     * Then:
+     *      The question gets an id above the cursor of the page, so the next page returns it.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("sharded store | page read, then question saved by a lagging shard | question above the cursor")
+    public void shouldSaveQuestionsOfLaggingShardAboveReadCursor() throws Exception {
+
+        QuestionService questionService = new QuestionService(new ShardedQuestionStore(2), null, null, null);
+        for(int i = 0; i < 10; i++)
+            questionService.addQuestion(Question.builder().author("John").message("Question " + i).build());
+        CursorPage<Question> page = questionService.getQuestions(null, 10);
+        assertThat(page.getItems()).hasSize(10);
+        long cursor = page.getItems().get(9).getId();
+
+        // Thread ids pick the shard, so look for a thread of the other one.
+        long shard = Thread.currentThread().threadId() % 2;
+        AtomicReference<Question> saved = new AtomicReference<>();
+        Thread lagging;
+        do {
+            lagging = new Thread(() -> saved.set(questionService.addQuestion(Question.builder().author("Jane").message("Lagging").build())));
+        } while(lagging.threadId() % 2 == shard);
+        lagging.start();
+        lagging.join(10_000);
+
+        assertThat(saved.get().getId()).isGreaterThan(cursor);
+        assertThat(questionService.getQuestions(cursor, 10).getItems()).extracting(Question::getMessage).containsExactly("Lagging");
+
+    }
+
+    private List<QuestionStore> stores() throws IOException {
+        return Arrays.asList(new SkipListQuestionStore(), new ArrayQuestionStore(), new ShardedQuestionStore(3), new PersistentQuestionStore(),
+                new OffHeapQuestionStore(4096, null, new AuthorDictionary()),
+                new OffHeapQuestionStore(4096, directory.resolve("mapped"), new AuthorDictionary()));
+    }
+
+    private static Question question(long id, String author) {
+        return Question.builder().id(id).author(author).message("Question " + id).replies(new ReplyLog()).build();
+    }
+
+}
@@ -0,0 +1,184 @@
+package com.example.forum.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ReplyLogTest {
+
+    private static final int WRITERS = 16;
+
+    private static final int REPLIES_PER_WRITER = 20_000;
+
+    private static final int READERS = 4;
+
+    private ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Given:
+     *      A question in the datastore.
+     *
+     * When:
+     *      Many threads reply to that question at the same time
+     *      while other threads keep serializing the question.
+     *
+     * Then:
+     *      No reply is lost, every reply id is unique and ascending in log order
+     *      and serializing never fails.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("hot question | concurrent replies and reads | no reply lost and no read failure")
+    public void shouldKeepAllRepliesWhenRepliedConcurrentlyWhileBeingRead() throws Exception {
+
+        QuestionService questionService = new QuestionService();
+        Question question = questionService.addQuestion(Question.builder().author("John").message("Hello").build());
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        List<Future<?>> writers = new ArrayList<>();
+        for(int w = 0; w < WRITERS; w++) {
+            String author = "writer-" + w;
+            writers.add(executor.submit(() -> {
+                start.await();
+                for(int i = 0; i < REPLIES_PER_WRITER; i++)
+                    questionService.replyToQuestion(question.getId(), Reply.builder().author(author).message("reply " + i).build());
+                return null;
+            }));
+        }
+        List<Future<Integer>> readers = new ArrayList<>();
+        for(int r = 0; r < READERS; r++) {
+            readers.add(executor.submit((Callable<Integer>) () -> {
+                start.await();
+                int reads = 0;
+                while(writing.get()) {
+                    Question read = objectMapper.readValue(
+                            objectMapper.writeValueAsBytes(questionService.getQuestionById(question.getId())), Question.class);
+                    assertAscendingUniqueIds(read.getReplies());
+                    reads++;
+                }
+                return reads;
+            }));
+        }
+
+        start.countDown();
+        for(Future<?> writer : writers)
+            writer.get(60, TimeUnit.SECONDS);
+        writing.set(false);
+        for(Future<Integer> reader : readers)
+            assertThat(reader.get(60, TimeUnit.SECONDS)).isPositive();
+
+        List<Reply> replies = questionService.getQuestionById(question.getId()).getReplies();
+        assertThat(replies).hasSize(WRITERS * REPLIES_PER_WRITER);
+        assertAscendingUniqueIds(replies);
+        Set<String> perAuthorMessages = new HashSet<>();
+        for(Reply reply : replies)
+            perAuthorMessages.add(reply.getAuthor() + "/" + reply.getMessage());
+        assertThat(perAuthorMessages).hasSize(WRITERS * REPLIES_PER_WRITER);
+
+    }
+
+    /**
+     * Given:
+     *      A reply log with replies spanning several chunks.
+     *
+     * When:
+     *      A snapshot is taken and more replies are appended.
+     *
+     * Then:
+     *      The snapshot keeps returning the replies present when it was taken.
+     */
+    @Test
+    @DisplayName("reply log | snapshot then append | snapshot unchanged")
+    public void shouldKeepSnapshotUnchangedWhenAppendingAfterIt() {
+
+        ReplyLog log = new ReplyLog();
+        for(long id = 1; id <= 100; id++)
+            appendReply(log, id);
+
+        List<Reply> snapshot = log.snapshot();
+        for(long id = 101; id <= 1000; id++)
+            appendReply(log, id);
+
+        assertThat(snapshot).hasSize(100);
+        assertThat(snapshot.get(99).getId()).isEqualTo(100L);
+        assertThat(snapshot).extracting(Reply::getId).isSorted();
+        assertThat(log).hasSize(1000);
+        List<Long> ids = new ArrayList<>();
+        for(Reply reply : log)
+            ids.add(reply.getId());
+        assertThat(ids).hasSize(1000).isSorted().doesNotHaveDuplicates();
+        assertThat(log.get(999).getId()).isEqualTo(1000L);
+
+    }
+
+    /**
+     * Given:
+     *      A reply log with replies of ascending but not contiguous ids spanning several chunks.
+     *
+     * When:
+     *      The replies following various ids are requested.
+     *
+     * Then:
+     *      Exactly the replies with a greater id are returned, at most limit of them.
+     */
+    @Test
+    @DisplayName("reply log | replies after id | following replies up to limit")
+    public void shouldReturnRepliesFollowingIdUpToLimit() {
+
+        ReplyLog log = new ReplyLog();
+        for(long id = 10; id <= 1000; id += 10)
+            appendReply(log, id);
+
+        assertThat(log.repliesAfter(0, 3)).extracting(Reply::getId).containsExactly(10L, 20L, 30L);
+        assertThat(log.repliesAfter(500, 2)).extracting(Reply::getId).containsExactly(510L, 520L);
+        assertThat(log.repliesAfter(505, 2)).extracting(Reply::getId).containsExactly(510L, 520L);
+        assertThat(log.repliesAfter(990, 5)).extracting(Reply::getId).containsExactly(1000L);
+        assertThat(log.repliesAfter(1000, 5)).isEmpty();
+        assertThat(log.repliesAfter(0, Integer.MAX_VALUE)).hasSize(100);
+
+    }
+
+    private static void appendReply(ReplyLog log, long id) {
+        log.append(() -> Reply.builder().id(id).author("Jane").message("Hi").questionId(1L).build());
+    }
+
+    private static void assertAscendingUniqueIds(List<Reply> replies) {
+        List<Long> ids = new ArrayList<>(replies.size());
+        for(Reply reply : replies)
+            ids.add(reply.getId());
+        List<Long> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        assertThat(ids).isEqualTo(sorted);
+        assertThat(new HashSet<>(ids)).hasSize(ids.size());
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.example.forum.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class StripedIdSequenceTest {
+
+    /**
+     * Given:
+     *      A sequence of 8 stripes whose ids may be at most 64 below one handed out before.
+     *
+     * When:
+     *      Ids are reserved from one busy stripe and, now and then, from the other ones.
+     *
+     * Then:
+     *      Ids are unique and ascend within their stripe, and every id is at most 64 below the highest one
+     *      reserved before it, however far the busy stripe ran ahead.
+     */
+    @Test
+    @DisplayName("8 stripes, max skew 64 | one stripe far busier than the others | unique ids at most 64 below the highest")
+    public void shouldBoundSkewOfStripes() {
+
+        StripedIdSequence sequence = new StripedIdSequence(8, 64);
+        Random random = new Random(42);
+        Set<Long> ids = new HashSet<>();
+        long[] lastOfStripe = new long[8];
+        long highest = 0;
+        for(int i = 0; i < 10_000; i++) {
+            long owner = random.nextInt(10) == 0 ? 2 + random.nextInt(7) : 1;
+            int count = 1 + random.nextInt(3);
+            long first = sequence.reserve(owner, count);
+            int stripe = sequence.stripe(first);
+
+            assertThat(stripe).isEqualTo(sequence.stripe(owner));
+            assertThat(first).isGreaterThan(lastOfStripe[stripe]).isGreaterThanOrEqualTo(highest - 64);
+            for(int j = 0; j < count; j++)
+                assertThat(ids.add(first + (long) j * sequence.stride())).isTrue();
+            lastOfStripe[stripe] = first + (long) (count - 1) * sequence.stride();
+            highest = Math.max(highest, lastOfStripe[stripe]);
+        }
+        assertThat(sequence.last()).isEqualTo(highest);
+
+    }
+
+}
@@ -0,0 +1,303 @@
+package com.example.forum.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.forum.model.Question;
+import com.example.forum.model.Reply;
+import com.example.forum.persistence.DurabilityMode;
+import com.example.forum.persistence.WriteAheadLog;
+
+public class WriteRingTest {
+
+    private static final int PRODUCERS = 8;
+
+    private ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS);
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Given:
+     *      A ring of 16 slots applying at most 5 writes at once.
+     *
+     * When:
+     *      Many threads submit many more writes than it holds, then the ring is stopped.
+     *
+     * Then:
+     *      Every write is applied once, in batches of at most 5, and the writes of every thread in the order
+     *      it submitted them.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("ring of 16, batches of 5 | concurrent submits, then stop | every write applied once in submission order")
+    public void shouldApplyEveryWriteInSubmissionOrder() throws Exception {
+
+        int writesPerProducer = 10_000;
+        List<long[]> applied = new ArrayList<>();
+        List<Integer> batchSizes = new ArrayList<>();
+        WriteRing<long[]> ring = new WriteRing<>("test-writer", 16, 5, batch -> {
+            batchSizes.add(batch.size());
+            applied.addAll(batch);
+        });
+        ring.start();
+        List<Future<?>> producers = new ArrayList<>();
+        for(int p = 0; p < PRODUCERS; p++) {
+            long producer = p;
+            producers.add(executor.submit(() -> {
+                for(long i = 0; i < writesPerProducer; i++)
+                    ring.submit(new long[] {producer, i});
+            }));
+        }
+        for(Future<?> producer : producers)
+            producer.get(60, TimeUnit.SECONDS);
+        ring.stop();
+
+        assertThat(applied).hasSize(PRODUCERS * writesPerProducer);
+        assertThat(batchSizes).allMatch(size -> size >= 1 && size <= 5);
+        long[] next = new long[PRODUCERS];
+        for(long[] write : applied)
+            assertThat(write[1]).isEqualTo(next[(int) write[0]]++);
+        assertThat(ring.backlog()).isZero();
+
+    }
+
+    /**
+     * Given:
+     *      A service logged to a write-ahead log whose writes are applied by its single writer.
+     *
+     * When:
+     *      Many threads add questions one by one and in batches and reply to them, then a service is
+     *      recovered from the log.
+     *
+     * Then:
+     *      Ids are handed out without gaps or duplicates, replies ascend within their question, and the
+     *      recovered service holds every question with its replies.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("single writer with log | concurrent writes, then recovery | dense unique ids, everything recovered")
+    public void shouldApplyServiceWritesOnSingleWriter() throws Exception {
+
+        int questionsPerProducer = 100;
+        List<Question> saved = Collections.synchronizedList(new ArrayList<>());
+        try (WriteAheadLog log = WriteAheadLog.open(directory, DurabilityMode.BATCHED, 1 << 20, Duration.ofMillis(10))) {
+            QuestionService questionService = new QuestionService(log);
+            WriteRing<?> ring = questionService.startSingleWriter(64, 16);
+            List<Future<?>> producers = new ArrayList<>();
+            for(int p = 0; p < PRODUCERS; p++) {
+                producers.add(executor.submit(() -> {
+                    for(int i = 0; i < questionsPerProducer; i++) {
+                        List<Question> questions = i % 10 == 0
+                                ? questionService.addQuestions(Collections.nCopies(2, Question.builder().author("John").message("Batch").build()))
+                                : Collections.singletonList(questionService.addQuestion(Question.builder().author("John").message("Hello").build()));
+                        for(Question question : questions) {
+                            questionService.replyToQuestion(question.getId(), Reply.builder().author("Jane").message("Hi").build());
+                            questionService.addReplies(question.getId(), Collections.nCopies(2, Reply.builder().author("Jane").message("Ho").build()));
+                            saved.add(question);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for(Future<?> producer : producers)
+                producer.get(60, TimeUnit.SECONDS);
+            ring.stop();
+
+            assertThat(saved).extracting(Question::getId).doesNotHaveDuplicates().allMatch(id -> id >= 1 && id <= saved.size());
+            for(Question question : saved)
+                assertThat(question.getReplies()).extracting(Reply::getId).hasSize(3).isSorted().doesNotHaveDuplicates();
+            assertThat(questionService.getStoreVersion()).isEqualTo(saved.size() * 4L);
+        }
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory, DurabilityMode.BATCHED, 1 << 20, Duration.ofMillis(10))) {
+            QuestionService questionService = new QuestionService(log);
+            for(Question question : saved) {
+                assertThat(questionService.getQuestionById(question.getId()).getReplies()).extracting(Reply::getId)
+                        .containsExactlyElementsOf(question.getReplies().stream().map(Reply::getId).toList());
+            }
+        }
+
+    }
+
+    /**
+     * Given:
+     *      A started ring whose handler throws an Error for one write.
+     *
+     * When:
+     *      That write is submitted, followed by another one, then the ring is stopped and one more is submitted.
+     *
+     * Then:
+     *      The writer outlives the Error and applies the next write, and the write submitted after stopping
+     *      is rejected.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("handler throwing an Error | next write, then write after stop | next applied, last rejected")
+    public void shouldOutliveErrorsOfHandler() throws Exception {
+
+        List<String> applied = Collections.synchronizedList(new ArrayList<>());
+        WriteRing<String> ring = new WriteRing<>("test-writer", 16, 1, batch -> {
+            if(batch.contains("poison"))
+                throw new AssertionError("Poisoned");
+            applied.addAll(batch);
+        });
+        ring.start();
+        ring.submit("poison");
+        ring.submit("next");
+        ring.stop();
+
+        assertThat(applied).containsExactly("next");
+        assertThat(ring.terminated()).isTrue();
+        assertThatThrownBy(() -> ring.submit("late")).isInstanceOf(IllegalStateException.class);
+
+    }
+
+    /**
+     * Given:
+     *      A service applying its writes on its single writer, with a datastore throwing an Error for the first
+     *      question added.
+     *
+     * When:
+     *      Two questions are added one after the other.
+     *
+     * Then:
+     *      Adding the first fails with the Error instead of waiting forever, and the second is saved.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("single writer, datastore throwing an Error once | two questions added | first fails, second saved")
+    public void shouldFailWriteOfBatchThrowingError() throws Exception {
+
+        AtomicBoolean failed = new AtomicBoolean();
+        QuestionStore store = new ArrayQuestionStore() {
+            @Override
+            public boolean add(Question question) {
+                if(failed.compareAndSet(false, true))
+                    throw new AssertionError("Out of luck");
+                return super.add(question);
+            }
+        };
+        QuestionService questionService = new QuestionService(store, null, null, null);
+        WriteRing<?> ring = questionService.startSingleWriter(16, 4);
+        Question question = Question.builder().author("John").message("Anyone?").build();
+
+        assertThatThrownBy(() -> questionService.addQuestion(question)).isInstanceOf(AssertionError.class).hasMessage("Out of luck");
+        Question saved = questionService.addQuestion(question);
+        ring.stop();
+
+        assertThat(questionService.getQuestionById(saved.getId())).isNotNull();
+
+    }
+
+    /**
+     * Given:
+     *      A service applying its writes on its single writer, over a store which holds a first question while
+     *      it is added and fails to add a question of a given message.
+     *
+     * When:
+     *      A question which fails and one which doesn't are added while the first one is held, so that they
+     *      are applied in the same batch.
+     *
+     * Then:
+     *      Only the question which failed fails, the other one is saved and its caller gets it.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("single writer, store failing one question of a batch | batch applied | only that question fails")
+    public void shouldFailOnlyFailedWriteOfBatch() throws Exception {
+
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        QuestionStore store = new ArrayQuestionStore() {
+            @Override
+            public boolean add(Question question) {
+                if(question.getMessage().equals("Broken"))
+                    throw new IllegalStateException("Failed to add");
+                if(question.getMessage().equals("Held")) {
+                    holding.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.add(question);
+            }
+        };
+        QuestionService questionService = new QuestionService(store, null, null, null);
+        WriteRing<?> ring = questionService.startSingleWriter(16, 4);
+        Future<Question> held = executor.submit(() -> questionService.addQuestion(Question.builder().author("John").message("Held").build()));
+        assertThat(holding.await(10, TimeUnit.SECONDS)).isTrue();
+        Future<Question> fine = executor.submit(() -> questionService.addQuestion(Question.builder().author("John").message("Fine").build()));
+        Future<Question> broken = executor.submit(() -> questionService.addQuestion(Question.builder().author("John").message("Broken").build()));
+        while(ring.backlog() < 2)
+            Thread.sleep(1);
+        release.countDown();
+
+        assertThat(held.get(10, TimeUnit.SECONDS).getMessage()).isEqualTo("Held");
+        Question saved = fine.get(10, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> broken.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        ring.stop();
+
+        assertThat(questionService.getQuestionById(saved.getId()).getMessage()).isEqualTo("Fine");
+        assertThat(questionService.getStoreVersion()).isEqualTo(2);
+
+    }
+
+    /**
+     * Given:
+     *      A service over a store of 4 shards, applying its writes on its single writer.
+     *
+     * When:
+     *      8 questions are added one after the other.
+     *
+     * Then:
+     *      Their ids fall into every shard instead of the one of the writer thread.
+     *
+     * @throws Exception
+     */
+    @Test
+    @DisplayName("single writer, 4 shards | 8 questions added | ids in every shard")
+    public void shouldSpreadQuestionsOfSingleWriterOverShards() throws Exception {
+
+        QuestionService questionService = new QuestionService(new ShardedQuestionStore(4), null, null, null);
+        WriteRing<?> ring = questionService.startSingleWriter(16, 4);
+        List<Long> ids = new ArrayList<>();
+        for(int i = 0; i < 8; i++)
+            ids.add(questionService.addQuestion(Question.builder().author("John").message("Where?").build()).getId());
+        ring.stop();
+
+        assertThat(ids).extracting(id -> (id - 1) % 4).containsOnly(0L, 1L, 2L, 3L);
+
+    }
+
+}